@@ -12,6 +12,15 @@ public class RouterHealth {
     // not vial for health
     private boolean vehiclePresence;
 
+    /*
+     * Stage of indexing the graph left running in background after it is loaded, not serialized as it is built again
+     * for every load. Other stages are done before the graph is returned, so they are always ready.
+     */
+    // not vial for health, only GraphQL API needs it
+    private transient volatile boolean graphQLIndex;
+    // name of the background stage of indexing which failed, null if none did
+    private transient volatile String failedIndexStage;
+
     boolean calculateHealth() {
         boolean health = configReady;
         if (System.getProperty("sharedVehiclesApi") != null) {
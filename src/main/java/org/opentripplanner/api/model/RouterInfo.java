@@ -49,6 +49,9 @@ public class RouterInfo {
 
     public boolean health;
 
+    /** Readiness of updaters and of the GraphQL index, which make up the health */
+    public RouterHealth healthDetails;
+
     public RouterInfo(String routerId, Graph graph) {
         this.routerId = routerId;
         this.polygon = graph.getConvexHull();
@@ -62,6 +65,7 @@ public class RouterInfo {
         hasParkRide = graph.hasParkRide;
         travelOptions = TravelOptionsMaker.makeOptions(graph);
         this.health = graph.routerHealth.calculateHealth();
+        this.healthDetails = graph.routerHealth;
     }
 
     public boolean getHasBikeSharing() {
@@ -32,6 +32,17 @@ public class TripPlan {
         this.date = date;
     }
 
+    /**
+     * Copy of given plan, with its own list of itineraries. Itineraries themselves are shared, as they are not
+     * modified after the plan is created.
+     */
+    public TripPlan(TripPlan other) {
+        this.from = other.from;
+        this.to = other.to;
+        this.date = other.date == null ? null : new Date(other.date.getTime());
+        this.itinerary = new ArrayList<>(other.itinerary);
+    }
+
     public void addItinerary(Itinerary itinerary) {
         this.itinerary.add(itinerary);
     }
@@ -17,6 +17,7 @@ import org.opentripplanner.profile.BikeRentalStationInfo;
 import org.opentripplanner.routing.alertpatch.Alert;
 import org.opentripplanner.routing.alertpatch.AlertPatch;
 import org.opentripplanner.routing.core.*;
+import org.opentripplanner.routing.core.vehicle_sharing.MinorCurrencyUnits;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.edgetype.*;
 import org.opentripplanner.routing.edgetype.flex.PartialPatternHop;
@@ -188,7 +189,7 @@ public abstract class GraphPathToTripPlanConverter {
         itinerary.traverseDistance = lastState.getTraverseDistanceInMeters();
         itinerary.distanceTraversedInMode = lastState.createDistanceTraversedInModeMap();
         itinerary.timeTraversedInMode = lastState.createTimeTraversedInModeMap();
-        itinerary.price = lastState.getTraversalPrice();
+        itinerary.price = MinorCurrencyUnits.toBigDecimal(lastState.getTraversalPriceInMinorUnits());
 
         itinerary.transfers = lastState.getNumBoardings();
         if (itinerary.transfers > 0 && !(states.get(0).getVertex() instanceof OnboardDepartVertex)) {
@@ -6,6 +6,7 @@ import org.opentripplanner.api.model.TripPlan;
 import org.opentripplanner.api.model.error.PlannerError;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.impl.GraphPathFinder;
+import org.opentripplanner.routing.impl.PlanResponseCache;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.standalone.Router;
 import org.slf4j.Logger;
@@ -57,18 +58,34 @@ public class PlannerResource extends RoutingResource {
         RoutingRequest request = null;
         Router router = null;
         List<GraphPath> paths = null;
+        long itineraryConversionNanos = 0;
+        boolean servedFromCache = false;
         try {
 
             /* Fill in request fields from query parameters via shared superclass method, catching any errors. */
             request = super.buildRequest();
             router = otpServer.getRouter(request.routerId);
 
-            /* Find some good GraphPaths through the OTP Graph. */
-            GraphPathFinder gpFinder = new GraphPathFinder(router); // we could also get a persistent router-scoped GraphPathFinder but there's no setup cost here
-            paths = gpFinder.graphPathFinderEntryPoint(request);
+            /* Identical requests may be answered with a plan found earlier, if the router caches them. */
+            PlanResponseCache.Key cacheKey = router.planResponseCache == null ? null
+                    : router.planResponseCache.keyFor(uriInfo.getQueryParameters(), request, router.graph);
+            TripPlan plan = cacheKey == null ? null : router.planResponseCache.get(cacheKey);
+            servedFromCache = plan != null;
 
-            /* Convert the internal GraphPaths to a TripPlan object that is included in an OTP web service Response. */
-            TripPlan plan = GraphPathToTripPlanConverter.generatePlan(paths, request, router.graph.streetIndex);
+            if (plan == null) {
+                /* Find some good GraphPaths through the OTP Graph. */
+                GraphPathFinder gpFinder = new GraphPathFinder(router); // we could also get a persistent router-scoped GraphPathFinder but there's no setup cost here
+                paths = gpFinder.graphPathFinderEntryPoint(request);
+
+                /* Convert the internal GraphPaths to a TripPlan object that is included in an OTP web service Response. */
+                long conversionStartTime = System.nanoTime();
+                plan = GraphPathToTripPlanConverter.generatePlan(paths, request, router.graph.streetIndex);
+                itineraryConversionNanos = System.nanoTime() - conversionStartTime;
+                // Searches which timed out may find other itineraries when repeated
+                if (cacheKey != null && !request.rctx.aborted && !request.rctx.debugOutput.timedOut) {
+                    router.planResponseCache.put(cacheKey, plan, router.graph);
+                }
+            }
             response.setPlan(plan);
 
         } catch (Exception e) {
@@ -81,7 +98,12 @@ public class PlannerResource extends RoutingResource {
                 if (request.rctx != null) {
                     response.debugOutput = request.rctx.debugOutput;
                 }
-                request.cleanup(); // TODO verify that this cleanup step is being done on Analyst web services
+                if (router != null) {
+                    router.searchMetrics.record(request, itineraryConversionNanos);
+                }
+                if (!servedFromCache) {
+                    request.cleanup(); // TODO verify that this cleanup step is being done on Analyst web services
+                }
             }
         }
 
@@ -0,0 +1,35 @@
+package org.opentripplanner.api.resource;
+
+import org.opentripplanner.standalone.OTPServer;
+import org.opentripplanner.standalone.Router;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+
+/**
+ * Report costs of routing requests handled by a router and statistics of its caches, in Prometheus text format.
+ */
+@Path("/routers/{routerId}/metrics")
+public class SearchMetricsResource {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+
+    Router router;
+
+    public SearchMetricsResource (@Context OTPServer otpServer, @PathParam("routerId") String routerId) {
+        router = otpServer.getRouter(routerId);
+    }
+
+    /** Return histograms of search costs per mode set and optimization profile. */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics () {
+        String metrics = router.searchMetrics.toPrometheusText(router.graph, router.planResponseCache);
+        return Response.status(Response.Status.OK).entity(metrics).build();
+    }
+
+}
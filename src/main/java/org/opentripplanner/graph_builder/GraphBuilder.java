@@ -3,9 +3,11 @@ package org.opentripplanner.graph_builder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Lists;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
+import org.opentripplanner.graph_builder.module.ContractionHierarchyModule;
 import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
 import org.opentripplanner.graph_builder.module.EmbedConfig;
 import org.opentripplanner.graph_builder.module.GtfsModule;
+import org.opentripplanner.graph_builder.module.LandmarkModule;
 import org.opentripplanner.graph_builder.module.PruneFloatingIslands;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.graph_builder.module.TransitToTaggedStopsModule;
@@ -44,7 +46,8 @@ import java.util.zip.ZipFile;
 
 /**
  * This makes a Graph out of various inputs like GTFS and OSM.
- * It is modular: GraphBuilderModules are placed in a list and run in sequence.
+ * It is modular: GraphBuilderModules are placed in a list and run in sequence, except for modules which declare
+ * that they are independent of each other, which are run in parallel (see {@link GraphBuilderScheduler}).
  */
 public class GraphBuilder implements Runnable {
 
@@ -64,6 +67,10 @@ public class GraphBuilder implements Runnable {
 
     private final  File timePredictionFile;
 
+    private final File reportFile;
+
+    private final int parallelism;
+
     private boolean disableGtfsDataExport;
 
     private long transitLineStopTimesExportTimeout;
@@ -87,6 +94,8 @@ public class GraphBuilder implements Runnable {
         transitLineStopsFile = new File(path, "przystanki.csv");
         transitLineStopTimesFile = new File(path, "godziny.csv");
         timePredictionFile = new File(path,"prediction.csv");
+        reportFile = new File(path, GraphBuilderReport.FILENAME);
+        parallelism = builderParams.buildParallelism;
         graph.stopClusterMode = builderParams.stopClusterMode;
     }
 
@@ -164,8 +173,8 @@ public class GraphBuilder implements Runnable {
         }
 
         HashMap<Class<?>, Object> extra = new HashMap<Class<?>, Object>();
-        for (GraphBuilderModule load : _graphBuilderModules)
-            load.buildGraph(graph, extra);
+        GraphBuilderReport report = new GraphBuilderScheduler(_graphBuilderModules, parallelism).run(graph, extra);
+        report.log();
 
         graph.summarizeBuilderAnnotations();
         if (serializeGraph) {
@@ -179,6 +188,7 @@ public class GraphBuilder implements Runnable {
                     LOG.info("Skipping transit line data export, as requested");
                 }
                 graph.saveEdgesForTimePrediction(timePredictionFile);
+                report.write(reportFile);
             } catch (Exception ex) {
                 throw new IllegalStateException(ex);
             }
@@ -354,6 +364,14 @@ public class GraphBuilder implements Runnable {
             graphBuilder.addModule(new TrafficPredictionBuilderModule(jsonFile));
         }
 
+        // Landmarks cover all vertices, so they are computed when the street network is complete
+        if (hasOSM) {
+            graphBuilder.addModule(new LandmarkModule(builderParams.landmarks));
+            if (!builderParams.contractionHierarchies.isEmpty()) {
+                graphBuilder.addModule(new ContractionHierarchyModule(builderParams.contractionHierarchies));
+            }
+        }
+
         return graphBuilder;
     }
 
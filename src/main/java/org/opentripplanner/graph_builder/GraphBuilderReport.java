@@ -0,0 +1,71 @@
+package org.opentripplanner.graph_builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall time and heap usage of graph builder modules, written as JSON next to the graph so that build times of
+ * subsequent builds can be compared.
+ * <p>
+ * Heap usage is sampled for the whole JVM, so peak of a module includes memory used by modules running at the same
+ * time, as well as garbage which wasn't collected yet.
+ */
+@Getter
+public class GraphBuilderReport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GraphBuilderReport.class);
+
+    public static final String FILENAME = "buildReport.json";
+
+    private final int parallelism;
+
+    private final long totalMillis;
+
+    private final List<ModuleReport> modules;
+
+    GraphBuilderReport(int parallelism, long totalMillis, List<ModuleReport> modules) {
+        this.parallelism = parallelism;
+        this.totalMillis = totalMillis;
+        this.modules = Collections.unmodifiableList(new ArrayList<>(modules));
+    }
+
+    public void log() {
+        for (ModuleReport module : modules) {
+            LOG.info("{} took {} s, peak heap {} MB", module.getModule(), module.getDurationMillis() / 1000.0,
+                    module.getPeakHeapBytes() / (1024 * 1024));
+        }
+    }
+
+    public void write(File file) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, this);
+        LOG.info("Graph build report written to {}", file);
+    }
+
+    @Getter
+    public static class ModuleReport {
+
+        private final String module;
+
+        /* Since start of the first module */
+        private final long startMillis;
+
+        private final long durationMillis;
+
+        private final long peakHeapBytes;
+
+        ModuleReport(String module, long startMillis, long durationMillis, long peakHeapBytes) {
+            this.module = module;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+    }
+}
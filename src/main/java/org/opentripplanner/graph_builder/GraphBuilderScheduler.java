@@ -0,0 +1,197 @@
+package org.opentripplanner.graph_builder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opentripplanner.graph_builder.GraphBuilderReport.ModuleReport;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
+import org.opentripplanner.routing.graph.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs graph builder modules in the order in which they were added, except that a module may start while preceding
+ * modules are still running, when it doesn't depend on them. A module depends on each preceding module which provides
+ * one of its prerequisites, or which modifies a part of the graph that the module reads or modifies, or the other way
+ * round. Modules which don't declare which parts of the graph they read and modify depend on all preceding modules,
+ * and all following modules depend on them.
+ * <p>
+ * Wall time and heap usage of each module are recorded in a {@link GraphBuilderReport}.
+ */
+public class GraphBuilderScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GraphBuilderScheduler.class);
+
+    private static final long HEAP_SAMPLING_MILLIS = 100;
+
+    private final List<GraphBuilderModule> modules;
+
+    private final int parallelism;
+
+    /* For each module, positions of the preceding modules which have to finish before it starts */
+    private final List<Set<Integer>> dependencies = new ArrayList<>();
+
+    /* Records of modules which are running now, updated by the heap sampler */
+    private final Set<ModuleRecord> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param parallelism maximum number of modules running at the same time, modules are run one after another in the
+     *                    order in which they were added if it is 1
+     */
+    public GraphBuilderScheduler(List<GraphBuilderModule> modules, int parallelism) {
+        this.modules = new ArrayList<>(modules);
+        this.parallelism = Math.max(1, parallelism);
+        for (int i = 0; i < this.modules.size(); i++) {
+            Set<Integer> moduleDependencies = new TreeSet<>();
+            for (int preceding = 0; preceding < i; preceding++) {
+                if (dependsOn(this.modules.get(i), this.modules.get(preceding))) {
+                    moduleDependencies.add(preceding);
+                }
+            }
+            dependencies.add(moduleDependencies);
+        }
+    }
+
+    static boolean dependsOn(GraphBuilderModule module, GraphBuilderModule preceding) {
+        return !Collections.disjoint(module.getPrerequisites(), preceding.provides())
+                || conflict(preceding.modifies(), module.reads(), module.modifies())
+                || conflict(module.modifies(), preceding.reads(), preceding.modifies());
+    }
+
+    private static boolean conflict(Set<GraphPart> modified, Set<GraphPart> read, Set<GraphPart> alsoModified) {
+        return !Collections.disjoint(modified, read) || !Collections.disjoint(modified, alsoModified);
+    }
+
+    /**
+     * @return for each module, positions of the preceding modules which have to finish before it starts
+     */
+    List<Set<Integer>> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * Runs all modules and waits until they finish. If any of them fails, modules depending on it are not started, and
+     * the failure is rethrown when the modules already running are finished.
+     */
+    public GraphBuilderReport run(Graph graph, HashMap<Class<?>, Object> extra) {
+        long startTime = System.currentTimeMillis();
+        List<ModuleRecord> records = new ArrayList<>();
+        for (GraphBuilderModule module : modules) {
+            records.add(new ModuleRecord(module));
+        }
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("graph-builder-heap-sampler").setDaemon(true).build());
+        heapSampler.scheduleAtFixedRate(this::sampleHeap, HEAP_SAMPLING_MILLIS, HEAP_SAMPLING_MILLIS,
+                TimeUnit.MILLISECONDS);
+        try {
+            if (parallelism == 1) {
+                for (ModuleRecord record : records) {
+                    runModule(record, graph, extra);
+                }
+            } else {
+                runConcurrently(records, graph, extra);
+            }
+        } finally {
+            heapSampler.shutdownNow();
+        }
+        List<ModuleReport> moduleReports = new ArrayList<>();
+        for (ModuleRecord record : records) {
+            moduleReports.add(new ModuleReport(record.name, record.startTime - startTime,
+                    record.endTime - record.startTime, record.peakHeapBytes.get()));
+        }
+        return new GraphBuilderReport(parallelism, System.currentTimeMillis() - startTime, moduleReports);
+    }
+
+    private void runConcurrently(List<ModuleRecord> records, Graph graph, HashMap<Class<?>, Object> extra) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, records.size()),
+                new ThreadFactoryBuilder().setNameFormat("graph-builder-%d").build());
+        try {
+            List<CompletableFuture<Void>> finished = new ArrayList<>();
+            for (int i = 0; i < records.size(); i++) {
+                ModuleRecord record = records.get(i);
+                CompletableFuture<?>[] required = dependencies.get(i).stream().map(finished::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                finished.add(CompletableFuture.allOf(required)
+                        .thenRunAsync(() -> runModule(record, graph, extra), executor));
+            }
+            Throwable failure = null;
+            for (CompletableFuture<Void> moduleFinished : finished) {
+                try {
+                    moduleFinished.join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void runModule(ModuleRecord record, Graph graph, HashMap<Class<?>, Object> extra) {
+        LOG.info("Running {}", record.name);
+        record.startTime = System.currentTimeMillis();
+        record.updatePeak(usedHeapBytes());
+        running.add(record);
+        try {
+            record.module.buildGraph(graph, extra);
+        } finally {
+            running.remove(record);
+            record.updatePeak(usedHeapBytes());
+            record.endTime = System.currentTimeMillis();
+        }
+    }
+
+    private void sampleHeap() {
+        long usedHeapBytes = usedHeapBytes();
+        for (ModuleRecord record : running) {
+            record.updatePeak(usedHeapBytes);
+        }
+    }
+
+    private static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class ModuleRecord {
+
+        private final GraphBuilderModule module;
+        private final String name;
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        /* Written by the thread running the module, read after it is finished */
+        private volatile long startTime;
+        private volatile long endTime;
+
+        private ModuleRecord(GraphBuilderModule module) {
+            this.module = module;
+            this.name = module.getClass().getSimpleName();
+        }
+
+        private void updatePeak(long usedHeapBytes) {
+            peakHeapBytes.accumulateAndGet(usedHeapBytes, Math::max);
+        }
+    }
+}
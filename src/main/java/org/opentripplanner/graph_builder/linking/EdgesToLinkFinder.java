@@ -1,5 +1,6 @@
 package org.opentripplanner.graph_builder.linking;
 
+import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.common.geometry.HashGridSpatialIndex;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.routing.core.TraverseMode;
@@ -39,8 +40,15 @@ public class EdgesToLinkFinder {
      * Finds all near edges that we should link given vertex to
      */
     public List<StreetEdge> findEdgesToLink(Vertex vertex, TraverseMode traverseMode) {
-        List<StreetEdge> candidateEdges = getCandidateEdges(vertex, traverseMode);
-        return bestCandidatesGetter.getBestCandidates(candidateEdges, edge -> linkingGeoTools.distance(vertex, edge));
+        return findEdgesToLinkAt(vertex.getCoordinate(), traverseMode);
+    }
+
+    /**
+     * Finds all near edges that we should link a vertex at given coordinate to, without creating that vertex
+     */
+    public List<StreetEdge> findEdgesToLinkAt(Coordinate coordinate, TraverseMode traverseMode) {
+        List<StreetEdge> candidateEdges = getCandidateEdges(coordinate, traverseMode);
+        return bestCandidatesGetter.getBestCandidates(candidateEdges, edge -> linkingGeoTools.distance(coordinate, edge));
     }
 
     /**
@@ -48,9 +56,17 @@ public class EdgesToLinkFinder {
      * renting vehicle.
      */
     public List<StreetEdge> findEdgesToLinkVehicle(Vertex vertex, VehicleDescription vehicle) {
+        return findEdgesToLinkVehicleAt(vertex.getCoordinate(), vehicle);
+    }
+
+    /**
+     * Finds all near edges that we should link a vertex of given renting vehicle at given coordinate to, without
+     * creating that vertex. Return only edges that are traversable by given renting vehicle.
+     */
+    public List<StreetEdge> findEdgesToLinkVehicleAt(Coordinate coordinate, VehicleDescription vehicle) {
         List<StreetEdge> candidateEdges =
-                filterEdgesForGivenVehicle(getCandidateEdges(vertex, vehicle.getTraverseMode()), vehicle);
-        return bestCandidatesGetter.getBestCandidates(candidateEdges, edge -> linkingGeoTools.distance(vertex, edge));
+                filterEdgesForGivenVehicle(getCandidateEdges(coordinate, vehicle.getTraverseMode()), vehicle);
+        return bestCandidatesGetter.getBestCandidates(candidateEdges, edge -> linkingGeoTools.distance(coordinate, edge));
     }
 
     /**
@@ -76,7 +92,7 @@ public class EdgesToLinkFinder {
                 .collect(toList());
     }
 
-    private List<StreetEdge> getCandidateEdges(Vertex vertex, TraverseMode traverseMode) {
+    private List<StreetEdge> getCandidateEdges(Coordinate coordinate, TraverseMode traverseMode) {
         final TraverseModeSet traverseModeSet;
         if (traverseMode == TraverseMode.BICYCLE) {
             traverseModeSet = new TraverseModeSet(traverseMode, TraverseMode.WALK);
@@ -87,7 +103,7 @@ public class EdgesToLinkFinder {
         // This should remove any issues with things coming out of the spatial index in different orders
         // Then we link to everything that is within DUPLICATE_WAY_EPSILON_METERS of of the best distance
         // so that we capture back edges and duplicate ways.
-        return idx.query(linkingGeoTools.createEnvelope(vertex)).stream()
+        return idx.query(linkingGeoTools.createEnvelope(coordinate)).stream()
                 .filter(StreetEdge.class::isInstance)
                 .map(StreetEdge.class::cast)
                 // note: not filtering by radius here as distance calculation is expensive
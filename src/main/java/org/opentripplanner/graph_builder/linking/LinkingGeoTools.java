@@ -60,11 +60,18 @@ public class LinkingGeoTools {
      * Projected distance from vertex to edge, in latitude degrees
      */
     public double distance(Vertex vertex, Edge edge) {
-        double xscale = createXScale(vertex);
+        return distance(vertex.getCoordinate(), edge);
+    }
+
+    /**
+     * Projected distance from coordinate to edge, in latitude degrees
+     */
+    public double distance(Coordinate coordinate, Edge edge) {
+        double xscale = createXScale(coordinate.y);
         // Despite the fact that we want to use a fast somewhat inaccurate projection, still use JTS library tools
         // for the actual distance calculations.
         LineString transformed = equirectangularProject(edge.getGeometry(), xscale);
-        return transformed.distance(geometryFactory.createPoint(new Coordinate(vertex.getLon() * xscale, vertex.getLat())));
+        return transformed.distance(geometryFactory.createPoint(new Coordinate(coordinate.x * xscale, coordinate.y)));
     }
 
     /**
@@ -78,13 +85,20 @@ public class LinkingGeoTools {
      * Wrap vertex coords in an envelope for searching in spatial index {@link HashGridSpatialIndex}
      */
     public Envelope createEnvelope(Vertex vertex) {
+        return createEnvelope(vertex.getCoordinate());
+    }
+
+    /**
+     * Wrap coordinate in an envelope for searching in spatial index {@link HashGridSpatialIndex}
+     */
+    public Envelope createEnvelope(Coordinate coordinate) {
         // Find nearby street edges
         // TODO: we used to use an expanding-envelope search, which is more efficient in
         // dense areas. but first let's see how inefficient this is. I suspect it's not too
         // bad and the gains in simplicity are considerable.
-        Envelope env = new Envelope(vertex.getCoordinate());
+        Envelope env = new Envelope(coordinate);
         // Expand more in the longitude direction than the latitude direction to account for converging meridians.
-        env.expandBy(RADIUS_DEG / createXScale(vertex), RADIUS_DEG);
+        env.expandBy(RADIUS_DEG / createXScale(coordinate.y), RADIUS_DEG);
         return env;
     }
 
@@ -132,6 +146,10 @@ public class LinkingGeoTools {
      * Performs a simple local equirectangular projection, so distances are expressed in degrees latitude
      */
     private double createXScale(Vertex vertex) {
-        return Math.cos(vertex.getLat() * Math.PI / 180);
+        return createXScale(vertex.getLat());
+    }
+
+    private double createXScale(double lat) {
+        return Math.cos(lat * Math.PI / 180);
     }
 }
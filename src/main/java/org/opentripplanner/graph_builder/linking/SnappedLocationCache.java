@@ -0,0 +1,80 @@
+package org.opentripplanner.graph_builder.linking;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.EqualsAndHashCode;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Remembers street edges which origins and destinations were linked to, shared by all requests to the same graph.
+ * Clients send the same coordinates (home, work, popular places) over and over, so the spatial index query and
+ * choosing best candidates may be skipped for them.
+ * <p>
+ * Coordinates are rounded to about a meter, locations closer to each other are linked to the same edges. Only edges
+ * are stored, split points are computed again for the exact coordinate of every request, as that is just a projection
+ * onto a few edges. Cached edges which were removed from graph since (for example split permanently by an updater)
+ * invalidate their entry. The cache belongs to the graph, so it is dropped when the graph is reloaded.
+ */
+public class SnappedLocationCache {
+
+    private static final long MAX_CACHED_LOCATIONS = 100_000;
+
+    /* 1e-5 degree is about a meter */
+    private static final double COORDINATE_PRECISION = 1e5;
+
+    private final Cache<Key, List<StreetEdge>> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_LOCATIONS)
+            .recordStats()
+            .build();
+
+    /**
+     * @return street edges given vertex should be linked to, computed by `findEdges` if they are not cached yet
+     */
+    public List<StreetEdge> getEdgesToLink(Vertex vertex, TraverseMode traverseMode,
+                                           Supplier<List<StreetEdge>> findEdges) {
+        Key key = new Key(vertex.getCoordinate(), traverseMode);
+        List<StreetEdge> streetEdges = cache.getIfPresent(key);
+        if (streetEdges != null && streetEdges.stream().allMatch(SnappedLocationCache::isInGraph)) {
+            return streetEdges;
+        }
+        streetEdges = findEdges.get();
+        cache.put(key, streetEdges);
+        return streetEdges;
+    }
+
+    /**
+     * Hit rate, hit and miss counts since the graph was loaded
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static boolean isInGraph(StreetEdge edge) {
+        return edge.getToVertex().getIncoming().contains(edge);
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+
+        private final long x;
+        private final long y;
+        private final TraverseMode traverseMode;
+
+        private Key(Coordinate coordinate, TraverseMode traverseMode) {
+            this.x = Math.round(coordinate.x * COORDINATE_PRECISION);
+            this.y = Math.round(coordinate.y * COORDINATE_PRECISION);
+            this.traverseMode = traverseMode;
+        }
+    }
+}
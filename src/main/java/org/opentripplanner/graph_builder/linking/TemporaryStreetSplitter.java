@@ -11,6 +11,7 @@ import org.opentripplanner.routing.bike_rental.BikeRentalStation;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.rentedgetype.*;
 import org.opentripplanner.routing.error.TrivialPathException;
 import org.opentripplanner.routing.graph.Edge;
@@ -18,6 +19,7 @@ import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.VehiclePresenceProbabilities;
 import org.opentripplanner.util.I18NString;
 import org.opentripplanner.util.LocalizedString;
 import org.opentripplanner.util.NonLocalizedString;
@@ -25,9 +27,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * This class links temporary vertices like origin od destination to graph.
  */
@@ -74,7 +81,8 @@ public class TemporaryStreetSplitter {
         StreetSplitter splitter = new StreetSplitter(graph, index);
         EdgesToLinkFinder edgesToLinkFinder = new EdgesToLinkFinder(index, linkingGeoTools, bestCandidatesGetter);
         ToEdgeLinker toEdgeLinker = new ToEdgeLinker(streetEdgeFactory, splitter, edgesMaker, linkingGeoTools, false);
-        ToStreetEdgeLinker toStreetEdgeLinker = new ToStreetEdgeLinker(toEdgeLinker, edgesToLinkFinder, linkingGeoTools, edgesMaker);
+        ToStreetEdgeLinker toStreetEdgeLinker = new ToStreetEdgeLinker(toEdgeLinker, edgesToLinkFinder, linkingGeoTools,
+                edgesMaker, graph.snappedLocationCache);
         ToTransitStopLinker toTransitStopLinker = new ToTransitStopLinker(transitStopIndex, linkingGeoTools, edgesMaker, bestCandidatesGetter);
         return new TemporaryStreetSplitter(graph, toStreetEdgeLinker, toTransitStopLinker, edgesToLinkFinder);
     }
@@ -119,6 +127,43 @@ public class TemporaryStreetSplitter {
         }
     }
 
+    /**
+     * Links many rentable vehicles to graph at once, giving the same result as linking them one by one with
+     * `linkRentableVehicleToGraph`. Street edges, parking zones and presence probabilities for all vehicles are
+     * computed in parallel, as that only reads spatial indices and heatmaps, so that graph writer thread is blocked only
+     * for the short phase of splitting streets, which has to be done serially. Rent edges are complete before they are
+     * linked to graph, so searches never see them half initialized.
+     *
+     * @param visibleFromVersion version of {@link org.opentripplanner.routing.core.vehicle_sharing.RentableVehicleOverlay}
+     *                           from which linked vehicles should be visible, set on rent edges before they are
+     *                           linked to graph
+     */
+    public Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> linkRentableVehiclesToGraph(
+            List<VehicleDescription> vehicles, long visibleFromVersion) {
+        // Candidates are found at positions of vehicles, so no vertex is created for vehicles which can't be linked
+        List<LinkingCandidates> candidates = vehicles.parallelStream()
+                .map(this::findLinkingCandidates)
+                .collect(toList());
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink = new HashMap<>();
+        for (int i = 0; i < vehicles.size(); i++) {
+            VehicleDescription vehicle = vehicles.get(i);
+            LinkingCandidates vehicleCandidates = candidates.get(i);
+            if (vehicleCandidates.streetEdges.isEmpty()) {
+                LOG.debug("Couldn't link vehicle {} to graph", vehicle);
+                vehiclesTriedToLink.put(vehicle, Optional.empty());
+                continue;
+            }
+            // Vertices get their indices from a global counter, so they can't be created in parallel
+            TemporaryRentVehicleVertex vertex = createUnlinkedTemporaryRentVehicleVertex(vehicle);
+            RentVehicleEdge rentVehicleEdge =
+                    addRentVehicleEdge(vertex, vehicle, vehicleCandidates.parkingZones, visibleFromVersion);
+            rentVehicleEdge.setPresenceProbabilities(vehicleCandidates.presenceProbabilities);
+            toStreetEdgeLinker.linkTemporarilyBothWaysToEdges(vertex, vehicleCandidates.streetEdges);
+            vehiclesTriedToLink.put(vehicle, Optional.of(vertex));
+        }
+        return vehiclesTriedToLink;
+    }
+
     /**
      * Wraps bike rental station in `TemporaryRentVehicleVertex` and links that vertex to graph with temporary edges.
      * Split edges don't replace existing ones, so only temporary edges and vertices are created.
@@ -177,12 +222,16 @@ public class TemporaryStreetSplitter {
     }
 
     private TemporaryRentVehicleVertex createTemporaryRentVehicleVertex(VehicleDescription vehicle) {
-        TemporaryRentVehicleVertex vertex = new TemporaryRentVehicleVertex(UUID.randomUUID().toString(),
-                new CoordinateXY(vehicle.getLongitude(), vehicle.getLatitude()), "Renting vehicle " + vehicle);
+        TemporaryRentVehicleVertex vertex = createUnlinkedTemporaryRentVehicleVertex(vehicle);
         addRentVehicleEdge(vertex, vehicle);
         return vertex;
     }
 
+    private TemporaryRentVehicleVertex createUnlinkedTemporaryRentVehicleVertex(VehicleDescription vehicle) {
+        return new TemporaryRentVehicleVertex(UUID.randomUUID().toString(),
+                new CoordinateXY(vehicle.getLongitude(), vehicle.getLatitude()), "Renting vehicle " + vehicle);
+    }
+
     private void addRentVehicleEdge(TemporaryRentVehicleVertex vertex, VehicleDescription vehicle) {
         if (graph.parkingZonesCalculator == null) {
             new RentVehicleEdge(vertex, vehicle);
@@ -191,6 +240,31 @@ public class TemporaryStreetSplitter {
         }
     }
 
+    private RentVehicleEdge addRentVehicleEdge(TemporaryRentVehicleVertex vertex, VehicleDescription vehicle,
+                                               @Nullable ParkingZoneInfo parkingZones, long visibleFromVersion) {
+        if (parkingZones == null) {
+            return new RentVehicleEdge(vertex, vehicle, visibleFromVersion);
+        } else {
+            return new RentVehicleEdge(vertex, vehicle, parkingZones, visibleFromVersion);
+        }
+    }
+
+    /**
+     * Doesn't modify graph, so it may be called in parallel for many vehicles
+     */
+    private LinkingCandidates findLinkingCandidates(VehicleDescription vehicle) {
+        List<StreetEdge> streetEdges = toStreetEdgeLinker.findStreetEdgesToLinkBothWays(vehicle);
+        if (streetEdges.isEmpty()) {
+            return new LinkingCandidates(streetEdges, null, null);
+        }
+        ParkingZoneInfo parkingZones = graph.parkingZonesCalculator == null ? null
+                : graph.parkingZonesCalculator.getParkingZonesForCoordinate(
+                        new CoordinateXY(vehicle.getLongitude(), vehicle.getLatitude()));
+        VehiclePresenceProbabilities presenceProbabilities = graph.carPresencePredictor == null ? null
+                : graph.carPresencePredictor.predictAllHorizons(vehicle);
+        return new LinkingCandidates(streetEdges, parkingZones, presenceProbabilities);
+    }
+
     private TemporaryRentVehicleVertex createTemporaryRentBikeVertex(BikeRentalStation station) {
         TemporaryRentVehicleVertex vertex = new TemporaryRentVehicleVertex(UUID.randomUUID().toString(),
                 new CoordinateXY(station.longitude, station.latitude), "Renting station " + station);
@@ -205,4 +279,22 @@ public class TemporaryStreetSplitter {
             new RentBikeEdge(vertex, station, graph.parkingZonesCalculator.getParkingZonesForLocation(vertex));
         }
     }
+
+    private static class LinkingCandidates {
+
+        private final List<StreetEdge> streetEdges;
+
+        @Nullable
+        private final ParkingZoneInfo parkingZones;
+
+        @Nullable
+        private final VehiclePresenceProbabilities presenceProbabilities;
+
+        private LinkingCandidates(List<StreetEdge> streetEdges, @Nullable ParkingZoneInfo parkingZones,
+                                  @Nullable VehiclePresenceProbabilities presenceProbabilities) {
+            this.streetEdges = streetEdges;
+            this.parkingZones = parkingZones;
+            this.presenceProbabilities = presenceProbabilities;
+        }
+    }
 }
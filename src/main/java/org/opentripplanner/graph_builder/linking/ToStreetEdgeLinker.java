@@ -1,5 +1,6 @@
 package org.opentripplanner.graph_builder.linking;
 
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.linearref.LinearLocation;
 import org.opentripplanner.routing.core.RoutingRequest;
@@ -13,8 +14,10 @@ import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -33,12 +36,24 @@ public class ToStreetEdgeLinker {
 
     private final EdgesMaker edgesMaker;
 
+    @Nullable
+    private final SnappedLocationCache snappedLocationCache;
+
     public ToStreetEdgeLinker(ToEdgeLinker toEdgeLinker, EdgesToLinkFinder edgesToLinkFinder, LinkingGeoTools linkingGeoTools,
                               EdgesMaker edgesMaker) {
+        this(toEdgeLinker, edgesToLinkFinder, linkingGeoTools, edgesMaker, null);
+    }
+
+    /**
+     * @param snappedLocationCache if not null, edges found for origins and destinations are cached there
+     */
+    public ToStreetEdgeLinker(ToEdgeLinker toEdgeLinker, EdgesToLinkFinder edgesToLinkFinder, LinkingGeoTools linkingGeoTools,
+                              EdgesMaker edgesMaker, @Nullable SnappedLocationCache snappedLocationCache) {
         this.toEdgeLinker = toEdgeLinker;
         this.edgesToLinkFinder = edgesToLinkFinder;
         this.linkingGeoTools = linkingGeoTools;
         this.edgesMaker = edgesMaker;
+        this.snappedLocationCache = snappedLocationCache;
     }
 
     /**
@@ -46,7 +61,10 @@ public class ToStreetEdgeLinker {
      */
     public boolean linkTemporarily(TemporaryStreetLocation vertex, TraverseMode traverseMode, RoutingRequest options)
             throws TrivialPathException {
-        List<StreetEdge> streetEdges = edgesToLinkFinder.findEdgesToLink(vertex, traverseMode);
+        List<StreetEdge> streetEdges = snappedLocationCache == null
+                ? edgesToLinkFinder.findEdgesToLink(vertex, traverseMode)
+                : snappedLocationCache.getEdgesToLink(vertex, traverseMode,
+                () -> edgesToLinkFinder.findEdgesToLink(vertex, traverseMode));
         streetEdges.forEach(edge -> linkTemporarilyToEdge(vertex, edge, options));
         return !streetEdges.isEmpty();
     }
@@ -55,11 +73,46 @@ public class ToStreetEdgeLinker {
      * Temporarily link this vertex to graph in both directions (make connections both to and from `vertex`)
      */
     public boolean linkTemporarilyBothWays(TemporaryRentVehicleVertex vertex, VehicleDescription vehicle) {
-        List<StreetEdge> streetEdges = getStreetEdgesForceIncludeWalkEdge(vertex, vehicle);
+        return linkTemporarilyBothWaysToEdges(vertex, findStreetEdgesToLinkBothWays(vertex, vehicle));
+    }
+
+    /**
+     * Temporarily link this vertex to given street edges in both directions, which were found earlier by
+     * `findStreetEdgesToLinkBothWays`
+     */
+    public boolean linkTemporarilyBothWaysToEdges(TemporaryRentVehicleVertex vertex, List<StreetEdge> streetEdges) {
         streetEdges.forEach(edge -> linkTemporarilyToEdgeBothWays(vertex, edge));
         return !streetEdges.isEmpty();
     }
 
+    /**
+     * Finds street edges `vertex` would be linked to by `linkTemporarilyBothWays`, without linking it
+     */
+    public List<StreetEdge> findStreetEdgesToLinkBothWays(TemporaryRentVehicleVertex vertex, VehicleDescription vehicle) {
+        return addStreetEdgesForWalking(edgesToLinkFinder.findEdgesToLinkVehicle(vertex, vehicle),
+                () -> edgesToLinkFinder.findEdgesToLink(vertex, TraverseMode.WALK));
+    }
+
+    /**
+     * Finds street edges a vertex of given vehicle, placed at its current position, would be linked to by
+     * `linkTemporarilyBothWays`, without creating that vertex
+     */
+    public List<StreetEdge> findStreetEdgesToLinkBothWays(VehicleDescription vehicle) {
+        Coordinate coordinate = new Coordinate(vehicle.getLongitude(), vehicle.getLatitude());
+        return addStreetEdgesForWalking(edgesToLinkFinder.findEdgesToLinkVehicleAt(coordinate, vehicle),
+                () -> edgesToLinkFinder.findEdgesToLinkAt(coordinate, TraverseMode.WALK));
+    }
+
+    private List<StreetEdge> addStreetEdgesForWalking(List<StreetEdge> streetEdgesForRiding,
+                                                      Supplier<List<StreetEdge>> streetEdgesForWalking) {
+        if (streetEdgesForRiding.stream().anyMatch(edge -> edge.canTraverse(new TraverseModeSet(TraverseMode.WALK)))) {
+            return streetEdgesForRiding;
+        }
+        return Stream.concat(streetEdgesForRiding.stream(), streetEdgesForWalking.get().stream())
+                .distinct()
+                .collect(toList());
+    }
+
     /**
      * Permanently link this vertex into the graph (make connections both to and from `vertex` and remove original edge)
      */
@@ -83,18 +136,6 @@ public class ToStreetEdgeLinker {
         }
     }
 
-    private List<StreetEdge> getStreetEdgesForceIncludeWalkEdge(TemporaryRentVehicleVertex vertex,
-                                                                VehicleDescription vehicle) {
-        List<StreetEdge> streetEdgesForRiding = edgesToLinkFinder.findEdgesToLinkVehicle(vertex, vehicle);
-        if (streetEdgesForRiding.stream().anyMatch(edge -> edge.canTraverse(new TraverseModeSet(TraverseMode.WALK)))) {
-            return streetEdgesForRiding;
-        }
-        List<StreetEdge> streetEdgesForWalking = edgesToLinkFinder.findEdgesToLink(vertex, TraverseMode.WALK);
-        return Stream.concat(streetEdgesForRiding.stream(), streetEdgesForWalking.stream())
-                .distinct()
-                .collect(toList());
-    }
-
     private void linkTemporarilyToEdgeBothWays(TemporaryRentVehicleVertex vertex, StreetEdge edge) {
         LineString orig = edge.getGeometry();
         LinearLocation ll = linkingGeoTools.findLocationClosestToVertex(vertex, orig);
@@ -0,0 +1,49 @@
+package org.opentripplanner.graph_builder.module;
+
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.routing.algorithm.ch.ContractionHierarchy;
+import org.opentripplanner.routing.algorithm.ch.ContractionHierarchyBuilder;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Builds contraction hierarchies of street edges for given street modes, using default speeds of these modes.
+ * <p>
+ * It has to run after all modules adding street edges to the graph.
+ */
+public class ContractionHierarchyModule implements GraphBuilderModule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContractionHierarchyModule.class);
+
+    private final List<TraverseMode> modes;
+
+    public ContractionHierarchyModule(List<TraverseMode> modes) {
+        this.modes = modes;
+    }
+
+    @Override
+    public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
+        RoutingRequest defaultRequest = new RoutingRequest();
+        for (TraverseMode mode : modes) {
+            ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(mode, defaultRequest.getSpeed(mode))
+                    .build(graph.getStreetEdges());
+            graph.contractionHierarchies.put(mode, hierarchy);
+            LOG.info("Built {} contraction hierarchy with {} shortcuts", mode, hierarchy.getShortcutsCount());
+        }
+    }
+
+    @Override
+    public void checkInputs() {
+        for (TraverseMode mode : modes) {
+            if (mode != TraverseMode.CAR && mode != TraverseMode.WALK && mode != TraverseMode.BICYCLE) {
+                throw new IllegalArgumentException("Contraction hierarchies can be built only for street modes, not " + mode);
+            }
+        }
+    }
+}
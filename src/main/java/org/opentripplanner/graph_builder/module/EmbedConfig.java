@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
 import org.opentripplanner.routing.graph.Graph;
 
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Set;
 
 /**
  * A graph builder that will embed the JSON graph builder and router configuration into the Graph.
@@ -36,6 +39,16 @@ public class EmbedConfig implements GraphBuilderModule {
         }
     }
 
+    @Override
+    public Set<GraphPart> reads() {
+        return EnumSet.noneOf(GraphPart.class);
+    }
+
+    @Override
+    public Set<GraphPart> modifies() {
+        return EnumSet.of(GraphPart.CONFIG);
+    }
+
     @Override
     public void checkInputs() {
 
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import org.onebusaway.gtfs.services.GtfsMutableRelationalDao;
 import org.opentripplanner.calendar.impl.MultiCalendarServiceImpl;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
 import org.opentripplanner.gtfs.BikeAccess;
 import org.opentripplanner.gtfs.GtfsContext;
 import org.opentripplanner.gtfs.GtfsLibrary;
@@ -78,6 +80,17 @@ public class GtfsModule implements GraphBuilderModule {
         return Collections.emptyList();
     }
 
+    @Override
+    public Set<GraphPart> reads() {
+        return EnumSet.of(GraphPart.TRANSIT);
+    }
+
+    /* Transit stops are linked to streets later, by other modules */
+    @Override
+    public Set<GraphPart> modifies() {
+        return EnumSet.of(GraphPart.TRANSIT, GraphPart.NEW_VERTICES_AND_EDGES);
+    }
+
     public void setFareServiceFactory(FareServiceFactory factory) {
         fareServiceFactory = factory;
     }
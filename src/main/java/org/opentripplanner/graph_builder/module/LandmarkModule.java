@@ -0,0 +1,144 @@
+package org.opentripplanner.graph_builder.module;
+
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.routing.algorithm.strategies.LandmarkDistances;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Chooses landmarks spread over the street network and computes distances from them to all vertices, which are used
+ * by {@link org.opentripplanner.routing.algorithm.strategies.LandmarkRWH}. Landmarks are chosen greedily: every next
+ * landmark is the vertex farthest from all landmarks chosen so far.
+ * <p>
+ * It has to run after all modules adding vertices or edges to the graph.
+ */
+public class LandmarkModule implements GraphBuilderModule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LandmarkModule.class);
+
+    /* Search from first vertex may end up on a small island, then we try a vertex not reached so far */
+    private static final int MAX_START_ATTEMPTS = 5;
+
+    private final int landmarksCount;
+
+    public LandmarkModule(int landmarksCount) {
+        this.landmarksCount = landmarksCount;
+    }
+
+    @Override
+    public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
+        int verticesCount = Vertex.getMaxIndex();
+        if (landmarksCount <= 0 || graph.getVertices().isEmpty()) {
+            return;
+        }
+        LOG.info("Computing distances from {} landmarks to {} vertices", landmarksCount, verticesCount);
+
+        float[] distancesToLandmarks = findLargestComponentDistances(graph, verticesCount);
+        if (distancesToLandmarks == null) {
+            LOG.warn("Could not find a large connected part of the street network, skipping landmarks");
+            return;
+        }
+
+        int[] landmarkIndices = new int[landmarksCount];
+        float[][] distances = new float[landmarksCount][];
+        for (int landmark = 0; landmark < landmarksCount; landmark++) {
+            Vertex farthest = findFarthest(graph, distancesToLandmarks);
+            landmarkIndices[landmark] = farthest.getIndex();
+            distances[landmark] = computeDistances(farthest, verticesCount);
+            for (int i = 0; i < verticesCount; i++) {
+                distancesToLandmarks[i] = landmark == 0 ? distances[0][i]
+                        : Math.min(distancesToLandmarks[i], distances[landmark][i]);
+            }
+            LOG.info("Computed distances from landmark {} at {}", landmark, farthest.getCoordinate());
+        }
+        graph.landmarkDistances = new LandmarkDistances(landmarkIndices, distances);
+    }
+
+    /**
+     * @return distances from a vertex reaching at least half of the graph, so that landmarks are chosen from
+     * the main part of the street network
+     */
+    private float[] findLargestComponentDistances(Graph graph, int verticesCount) {
+        Vertex start = graph.getVertices().iterator().next();
+        for (int attempt = 0; attempt < MAX_START_ATTEMPTS; attempt++) {
+            float[] distances = computeDistances(start, verticesCount);
+            int reached = 0;
+            Vertex notReached = null;
+            for (Vertex vertex : graph.getVertices()) {
+                if (distances[vertex.getIndex()] != LandmarkDistances.UNREACHABLE) {
+                    reached++;
+                } else if (notReached == null) {
+                    notReached = vertex;
+                }
+            }
+            if (reached * 2 >= graph.getVertices().size()) {
+                return distances;
+            }
+            start = notReached;
+        }
+        return null;
+    }
+
+    private static Vertex findFarthest(Graph graph, float[] distances) {
+        Vertex farthest = null;
+        float farthestDistance = -1;
+        for (Vertex vertex : graph.getVertices()) {
+            float distance = distances[vertex.getIndex()];
+            if (distance != LandmarkDistances.UNREACHABLE && distance > farthestDistance) {
+                farthest = vertex;
+                farthestDistance = distance;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Dijkstra search ignoring edge directions and permissions
+     */
+    static float[] computeDistances(Vertex source, int verticesCount) {
+        float[] distances = new float[verticesCount];
+        Arrays.fill(distances, LandmarkDistances.UNREACHABLE);
+        BinHeap<Vertex> queue = new BinHeap<>();
+        distances[source.getIndex()] = 0;
+        queue.insert(source, 0);
+        while (!queue.empty()) {
+            double distance = queue.peek_min_key();
+            Vertex vertex = queue.extract_min();
+            if (distance > distances[vertex.getIndex()]) {
+                // already reached with a shorter distance
+                continue;
+            }
+            for (Edge edge : vertex.getOutgoing()) {
+                relax(queue, distances, edge.getToVertex(), distance + edge.getDistanceInMeters());
+            }
+            for (Edge edge : vertex.getIncoming()) {
+                relax(queue, distances, edge.getFromVertex(), distance + edge.getDistanceInMeters());
+            }
+        }
+        return distances;
+    }
+
+    private static void relax(BinHeap<Vertex> queue, float[] distances, Vertex vertex, double distance) {
+        // Rounding down keeps distances lower bounds
+        float roundedDistance = (float) distance;
+        if (roundedDistance > distance) {
+            roundedDistance = Math.nextDown(roundedDistance);
+        }
+        int index = vertex.getIndex();
+        if (index < distances.length && roundedDistance < distances[index]) {
+            distances[index] = roundedDistance;
+            queue.insert(vertex, roundedDistance);
+        }
+    }
+
+    @Override
+    public void checkInputs() {
+    }
+}
@@ -13,6 +13,7 @@ import org.opentripplanner.common.pqueue.BinHeap;
 import org.opentripplanner.graph_builder.annotation.ElevationFlattened;
 import org.opentripplanner.graph_builder.module.extra_elevation_data.ElevationPoint;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
 import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFactory;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetWithElevationEdge;
@@ -25,10 +26,12 @@ import org.slf4j.LoggerFactory;
 import javax.media.jai.InterpolationBilinear;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * {@link org.opentripplanner.graph_builder.services.GraphBuilderModule} plugin that applies elevation data to street data that has already
@@ -80,6 +83,16 @@ public class ElevationModule implements GraphBuilderModule {
     public List<String> getPrerequisites() {
         return Arrays.asList("streets");
     }
+
+    @Override
+    public Set<GraphPart> reads() {
+        return EnumSet.of(GraphPart.STREET_NETWORK, GraphPart.EXTRA);
+    }
+
+    @Override
+    public Set<GraphPart> modifies() {
+        return EnumSet.of(GraphPart.ELEVATION);
+    }
     
     public void setGridCoverageFactory(ElevationGridCoverageFactory factory) {
         gridCoverageFactory = factory;
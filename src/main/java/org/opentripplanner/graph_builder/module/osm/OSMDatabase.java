@@ -27,8 +27,8 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
 
     private static Logger LOG = LoggerFactory.getLogger(OSMDatabase.class);
 
-    /* Map of all nodes used in ways/areas keyed by their OSM ID */
-    private Map<Long, OSMNode> nodesById = new HashMap<Long, OSMNode>();
+    /* All nodes used in ways/areas, and references to them from ways/areas which were kept in stage 2 */
+    private OSMNodeStore nodes = new OSMNodeStore();
 
     /* Map of all bike-rental nodes, keyed by their OSM ID */
     private Map<Long, OSMNode> bikeRentalNodes = new HashMap<Long, OSMNode>();
@@ -65,12 +65,6 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
     /* Set of area way IDs */
     private Set<Long> areaWayIds = new HashSet<Long>();
 
-    /* Set of all node IDs of kept ways. Needed to mark which nodes to keep in stage 3. */
-    private Set<Long> waysNodeIds = new HashSet<Long>();
-
-    /* Set of all node IDs of kept areas. Needed to mark which nodes to keep in stage 3. */
-    private Set<Long> areaNodeIds = new HashSet<Long>();
-
     /* Track which vertical level each OSM way belongs to, for building elevators etc. */
     private Map<OSMWithTags, OSMLevel> wayLevels = new HashMap<OSMWithTags, OSMLevel>();
 
@@ -103,7 +97,7 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
     public boolean noZeroLevels = true;
 
     public OSMNode getNode(Long nodeId) {
-        return nodesById.get(nodeId);
+        return nodes.get(nodeId);
     }
 
     public Collection<OSMWay> getWays() {
@@ -160,7 +154,7 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
     }
 
     public boolean isNodeBelongsToWay(Long nodeId) {
-        return waysNodeIds.contains(nodeId);
+        return nodes.isReferencedBy(nodeId, OSMNodeStore.WAY);
     }
 
     public Collection<GraphBuilderAnnotation> getAnnotations() {
@@ -177,17 +171,31 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
             bikeParkingNodes.put(node.getId(), node);
             return;
         }
-        if (!(waysNodeIds.contains(node.getId()) || areaNodeIds.contains(node.getId()) || node
-                .isStop()))
+        if (!(nodes.isReferenced(node.getId()) || node.isStop()))
             return;
 
-        if (nodesById.containsKey(node.getId()))
+        if (nodes.contains(node.getId()))
             return;
 
-        nodesById.put(node.getId(), node);
+        nodes.add(node);
 
-        if (nodesById.size() % 100000 == 0)
-            LOG.debug("nodes=" + nodesById.size());
+        if (nodes.size() % 100000 == 0)
+            LOG.debug("nodes=" + nodes.size());
+    }
+
+    /**
+     * Nodes without tags are neither bike rental, bike parking nor stops, so only the ones used by ways and areas are
+     * kept.
+     */
+    @Override
+    public void addUntaggedNode(long id, double lat, double lon) {
+        if (!nodes.isReferenced(id) || nodes.contains(id))
+            return;
+
+        nodes.add(id, lat, lon);
+
+        if (nodes.size() % 100000 == 0)
+            LOG.debug("nodes=" + nodes.size());
     }
 
     @Override
@@ -281,8 +289,8 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
         // only 2 steps -- ways+relations, followed by used nodes.
         // Ways can be tag-filtered in phase 1.
 
-        markNodesForKeeping(waysById.values(), waysNodeIds);
-        markNodesForKeeping(areaWaysById.values(), areaNodeIds);
+        markNodesForKeeping(waysById.values(), OSMNodeStore.WAY);
+        markNodesForKeeping(areaWaysById.values(), OSMNodeStore.AREA);
     }
 
     /**
@@ -361,8 +369,8 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
 
             // For each segment of the way
             for (int i = 0; i < way.getNodeRefs().size() - 1; i++) {                
-                OSMNode nA = nodesById.get(way.getNodeRefs().get(i));
-                OSMNode nB = nodesById.get(way.getNodeRefs().get(i + 1));
+                OSMNode nA = nodes.get(way.getNodeRefs().get(i));
+                OSMNode nB = nodes.get(way.getNodeRefs().get(i + 1));
                 if (nA == null || nB == null) {
                     continue;
                 }
@@ -540,8 +548,8 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
         node.lat = c.y;
         node.setId(virtualNodeId);
         virtualNodeId--;
-        waysNodeIds.add(node.getId());
-        nodesById.put(node.getId(), node);
+        nodes.reference(node.getId(), OSMNodeStore.WAY);
+        nodes.add(node);
         return node;
     }
 
@@ -569,13 +577,15 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
         }
     }
 
-    private void markNodesForKeeping(Collection<OSMWay> osmWays, Set<Long> nodeSet) {
+    private void markNodesForKeeping(Collection<OSMWay> osmWays, byte flag) {
         for (Iterator<OSMWay> it = osmWays.iterator(); it.hasNext();) {
             OSMWay way = it.next();
             // Since the way is kept, update nodes-with-neighbors
-            List<Long> nodes = way.getNodeRefs();
-            if (nodes.size() > 1) {
-                nodeSet.addAll(nodes);
+            List<Long> nodeRefs = way.getNodeRefs();
+            if (nodeRefs.size() > 1) {
+                for (long nodeRef : nodeRefs) {
+                    nodes.reference(nodeRef, flag);
+                }
             }
         }
     }
@@ -589,12 +599,12 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
                 continue;
             }
             for (Long nodeRef : way.getNodeRefs()) {
-                if (!nodesById.containsKey(nodeRef)) {
+                if (!nodes.contains(nodeRef)) {
                     continue AREA;
                 }
             }
             try {
-                newArea(new Area(way, Arrays.asList(way), Collections.<OSMWay> emptyList(), nodesById));
+                newArea(new Area(way, Arrays.asList(way), Collections.<OSMWay> emptyList(), nodes));
             } catch (Area.AreaConstructionException|Ring.RingConstructionException e) {
                 // this area cannot be constructed, but we already have all the
                 // necessary nodes to construct it. So, something must be wrong with
@@ -632,7 +642,7 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
                     continue RELATION;
                 }
                 for (Long nodeId : way.getNodeRefs()) {
-                    if (!nodesById.containsKey(nodeId)) {
+                    if (!nodes.contains(nodeId)) {
                         // this area is missing some nodes, perhaps because it is on
                         // the edge of the region, so we will simply not route on it.
                         continue RELATION;
@@ -649,7 +659,7 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
             }
             processedAreas.add(relation);
             try {
-                newArea(new Area(relation, outerWays, innerWays, nodesById));
+                newArea(new Area(relation, outerWays, innerWays, nodes));
             } catch (Area.AreaConstructionException|Ring.RingConstructionException e) {
                 continue;
             }
@@ -896,8 +906,8 @@ public class OSMDatabase implements OpenStreetMapContentHandler {
                     platformArea = relationsById.get(member.getRef());
                 else
                     LOG.warn("Too many areas in relation " + relation.getId());
-            } else if ("node".equals(member.getType()) && nodesById.containsKey(member.getRef())) {
-                platformsNodes.add(nodesById.get(member.getRef()));
+            } else if ("node".equals(member.getType()) && nodes.contains(member.getRef())) {
+                platformsNodes.add(nodes.get(member.getRef()));
             }
         }
         if (platformArea != null && !platformsNodes.isEmpty())
@@ -0,0 +1,215 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact store of OSM nodes used by kept ways and areas. Node ids are mapped to dense indices by an open addressing
+ * hash map of primitive longs, coordinates are kept off-heap in chunks of direct buffers, and node objects are kept
+ * only for nodes with tags. Other nodes are created when they are asked for, so nodes are compared by their ids.
+ * <p>
+ * Nodes are referenced by ways before they are loaded, as ways are parsed before nodes. References are recorded with
+ * flags telling which kinds of ways need the node, so that only referenced nodes are loaded.
+ */
+class OSMNodeStore {
+
+    /* Referenced by a kept way */
+    static final byte WAY = 1;
+
+    /* Referenced by a kept area */
+    static final byte AREA = 2;
+
+    /* Coordinates are loaded */
+    private static final byte LOADED = 4;
+
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private static final int CHUNK_BITS = 20;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /* Hash map from node ids to indices, kept at most half full */
+    private long[] ids;
+
+    private int[] indices;
+
+    private int size = 0;
+
+    private int loaded = 0;
+
+    /* Latitude and longitude of each index, one after another */
+    private final List<DoubleBuffer> coordinateChunks = new ArrayList<>();
+
+    private final List<byte[]> flagChunks = new ArrayList<>();
+
+    private final Map<Long, OSMNode> taggedNodes = new HashMap<>();
+
+    OSMNodeStore() {
+        this(1024);
+    }
+
+    OSMNodeStore(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+        this.ids = new long[capacity];
+        this.indices = new int[capacity];
+        Arrays.fill(ids, NO_ID);
+    }
+
+    /**
+     * Records that given node is needed, it will be kept when it is loaded.
+     *
+     * @param flag {@link #WAY} or {@link #AREA}
+     */
+    void reference(long id, byte flag) {
+        int index = indexOf(id, true);
+        flags(index)[index & CHUNK_MASK] |= flag;
+    }
+
+    /**
+     * @return whether given node is referenced by any kept way or area
+     */
+    boolean isReferenced(long id) {
+        return hasFlag(id, (byte) (WAY | AREA));
+    }
+
+    /**
+     * @return whether given node is referenced with given flag
+     */
+    boolean isReferencedBy(long id, byte flag) {
+        return hasFlag(id, flag);
+    }
+
+    /**
+     * @return whether coordinates of given node are loaded
+     */
+    boolean contains(long id) {
+        return hasFlag(id, LOADED);
+    }
+
+    /**
+     * Stores a node. Only its coordinates are kept, unless it has tags.
+     */
+    void add(OSMNode node) {
+        add(node.getId(), node.lat, node.lon);
+        if (node.getTags() != null && !node.getTags().isEmpty()) {
+            taggedNodes.put(node.getId(), node);
+        }
+    }
+
+    /**
+     * Stores coordinates of a node without tags.
+     */
+    void add(long id, double lat, double lon) {
+        int index = indexOf(id, true);
+        byte[] flags = flags(index);
+        if ((flags[index & CHUNK_MASK] & LOADED) == 0) {
+            loaded++;
+        }
+        flags[index & CHUNK_MASK] |= LOADED;
+        DoubleBuffer coordinates = coordinateChunks.get(index >>> CHUNK_BITS);
+        coordinates.put(2 * (index & CHUNK_MASK), lat);
+        coordinates.put(2 * (index & CHUNK_MASK) + 1, lon);
+    }
+
+    /**
+     * @return node with given id, or null if it is not loaded
+     */
+    OSMNode get(long id) {
+        if (!contains(id)) {
+            return null;
+        }
+        OSMNode node = taggedNodes.get(id);
+        if (node != null) {
+            return node;
+        }
+        int index = indexOf(id, false);
+        DoubleBuffer coordinates = coordinateChunks.get(index >>> CHUNK_BITS);
+        node = new OSMNode();
+        node.setId(id);
+        node.lat = coordinates.get(2 * (index & CHUNK_MASK));
+        node.lon = coordinates.get(2 * (index & CHUNK_MASK) + 1);
+        return node;
+    }
+
+    /**
+     * @return number of loaded nodes
+     */
+    int size() {
+        return loaded;
+    }
+
+    private boolean hasFlag(long id, byte flag) {
+        int index = indexOf(id, false);
+        return index >= 0 && (flags(index)[index & CHUNK_MASK] & flag) != 0;
+    }
+
+    private byte[] flags(int index) {
+        return flagChunks.get(index >>> CHUNK_BITS);
+    }
+
+    /**
+     * @param create whether to give the node a new index if it doesn't have one
+     * @return index of given node, or -1 if it doesn't have one
+     */
+    private int indexOf(long id, boolean create) {
+        int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while (ids[slot] != NO_ID) {
+            if (ids[slot] == id) {
+                return indices[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+        int index = size++;
+        ids[slot] = id;
+        indices[slot] = index;
+        if ((index & CHUNK_MASK) == 0) {
+            coordinateChunks.add(ByteBuffer.allocateDirect(2 * Double.BYTES * CHUNK_SIZE)
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer());
+            flagChunks.add(new byte[CHUNK_SIZE]);
+        }
+        if (size * 2 > ids.length) {
+            grow();
+        }
+        return index;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldIndices = indices;
+        ids = new long[oldIds.length * 2];
+        indices = new int[oldIds.length * 2];
+        Arrays.fill(ids, NO_ID);
+        int mask = ids.length - 1;
+        for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+            if (oldIds[oldSlot] == NO_ID) {
+                continue;
+            }
+            int slot = hash(oldIds[oldSlot]) & mask;
+            while (ids[slot] != NO_ID) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = oldIds[oldSlot];
+            indices[slot] = oldIndices[oldSlot];
+        }
+    }
+
+    /* Node ids are mostly consecutive, so they are mixed to spread them over the table */
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,16 +1,27 @@
 package org.opentripplanner.graph_builder.module.time;
 
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
+import org.opentripplanner.routing.core.TimeOfDaySpeedProfiles;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.graph.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 public class TrafficPredictionBuilderModule implements GraphBuilderModule {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficPredictionBuilderModule.class);
+
     private final ClusterList clusterlist;
 
     public TrafficPredictionBuilderModule(File traficprediction) {
@@ -18,33 +29,49 @@ public class TrafficPredictionBuilderModule implements GraphBuilderModule {
         this.clusterlist.getclusters().sort(Comparator.naturalOrder());
     }
 
-    boolean matchEdge(StreetEdge e, Cluster c) {
-        for (EdgeData s : c.getedges()) {
-            //LOG.error("mecch Edge  {} cluster {}",e.getId(),s.getclusterid());
-            if (e.getStartOsmNodeId() == s.getstartnodeid() && e.getEndOsmNodeId() == s.getstartnodeid())
-                return true;
-        }
+    @Override
+    public List<String> getPrerequisites() {
+        return Collections.singletonList("streets");
+    }
 
-        return  false;
+    @Override
+    public Set<GraphPart> reads() {
+        return EnumSet.of(GraphPart.STREET_NETWORK);
     }
+
+    @Override
+    public Set<GraphPart> modifies() {
+        return EnumSet.of(GraphPart.SPEED_PROFILES);
+    }
+
     @Override
     public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
-        Map<EdgeLine, Cluster> map = new HashMap<>();
+        TimeOfDaySpeedProfiles.Builder speedProfiles = TimeOfDaySpeedProfiles.builder();
+        Map<EdgeLine, Integer> speedProfileIndices = new HashMap<>();
         for (Cluster c : this.clusterlist.getclusters()) {
-            for (EdgeData e : c.getedges())
-                if (c.gettimetable() != null) {
-                    map.put(new EdgeLine(e.getstartnodeid(), e.getendnodeid()), c);
-                }
+            if (c.gettimetable() == null) {
+                continue;
+            }
+            int speedProfileIndex = speedProfiles.addProfile();
+            for (TimeTable timeTable : c.gettimetable()) {
+                speedProfiles.setSpeed(speedProfileIndex, timeTable.getDaynumber(), timeTable.getStarttime(),
+                        timeTable.getEndtime(), (float) timeTable.getMetrpersecundSpeed());
+            }
+            for (EdgeData e : c.getedges()) {
+                speedProfileIndices.put(new EdgeLine(e.getstartnodeid(), e.getendnodeid()), speedProfileIndex);
+            }
         }
 
+        int matchedEdges = 0;
         for (StreetEdge e : graph.getStreetEdges()) {
-            Cluster cluster = map.get(new EdgeLine(e.getStartOsmNodeId(), e.getEndOsmNodeId()));
-            if (cluster != null) {
-                matchEdge(e, cluster);
-                e.setTimes((cluster).gettimetableas());
-                e.getTimes().sort(TimeTable::compareTo);
+            Integer speedProfileIndex = speedProfileIndices.get(new EdgeLine(e.getStartOsmNodeId(), e.getEndOsmNodeId()));
+            if (speedProfileIndex != null) {
+                e.setSpeedProfileIndex(speedProfileIndex);
+                matchedEdges++;
             }
         }
+        graph.speedProfiles = speedProfiles.build();
+        LOG.info("Assigned {} traffic prediction speed profiles to {} edges", graph.speedProfiles.size(), matchedEdges);
     }
     @Override
     public void checkInputs() {
@@ -2,12 +2,14 @@ package org.opentripplanner.graph_builder.module.vehicle_sharing;
 
 import org.opentripplanner.graph_builder.linking.PermanentStreetSplitter;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
 import org.opentripplanner.hasura_client.CityGovDropoffStationsGetter;
 import org.opentripplanner.hasura_client.CityGovForbiddenZonesGetter;
 import org.opentripplanner.hasura_client.ParkingZonesGetter;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.rentedgetype.CityGovDropoffStation;
 import org.opentripplanner.routing.edgetype.rentedgetype.DropoffVehicleEdge;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vertextype.CityGovVehicleDropoffStationVertex;
@@ -18,10 +20,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 
 public class VehicleSharingBuilderModule implements GraphBuilderModule {
 
@@ -57,6 +62,24 @@ public class VehicleSharingBuilderModule implements GraphBuilderModule {
         return new VehicleSharingBuilderModule(null, null, null);
     }
 
+    @Override
+    public Set<GraphPart> reads() {
+        return EnumSet.of(GraphPart.STREET_NETWORK, GraphPart.VEHICLE_SHARING);
+    }
+
+    /**
+     * Dropoff edges are added to street vertices, but they don't change the street network seen by other modules.
+     * City government dropoff stations are linked to streets by splitting street edges, so they do change it.
+     */
+    @Override
+    public Set<GraphPart> modifies() {
+        Set<GraphPart> modified = EnumSet.of(GraphPart.VEHICLE_SHARING, GraphPart.NEW_VERTICES_AND_EDGES);
+        if (sharedVehiclesApiUrl != null && cityGovHasuraApiUrl != null && cityGovHasuraApiPassword != null) {
+            modified.add(GraphPart.STREET_NETWORK);
+        }
+        return modified;
+    }
+
     @Override
     public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
         if (sharedVehiclesApiUrl == null) {
@@ -99,14 +122,21 @@ public class VehicleSharingBuilderModule implements GraphBuilderModule {
     }
 
     private void createDropoffVehicleEdges(Graph graph) {
-        graph.getVertices().stream()
+        List<Vertex> vertices = graph.getVertices().stream()
                 .filter(vertex -> vertex.getIncoming().stream().anyMatch(e -> e instanceof StreetEdge))
                 .filter(vertex -> !(vertex instanceof CityGovVehicleDropoffStationVertex))
-                .forEach(vertex -> createDropoffVehicleEdge(graph, vertex));
-    }
-
-    private void createDropoffVehicleEdge(Graph graph, Vertex vertex) {
-        new DropoffVehicleEdge(vertex, graph.parkingZonesCalculator.getParkingZonesForLocation(vertex));
+                .collect(toList());
+        long startTime = System.currentTimeMillis();
+        // Parking zones calculator is read only, so vertices are evaluated in parallel. Edges have to be created
+        // serially, as they get their ids from a global generator.
+        List<ParkingZoneInfo> parkingZones = vertices.parallelStream()
+                .map(vertex -> graph.parkingZonesCalculator.getParkingZonesForLocation(vertex))
+                .collect(toList());
+        LOG.info("Assigned parking zones to {} vertices in {} ms", vertices.size(),
+                System.currentTimeMillis() - startTime);
+        for (int i = 0; i < vertices.size(); i++) {
+            new DropoffVehicleEdge(vertices.get(i), parkingZones.get(i));
+        }
     }
 
     private void createCityGovVehicleDropoffStations(Graph graph) {
@@ -1,7 +1,10 @@
 package org.opentripplanner.graph_builder.services;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.opentripplanner.routing.graph.Graph;
 
@@ -14,4 +17,27 @@ public interface GraphBuilderModule {
     /** Check that all inputs to the graphbuilder are valid; throw an exception if not. */
     public void checkInputs();
 
+    /** Names of what this module adds to the graph, which other modules may have as prerequisites. */
+    default List<String> provides() {
+        return Collections.emptyList();
+    }
+
+    /** Names of what has to be added to the graph by modules preceding this one before it is run. */
+    default List<String> getPrerequisites() {
+        return Collections.emptyList();
+    }
+
+    /** Parts of the graph this module reads. Unless overridden, the whole graph. */
+    default Set<GraphPart> reads() {
+        return EnumSet.allOf(GraphPart.class);
+    }
+
+    /**
+     * Parts of the graph this module modifies. Unless overridden, the whole graph, so the module is never run
+     * concurrently with other modules. Only modules which declare what they modify are run in parallel.
+     */
+    default Set<GraphPart> modifies() {
+        return EnumSet.allOf(GraphPart.class);
+    }
+
 }
@@ -0,0 +1,38 @@
+package org.opentripplanner.graph_builder.services;
+
+/**
+ * Parts of a graph which graph builder modules read and modify. Modules which modify a part that another module reads
+ * or modifies are never run concurrently.
+ *
+ * @see GraphBuilderModule#reads()
+ * @see GraphBuilderModule#modifies()
+ */
+public enum GraphPart {
+
+    /** Street vertices and edges and their traversal attributes, besides the ones listed separately */
+    STREET_NETWORK,
+
+    /** Elevation profiles of street edges */
+    ELEVATION,
+
+    /** Speed profiles of street edges from traffic predictions */
+    SPEED_PROFILES,
+
+    /** Transit stops, patterns and their edges, and transit data and services stored in the graph */
+    TRANSIT,
+
+    /** Parking zones of shared vehicles and edges on which vehicles can be dropped off */
+    VEHICLE_SHARING,
+
+    /** Build and router configs embedded in the graph */
+    CONFIG,
+
+    /** Objects passed from one module to another in the extra map */
+    EXTRA,
+
+    /**
+     * Creating vertices or edges of any kind, as each of them takes its index or id from a counter shared by the
+     * whole graph
+     */
+    NEW_VERTICES_AND_EDGES
+}
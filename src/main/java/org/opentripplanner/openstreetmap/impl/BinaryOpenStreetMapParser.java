@@ -50,6 +50,10 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         }
 
         for (Osmformat.Node i : nodes) {
+            if (i.getKeysCount() == 0) {
+                handler.addUntaggedNode(i.getId(), parseLat(i.getLat()), parseLon(i.getLon()));
+                continue;
+            }
             OSMNode tmp = new OSMNode();
             tmp.setId(i.getId());
             tmp.lat = parseLat(i.getLat());
@@ -79,8 +83,6 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
         }
 
         for (int i = 0; i < nodes.getIdCount(); i++) {
-            OSMNode tmp = new OSMNode();
-
             long lat = nodes.getLat(i) + lastLat;
             lastLat = lat;
             long lon = nodes.getLon(i) + lastLon;
@@ -89,25 +91,33 @@ public class BinaryOpenStreetMapParser extends BinaryParser {
             lastId = id;
             double latf = parseLat(lat), lonf = parseLon(lon);
 
+            // Most nodes have no tags, they are passed on without creating a node object. If the keys and vals
+            // array is empty, nothing here has keys or vals.
+            if (nodes.getKeysValsCount() == 0 || nodes.getKeysVals(j) == 0) {
+                if (nodes.getKeysValsCount() > 0) {
+                    j++; // Skip over the '0' delimiter.
+                }
+                handler.addUntaggedNode(id, latf, lonf);
+                continue;
+            }
+
+            OSMNode tmp = new OSMNode();
             tmp.setId(id);
             tmp.lat = latf;
             tmp.lon = lonf;
 
-            // If empty, assume that nothing here has keys or vals.
-            if (nodes.getKeysValsCount() > 0) {
-                while (nodes.getKeysVals(j) != 0) {
-                    int keyid = nodes.getKeysVals(j++);
-                    int valid = nodes.getKeysVals(j++);
-
-                    OSMTag tag = new OSMTag();
-                    String key = internalize(getStringById(keyid));
-                    String value = internalize(getStringById(valid));
-                    tag.setK(key);
-                    tag.setV(value);
-                    tmp.addTag(tag);
-                }
-                j++; // Skip over the '0' delimiter.
+            while (nodes.getKeysVals(j) != 0) {
+                int keyid = nodes.getKeysVals(j++);
+                int valid = nodes.getKeysVals(j++);
+
+                OSMTag tag = new OSMTag();
+                String key = internalize(getStringById(keyid));
+                String value = internalize(getStringById(valid));
+                tag.setK(key);
+                tag.setV(value);
+                tmp.addTag(tag);
             }
+            j++; // Skip over the '0' delimiter.
 
             handler.addNode(tmp);
         }
@@ -9,6 +9,20 @@ public class OSMNode extends OSMWithTags {
         return "osm node " + id;
     }
 
+    /**
+     * Nodes are equal when they have the same id, as the graph builder creates node objects on demand instead of
+     * keeping one object per node.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof OSMNode && ((OSMNode) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
     /**
      * Returns the capacity of this node if defined, or 0.
      * 
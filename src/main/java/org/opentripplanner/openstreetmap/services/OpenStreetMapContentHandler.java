@@ -17,6 +17,18 @@ public interface OpenStreetMapContentHandler {
    */
   void addNode(OSMNode node);
 
+  /**
+   * Stores a node without tags. Parsers call it instead of {@link #addNode(OSMNode)} for such nodes, so that handlers
+   * which need only coordinates of most nodes can keep them without creating a node object for each of them.
+   */
+  default void addUntaggedNode(long id, double lat, double lon) {
+    OSMNode node = new OSMNode();
+    node.setId(id);
+    node.lat = lat;
+    node.lon = lon;
+    addNode(node);
+  }
+
   /**
    * Stores a way.
    */
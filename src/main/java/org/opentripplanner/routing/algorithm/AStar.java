@@ -57,6 +57,9 @@ public class AStar {
         RemainingWeightHeuristic heuristic;
         public RoutingContext rctx;
         public int nVisited;
+        int nCreated;
+        int nDominated;
+        int peakQueueSize;
         public List<State> targetAcceptedStates;
         public RunStatus status;
         private RoutingRequest options;
@@ -116,10 +119,13 @@ public class AStar {
         // Since initial states can be multiple, heuristic cannot depend on the initial state.
         // Initializing the bidirectional heuristic is a pretty complicated operation that involves searching through
         // the streets around the origin and destination.
+        long heuristicStartTime = System.nanoTime();
         runState.heuristic.initialize(runState.options, abortTime);
+        runState.rctx.searchCounters.addHeuristicInitializationTime(System.nanoTime() - heuristicStartTime);
         if (abortTime < Long.MAX_VALUE && System.currentTimeMillis() > abortTime) {
             LOG.warn("Timeout during initialization of goal direction heuristic.");
             options.rctx.debugOutput.timedOut = true;
+            options.rctx.searchCounters.markTimedOut();
             runState = null; // Search timed out
             return;
         }
@@ -159,6 +165,7 @@ public class AStar {
         if (!runState.spt.visit(runState.u)) {
             // state has been dominated since it was added to the priority queue, so it is
             // not in any optimal path. drop it on the floor and try the next one.
+            runState.nDominated += 1;
             return false;
         }
 
@@ -180,6 +187,7 @@ public class AStar {
             for (State v = edge.traverse(runState.u); v != null; v = v.getNextResult()) {
                 // Could be: for (State v : traverseEdge...)
 
+                runState.nCreated += 1;
                 if (traverseVisitor != null) {
                     traverseVisitor.visitEdge(edge, v);
                 }
@@ -221,6 +229,9 @@ public class AStar {
                         traverseVisitor.visitEnqueue(v);
                     //LOG.info("u.w={} v.w={} h={}", runState.u.weight, v.weight, remaining_w);
                     runState.pq.insert(v, estimate);
+                    runState.peakQueueSize = Math.max(runState.peakQueueSize, runState.pq.size());
+                } else {
+                    runState.nDominated += 1;
                 }
             }
         }
@@ -241,9 +252,15 @@ public class AStar {
                 // allows returning a partial list results even when a timeout occurs.
                 runState.options.rctx.aborted = true; // signal search cancellation up to higher stack frames
                 runState.options.rctx.debugOutput.timedOut = true; // signal timeout in debug output object
+                runState.rctx.searchCounters.markTimedOut();
 
                 break;
             }
+            if (runState.rctx.areSearchesAborted()) {
+                LOG.debug("Search aborted. origin={} target={}", runState.rctx.origin, runState.rctx.target);
+                runState.options.rctx.aborted = true;
+                break;
+            }
 
             /*
              * Get next best state and, if it hasn't already been dominated, add adjacent states to queue.
@@ -299,13 +316,28 @@ public class AStar {
      */
     public ShortestPathTree getShortestPathTree(RoutingRequest options, double relTimeoutSeconds,
                                                 SearchTerminationStrategy terminationStrategy) {
+        return getShortestPathTreeUntil(options, DateUtils.absoluteTimeout(relTimeoutSeconds), terminationStrategy);
+    }
+
+    /**
+     * Compute SPT using default termination strategy, with a timeout shared with other searches.
+     *
+     * @param abortTime time in milliseconds since the epoch after which the search is aborted, Long.MAX_VALUE for no
+     *                  timeout
+     */
+    public ShortestPathTree getShortestPathTreeUntil(RoutingRequest options, long abortTime) {
+        return getShortestPathTreeUntil(options, abortTime, null);
+    }
+
+    private ShortestPathTree getShortestPathTreeUntil(RoutingRequest options, long abortTime,
+                                                      SearchTerminationStrategy terminationStrategy) {
         ShortestPathTree spt = null;
-        long abortTime = DateUtils.absoluteTimeout(relTimeoutSeconds);
 
         startSearch(options, terminationStrategy, abortTime);
 
         if (runState != null) {
             runSearch(abortTime);
+            reportSearchCounters();
             spt = runState.spt;
         }
 
@@ -333,12 +365,18 @@ public class AStar {
             }
 
             runSearch(abortTime);
+            reportSearchCounters();
             spt = runState.spt;
         }
 
         return spt;
     }
 
+    private void reportSearchCounters() {
+        runState.rctx.searchCounters.addSearch(runState.nCreated, runState.nVisited, runState.nDominated,
+                runState.peakQueueSize);
+    }
+
     private void storeMemory() {
         if (store.isMonitoring("memoryUsed")) {
             System.gc();
@@ -0,0 +1,280 @@
+package org.opentripplanner.routing.algorithm.ch;
+
+import gnu.trove.iterator.TIntFloatIterator;
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Contraction hierarchy of street edges traversable in one mode, built by {@link ContractionHierarchyBuilder}.
+ * <p>
+ * Nodes are vertices, indexed by {@link Vertex#getIndex()}. Arcs are either street edges or shortcuts, which replace
+ * two arcs going through a less important node. Point to point queries search only upwards (towards more important
+ * nodes) from both ends, so they visit a tiny part of the graph, and shortcuts are unpacked back into street edges.
+ * <p>
+ * Arc weights are travel times in seconds with fixed speed of the mode, see {@link #getWeight(StreetEdge)}. They do
+ * not depend on time of day, traffic or request parameters.
+ */
+public class ContractionHierarchy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int NO_ARC = -1;
+
+    private final TraverseMode mode;
+
+    private final double speed;
+
+    /* Importance of every node, -1 for vertices without arcs */
+    private final int[] ranks;
+
+    /* Arcs 0 .. edges.length - 1 are street edges, the rest are shortcuts */
+    private final StreetEdge[] edges;
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final float[] arcWeight;
+    private final int[] arcFirstChild;
+    private final int[] arcSecondChild;
+
+    /* Arcs to more important nodes, grouped by node */
+    private final int[] upwardFirst;
+    private final int[] upwardArcs;
+
+    /* Arcs from more important nodes, grouped by node */
+    private final int[] downwardFirst;
+    private final int[] downwardArcs;
+
+    ContractionHierarchy(TraverseMode mode, double speed, int[] ranks, StreetEdge[] edges, int[] arcFrom, int[] arcTo,
+                         float[] arcWeight, int[] arcFirstChild, int[] arcSecondChild, int[] upwardFirst,
+                         int[] upwardArcs, int[] downwardFirst, int[] downwardArcs) {
+        this.mode = mode;
+        this.speed = speed;
+        this.ranks = ranks;
+        this.edges = edges;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcWeight = arcWeight;
+        this.arcFirstChild = arcFirstChild;
+        this.arcSecondChild = arcSecondChild;
+        this.upwardFirst = upwardFirst;
+        this.upwardArcs = upwardArcs;
+        this.downwardFirst = downwardFirst;
+        this.downwardArcs = downwardArcs;
+    }
+
+    public TraverseMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return speed of the mode used for arc weights, in meters per second
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    public int getShortcutsCount() {
+        return arcFrom.length - edges.length;
+    }
+
+    /**
+     * @return true if given vertex is a node of this hierarchy
+     */
+    public boolean contains(Vertex vertex) {
+        int index = vertex.getIndex();
+        return index < ranks.length && ranks[index] >= 0;
+    }
+
+    /**
+     * @return true if given edge is traversable in mode of this hierarchy
+     */
+    public boolean canTraverse(StreetEdge edge) {
+        return edge.canTraverseIncludingBarrier(mode);
+    }
+
+    /**
+     * @return weight of given edge used in this hierarchy
+     */
+    public float getWeight(StreetEdge edge) {
+        return weight(edge, speed);
+    }
+
+    static float weight(StreetEdge edge, double speed) {
+        double edgeSpeed = edge.getMaxStreetTraverseSpeed() > 0 ? Math.min(speed, edge.getMaxStreetTraverseSpeed()) : speed;
+        return (float) (edge.getDistanceInMeters() / edgeSpeed);
+    }
+
+    /**
+     * Finds the shortest path between any of the sources and any of the targets.
+     *
+     * @param sourceWeights weights of reaching source nodes, by node index
+     * @param targetWeights weights of reaching the destination from target nodes, by node index
+     * @return shortest path, or null if there is no path
+     */
+    public Path findPath(TIntFloatMap sourceWeights, TIntFloatMap targetWeights) {
+        Search forward = new Search(sourceWeights, upwardFirst, upwardArcs, arcTo);
+        Search backward = new Search(targetWeights, downwardFirst, downwardArcs, arcFrom);
+        float bestWeight = Float.POSITIVE_INFINITY;
+        int meetingNode = NO_ARC;
+        while (true) {
+            boolean forwardDone = forward.isDone(bestWeight);
+            boolean backwardDone = backward.isDone(bestWeight);
+            if (forwardDone && backwardDone) {
+                break;
+            }
+            Search search;
+            if (forwardDone) {
+                search = backward;
+            } else if (backwardDone) {
+                search = forward;
+            } else {
+                search = forward.queue.peek_min_key() <= backward.queue.peek_min_key() ? forward : backward;
+            }
+            Search other = search == forward ? backward : forward;
+            int node = search.settleNext();
+            if (node == NO_ARC) {
+                continue;
+            }
+            if (other.weights.containsKey(node)) {
+                float weight = search.weights.get(node) + other.weights.get(node);
+                if (weight < bestWeight) {
+                    bestWeight = weight;
+                    meetingNode = node;
+                }
+            }
+        }
+        if (meetingNode == NO_ARC) {
+            return null;
+        }
+
+        List<StreetEdge> pathEdges = new ArrayList<>();
+        List<Integer> forwardArcs = new ArrayList<>();
+        int node = meetingNode;
+        for (int arc = forward.parentArcs.get(node); arc != NO_ARC; arc = forward.parentArcs.get(node)) {
+            forwardArcs.add(0, arc);
+            node = arcFrom[arc];
+        }
+        int sourceNode = node;
+        for (int arc : forwardArcs) {
+            unpack(arc, pathEdges);
+        }
+        node = meetingNode;
+        for (int arc = backward.parentArcs.get(node); arc != NO_ARC; arc = backward.parentArcs.get(node)) {
+            unpack(arc, pathEdges);
+            node = arcTo[arc];
+        }
+        return new Path(sourceNode, node, bestWeight, pathEdges);
+    }
+
+    private void unpack(int arc, List<StreetEdge> pathEdges) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(arc);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (current < edges.length) {
+                pathEdges.add(edges[current]);
+            } else {
+                stack.push(arcSecondChild[current]);
+                stack.push(arcFirstChild[current]);
+            }
+        }
+    }
+
+    /**
+     * One direction of a bidirectional search, visiting only more important nodes
+     */
+    private class Search {
+
+        private final int[] first;
+        private final int[] arcs;
+        private final int[] arcEnds;
+
+        private final TIntFloatMap weights = new TIntFloatHashMap(64, 0.5f, NO_ARC, Float.POSITIVE_INFINITY);
+        private final TIntIntMap parentArcs = new TIntIntHashMap(64, 0.5f, NO_ARC, NO_ARC);
+        private final BinHeap<Integer> queue = new BinHeap<>();
+
+        private Search(TIntFloatMap initialWeights, int[] first, int[] arcs, int[] arcEnds) {
+            this.first = first;
+            this.arcs = arcs;
+            this.arcEnds = arcEnds;
+            for (TIntFloatIterator it = initialWeights.iterator(); it.hasNext(); ) {
+                it.advance();
+                if (it.key() < ranks.length && ranks[it.key()] >= 0 && it.value() < weights.get(it.key())) {
+                    weights.put(it.key(), it.value());
+                    queue.insert(it.key(), it.value());
+                }
+            }
+        }
+
+        private boolean isDone(float bestWeight) {
+            return queue.empty() || queue.peek_min_key() >= bestWeight;
+        }
+
+        /**
+         * @return settled node, or {@link #NO_ARC} if a node was already settled with lower weight
+         */
+        private int settleNext() {
+            double weight = queue.peek_min_key();
+            int node = queue.extract_min();
+            if (weight > weights.get(node)) {
+                return NO_ARC;
+            }
+            for (int i = first[node]; i < first[node + 1]; i++) {
+                int arc = arcs[i];
+                int next = arcEnds[arc];
+                float nextWeight = (float) weight + arcWeight[arc];
+                if (nextWeight < weights.get(next)) {
+                    weights.put(next, nextWeight);
+                    parentArcs.put(next, arc);
+                    queue.insert(next, nextWeight);
+                }
+            }
+            return node;
+        }
+    }
+
+    public static class Path {
+
+        private final int sourceNode;
+        private final int targetNode;
+        private final float weight;
+        private final List<StreetEdge> edges;
+
+        Path(int sourceNode, int targetNode, float weight, List<StreetEdge> edges) {
+            this.sourceNode = sourceNode;
+            this.targetNode = targetNode;
+            this.weight = weight;
+            this.edges = edges;
+        }
+
+        public int getSourceNode() {
+            return sourceNode;
+        }
+
+        public int getTargetNode() {
+            return targetNode;
+        }
+
+        public float getWeight() {
+            return weight;
+        }
+
+        /**
+         * @return street edges from source node to target node
+         */
+        public List<StreetEdge> getEdges() {
+            return edges;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.opentripplanner.routing.algorithm.ch;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds a {@link ContractionHierarchy} by contracting nodes one by one, least important first. Contracting a node
+ * adds a shortcut for every pair of its neighbours whose shortest path goes through it. Importance of a node is the
+ * number of shortcuts its contraction would add minus the number of arcs it would remove, plus the number of its
+ * already contracted neighbours, which spreads contraction evenly over the graph.
+ */
+public class ContractionHierarchyBuilder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContractionHierarchyBuilder.class);
+
+    /* Witness searches are limited, so that contracting a node is fast. Missing a witness only adds a shortcut. */
+    private static final int MAX_WITNESS_SEARCH_SETTLED_NODES = 100;
+
+    private final TraverseMode mode;
+
+    private final double speed;
+
+    private final int nodesCount;
+
+    private final List<StreetEdge> edges = new ArrayList<>();
+    private final TIntArrayList arcFrom = new TIntArrayList();
+    private final TIntArrayList arcTo = new TIntArrayList();
+    private final TFloatArrayList arcWeight = new TFloatArrayList();
+    private final TIntArrayList arcFirstChild = new TIntArrayList();
+    private final TIntArrayList arcSecondChild = new TIntArrayList();
+
+    private final TIntArrayList[] outgoingArcs;
+    private final TIntArrayList[] incomingArcs;
+
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+    private final int[] ranks;
+
+    /* Reused by witness searches, only weights of reached nodes are reset */
+    private final float[] witnessWeights;
+    private final TIntArrayList witnessReachedNodes = new TIntArrayList();
+    private final BinHeap<Integer> witnessQueue = new BinHeap<>();
+
+    /**
+     * @param speed speed of given mode in meters per second, used to compute weights of street edges
+     */
+    public ContractionHierarchyBuilder(TraverseMode mode, double speed) {
+        this.mode = mode;
+        this.speed = speed;
+        this.nodesCount = Vertex.getMaxIndex();
+        this.outgoingArcs = new TIntArrayList[nodesCount];
+        this.incomingArcs = new TIntArrayList[nodesCount];
+        this.contracted = new boolean[nodesCount];
+        this.contractedNeighbours = new int[nodesCount];
+        this.ranks = new int[nodesCount];
+        Arrays.fill(ranks, -1);
+        this.witnessWeights = new float[nodesCount];
+        Arrays.fill(witnessWeights, Float.POSITIVE_INFINITY);
+    }
+
+    public ContractionHierarchy build(Collection<StreetEdge> streetEdges) {
+        for (StreetEdge edge : streetEdges) {
+            if (edge.canTraverseIncludingBarrier(mode) && edge.getFromVertex() != edge.getToVertex()) {
+                edges.add(edge);
+                addArc(edge.getFromVertex().getIndex(), edge.getToVertex().getIndex(),
+                        ContractionHierarchy.weight(edge, speed), ContractionHierarchy.NO_ARC, ContractionHierarchy.NO_ARC);
+            }
+        }
+        LOG.info("Contracting {} graph of {} edges", mode, edges.size());
+
+        float[] priorities = new float[nodesCount];
+        BinHeap<Integer> queue = new BinHeap<>(nodesCount);
+        for (int node = 0; node < nodesCount; node++) {
+            if (outgoingArcs[node] != null || incomingArcs[node] != null) {
+                priorities[node] = computePriority(node);
+                queue.insert(node, priorities[node]);
+            }
+        }
+
+        int rank = 0;
+        while (!queue.empty()) {
+            double priority = queue.peek_min_key();
+            int node = queue.extract_min();
+            if (contracted[node] || priority != priorities[node]) {
+                continue;
+            }
+            // Lazy update - priority could get worse since it was computed
+            priorities[node] = computePriority(node);
+            if (!queue.empty() && priorities[node] > queue.peek_min_key()) {
+                queue.insert(node, priorities[node]);
+                continue;
+            }
+            contract(node, true);
+            contracted[node] = true;
+            ranks[node] = rank++;
+            for (int neighbour : uncontractedNeighbours(node).toArray()) {
+                contractedNeighbours[neighbour]++;
+                priorities[neighbour] = computePriority(neighbour);
+                queue.insert(neighbour, priorities[neighbour]);
+            }
+            if (rank % 100000 == 0) {
+                LOG.info("Contracted {} nodes, added {} shortcuts", rank, arcFrom.size() - edges.size());
+            }
+        }
+        LOG.info("Contracted {} graph, added {} shortcuts", mode, arcFrom.size() - edges.size());
+        return createHierarchy();
+    }
+
+    private int addArc(int from, int to, float weight, int firstChild, int secondChild) {
+        int arc = arcFrom.size();
+        arcFrom.add(from);
+        arcTo.add(to);
+        arcWeight.add(weight);
+        arcFirstChild.add(firstChild);
+        arcSecondChild.add(secondChild);
+        if (outgoingArcs[from] == null) {
+            outgoingArcs[from] = new TIntArrayList(4);
+        }
+        outgoingArcs[from].add(arc);
+        if (incomingArcs[to] == null) {
+            incomingArcs[to] = new TIntArrayList(4);
+        }
+        incomingArcs[to].add(arc);
+        return arc;
+    }
+
+    private float computePriority(int node) {
+        int shortcuts = contract(node, false);
+        int removedArcs = countUncontracted(incomingArcs[node], arcFrom) + countUncontracted(outgoingArcs[node], arcTo);
+        return shortcuts - removedArcs + contractedNeighbours[node];
+    }
+
+    /**
+     * @param addShortcuts if false, only counts shortcuts needed to contract given node
+     * @return number of shortcuts
+     */
+    private int contract(int node, boolean addShortcuts) {
+        if (incomingArcs[node] == null || outgoingArcs[node] == null) {
+            return 0;
+        }
+        int shortcuts = 0;
+        for (int i = 0; i < incomingArcs[node].size(); i++) {
+            int incoming = incomingArcs[node].get(i);
+            int from = arcFrom.get(incoming);
+            if (contracted[from]) {
+                continue;
+            }
+            float maxWeight = 0;
+            for (int j = 0; j < outgoingArcs[node].size(); j++) {
+                int outgoing = outgoingArcs[node].get(j);
+                if (!contracted[arcTo.get(outgoing)]) {
+                    maxWeight = Math.max(maxWeight, arcWeight.get(incoming) + arcWeight.get(outgoing));
+                }
+            }
+            findWitnesses(from, node, maxWeight);
+            for (int j = 0; j < outgoingArcs[node].size(); j++) {
+                int outgoing = outgoingArcs[node].get(j);
+                int to = arcTo.get(outgoing);
+                if (contracted[to] || to == from) {
+                    continue;
+                }
+                float weight = arcWeight.get(incoming) + arcWeight.get(outgoing);
+                if (witnessWeights[to] <= weight) {
+                    continue;
+                }
+                shortcuts++;
+                if (addShortcuts) {
+                    addArc(from, to, weight, incoming, outgoing);
+                    // A shortcut is a witness for parallel arcs processed later
+                    setWitnessWeight(to, weight);
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Limited Dijkstra search from given node over uncontracted nodes, avoiding the node being contracted
+     */
+    private void findWitnesses(int source, int avoidedNode, float maxWeight) {
+        for (int i = 0; i < witnessReachedNodes.size(); i++) {
+            witnessWeights[witnessReachedNodes.get(i)] = Float.POSITIVE_INFINITY;
+        }
+        witnessReachedNodes.resetQuick();
+        witnessQueue.reset();
+        setWitnessWeight(source, 0);
+        witnessQueue.insert(source, 0);
+        int settled = 0;
+        while (!witnessQueue.empty() && settled < MAX_WITNESS_SEARCH_SETTLED_NODES) {
+            double weight = witnessQueue.peek_min_key();
+            int node = witnessQueue.extract_min();
+            if (weight > witnessWeights[node]) {
+                continue;
+            }
+            if (weight > maxWeight) {
+                break;
+            }
+            settled++;
+            TIntArrayList outgoing = outgoingArcs[node];
+            if (outgoing == null) {
+                continue;
+            }
+            for (int i = 0; i < outgoing.size(); i++) {
+                int arc = outgoing.get(i);
+                int next = arcTo.get(arc);
+                if (next == avoidedNode || contracted[next]) {
+                    continue;
+                }
+                float nextWeight = (float) weight + arcWeight.get(arc);
+                if (nextWeight < witnessWeights[next]) {
+                    setWitnessWeight(next, nextWeight);
+                    witnessQueue.insert(next, nextWeight);
+                }
+            }
+        }
+    }
+
+    private void setWitnessWeight(int node, float weight) {
+        if (witnessWeights[node] == Float.POSITIVE_INFINITY) {
+            witnessReachedNodes.add(node);
+        }
+        witnessWeights[node] = weight;
+    }
+
+    private int countUncontracted(TIntArrayList arcs, TIntArrayList arcEnds) {
+        int count = 0;
+        if (arcs != null) {
+            for (int i = 0; i < arcs.size(); i++) {
+                if (!contracted[arcEnds.get(arcs.get(i))]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private TIntArrayList uncontractedNeighbours(int node) {
+        TIntArrayList neighbours = new TIntArrayList();
+        addUncontracted(neighbours, incomingArcs[node], arcFrom);
+        addUncontracted(neighbours, outgoingArcs[node], arcTo);
+        return neighbours;
+    }
+
+    private void addUncontracted(TIntArrayList neighbours, TIntArrayList arcs, TIntArrayList arcEnds) {
+        if (arcs != null) {
+            for (int i = 0; i < arcs.size(); i++) {
+                int neighbour = arcEnds.get(arcs.get(i));
+                if (!contracted[neighbour] && !neighbours.contains(neighbour)) {
+                    neighbours.add(neighbour);
+                }
+            }
+        }
+    }
+
+    private ContractionHierarchy createHierarchy() {
+        int arcsCount = arcFrom.size();
+        int[] upwardFirst = new int[nodesCount + 1];
+        int[] downwardFirst = new int[nodesCount + 1];
+        for (int arc = 0; arc < arcsCount; arc++) {
+            int from = arcFrom.get(arc);
+            int to = arcTo.get(arc);
+            if (ranks[to] > ranks[from]) {
+                upwardFirst[from + 1]++;
+            } else {
+                downwardFirst[to + 1]++;
+            }
+        }
+        for (int node = 0; node < nodesCount; node++) {
+            upwardFirst[node + 1] += upwardFirst[node];
+            downwardFirst[node + 1] += downwardFirst[node];
+        }
+        int[] upwardArcs = new int[upwardFirst[nodesCount]];
+        int[] downwardArcs = new int[downwardFirst[nodesCount]];
+        int[] upwardNext = Arrays.copyOf(upwardFirst, nodesCount);
+        int[] downwardNext = Arrays.copyOf(downwardFirst, nodesCount);
+        for (int arc = 0; arc < arcsCount; arc++) {
+            int from = arcFrom.get(arc);
+            int to = arcTo.get(arc);
+            if (ranks[to] > ranks[from]) {
+                upwardArcs[upwardNext[from]++] = arc;
+            } else {
+                downwardArcs[downwardNext[to]++] = arc;
+            }
+        }
+        return new ContractionHierarchy(mode, speed, ranks, edges.toArray(new StreetEdge[0]), arcFrom.toArray(),
+                arcTo.toArray(), arcWeight.toArray(), arcFirstChild.toArray(), arcSecondChild.toArray(), upwardFirst,
+                upwardArcs, downwardFirst, downwardArcs);
+    }
+}
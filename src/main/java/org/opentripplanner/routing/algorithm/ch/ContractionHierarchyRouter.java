@@ -0,0 +1,229 @@
+package org.opentripplanner.routing.algorithm.ch;
+
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.algorithm.profile.OriginalOptimizationProfile;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.FreeEdge;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers street-only point to point requests using a {@link ContractionHierarchy} of the requested mode, instead of
+ * running A*.
+ * <p>
+ * Origin and destination are usually temporary vertices splitting street edges, which are not part of the hierarchy,
+ * so we first search locally from them to the closest hierarchy nodes. The path found in the hierarchy is then
+ * traversed edge by edge with the request, so that states (times, weights, prices) are exactly the same as the ones
+ * created by A* for the same path, and itineraries are built from it as usual.
+ */
+public class ContractionHierarchyRouter {
+
+    /* Temporary vertices around origin or destination, more means we are not on a street network */
+    private static final int MAX_LOCAL_VERTICES = 100;
+
+    /* Cost parameters which hierarchies are built with, see ContractionHierarchyModule */
+    private static final RoutingRequest DEFAULTS = new RoutingRequest();
+
+    private final ContractionHierarchy hierarchy;
+
+    private ContractionHierarchyRouter(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * @return router for given request, or null if the request needs a full search: it uses transit, rents vehicles,
+     * travels in traffic, weights paths differently than the hierarchy or there is no hierarchy for its mode
+     */
+    public static ContractionHierarchyRouter forRequest(RoutingRequest options) {
+        RoutingContext rctx = options.rctx;
+        if (rctx == null || options.modes.isTransit() || options.rentingAllowed || options.parkAndRide
+                || options.bike.isBikeParkAndRide() || options.wheelchairAccessible || options.startingMode != null
+                || options.batch) {
+            return null;
+        }
+        TraverseMode mode = getMode(options);
+        if (mode == null) {
+            return null;
+        }
+        if (mode == TraverseMode.CAR && rctx.speedProfiles.size() > 0) {
+            return null;
+        }
+        // Traffic closures apply to all modes
+        if (rctx.trafficSpeedOverlay != TrafficSpeedOverlay.EMPTY) {
+            return null;
+        }
+        ContractionHierarchy hierarchy = rctx.graph.contractionHierarchies.get(mode);
+        if (hierarchy == null || !hasCostsOf(options, mode, hierarchy)) {
+            return null;
+        }
+        return new ContractionHierarchyRouter(hierarchy);
+    }
+
+    /**
+     * Paths found in the hierarchy are the best ones only if the request weights edges by travel time with the speed
+     * the hierarchy was built with, so every parameter changing weights of street edges has to have its default value.
+     */
+    private static boolean hasCostsOf(RoutingRequest options, TraverseMode mode, ContractionHierarchy hierarchy) {
+        return (options.getOptimizationProfile() == null
+                || options.getOptimizationProfile() instanceof OriginalOptimizationProfile)
+                && options.optimize == DEFAULTS.optimize
+                && options.bike.getTriangleTimeFactor() == DEFAULTS.bike.getTriangleTimeFactor()
+                && options.bike.getTriangleSlopeFactor() == DEFAULTS.bike.getTriangleSlopeFactor()
+                && options.bike.getTriangleSafetyFactor() == DEFAULTS.bike.getTriangleSafetyFactor()
+                && options.getSpeed(mode) == hierarchy.getSpeed()
+                && options.routingReluctances.equals(DEFAULTS.routingReluctances)
+                && options.stairsReluctance == DEFAULTS.stairsReluctance
+                && options.turnReluctance == DEFAULTS.turnReluctance;
+    }
+
+    /**
+     * Same mode as the one of the initial state, see {@link org.opentripplanner.routing.core.StateData}
+     */
+    private static TraverseMode getMode(RoutingRequest options) {
+        if (options.modes.getCar()) {
+            return TraverseMode.CAR;
+        }
+        if (options.modes.getWalk() && !options.modes.getBicycle()) {
+            return TraverseMode.WALK;
+        }
+        if (options.modes.getBicycle() && !options.modes.getWalk()) {
+            return TraverseMode.BICYCLE;
+        }
+        // Walking with bicycle changes modes on the way
+        return null;
+    }
+
+    /**
+     * @return path to destination, or null if it was not found and full search should be done
+     */
+    public GraphPath findPath(RoutingRequest options) {
+        RoutingContext rctx = options.rctx;
+        LocalSearch fromOrigin = new LocalSearch(rctx.fromVertex, rctx.toVertex, false);
+        LocalSearch toDestination = new LocalSearch(rctx.toVertex, rctx.fromVertex, true);
+
+        List<Edge> edges = null;
+        float weight = fromOrigin.directWeight;
+        if (weight < Float.POSITIVE_INFINITY) {
+            edges = fromOrigin.pathTo(rctx.toVertex);
+        }
+        ContractionHierarchy.Path path = hierarchy.findPath(fromOrigin.nodeWeights, toDestination.nodeWeights);
+        if (path != null && path.getWeight() < weight) {
+            edges = new ArrayList<>(fromOrigin.pathTo(fromOrigin.nodes.get(path.getSourceNode())));
+            edges.addAll(path.getEdges());
+            edges.addAll(toDestination.pathTo(toDestination.nodes.get(path.getTargetNode())));
+        }
+        if (edges == null) {
+            return null;
+        }
+        return traverse(options, edges);
+    }
+
+    /**
+     * @param edges path from "from" vertex to "to" vertex, traversed backwards in arrive by requests
+     */
+    private GraphPath traverse(RoutingRequest options, List<Edge> edges) {
+        if (options.arriveBy) {
+            edges = new ArrayList<>(edges);
+            Collections.reverse(edges);
+        }
+        State state = new State(options);
+        for (Edge edge : edges) {
+            state = edge.traverse(state);
+            if (state == null) {
+                // Turn restriction, barrier or other rule not included in the hierarchy
+                return null;
+            }
+        }
+        if (state.getVertex() != options.rctx.target || !state.isFinal()) {
+            return null;
+        }
+        return new GraphPath(state, true);
+    }
+
+    /**
+     * Search through vertices which are not part of the hierarchy (temporary vertices of origin or destination)
+     * to the closest hierarchy nodes. It is a search over outgoing edges from origin, or incoming edges to destination.
+     */
+    private class LocalSearch {
+
+        private final boolean backwards;
+        private final TIntFloatMap nodeWeights = new TIntFloatHashMap();
+        private final Map<Integer, Vertex> nodes = new HashMap<>();
+        private final Map<Vertex, Edge> parentEdges = new HashMap<>();
+        private float directWeight = Float.POSITIVE_INFINITY;
+
+        private LocalSearch(Vertex start, Vertex end, boolean backwards) {
+            this.backwards = backwards;
+            Map<Vertex, Float> weights = new HashMap<>();
+            BinHeap<Vertex> queue = new BinHeap<>();
+            weights.put(start, 0f);
+            queue.insert(start, 0);
+            while (!queue.empty() && weights.size() < MAX_LOCAL_VERTICES) {
+                double weight = queue.peek_min_key();
+                Vertex vertex = queue.extract_min();
+                if (weight > weights.get(vertex)) {
+                    continue;
+                }
+                if (vertex == end) {
+                    directWeight = (float) weight;
+                    continue;
+                }
+                if (hierarchy.contains(vertex)) {
+                    nodeWeights.put(vertex.getIndex(), (float) weight);
+                    nodes.put(vertex.getIndex(), vertex);
+                    continue;
+                }
+                for (Edge edge : backwards ? vertex.getIncoming() : vertex.getOutgoing()) {
+                    float edgeWeight = getWeight(edge);
+                    Vertex next = backwards ? edge.getFromVertex() : edge.getToVertex();
+                    float nextWeight = (float) weight + edgeWeight;
+                    if (edgeWeight >= 0 && nextWeight < weights.getOrDefault(next, Float.POSITIVE_INFINITY)) {
+                        weights.put(next, nextWeight);
+                        parentEdges.put(next, edge);
+                        queue.insert(next, nextWeight);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return weight of given edge in hierarchy metric, negative if it cannot be traversed
+         */
+        private float getWeight(Edge edge) {
+            if (edge instanceof StreetEdge) {
+                StreetEdge streetEdge = (StreetEdge) edge;
+                return hierarchy.canTraverse(streetEdge) ? hierarchy.getWeight(streetEdge) : -1;
+            }
+            return edge instanceof FreeEdge ? 0 : -1;
+        }
+
+        /**
+         * @return edges from start to given vertex, or from given vertex to start if searching backwards
+         */
+        private List<Edge> pathTo(Vertex vertex) {
+            List<Edge> edges = new ArrayList<>();
+            for (Edge edge = parentEdges.get(vertex); edge != null; edge = parentEdges.get(vertex)) {
+                edges.add(edge);
+                vertex = backwards ? edge.getToVertex() : edge.getFromVertex();
+            }
+            if (!backwards) {
+                Collections.reverse(edges);
+            }
+            return edges;
+        }
+    }
+}
@@ -6,15 +6,20 @@ import java.util.Optional;
 
 public class ConfigurableWeightsCostFunction implements CostFunction {
 
-    private final Map<CostCategory, Double> costWeights;
+    /* Weights indexed by category ordinal, as they are read on every edge traversal */
+    private final double[] costWeights;
 
     public ConfigurableWeightsCostFunction(Map<CostCategory, Double> costWeights) {
-        this.costWeights = Optional.ofNullable(costWeights).orElse(Collections.emptyMap());
+        Map<CostCategory, Double> weights = Optional.ofNullable(costWeights).orElse(Collections.emptyMap());
+        this.costWeights = new double[CostCategory.values().length];
+        for (CostCategory category : CostCategory.values()) {
+            this.costWeights[category.ordinal()] = Optional.ofNullable(weights.get(category)).orElse(0.0);
+        }
     }
 
     @Override
     public double getCostWeight(CostCategory category) {
-        return Optional.ofNullable(costWeights.get(category)).orElse(0.0);
+        return costWeights[category.ordinal()];
     }
 
 }
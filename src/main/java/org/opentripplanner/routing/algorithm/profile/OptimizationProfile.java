@@ -2,6 +2,7 @@ package org.opentripplanner.routing.algorithm.profile;
 
 import org.opentripplanner.routing.algorithm.costs.CostFunction;
 import org.opentripplanner.routing.algorithm.strategies.RemainingWeightHeuristic;
+import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.spt.DominanceFunction;
 
 public interface OptimizationProfile {
@@ -14,4 +15,10 @@ public interface OptimizationProfile {
 
     RemainingWeightHeuristic getReversedSearchHeuristic();
 
+    /**
+     * @return the same profile for a search running concurrently with this one, heuristics are not shared as they keep
+     * state of the search
+     */
+    OptimizationProfile forConcurrentSearch(RoutingRequest request);
+
 }
@@ -16,6 +16,10 @@ public class OriginalOptimizationProfile implements OptimizationProfile {
     public OriginalOptimizationProfile(RoutingRequest request) {
         this.costFunction = new OriginalCostFunction();
         this.dominanceFunction = new DominanceFunction.EarliestArrival();
+        if (!request.modes.isTransit()) {
+            // Street searches visit large parts of the graph
+            dominanceFunction.useVertexIndexedShortestPathTree();
+        }
         if (request.disableRemainingWeightHeuristic) {
             heuristic = new TrivialRemainingWeightHeuristic();
             reversedSearchHeuristic = new TrivialRemainingWeightHeuristic();
@@ -25,6 +29,10 @@ public class OriginalOptimizationProfile implements OptimizationProfile {
             // Use a simplistic heuristic until BiDi heuristic is improved, see #2153
             heuristic = new InterleavedBidirectionalHeuristic();
             reversedSearchHeuristic = new InterleavedBidirectionalHeuristic();
+        } else if (!request.modes.isTransit()) {
+            // Street searches benefit from landmarks, it falls back to euclidean heuristic if graph has none
+            heuristic = new LandmarkRWH();
+            reversedSearchHeuristic = new LandmarkRWH();
         } else {
             heuristic = new SimpleEuclideanRWH();
             reversedSearchHeuristic = new SimpleEuclideanRWH();
@@ -50,4 +58,9 @@ public class OriginalOptimizationProfile implements OptimizationProfile {
     public RemainingWeightHeuristic getReversedSearchHeuristic() {
         return reversedSearchHeuristic;
     }
+
+    @Override
+    public OptimizationProfile forConcurrentSearch(RoutingRequest request) {
+        return new OriginalOptimizationProfile(request);
+    }
 }
@@ -4,6 +4,7 @@ import org.opentripplanner.routing.algorithm.costs.ConfigurableWeightsCostFuncti
 import org.opentripplanner.routing.algorithm.costs.CostFunction;
 import org.opentripplanner.routing.algorithm.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.strategies.SimpleEuclideanRWH;
+import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.spt.DominanceFunction;
 
 import java.util.Collections;
@@ -43,4 +44,9 @@ public class PriceBasedOptimizationProfile implements OptimizationProfile {
     public RemainingWeightHeuristic getReversedSearchHeuristic() {
         return reversedSearchHeuristic;
     }
+
+    @Override
+    public OptimizationProfile forConcurrentSearch(RoutingRequest request) {
+        return new PriceBasedOptimizationProfile(request.getCostCategoryWeights());
+    }
 }
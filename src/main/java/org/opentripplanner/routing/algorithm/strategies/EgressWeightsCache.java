@@ -0,0 +1,194 @@
+package org.opentripplanner.routing.algorithm.strategies;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
+import lombok.EqualsAndHashCode;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.algorithm.strategies.InterleavedBidirectionalHeuristic.VertexModeWeight;
+import org.opentripplanner.routing.core.OptimizeType;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.core.routing_parametrizations.BikeParameters;
+import org.opentripplanner.routing.core.routing_parametrizations.GtfsFlexParameters;
+import org.opentripplanner.routing.core.routing_parametrizations.RoutingDelays;
+import org.opentripplanner.routing.core.routing_parametrizations.RoutingPenalties;
+import org.opentripplanner.routing.core.routing_parametrizations.RoutingReluctances;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches results of the street search around the target done by {@link InterleavedBidirectionalHeuristic}, shared
+ * by all requests to the same graph. Most requests go to a small number of popular destinations, so the same search
+ * would otherwise be repeated over and over.
+ * <p>
+ * Only searches which don't depend on the origin are cached, that is searches without car: when driving is allowed
+ * after transit, the search around the target stops as soon as it reaches the origin. Searches with renting are not
+ * cached either, their weights depend on positions of vehicles which change all the time. Entries are evicted least
+ * recently used first, when the total number of cached vertices exceeds the limit. All entries are dropped when
+ * a newer rentable vehicles, parking zones or traffic overlay is published, as street weights may have changed.
+ */
+public class EgressWeightsCache {
+
+    private static final long MAX_CACHED_VERTICES = 2_000_000;
+
+    /* Conditional turn restrictions depend on time, so cached searches are reused only within a time window */
+    private static final long TIME_WINDOW_SECONDS = 15 * 60;
+
+    private final Cache<Key, EgressWeights> cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_VERTICES)
+            .weigher((Key key, EgressWeights weights) -> weights.vertices.size() + weights.transitStopWeights.size())
+            .recordStats()
+            .build();
+
+    private long rentableVehicleOverlayVersion = 0;
+    private long parkingZonesOverlayVersion = 0;
+    private long trafficSpeedOverlayVersion = 0;
+
+    /**
+     * @return cached search around the target of given request, or null if it has to be computed
+     */
+    EgressWeights get(Key key) {
+        return key == null || !isCurrent(key) ? null : cache.getIfPresent(key);
+    }
+
+    void put(Key key, EgressWeights weights) {
+        if (key != null && isCurrent(key)) {
+            cache.put(key, weights);
+        }
+    }
+
+    /**
+     * Drops all entries if given key uses newer overlays than the ones seen so far.
+     *
+     * @return false if given key uses outdated overlays, so its search should not be cached
+     */
+    private synchronized boolean isCurrent(Key key) {
+        if (key.rentableVehicleOverlayVersion < rentableVehicleOverlayVersion
+                || key.parkingZonesOverlayVersion < parkingZonesOverlayVersion
+                || key.trafficSpeedOverlayVersion < trafficSpeedOverlayVersion) {
+            return false;
+        }
+        if (key.rentableVehicleOverlayVersion > rentableVehicleOverlayVersion
+                || key.parkingZonesOverlayVersion > parkingZonesOverlayVersion
+                || key.trafficSpeedOverlayVersion > trafficSpeedOverlayVersion) {
+            rentableVehicleOverlayVersion = key.rentableVehicleOverlayVersion;
+            parkingZonesOverlayVersion = key.parkingZonesOverlayVersion;
+            trafficSpeedOverlayVersion = key.trafficSpeedOverlayVersion;
+            cache.invalidateAll();
+        }
+        return true;
+    }
+
+    /**
+     * Hit rate, hit and miss counts since the graph was loaded
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Lower bounds of weights to the target from street vertices and transit stops around it
+     */
+    static class EgressWeights {
+
+        final Map<Vertex, VertexModeWeight> vertices;
+
+        final TObjectDoubleMap<Vertex> transitStopWeights;
+
+        /**
+         * Temporary vertices of the request which created these weights are skipped, they are not part of the graph
+         * for other requests
+         */
+        EgressWeights(Map<Vertex, VertexModeWeight> vertices, TObjectDoubleMap<Vertex> transitStopWeights) {
+            this.vertices = new HashMap<>();
+            vertices.forEach((vertex, weight) -> {
+                if (!(vertex instanceof TemporaryVertex)) {
+                    this.vertices.put(vertex, weight);
+                }
+            });
+            this.transitStopWeights = new TObjectDoubleHashMap<>(transitStopWeights);
+        }
+    }
+
+    /**
+     * Everything the search around the target depends on. Targets which are temporary vertices are identified by
+     * their coordinates, as they are recreated by every request.
+     */
+    @EqualsAndHashCode
+    static class Key {
+
+        private final Object target;
+        private final boolean arriveBy;
+        private final long timeWindow;
+        private final TraverseModeSet modes;
+        private final TraverseMode startingMode;
+        private final boolean wheelchairAccessible;
+        private final OptimizeType optimize;
+        private final double walkSpeed;
+        private final double bikeSpeed;
+        private final double maxWalkDistance;
+        private final int maxPreTransitTime;
+        private final double maxSlope;
+        private final double stairsReluctance;
+        private final double turnReluctance;
+        private final BikeParameters bike;
+        private final RoutingReluctances routingReluctances;
+        private final RoutingDelays routingDelays;
+        private final RoutingPenalties routingPenalties;
+        private final GtfsFlexParameters flex;
+        private final long rentableVehicleOverlayVersion;
+        private final long parkingZonesOverlayVersion;
+        private final long trafficSpeedOverlayVersion;
+
+        private Key(RoutingRequest request) {
+            RoutingContext rctx = request.rctx;
+            Vertex targetVertex = rctx.target;
+            this.target = targetVertex instanceof TemporaryVertex ? new Coordinate(targetVertex.getCoordinate())
+                    : targetVertex;
+            this.arriveBy = request.arriveBy;
+            this.timeWindow = request.dateTime / TIME_WINDOW_SECONDS;
+            this.modes = request.modes.clone();
+            this.startingMode = request.startingMode;
+            this.wheelchairAccessible = request.wheelchairAccessible;
+            this.optimize = request.optimize;
+            this.walkSpeed = request.walkSpeed;
+            this.bikeSpeed = request.bikeSpeed;
+            this.maxWalkDistance = request.maxWalkDistance;
+            this.maxPreTransitTime = request.maxPreTransitTime;
+            this.maxSlope = request.maxSlope;
+            this.stairsReluctance = request.stairsReluctance;
+            this.turnReluctance = request.turnReluctance;
+            this.bike = request.bike.clone();
+            this.routingReluctances = request.routingReluctances.clone();
+            this.routingDelays = request.routingDelays.clone();
+            this.routingPenalties = request.routingPenalties.clone();
+            this.flex = request.flex.clone();
+            this.rentableVehicleOverlayVersion = rctx.rentableVehicleOverlay.getVersion();
+            this.parkingZonesOverlayVersion = rctx.parkingZonesOverlay.getVersion();
+            this.trafficSpeedOverlayVersion = rctx.trafficSpeedOverlay.getVersion();
+        }
+
+        /**
+         * @return key of the search around the target of given request, or null if it should not be cached
+         */
+        static Key of(RoutingRequest request) {
+            if (request.rctx == null || request.rctx.target == null || request.modes.getCar()
+                    || request.rentingAllowed) {
+                return null;
+            }
+            return new Key(request);
+        }
+    }
+}
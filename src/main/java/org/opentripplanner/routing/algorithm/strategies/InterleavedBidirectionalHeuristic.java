@@ -4,6 +4,7 @@ import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.algorithm.strategies.EgressWeightsCache.EgressWeights;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
@@ -187,7 +188,8 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
     /**
      * Before the main search begins, the heuristic must search on the streets around the origin and destination.
      * This also sets up the initial states for the reverse search through the transit network, which progressively
-     * improves lower bounds on travel time to the target to guide the main search.
+     * improves lower bounds on travel time to the target to guide the main search. The search around the destination
+     * is reused from {@link EgressWeightsCache} when possible.
      */
     @Override
     public void initialize(RoutingRequest request, long abortTime) {
@@ -209,16 +211,31 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
         request.bikeWalkingOptions.softWalkLimiting = false;
         request.bikeWalkingOptions.softPreTransitLimiting = false;
         transitQueue = new BinHeap<>();
+        // Key has to be taken before search limits are raised below
+        EgressWeightsCache.Key egressWeightsKey = EgressWeightsCache.Key.of(request);
         // Forward street search first, mark street vertices around the origin so H evaluates to 0.
-        preTransitVertices = streetSearch(request, false, abortTime);
+        preTransitVertices = streetSearch(request, false, abortTime, null);
         if (preTransitVertices == null) {
             return; // Search timed out
         }
         LOG.debug("end forward street search {} ms", System.currentTimeMillis() - start);
-        postTransitVertices = streetSearch(request, true, abortTime);
-        if (postTransitVertices == null) {
-            return; // Search timed out
+        EgressWeights egressWeights = graph.egressWeightsCache.get(egressWeightsKey);
+        if (egressWeights == null) {
+            TObjectDoubleMap<Vertex> transitStopWeights = new TObjectDoubleHashMap<>(100, 0.5f, Double.POSITIVE_INFINITY);
+            Map<Vertex, VertexModeWeight> vertices = streetSearch(request, true, abortTime, transitStopWeights);
+            if (vertices == null) {
+                return; // Search timed out
+            }
+            egressWeights = new EgressWeights(vertices, transitStopWeights);
+            graph.egressWeightsCache.put(egressWeightsKey, egressWeights);
         }
+        postTransitVertices = egressWeights.vertices;
+        // Transit stops around the target are where the backward search through the transit network starts
+        egressWeights.transitStopWeights.forEachEntry((stop, weight) -> {
+            transitQueue.insert(stop, weight);
+            maxWeightSeen = Math.max(maxWeightSeen, weight);
+            return true;
+        });
         LOG.debug("end backward street search {} ms", System.currentTimeMillis() - start);
 
         // initialize the transit vertices to be an empty map.  Transit vertices will be added later
@@ -443,8 +460,11 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
      * of hailing a car after taking transit or renting a car after transit.  Since the calculation
      * of the estimated remaining weight after transit will be the largest weight seen, we can
      * safely cut off the post-transit search once the origin is found.
+     *
+     * @param transitStopWeights when searching around the target, receives the lowest weights of reached transit stops
      */
-    private Map<Vertex, VertexModeWeight> streetSearch (RoutingRequest rr, boolean fromTarget, long abortTime) {
+    private Map<Vertex, VertexModeWeight> streetSearch (RoutingRequest rr, boolean fromTarget, long abortTime,
+                                                        TObjectDoubleMap<Vertex> transitStopWeights) {
         LOG.debug("Heuristic street search around the {}.", fromTarget ? "target" : "origin");
         rr = rr.clone();
         if (fromTarget) {
@@ -468,13 +488,9 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
             // This is the lowest cost we will ever see for this vertex. We can record the cost to reach it.
             if (v instanceof TransitStop) {
                 // We don't want to continue into the transit network yet, but when searching around the target
-                // place vertices on the transit queue so we can explore the transit network backward later.
-                if (fromTarget) {
-                    double weight = s.getWeight();
-                    transitQueue.insert(v, weight);
-                    if (weight > maxWeightSeen) {
-                        maxWeightSeen = weight;
-                    }
+                // record weights of stops so we can explore the transit network backward later.
+                if (transitStopWeights != null && s.getWeight() < transitStopWeights.get(v)) {
+                    transitStopWeights.put(v, s.getWeight());
                 }
                 continue;
             }
@@ -523,7 +539,7 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
             }
         }
         LOG.debug("Heuristic street search hit {} vertices.", vertices.size());
-        LOG.debug("Heuristic street search hit {} transit stops.", transitQueue.size());
+        LOG.debug("Heuristic street search hit {} transit stops.", fromTarget ? transitStopWeights.size() : 0);
         return vertices;
     }
 
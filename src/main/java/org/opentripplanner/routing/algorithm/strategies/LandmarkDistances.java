@@ -0,0 +1,54 @@
+package org.opentripplanner.routing.algorithm.strategies;
+
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.io.Serializable;
+
+/**
+ * Street network distances from a few landmark vertices to every vertex of the graph, computed at graph build time
+ * (see {@link org.opentripplanner.graph_builder.module.LandmarkModule}) and used by {@link LandmarkRWH}.
+ * <p>
+ * Distances ignore edge directions and permissions, so they are lower bounds of path lengths for every street mode.
+ * They are kept in one float array per landmark, indexed by {@link Vertex#getIndex()}.
+ */
+public class LandmarkDistances implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final float UNREACHABLE = Float.POSITIVE_INFINITY;
+
+    private final int[] landmarkIndices;
+
+    private final float[][] distances;
+
+    public LandmarkDistances(int[] landmarkIndices, float[][] distances) {
+        this.landmarkIndices = landmarkIndices;
+        this.distances = distances;
+    }
+
+    public int getLandmarksCount() {
+        return landmarkIndices.length;
+    }
+
+    /**
+     * @return index of the vertex of given landmark
+     */
+    public int getLandmarkIndex(int landmark) {
+        return landmarkIndices[landmark];
+    }
+
+    /**
+     * @return true if distances were computed for given vertex. Vertices created after graph build (temporary
+     * vertices, vehicles added by updaters) are not covered.
+     */
+    public boolean covers(Vertex vertex) {
+        return landmarkIndices.length > 0 && vertex.getIndex() < distances[0].length;
+    }
+
+    /**
+     * @return distance in meters between given landmark and covered vertex, or {@link #UNREACHABLE}
+     */
+    public float getDistance(int landmark, Vertex vertex) {
+        return distances[landmark][vertex.getIndex()];
+    }
+}
@@ -0,0 +1,120 @@
+package org.opentripplanner.routing.algorithm.strategies;
+
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.Math.max;
+
+/**
+ * Landmark (ALT) heuristic. By the triangle inequality street distance between a vertex and the target is at least
+ * |d(landmark, target) - d(landmark, vertex)| for every landmark, which is much closer to the real distance than the
+ * straight line one when streets are not straight, e.g. around rivers, railways or motorways.
+ * <p>
+ * Distances are multiplied by the same best multiplier as in {@link SimpleEuclideanRWH}, and the heuristic is never
+ * lower than the euclidean one. It falls back to the euclidean heuristic if the graph has no landmarks, or for
+ * vertices created after graph build.
+ */
+public class LandmarkRWH extends SimpleEuclideanRWH {
+
+    /* Target may be linked to streets through a few temporary vertices, but never through many */
+    private static final int MAX_TARGET_VERTICES_NOT_COVERED = 100;
+
+    private LandmarkDistances landmarks;
+
+    /* Distances between every landmark and the target are within these bounds */
+    private float[] targetMinDistances;
+    private float[] targetMaxDistances;
+
+    @Override
+    public void initialize(RoutingRequest options, long abortTime) {
+        super.initialize(options, abortTime);
+        landmarks = options.rctx.graph.landmarkDistances;
+        if (landmarks != null && !calculateTargetDistances(options.rctx.target)) {
+            landmarks = null;
+        }
+    }
+
+    /**
+     * Temporary target is not covered by landmarks. Distance to it is at least the distance to the closest covered
+     * vertex it is linked to, so we keep distances to all of them as a range.
+     *
+     * @return false if target is not linked to any covered vertex
+     */
+    private boolean calculateTargetDistances(Vertex target) {
+        List<Vertex> coveredVertices = findClosestCoveredVertices(target);
+        if (coveredVertices.isEmpty()) {
+            return false;
+        }
+        int landmarksCount = landmarks.getLandmarksCount();
+        targetMinDistances = new float[landmarksCount];
+        targetMaxDistances = new float[landmarksCount];
+        Arrays.fill(targetMinDistances, Float.POSITIVE_INFINITY);
+        Arrays.fill(targetMaxDistances, Float.NEGATIVE_INFINITY);
+        for (Vertex vertex : coveredVertices) {
+            for (int landmark = 0; landmark < landmarksCount; landmark++) {
+                float distance = landmarks.getDistance(landmark, vertex);
+                targetMinDistances[landmark] = Math.min(targetMinDistances[landmark], distance);
+                targetMaxDistances[landmark] = max(targetMaxDistances[landmark], distance);
+            }
+        }
+        return true;
+    }
+
+    private List<Vertex> findClosestCoveredVertices(Vertex target) {
+        List<Vertex> coveredVertices = new ArrayList<>();
+        Set<Vertex> visited = new HashSet<>();
+        Deque<Vertex> queue = new ArrayDeque<>();
+        queue.add(target);
+        visited.add(target);
+        while (!queue.isEmpty()) {
+            Vertex vertex = queue.poll();
+            if (landmarks.covers(vertex)) {
+                coveredVertices.add(vertex);
+                continue;
+            }
+            if (visited.size() > MAX_TARGET_VERTICES_NOT_COVERED) {
+                return new ArrayList<>();
+            }
+            for (Edge edge : vertex.getIncoming()) {
+                if (visited.add(edge.getFromVertex())) {
+                    queue.add(edge.getFromVertex());
+                }
+            }
+            for (Edge edge : vertex.getOutgoing()) {
+                if (visited.add(edge.getToVertex())) {
+                    queue.add(edge.getToVertex());
+                }
+            }
+        }
+        return coveredVertices;
+    }
+
+    @Override
+    public double estimateRemainingWeight(State s) {
+        double euclideanWeight = super.estimateRemainingWeight(s);
+        Vertex vertex = s.getVertex();
+        if (landmarks == null || !landmarks.covers(vertex)) {
+            return euclideanWeight;
+        }
+        float bestDistance = 0;
+        for (int landmark = 0; landmark < targetMinDistances.length; landmark++) {
+            float distance = landmarks.getDistance(landmark, vertex);
+            // Vertex or target is not connected with this landmark
+            if (distance == LandmarkDistances.UNREACHABLE || targetMaxDistances[landmark] == LandmarkDistances.UNREACHABLE) {
+                continue;
+            }
+            bestDistance = max(bestDistance, max(targetMinDistances[landmark] - distance, distance - targetMaxDistances[landmark]));
+        }
+        return max(euclideanWeight, getBestMultiplier() * bestDistance);
+    }
+}
@@ -1,6 +1,5 @@
 package org.opentripplanner.routing.algorithm.strategies;
 
-import com.google.common.annotations.VisibleForTesting;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.vehicle_sharing.*;
@@ -95,7 +94,6 @@ public class SimpleEuclideanRWH implements RemainingWeightHeuristic {
     public void doSomeWork() {
     }
 
-    @VisibleForTesting
     public double getBestMultiplier() {
         return bestMultiplier;
     }
@@ -11,9 +11,11 @@ import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.routing.algorithm.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.strategies.SimpleEuclideanRWH;
 import org.opentripplanner.routing.algorithm.strategies.TrivialRemainingWeightHeuristic;
+import org.opentripplanner.routing.core.vehicle_sharing.RentableVehicleOverlay;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
 import org.opentripplanner.routing.edgetype.TimetableSnapshot;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZonesOverlay;
 import org.opentripplanner.routing.error.GraphNotFoundException;
 import org.opentripplanner.routing.error.TransitTimesException;
 import org.opentripplanner.routing.error.VertexNotFoundException;
@@ -22,6 +24,7 @@ import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.location.StreetLocation;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.metrics.SearchCounters;
 import org.opentripplanner.routing.services.OnBoardDepartService;
 import org.opentripplanner.routing.vertextype.TemporaryVertex;
 import org.opentripplanner.routing.vertextype.TransitStop;
@@ -40,6 +43,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A RoutingContext holds information needed to carry out a search for a particular TraverseOptions, on a specific graph.
@@ -85,6 +89,20 @@ public class RoutingContext implements Cloneable {
     /** The timetableSnapshot is a {@link TimetableSnapshot} for looking up real-time updates. */
     public final TimetableSnapshot timetableSnapshot;
 
+    /** Rentable vehicles visible in this search, pinned for the whole search like the timetable snapshot. */
+    public final RentableVehicleOverlay rentableVehicleOverlay;
+
+    /** Parking zones recomputed at runtime, pinned for the whole search like the timetable snapshot. */
+    public final ParkingZonesOverlay parkingZonesOverlay;
+
+    /** Traffic speeds of street edges, pinned for the whole search like the timetable snapshot. */
+    public final TrafficSpeedOverlay trafficSpeedOverlay;
+
+    /** Predicted car speeds by time of week, looked up relative to local week start of this search. */
+    public final TimeOfDaySpeedProfiles speedProfiles;
+
+    public final long speedProfilesWeekStart;
+
     /**
      * Cache lists of which transit services run on which midnight-to-midnight periods. This ties a TraverseOptions to a particular start time for the
      * duration of a search so the same options cannot be used for multiple searches concurrently. To do so this cache would need to be moved into
@@ -105,9 +123,15 @@ public class RoutingContext implements Cloneable {
     /** An object that accumulates profiling and debugging info for inclusion in the response. */
     public DebugOutput debugOutput = new DebugOutput();
 
+    /** Cost of the request, shared by all searches done for it and aggregated into router's SearchMetrics. */
+    public SearchCounters searchCounters = new SearchCounters();
+
     /** Indicates that the search timed out or was otherwise aborted. */
     public boolean aborted;
 
+    /* Set to stop all searches for the request, shared with contexts of concurrent searches */
+    private final AtomicBoolean searchesAborted;
+
     /** Indicates that a maximum slope constraint was specified but was removed during routing to produce a result. */
     public boolean slopeRestrictionRemoved = false;
 
@@ -143,6 +167,35 @@ public class RoutingContext implements Cloneable {
         this(routingRequest, graph, from, to, false, null);
     }
 
+    /**
+     * Constructor for another search between the same endpoints, e.g. a concurrent search with different constraints.
+     * Endpoints, service days and pinned snapshots are shared with given context, which remains the owner of temporary
+     * vertices and disposes of them.
+     */
+    public RoutingContext(RoutingRequest routingRequest, RoutingContext other) {
+        this.opt = routingRequest;
+        this.graph = other.graph;
+        this.debugOutput.startedCalculating();
+        this.searchCounters = other.searchCounters;
+        this.searchesAborted = other.searchesAborted;
+        this.rentableVehicleOverlay = other.rentableVehicleOverlay;
+        this.parkingZonesOverlay = other.parkingZonesOverlay;
+        this.trafficSpeedOverlay = other.trafficSpeedOverlay;
+        this.speedProfiles = other.speedProfiles;
+        this.speedProfilesWeekStart = other.speedProfilesWeekStart;
+        this.timetableSnapshot = other.timetableSnapshot;
+        this.calendarService = other.calendarService;
+        this.serviceDays = other.serviceDays;
+        this.fromVertex = other.fromVertex;
+        this.toVertex = other.toVertex;
+        this.origin = other.origin;
+        this.originBackEdge = other.originBackEdge;
+        this.target = other.target;
+        this.startingStop = other.startingStop;
+        this.transferTable = other.transferTable;
+        this.remainingWeightHeuristic = new SimpleEuclideanRWH();
+    }
+
     /**
      * Returns the StreetEdges that overlap between two vertices edge sets.
      */
@@ -213,6 +266,12 @@ public class RoutingContext implements Cloneable {
         this.opt = routingRequest;
         this.graph = graph;
         this.debugOutput.startedCalculating();
+        this.searchesAborted = new AtomicBoolean();
+        this.rentableVehicleOverlay = graph.pinRentableVehicleOverlay(this);
+        this.parkingZonesOverlay = graph.getParkingZonesOverlay();
+        this.trafficSpeedOverlay = graph.getTrafficSpeedOverlay();
+        this.speedProfiles = graph.speedProfiles;
+        this.speedProfilesWeekStart = TimeOfDaySpeedProfiles.localWeekStart(routingRequest.dateTime);
 
         // The following block contains potentially resource-intensive things that are only relevant for transit.
         // In normal searches the impact is low, because the routing context is only constructed once at the beginning
@@ -259,6 +318,7 @@ public class RoutingContext implements Cloneable {
 
             else {
                 // normal mode, search for vertices based RoutingRequest and split streets
+                long linkingStartTime = System.nanoTime();
                 toVertex = graph.streetIndex.getVertexForLocation(opt.to, opt, true);
                 if (opt.to.hasEdgeId()) {
                     toBackEdge = graph.getEdgeById(opt.to.edgeId);
@@ -276,6 +336,7 @@ public class RoutingContext implements Cloneable {
                         fromBackEdge = graph.getEdgeById(opt.from.edgeId);
                     }
                 }
+                searchCounters.addLinkingTime(System.nanoTime() - linkingStartTime);
             }
         } else {
             // debug mode, force endpoint vertices to those specified rather than searching
@@ -428,6 +489,21 @@ public class RoutingContext implements Cloneable {
         return true;
     }
 
+    /**
+     * Stops all running searches of the request, the ones using this context and concurrent ones using contexts
+     * created from it. They end as if they timed out.
+     */
+    public void abortSearches() {
+        searchesAborted.set(true);
+    }
+
+    /**
+     * @return true if searches of the request should stop, checked by A* on every iteration
+     */
+    public boolean areSearchesAborted() {
+        return searchesAborted.get();
+    }
+
     /**
      * Tear down this routing context, removing any temporary edges from
      * the "permanent" graph objects. This enables all temporary objects
@@ -436,5 +512,6 @@ public class RoutingContext implements Cloneable {
     public void destroy() {
        TemporaryVertex.disposeAll(temporaryVertices);
        temporaryVertices.clear();
+       rentableVehicleOverlay.unpin(this);
     }
 }
\ No newline at end of file
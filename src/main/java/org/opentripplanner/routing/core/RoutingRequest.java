@@ -16,6 +16,7 @@ import org.opentripplanner.routing.core.routing_parametrizations.RoutingDelays;
 import org.opentripplanner.routing.core.routing_parametrizations.RoutingPenalties;
 import org.opentripplanner.routing.core.routing_parametrizations.RoutingReluctances;
 import org.opentripplanner.routing.core.routing_parametrizations.RoutingStateDiffOptions;
+import org.opentripplanner.routing.core.vehicle_sharing.MinorCurrencyUnits;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleValidator;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.error.TrivialPathException;
@@ -265,6 +266,8 @@ public class RoutingRequest implements Cloneable, Serializable {
 
     private BigDecimal walkPrice = BigDecimal.valueOf(0.3);
 
+    private long walkPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(walkPrice);
+
     /**
      * The maximum wait time in seconds the user is willing to delay trip start. Only effective in Analyst.
      */
@@ -1076,9 +1079,14 @@ public class RoutingRequest implements Cloneable, Serializable {
 
     public void setWalkPrice(BigDecimal walkPrice) {
         this.walkPrice = walkPrice;
+        this.walkPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(walkPrice);
     }
 
     public BigDecimal getWalkPrice() {
         return walkPrice;
     }
+
+    public long getWalkPriceInMinorUnits() {
+        return walkPriceInMinorUnits;
+    }
 }
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.core;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.opentripplanner.model.FeedScopedId;
 import org.opentripplanner.model.Stop;
@@ -17,9 +18,7 @@ import org.opentripplanner.routing.vertextype.BikeRentalStationVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,13 +33,14 @@ public class State implements Cloneable {
 
     private int timeTraversedInCurrentVehicleInSeconds;
 
-    private Map<Integer, BigDecimal> distancePricePerPackage;
-
-    private Map<Integer, BigDecimal> timePricePerPackage;
-
-    private Map<Integer, BigDecimal> startPricePerPackage;
+    /*
+     * Start, time and distance price (in this order) of every pricing package of the current vehicle, in minor currency
+     * units. Allocated only while renting a vehicle and shared with the parent state until it is modified.
+     */
+    @Getter(AccessLevel.NONE)
+    long[] pricesPerPackage;
 
-    private Integer activePackageIndex;
+    private int activePackageIndex;
 
     // the current time at this state, in milliseconds
     protected long time;
@@ -75,7 +75,13 @@ public class State implements Cloneable {
 
     private static final Logger LOG = LoggerFactory.getLogger(State.class);
 
+    private static final int PRICES_PER_PACKAGE = 3;
+
     public boolean usedNotRecommendedRoute = false;
+
+    /* See StatePlane. Computed by StateEditor.makeState(), or lazily for initial states */
+    @Getter(AccessLevel.NONE)
+    int planeKey = StatePlane.UNKNOWN;
     /* CONSTRUCTORS */
 
     /**
@@ -139,9 +145,7 @@ public class State implements Cloneable {
                     : TraverseMode.BICYCLE;
         }
         this.traverseDistanceInMeters = 0;
-        distancePricePerPackage = new HashMap<>();
-        timePricePerPackage = new HashMap<>();
-        startPricePerPackage = new HashMap<>();
+        pricesPerPackage = null;
         activePackageIndex = 0;
         this.preTransitTime = 0;
         this.time = timeSeconds * 1000;
@@ -164,9 +168,6 @@ public class State implements Cloneable {
         State ret;
         try {
             ret = (State) super.clone();
-            ret.startPricePerPackage = new HashMap<>(this.startPricePerPackage);
-            ret.distancePricePerPackage = new HashMap<>(this.distancePricePerPackage);
-            ret.timePricePerPackage = new HashMap<>(this.timePricePerPackage);
         } catch (CloneNotSupportedException e1) {
             throw new IllegalStateException("This is not happening");
         }
@@ -326,8 +327,8 @@ public class State implements Cloneable {
         return stateData.lastAlightedTime;
     }
 
-    public BigDecimal getTraversalPrice() {
-        return traversalStatistics.getPrice();
+    public long getTraversalPriceInMinorUnits() {
+        return traversalStatistics.getPriceInMinorUnits();
     }
 
     public Vertex getVertex() {
@@ -852,6 +853,7 @@ public class State implements Cloneable {
         this.stateData.initialWaitTime = currentStateData.initialWaitTime;
         // this will get re-set on the next alight (or board in a reverse search)
         this.stateData.lastNextArrivalDelta = -1;
+        this.planeKey = StatePlane.UNKNOWN;
     }
 
     public boolean getReverseOptimizing() {
@@ -874,6 +876,16 @@ public class State implements Cloneable {
         return stateData.currentVehicle;
     }
 
+    /**
+     * @return key of the plane of this state, see {@link StatePlane}
+     */
+    public int getPlaneKey() {
+        if (planeKey == StatePlane.UNKNOWN) {
+            planeKey = StatePlane.of(this);
+        }
+        return planeKey;
+    }
+
     public VehicleType getCurrentVehicleType() {
         if (stateData.currentVehicle != null)
             return stateData.currentVehicle.getVehicleType();
@@ -903,28 +915,28 @@ public class State implements Cloneable {
         this.timeTraversedInCurrentVehicleInSeconds = timeTraversedInCurrentVehicleInSeconds;
     }
 
-    public BigDecimal getDistancePriceForCurrentVehicle(int packageIndex) {
-        return distancePricePerPackage.getOrDefault(packageIndex, BigDecimal.ZERO);
+    public long getStartPriceForCurrentVehicle(int packageIndex) {
+        return pricesPerPackage == null ? 0 : pricesPerPackage[PRICES_PER_PACKAGE * packageIndex];
     }
 
-    public void setDistancePriceForCurrentVehicle(BigDecimal distancePriceForCurrentVehicle, int packageIndex) {
-        this.distancePricePerPackage.put(packageIndex, distancePriceForCurrentVehicle);
+    public long getTimePriceForCurrentVehicle(int packageIndex) {
+        return pricesPerPackage == null ? 0 : pricesPerPackage[PRICES_PER_PACKAGE * packageIndex + 1];
     }
 
-    public BigDecimal getTimePriceForCurrentVehicle(int packageIndex) {
-        return timePricePerPackage.getOrDefault(packageIndex, BigDecimal.ZERO);
+    public long getDistancePriceForCurrentVehicle(int packageIndex) {
+        return pricesPerPackage == null ? 0 : pricesPerPackage[PRICES_PER_PACKAGE * packageIndex + 2];
     }
 
-    public void setTimePriceForCurrentVehicle(BigDecimal timePriceForCurrentVehicle, int packageIndex) {
-        this.timePricePerPackage.put(packageIndex, timePriceForCurrentVehicle);
+    void setStartPriceForCurrentVehicle(long startPriceForCurrentVehicle, int packageIndex) {
+        pricesPerPackage[PRICES_PER_PACKAGE * packageIndex] = startPriceForCurrentVehicle;
     }
 
-    public BigDecimal getStartPriceForCurrentVehicle(int packageIndex) {
-        return startPricePerPackage.getOrDefault(packageIndex, BigDecimal.ZERO);
+    void setTimePriceForCurrentVehicle(long timePriceForCurrentVehicle, int packageIndex) {
+        pricesPerPackage[PRICES_PER_PACKAGE * packageIndex + 1] = timePriceForCurrentVehicle;
     }
 
-    public void setStartPriceForCurrentVehicle(BigDecimal startPriceForCurrentVehicle, int packageIndex) {
-        this.startPricePerPackage.put(packageIndex, startPriceForCurrentVehicle);
+    void setDistancePriceForCurrentVehicle(long distancePriceForCurrentVehicle, int packageIndex) {
+        pricesPerPackage[PRICES_PER_PACKAGE * packageIndex + 2] = distancePriceForCurrentVehicle;
     }
 
     public int getActivePackageIndex() {
@@ -935,16 +947,24 @@ public class State implements Cloneable {
         this.activePackageIndex = activePackageIndex;
     }
 
+    void initCurrentVehiclePrices(int numberOfPackages) {
+        this.pricesPerPackage = new long[PRICES_PER_PACKAGE * numberOfPackages];
+    }
+
+    void copyCurrentVehiclePrices() {
+        if (this.pricesPerPackage != null) {
+            this.pricesPerPackage = this.pricesPerPackage.clone();
+        }
+    }
+
     public void clearCurrentVehiclePrices() {
-        this.startPricePerPackage.clear();
-        this.timePricePerPackage.clear();
-        this.distancePricePerPackage.clear();
+        this.pricesPerPackage = null;
     }
 
-    public BigDecimal getTotalPriceForCurrentVehicle(int packageIndex) {
-        return this.getTimePriceForCurrentVehicle(packageIndex)
-                .add(this.getDistancePriceForCurrentVehicle(packageIndex))
-                .add(this.getStartPriceForCurrentVehicle(packageIndex));
+    public long getTotalPriceForCurrentVehicle(int packageIndex) {
+        return this.getStartPriceForCurrentVehicle(packageIndex)
+                + this.getTimePriceForCurrentVehicle(packageIndex)
+                + this.getDistancePriceForCurrentVehicle(packageIndex);
     }
 
     public void setDistanceTraversedInCurrentVehicle(double distanceTraversedInCurrentVehicle) {
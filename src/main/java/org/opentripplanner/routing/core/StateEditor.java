@@ -5,6 +5,7 @@ import org.opentripplanner.model.Stop;
 import org.opentripplanner.model.Trip;
 import org.opentripplanner.routing.algorithm.costs.CostFunction;
 import org.opentripplanner.routing.algorithm.profile.OptimizationProfile;
+import org.opentripplanner.routing.core.vehicle_sharing.MinorCurrencyUnits;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.VehiclePricingPackage;
 import org.opentripplanner.routing.edgetype.TripPattern;
@@ -17,13 +18,10 @@ import org.opentripplanner.routing.vertextype.TemporaryVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 /**
  * This class is a wrapper around a new State that provides it with setter and increment methods,
@@ -37,6 +35,8 @@ public class StateEditor {
 
     private static final Logger LOG = LoggerFactory.getLogger(StateEditor.class);
 
+    private static final int SECONDS_PER_MINUTE = 60;
+
     protected State child;
 
     private boolean extensionsModified = false;
@@ -68,6 +68,7 @@ public class StateEditor {
             child.backState = null;
             child.vertex = parent.vertex;
             child.stateData = child.stateData.clone();
+            child.copyCurrentVehiclePrices();
         } else {
             // be clever
             // Note that we use equals(), not ==, here to allow for dynamically
@@ -140,6 +141,7 @@ public class StateEditor {
             }
         }
         spawned = true;
+        child.planeKey = StatePlane.of(child);
         return child;
     }
 
@@ -264,40 +266,41 @@ public class StateEditor {
             if (!beginningVehicleRenting && Objects.nonNull(child.getCurrentVehicle())) {
                 incrementTimeAssociatedVehiclePrice(seconds);
             } else if (Objects.isNull(child.getCurrentVehicle())) {
-                BigDecimal walkPrice = child.getOptions().getWalkPrice().multiply(BigDecimal.valueOf(seconds)
-                        .divide(BigDecimal.valueOf(TimeUnit.MINUTES.toSeconds(1)), RoundingMode.UP));
-                incrementWeight(CostFunction.CostCategory.PRICE_ASSOCIATED, walkPrice.doubleValue());
+                long startedMinutes = (seconds + SECONDS_PER_MINUTE - 1) / SECONDS_PER_MINUTE;
+                long walkPrice = child.getOptions().getWalkPriceInMinorUnits() * startedMinutes;
+                incrementWeight(CostFunction.CostCategory.PRICE_ASSOCIATED, MinorCurrencyUnits.toDouble(walkPrice));
             }
         }
     }
 
     private void incrementTimeAssociatedVehiclePrice(int seconds) {
         child.setTimeTraversedInCurrentVehicleInSeconds(child.getTimeTraversedInCurrentVehicleInSeconds() + seconds);
+        clonePricesAsNeeded();
 
         int previousActivePackageIndex = child.getActivePackageIndex();
-        BigDecimal previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
+        long previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
 
         VehiclePricingPackage vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(previousActivePackageIndex);
-        child.setTimePriceForCurrentVehicle(vehiclePricingPackage.computeTimeAssociatedPrice(
+        child.setTimePriceForCurrentVehicle(vehiclePricingPackage.computeTimeAssociatedPriceInMinorUnits(
                 child.getStartPriceForCurrentVehicle(previousActivePackageIndex),
                 child.getTimePriceForCurrentVehicle(previousActivePackageIndex),
                 child.getDistancePriceForCurrentVehicle(previousActivePackageIndex),
                 child.getTimeTraversedInCurrentVehicleInSeconds()),
                 previousActivePackageIndex);
 
-        BigDecimal newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
+        long newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
         int proposedActivePackageIndex = previousActivePackageIndex;
-        BigDecimal totalPriceForProposedPackage;
+        long totalPriceForProposedPackage;
 
         for (int i = 0; i < child.getCurrentVehicle().getVehiclePricingPackages().size(); i++) {
             if (i != previousActivePackageIndex) {
                 vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(i);
-                child.setTimePriceForCurrentVehicle(vehiclePricingPackage.computeTimeAssociatedPrice(
+                child.setTimePriceForCurrentVehicle(vehiclePricingPackage.computeTimeAssociatedPriceInMinorUnits(
                         child.getStartPriceForCurrentVehicle(i), child.getTimePriceForCurrentVehicle(i),
                         child.getDistancePriceForCurrentVehicle(i), child.getTimeTraversedInCurrentVehicleInSeconds()),
                         i);
                 totalPriceForProposedPackage = child.getTotalPriceForCurrentVehicle(i);
-                if(totalPriceForProposedPackage.compareTo(newLowestTotalPrice)<0){
+                if (totalPriceForProposedPackage < newLowestTotalPrice) {
                     newLowestTotalPrice = totalPriceForProposedPackage;
                     proposedActivePackageIndex = i;
                 }
@@ -474,21 +477,22 @@ public class StateEditor {
                 + child.getOptions().routingPenalties.getRentingVehiclePenalty());
         incrementTimeInSeconds(rentingTime, true);
 
+        child.initCurrentVehiclePrices(vehicleDescription.getVehiclePricingPackages().size());
         int proposedActivePackageIndex = 0;
         VehiclePricingPackage vehiclePricingPackage = vehicleDescription.getVehiclePricingPackage(proposedActivePackageIndex);
-        child.setStartPriceForCurrentVehicle(vehiclePricingPackage.computeStartPrice(), proposedActivePackageIndex);
-        BigDecimal newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(proposedActivePackageIndex);
-        BigDecimal totalPriceForProposedPackage;
+        child.setStartPriceForCurrentVehicle(vehiclePricingPackage.computeStartPriceInMinorUnits(), proposedActivePackageIndex);
+        long newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(proposedActivePackageIndex);
+        long totalPriceForProposedPackage;
         for (int i = 1; i < vehicleDescription.getVehiclePricingPackages().size(); i++) {
             vehiclePricingPackage = vehicleDescription.getVehiclePricingPackage(i);
-            child.setStartPriceForCurrentVehicle(vehiclePricingPackage.computeStartPrice(), i);
+            child.setStartPriceForCurrentVehicle(vehiclePricingPackage.computeStartPriceInMinorUnits(), i);
             totalPriceForProposedPackage = child.getTotalPriceForCurrentVehicle(i);
-            if(totalPriceForProposedPackage.compareTo(newLowestTotalPrice)<0){
+            if (totalPriceForProposedPackage < newLowestTotalPrice) {
                 newLowestTotalPrice = totalPriceForProposedPackage;
                 proposedActivePackageIndex = i;
             }
         }
-        this.assignBestPackage(BigDecimal.ZERO, newLowestTotalPrice, proposedActivePackageIndex);
+        this.assignBestPackage(0, newLowestTotalPrice, proposedActivePackageIndex);
     }
 
     public void doneVehicleRenting() {
@@ -499,17 +503,17 @@ public class StateEditor {
 
         int previousActivePackageIndex = child.getActivePackageIndex();
         VehiclePricingPackage vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(previousActivePackageIndex);
-        BigDecimal previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
+        long previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
 
-        BigDecimal newLowestTotalPrice = vehiclePricingPackage.computeFinalPrice(child.getTotalPriceForCurrentVehicle(previousActivePackageIndex));
+        long newLowestTotalPrice = vehiclePricingPackage.computeFinalPriceInMinorUnits(child.getTotalPriceForCurrentVehicle(previousActivePackageIndex));
         int proposedActivePackageIndex = previousActivePackageIndex;
-        BigDecimal totalPriceForProposedPackage;
+        long totalPriceForProposedPackage;
 
         for (int i = 0; i < child.getCurrentVehicle().getVehiclePricingPackages().size(); i++) {
             if (i != previousActivePackageIndex) {
                 vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(i);
-                totalPriceForProposedPackage = vehiclePricingPackage.computeFinalPrice(child.getTotalPriceForCurrentVehicle(i));
-                if (totalPriceForProposedPackage.compareTo(newLowestTotalPrice) < 0) {
+                totalPriceForProposedPackage = vehiclePricingPackage.computeFinalPriceInMinorUnits(child.getTotalPriceForCurrentVehicle(i));
+                if (totalPriceForProposedPackage < newLowestTotalPrice) {
                     newLowestTotalPrice = totalPriceForProposedPackage;
                     proposedActivePackageIndex = i;
                 }
@@ -517,7 +521,7 @@ public class StateEditor {
         }
 
         assignBestPackage(previousTotalPrice, newLowestTotalPrice, proposedActivePackageIndex);
-        child.traversalStatistics.setPrice(child.traversalStatistics.getPrice().add(newLowestTotalPrice));
+        child.traversalStatistics.increasePriceInMinorUnits(newLowestTotalPrice);
 
         child.stateData.currentTraverseMode = TraverseMode.WALK;
         child.stateData.currentVehicle = null;
@@ -532,6 +536,7 @@ public class StateEditor {
         child.stateData.currentVehicle = vehicleDescription;
         child.distanceTraversedInCurrentVehicle = 0;
         child.setTimeTraversedInCurrentVehicleInSeconds(0);
+        child.initCurrentVehiclePrices(vehicleDescription.getVehiclePricingPackages().size());
         int droppingTime = child.getOptions().routingDelays.getDropoffTime(child.getCurrentVehicle());
         incrementTimeInSeconds(droppingTime);
     }
@@ -542,6 +547,7 @@ public class StateEditor {
         incrementTimeInSeconds(rentingTime);
         child.stateData.currentTraverseMode = TraverseMode.WALK;
         child.stateData.currentVehicle = null;
+        child.clearCurrentVehiclePrices();
     }
 
     /**
@@ -696,6 +702,15 @@ public class StateEditor {
             child.stateData = child.stateData.clone();
     }
 
+    /**
+     * Same as {@link #cloneStateDataAsNeeded()}, but for prices of the current vehicle, which are copied only when
+     * they are about to change.
+     */
+    private void clonePricesAsNeeded() {
+        if (child.backState != null && child.pricesPerPackage == child.backState.pricesPerPackage)
+            child.copyCurrentVehiclePrices();
+    }
+
     public void alightTransit() {
         cloneStateDataAsNeeded();
         child.stateData.lastTransitWalk = child.getTraverseDistanceInMeters();
@@ -746,31 +761,32 @@ public class StateEditor {
     private void incrementDistanceInCurrentVehicle(double distanceInMeters) {
         if (child.getCurrentVehicle() != null) {
             child.distanceTraversedInCurrentVehicle += distanceInMeters;
+            clonePricesAsNeeded();
 
             int previousActivePackageIndex = child.getActivePackageIndex();
-            BigDecimal previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
+            long previousTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
 
             VehiclePricingPackage vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(previousActivePackageIndex);
-            child.setDistancePriceForCurrentVehicle(vehiclePricingPackage.computeDistanceAssociatedPrice(
+            child.setDistancePriceForCurrentVehicle(vehiclePricingPackage.computeDistanceAssociatedPriceInMinorUnits(
                     child.getStartPriceForCurrentVehicle(previousActivePackageIndex),
                     child.getTimePriceForCurrentVehicle(previousActivePackageIndex),
                     child.getDistancePriceForCurrentVehicle(previousActivePackageIndex),
                     child.distanceTraversedInCurrentVehicle),
                     previousActivePackageIndex);
 
-            BigDecimal newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
+            long newLowestTotalPrice = child.getTotalPriceForCurrentVehicle(previousActivePackageIndex);
             int proposedActivePackageIndex = previousActivePackageIndex;
-            BigDecimal totalPriceForProposedPackage;
+            long totalPriceForProposedPackage;
 
             for (int i = 0; i < child.getCurrentVehicle().getVehiclePricingPackages().size(); i++) {
                 if (i != previousActivePackageIndex) {
                     vehiclePricingPackage = child.getCurrentVehicle().getVehiclePricingPackage(i);
-                    child.setDistancePriceForCurrentVehicle(vehiclePricingPackage.computeDistanceAssociatedPrice(
+                    child.setDistancePriceForCurrentVehicle(vehiclePricingPackage.computeDistanceAssociatedPriceInMinorUnits(
                             child.getStartPriceForCurrentVehicle(i), child.getTimePriceForCurrentVehicle(i),
                             child.getDistancePriceForCurrentVehicle(i), child.distanceTraversedInCurrentVehicle),
                             i);
                     totalPriceForProposedPackage = child.getTotalPriceForCurrentVehicle(i);
-                    if(totalPriceForProposedPackage.compareTo(newLowestTotalPrice)<0){
+                    if (totalPriceForProposedPackage < newLowestTotalPrice) {
                         newLowestTotalPrice = totalPriceForProposedPackage;
                         proposedActivePackageIndex = i;
                     }
@@ -781,12 +797,12 @@ public class StateEditor {
         }
     }
 
-    private void assignBestPackage(BigDecimal oldTotalPrice, BigDecimal newTotalPrice, int newActivePackage) {
-        if (oldTotalPrice.compareTo(newTotalPrice) > 0) {
+    private void assignBestPackage(long oldTotalPrice, long newTotalPrice, int newActivePackage) {
+        if (oldTotalPrice > newTotalPrice) {
             LOG.error("Error while switching between packages due to negative weight increment for " +
                     "request {} and vehicle {}", child.getOptions(), child.getCurrentVehicle());
         }
         child.setActivePackageIndex(newActivePackage);
-        incrementWeight(CostFunction.CostCategory.PRICE_ASSOCIATED, newTotalPrice.subtract(oldTotalPrice).doubleValue());
+        incrementWeight(CostFunction.CostCategory.PRICE_ASSOCIATED, MinorCurrencyUnits.toDouble(newTotalPrice - oldTotalPrice));
     }
 }
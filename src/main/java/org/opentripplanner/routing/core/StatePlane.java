@@ -0,0 +1,126 @@
+package org.opentripplanner.routing.core;
+
+import org.opentripplanner.routing.core.routing_parametrizations.RoutingStateDiffOptions;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.edgetype.SimpleTransfer;
+import org.opentripplanner.routing.edgetype.TimedTransferEdge;
+
+import java.util.Set;
+
+/**
+ * Compact encoding of the "plane" of a state, that is all the variables which make two states at the same vertex
+ * incomparable (see {@link org.opentripplanner.routing.spt.DominanceFunction#betterOrEqualAndComparable}). It is
+ * computed once per state (see {@link State#getPlaneKey()}), so that checking if two states may be compared is a few
+ * integer operations instead of a chain of type checks, set comparisons and range computations on every insert into
+ * a shortest path tree.
+ * <p>
+ * Layout of bits, starting from the least significant one:
+ * <ul>
+ *     <li>8 bits - range group of the current vehicle, which is not a plane on its own, see {@link #getRangeGroup}</li>
+ *     <li>5 bits - non transit mode ordinal + 1, or 0 if unknown</li>
+ *     <li>3 bits - current vehicle type ordinal + 1, or 0 if no vehicle is rented</li>
+ *     <li>1 bit each - bike renting, car parked, bike parked, back edge is a simple transfer, back edge is a timed
+ *     transfer</li>
+ *     <li>8 bits - hash of bike rental networks while renting a bike</li>
+ * </ul>
+ */
+public final class StatePlane {
+
+    /**
+     * Marks a state whose plane was not computed yet. Valid keys are never negative.
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final int RANGE_GROUP_BITS = 8;
+    private static final int RANGE_GROUP_MASK = (1 << RANGE_GROUP_BITS) - 1;
+
+    private static final int MODE_SHIFT = RANGE_GROUP_BITS;
+    private static final int VEHICLE_TYPE_SHIFT = MODE_SHIFT + 5;
+    private static final int VEHICLE_TYPE_MASK = 0b111 << VEHICLE_TYPE_SHIFT;
+
+    private static final int BIKE_RENTING = 1 << (VEHICLE_TYPE_SHIFT + 3);
+    private static final int CAR_PARKED = BIKE_RENTING << 1;
+    private static final int BIKE_PARKED = CAR_PARKED << 1;
+    private static final int SIMPLE_TRANSFER = BIKE_PARKED << 1;
+    private static final int TIMED_TRANSFER = SIMPLE_TRANSFER << 1;
+
+    private static final int NETWORKS_SHIFT = Integer.numberOfTrailingZeros(TIMED_TRANSFER) + 1;
+    private static final int NETWORKS_MASK = 0xFF;
+
+    private StatePlane() {
+    }
+
+    public static int of(State state) {
+        int key = 0;
+
+        TraverseMode mode = state.getNonTransitMode();
+        if (mode != null) {
+            key |= (mode.ordinal() + 1) << MODE_SHIFT;
+        }
+
+        VehicleType vehicleType = state.getCurrentVehicleType();
+        if (vehicleType != null) {
+            key |= (vehicleType.ordinal() + 1) << VEHICLE_TYPE_SHIFT;
+            RoutingStateDiffOptions diffOptions = state.getOptions().routingStateDiffOptions;
+            if (diffOptions.differRangeGroups) {
+                key |= Math.min(diffOptions.getRangeGroup(state), RANGE_GROUP_MASK);
+            }
+        }
+
+        if (state.isBikeRenting()) {
+            key |= BIKE_RENTING;
+            Set<String> networks = state.getBikeRentalNetworks();
+            if (networks != null) {
+                key |= (networks.hashCode() & NETWORKS_MASK) << NETWORKS_SHIFT;
+            }
+        }
+        if (state.isCarParked()) {
+            key |= CAR_PARKED;
+        }
+        if (state.isBikeParked()) {
+            key |= BIKE_PARKED;
+        }
+        if (state.backEdge instanceof SimpleTransfer) {
+            key |= SIMPLE_TRANSFER;
+        }
+        if (state.backEdge instanceof TimedTransferEdge) {
+            key |= TIMED_TRANSFER;
+        }
+        return key;
+    }
+
+    /**
+     * @return false if states with given keys are on different planes, so they may never be compared. True means that
+     * they may be compared, subject to checks which are not encoded in keys (transit boarding, range groups, turn
+     * restrictions and, for colliding hashes, bike rental networks).
+     */
+    public static boolean areComparable(int a, int b) {
+        // A TimedTransferEdge might be invalidated later, so such states are incomparable with all other states
+        if (((a | b) & TIMED_TRANSFER) != 0) {
+            return false;
+        }
+        int difference = (a ^ b) & ~RANGE_GROUP_MASK;
+        if ((difference & ~VEHICLE_TYPE_MASK) != 0) {
+            return false;
+        }
+        // Vehicle types are compared only if both states rent a vehicle
+        return (difference & VEHICLE_TYPE_MASK) == 0
+                || (a & VEHICLE_TYPE_MASK) == 0 || (b & VEHICLE_TYPE_MASK) == 0;
+    }
+
+    /**
+     * Range groups are not planes: a state with further range may still dominate a state with shorter range.
+     *
+     * @return range group of the current vehicle, bigger group means further range, 0 if no vehicle is rented
+     */
+    public static int getRangeGroup(int key) {
+        return key & RANGE_GROUP_MASK;
+    }
+
+    /**
+     * @return true if both keys describe states renting a vehicle
+     */
+    public static boolean bothRentVehicles(int a, int b) {
+        return (a & VEHICLE_TYPE_MASK) != 0 && (b & VEHICLE_TYPE_MASK) != 0;
+    }
+}
@@ -0,0 +1,120 @@
+package org.opentripplanner.routing.core;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Predicted car speeds on street edges for every quarter of an hour of a week. Profiles are shared by all edges of a
+ * traffic prediction cluster, edges hold only index of their profile (see
+ * {@link org.opentripplanner.routing.edgetype.StreetEdge#getSpeedProfileIndex()}).
+ * <p>
+ * Bins are indexed by local time since Monday midnight. Local week start is computed once per search (see
+ * {@link #localWeekStart(long)}), so finding the speed for a state is an array lookup.
+ */
+public class TimeOfDaySpeedProfiles implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int NO_PROFILE = -1;
+
+    public static final float NO_SPEED = -1;
+
+    public static final TimeOfDaySpeedProfiles EMPTY = new TimeOfDaySpeedProfiles(new ArrayList<>());
+
+    public static final int BIN_SECONDS = 15 * 60;
+
+    public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    public static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+
+    public static final int BINS_PER_WEEK = SECONDS_PER_WEEK / BIN_SECONDS;
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+
+    /* Speeds in meters per second, indexed by profile and then by bin */
+    private final List<float[]> profiles;
+
+    private TimeOfDaySpeedProfiles(List<float[]> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * @return epoch second of Monday midnight of the week containing given time, using local time offset at given time
+     */
+    public static long localWeekStart(long epochSeconds) {
+        ZonedDateTime time = Instant.ofEpochSecond(epochSeconds).atZone(ZONE);
+        long secondsSinceWeekStart = (time.getDayOfWeek().getValue() - 1) * (long) SECONDS_PER_DAY
+                + time.toLocalTime().toSecondOfDay();
+        return epochSeconds - secondsSinceWeekStart;
+    }
+
+    /**
+     * @param weekStart local week start computed by {@link #localWeekStart(long)} for any time close to given time
+     * @return predicted speed in meters per second, or {@link #NO_SPEED} if there is no prediction
+     */
+    public float getSpeed(int profileIndex, long weekStart, long epochSeconds) {
+        if (profileIndex < 0 || profileIndex >= profiles.size()) {
+            return NO_SPEED;
+        }
+        int bin = (int) (Math.floorMod(epochSeconds - weekStart, (long) SECONDS_PER_WEEK) / BIN_SECONDS);
+        return profiles.get(profileIndex)[bin];
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final List<float[]> profiles = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @return index of a new profile with no predictions
+         */
+        public int addProfile() {
+            float[] profile = new float[BINS_PER_WEEK];
+            Arrays.fill(profile, NO_SPEED);
+            profiles.add(profile);
+            return profiles.size() - 1;
+        }
+
+        /**
+         * Sets speed for bins starting within given period of given day
+         *
+         * @param dayOfWeek    1 for Monday, 7 for Sunday
+         * @param startSecond  start of period, in seconds since midnight
+         * @param endSecond    end of period (exclusive), in seconds since midnight
+         * @param speedInMetersPerSecond speed predicted in given period
+         */
+        public Builder setSpeed(int profileIndex, int dayOfWeek, int startSecond, int endSecond,
+                                float speedInMetersPerSecond) {
+            if (dayOfWeek < 1 || dayOfWeek > 7) {
+                return this;
+            }
+            float[] profile = profiles.get(profileIndex);
+            int dayStart = (dayOfWeek - 1) * SECONDS_PER_DAY;
+            int firstBin = (dayStart + Math.max(startSecond, 0) + BIN_SECONDS - 1) / BIN_SECONDS;
+            int endBin = (dayStart + Math.min(endSecond, SECONDS_PER_DAY) + BIN_SECONDS - 1) / BIN_SECONDS;
+            for (int bin = firstBin; bin < endBin; bin++) {
+                profile[bin] = speedInMetersPerSecond;
+            }
+            return this;
+        }
+
+        public TimeOfDaySpeedProfiles build() {
+            return new TimeOfDaySpeedProfiles(new ArrayList<>(profiles));
+        }
+    }
+}
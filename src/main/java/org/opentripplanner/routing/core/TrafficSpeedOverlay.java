@@ -0,0 +1,66 @@
+package org.opentripplanner.routing.core;
+
+import org.opentripplanner.routing.graph.Edge;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, versioned traffic speeds of street edges, indexed by edge id and published atomically by the traffic
+ * updater. Edges with no traffic data (including temporary edges created after the overlay) read {@link #NO_SPEED}.
+ * Speed equal to 0 means that the street is closed.
+ * <p>
+ * Every {@link RoutingContext} pins the overlay which was current when the search started, so traffic speeds don't
+ * change while a search is running.
+ */
+public final class TrafficSpeedOverlay {
+
+    public static final float NO_SPEED = -1;
+
+    public static final TrafficSpeedOverlay EMPTY = new TrafficSpeedOverlay(0, new float[0]);
+
+    private final long version;
+
+    private final float[] speedsByEdgeId;
+
+    /**
+     * Given array is owned by this overlay from now on and must not be modified.
+     */
+    public TrafficSpeedOverlay(long version, float[] speedsByEdgeId) {
+        this.version = version;
+        this.speedsByEdgeId = speedsByEdgeId;
+    }
+
+    /**
+     * @return overlay pinned by the search of given state, or empty overlay if state doesn't belong to any search
+     */
+    public static TrafficSpeedOverlay pinnedBy(State state) {
+        RoutingContext context = state.getContext();
+        return context == null ? EMPTY : context.trafficSpeedOverlay;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return traffic speed of given edge or {@link #NO_SPEED} if it is unknown
+     */
+    public float getSpeed(Edge edge) {
+        int id = edge.getId();
+        return id >= 0 && id < speedsByEdgeId.length ? speedsByEdgeId[id] : NO_SPEED;
+    }
+
+    public boolean isClosed(Edge edge) {
+        return getSpeed(edge) == 0;
+    }
+
+    /**
+     * @return copy of traffic speeds, which may be modified when creating next version of this overlay. Copy has at
+     * least `length` elements, new elements are set to {@link #NO_SPEED}.
+     */
+    public float[] copySpeeds(int length) {
+        float[] speeds = Arrays.copyOf(speedsByEdgeId, Math.max(length, speedsByEdgeId.length));
+        Arrays.fill(speeds, speedsByEdgeId.length, speeds.length, NO_SPEED);
+        return speeds;
+    }
+}
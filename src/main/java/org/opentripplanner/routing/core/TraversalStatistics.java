@@ -2,7 +2,6 @@ package org.opentripplanner.routing.core;
 
 import com.google.common.collect.ImmutableMap;
 
-import java.math.BigDecimal;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -18,7 +17,7 @@ public class TraversalStatistics implements Cloneable {
     private int timeInBicycle = 0;
     private int timeInTransit = 0;
 
-    private BigDecimal price = BigDecimal.ZERO;
+    private long priceInMinorUnits = 0;
 
     protected TraversalStatistics copy() {
         TraversalStatistics copy = new TraversalStatistics();
@@ -30,7 +29,7 @@ public class TraversalStatistics implements Cloneable {
         copy.timeInCar = this.timeInCar;
         copy.timeInBicycle = this.timeInBicycle;
         copy.timeInTransit = this.timeInTransit;
-        copy.price = this.price;
+        copy.priceInMinorUnits = this.priceInMinorUnits;
         return copy;
     }
 
@@ -98,11 +97,11 @@ public class TraversalStatistics implements Cloneable {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
-    public BigDecimal getPrice() {
-        return price;
+    public long getPriceInMinorUnits() {
+        return priceInMinorUnits;
     }
 
-    public void setPrice(BigDecimal price) {
-        this.price = price;
+    public void increasePriceInMinorUnits(long price) {
+        this.priceInMinorUnits += price;
     }
 }
@@ -0,0 +1,31 @@
+package org.opentripplanner.routing.core.vehicle_sharing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices are kept in routing states as fixed-point longs counted in minor currency units (e.g. grosze, cents),
+ * so that no BigDecimal has to be allocated while traversing edges. This class converts between the two
+ * representations and should only be used at API boundaries and when pricing configuration is loaded.
+ */
+public final class MinorCurrencyUnits {
+
+    public static final int SCALE = 2;
+
+    private static final double UNITS_PER_MAJOR = 100.0;
+
+    private MinorCurrencyUnits() {
+    }
+
+    public static long fromBigDecimal(BigDecimal price) {
+        return price.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long priceInMinorUnits) {
+        return BigDecimal.valueOf(priceInMinorUnits, SCALE);
+    }
+
+    public static double toDouble(long priceInMinorUnits) {
+        return priceInMinorUnits / UNITS_PER_MAJOR;
+    }
+}
@@ -0,0 +1,128 @@
+package org.opentripplanner.routing.core.vehicle_sharing;
+
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable, versioned view of rentable vehicles linked to graph, published atomically by the vehicle updater in the
+ * same way {@link org.opentripplanner.updater.stoptime.TimetableSnapshotSource} publishes timetable snapshots.
+ * <p>
+ * Every {@link org.opentripplanner.routing.core.RoutingContext} pins the overlay which was current when the search
+ * started. Rent edges remember the versions in which they became and stopped being visible, so vehicles linked or
+ * removed while a search is running don't change its results. Vertices of vehicles removed in some version are kept in
+ * graph until no routing context pins any older overlay, and only then disposed.
+ */
+public final class RentableVehicleOverlay {
+
+    private final long version;
+
+    private final Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink;
+
+    private final List<Vertex> removedVertices;
+
+    private final RentableVehiclesUpdateStatistics updateStatistics;
+
+    /* Routing contexts which pinned this overlay. Weakly referenced, so that contexts which are never destroyed don't
+     keep removed vertices in graph forever */
+    private final Set<Object> pinnedBy = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /* Set once no routing context pins this overlay and a newer one is published, guarded by `this` */
+    private boolean retired = false;
+
+    /**
+     * @return overlay without any vehicles, current in graphs in which vehicles were never updated
+     */
+    public static RentableVehicleOverlay empty() {
+        return new RentableVehicleOverlay(0, Collections.emptyMap(), Collections.emptyList());
+    }
+
+    /**
+     * @param vehiclesTriedToLink vehicles which we tried to link to graph. If vertex is present, then we succeeded in
+     *                            linking that vehicle
+     * @param removedVertices     vertices of vehicles removed in this version, which should be disposed once no
+     *                            search uses an older overlay
+     */
+    public RentableVehicleOverlay(long version, Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink,
+                                  List<Vertex> removedVertices) {
+        this(version, vehiclesTriedToLink, removedVertices, RentableVehiclesUpdateStatistics.EMPTY);
+    }
+
+    public RentableVehicleOverlay(long version, Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink,
+                                  List<Vertex> removedVertices, RentableVehiclesUpdateStatistics updateStatistics) {
+        this.version = version;
+        this.vehiclesTriedToLink = Collections.unmodifiableMap(new HashMap<>(vehiclesTriedToLink));
+        this.removedVertices = Collections.unmodifiableList(removedVertices);
+        this.updateStatistics = updateStatistics;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> getVehiclesTriedToLink() {
+        return vehiclesTriedToLink;
+    }
+
+    public Collection<Vertex> getRemovedVertices() {
+        return removedVertices;
+    }
+
+    /**
+     * @return statistics of the update which published this overlay
+     */
+    public RentableVehiclesUpdateStatistics getUpdateStatistics() {
+        return updateStatistics;
+    }
+
+    public long countProperlyLinkedVehicles() {
+        return vehiclesTriedToLink.values().stream().filter(Optional::isPresent).count();
+    }
+
+    /**
+     * @return true if an edge visible from version `visibleFromVersion` (inclusive) until version `visibleUntilVersion`
+     * (exclusive) should be visible for searches pinned to this overlay
+     */
+    public boolean isVisible(long visibleFromVersion, long visibleUntilVersion) {
+        return visibleFromVersion <= version && version < visibleUntilVersion;
+    }
+
+    /**
+     * Records that given routing context uses this overlay, so that vertices visible in it are not disposed until the
+     * context is destroyed or garbage collected.
+     *
+     * @return false if this overlay is already retired, then the current overlay should be pinned instead
+     */
+    public synchronized boolean pin(Object routingContext) {
+        if (retired) {
+            return false;
+        }
+        pinnedBy.add(routingContext);
+        return true;
+    }
+
+    public synchronized void unpin(Object routingContext) {
+        pinnedBy.remove(routingContext);
+    }
+
+    /**
+     * Retires this overlay if no routing context pins it. Should be called only when a newer overlay is published.
+     *
+     * @return true if this overlay is retired and it can't be pinned anymore
+     */
+    public synchronized boolean retire() {
+        if (!pinnedBy.isEmpty()) {
+            return false;
+        }
+        retired = true;
+        return true;
+    }
+}
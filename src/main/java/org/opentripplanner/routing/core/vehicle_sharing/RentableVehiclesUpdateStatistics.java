@@ -0,0 +1,71 @@
+package org.opentripplanner.routing.core.vehicle_sharing;
+
+import lombok.Getter;
+
+/**
+ * Counts of vehicles in each category of a single rentable vehicles update and time spent linking them to graph.
+ * Published together with the {@link RentableVehicleOverlay} created by that update.
+ */
+@Getter
+public class RentableVehiclesUpdateStatistics {
+
+    public static final RentableVehiclesUpdateStatistics EMPTY = new RentableVehiclesUpdateStatistics();
+
+    /* Vehicles which were not present in the previous update */
+    private int addedCount;
+
+    private int removedCount;
+
+    /* Vehicles which moved, so they were removed and linked to graph again at their new positions */
+    private int relinkedCount;
+
+    /* Vehicles which didn't move, but some of their attributes (range, pricing etc.) changed */
+    private int attributesChangedCount;
+
+    private int unchangedCount;
+
+    private int failedToLinkCount;
+
+    private long linkTimeInMillis;
+
+    public void vehicleAdded() {
+        addedCount++;
+    }
+
+    public void vehiclesRemoved(int count) {
+        removedCount += count;
+    }
+
+    public void vehicleRelinked() {
+        relinkedCount++;
+    }
+
+    public void vehicleAttributesChanged() {
+        attributesChangedCount++;
+    }
+
+    public void vehicleUnchanged() {
+        unchangedCount++;
+    }
+
+    public void vehicleFailedToLink() {
+        failedToLinkCount++;
+    }
+
+    public void increaseLinkTime(long millis) {
+        linkTimeInMillis += millis;
+    }
+
+    @Override
+    public String toString() {
+        return "RentableVehiclesUpdateStatistics{" +
+                "added=" + addedCount +
+                ", removed=" + removedCount +
+                ", relinked=" + relinkedCount +
+                ", attributesChanged=" + attributesChangedCount +
+                ", unchanged=" + unchangedCount +
+                ", failedToLink=" + failedToLinkCount +
+                ", linkTimeInMillis=" + linkTimeInMillis +
+                '}';
+    }
+}
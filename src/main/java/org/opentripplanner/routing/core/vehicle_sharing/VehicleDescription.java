@@ -131,4 +131,21 @@ public abstract class VehicleDescription {
     public boolean requiresHubToDrop() {
         return requiresHubToDrop;
     }
+
+    public boolean hasSamePositionAs(VehicleDescription other) {
+        return longitude == other.longitude && latitude == other.latitude;
+    }
+
+    /**
+     * Compares everything but identity and position of vehicles, which is what may change between two updates of the
+     * same vehicle fetched from api.
+     */
+    public boolean hasSameAttributesAs(VehicleDescription other) {
+        return getVehicleType() == other.getVehicleType() &&
+                rangeInMeters == other.rangeInMeters &&
+                requiresHubToDrop == other.requiresHubToDrop &&
+                fuelType == other.fuelType &&
+                gearbox == other.gearbox &&
+                vehiclePricingPackages.equals(other.vehiclePricingPackages);
+    }
 }
@@ -1,8 +1,11 @@
 package org.opentripplanner.routing.core.vehicle_sharing;
 
+import lombok.EqualsAndHashCode;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+@EqualsAndHashCode
 public class VehiclePricingPackage {
 
     private final BigDecimal packagePrice;
@@ -33,6 +36,29 @@ public class VehiclePricingPackage {
 
     private final boolean kilometerPriceEnabledAboveMaxRentingPrice;
 
+    /* The same prices in minor currency units, used while routing to avoid BigDecimal arithmetic on every edge */
+
+    private final long packagePriceInMinorUnits;
+
+    private final long minRentingPriceInMinorUnits;
+
+    private final long startPriceInMinorUnits;
+
+    private final long drivingPricePerTimeTickInPackageInMinorUnits;
+
+    private final long drivingPricePerTimeTickInPackageExceededInMinorUnits;
+
+    private final long kilometerPriceInMinorUnits;
+
+    private final long maxRentingPriceInMinorUnits;
+
+    /* Time price breakpoints, precomputed so that time price can be evaluated with at most one integer division */
+
+    // Number of seconds (after free seconds) billed with in-package time ticks once the package is used up
+    private final int secondsBilledInPackage;
+
+    private final long fullPackageTimePriceInMinorUnits;
+
     public VehiclePricingPackage() {
         /* By default creating a "no predefined package" configuration
          * (package time limit is set to 0, so we only use the package exceeded properties to compute the price)
@@ -55,6 +81,16 @@ public class VehiclePricingPackage {
         this.secondsPerTimeTickInPackageExceeded = secondsPerTimeTickInPackageExceeded > 0 ? secondsPerTimeTickInPackageExceeded : 1;
         this.maxRentingPrice = maxRentingPrice;
         this.kilometerPriceEnabledAboveMaxRentingPrice = kilometerPriceEnabledAboveMaxRentingPrice;
+        this.packagePriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(packagePrice);
+        this.minRentingPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(minRentingPrice);
+        this.startPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(startPrice);
+        this.drivingPricePerTimeTickInPackageInMinorUnits = MinorCurrencyUnits.fromBigDecimal(drivingPricePerTimeTickInPackage);
+        this.drivingPricePerTimeTickInPackageExceededInMinorUnits = MinorCurrencyUnits.fromBigDecimal(drivingPricePerTimeTickInPackageExceeded);
+        this.kilometerPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(kilometerPrice);
+        this.maxRentingPriceInMinorUnits = MinorCurrencyUnits.fromBigDecimal(maxRentingPrice);
+        int timeTicksInFullPackage = divideRoundingUp(packageTimeLimitInSeconds, this.secondsPerTimeTickInPackage);
+        this.secondsBilledInPackage = timeTicksInFullPackage * this.secondsPerTimeTickInPackage;
+        this.fullPackageTimePriceInMinorUnits = timeTicksInFullPackage * drivingPricePerTimeTickInPackageInMinorUnits;
     }
 
     public BigDecimal computeStartPrice() {
@@ -136,6 +172,83 @@ public class VehiclePricingPackage {
         return computeFinalPrice(startPrice.add(timePrice).add(distancePrice));
     }
 
+    public long computeStartPriceInMinorUnits() {
+        return packagePriceInMinorUnits + startPriceInMinorUnits;
+    }
+
+    /**
+     * Same as {@link #computeTimeAssociatedPrice(BigDecimal, BigDecimal, BigDecimal, int)}, but all prices are
+     * expressed in minor currency units. Uses precomputed package breakpoints, so it does not allocate and runs in
+     * constant time.
+     */
+    public long computeTimeAssociatedPriceInMinorUnits(long currentStartPrice, long currentTimePrice,
+                                                       long currentDistancePrice, int totalDrivingTimeInSeconds) {
+        long previousTotalPrice = currentStartPrice + currentTimePrice + currentDistancePrice;
+        if (!isMaxRentingPriceInMinorUnitsUsed() || previousTotalPrice < maxRentingPriceInMinorUnits) {
+            long newTimeAssociatedPrice = computeTimePriceWithoutLimitsInMinorUnits(totalDrivingTimeInSeconds);
+            if (!isMaxRentingPriceInMinorUnitsUsed()) {
+                return newTimeAssociatedPrice;
+            } else {
+                long priceWithoutTime = previousTotalPrice - currentTimePrice;
+                return priceWithoutTime + newTimeAssociatedPrice >= maxRentingPriceInMinorUnits
+                        ? maxRentingPriceInMinorUnits - priceWithoutTime
+                        : newTimeAssociatedPrice;
+            }
+        } else {
+            return currentTimePrice;
+        }
+    }
+
+    /**
+     * Same as {@link #computeDistanceAssociatedPrice(BigDecimal, BigDecimal, BigDecimal, double)}, but all prices
+     * are expressed in minor currency units.
+     */
+    public long computeDistanceAssociatedPriceInMinorUnits(long currentStartPrice, long currentTimePrice,
+                                                           long currentDistancePrice, double totalDistanceInMeters) {
+        long previousTotalPrice = currentStartPrice + currentTimePrice + currentDistancePrice;
+        if (!isMaxRentingPriceInMinorUnitsUsed() || previousTotalPrice < maxRentingPriceInMinorUnits ||
+                kilometerPriceEnabledAboveMaxRentingPrice) {
+            int newDistanceInKilometers = (int) (totalDistanceInMeters / 1000);
+            long newDistancePrice = newDistanceInKilometers * kilometerPriceInMinorUnits;
+            if (!isMaxRentingPriceInMinorUnitsUsed() || kilometerPriceEnabledAboveMaxRentingPrice) {
+                return newDistancePrice;
+            } else {
+                long priceWithoutDistance = previousTotalPrice - currentDistancePrice;
+                return priceWithoutDistance + newDistancePrice >= maxRentingPriceInMinorUnits
+                        ? maxRentingPriceInMinorUnits - priceWithoutDistance
+                        : newDistancePrice;
+            }
+        } else {
+            return currentDistancePrice;
+        }
+    }
+
+    private long computeTimePriceWithoutLimitsInMinorUnits(int totalDrivingTimeInSeconds) {
+        int paidSeconds = totalDrivingTimeInSeconds - freeSeconds;
+        if (paidSeconds <= 0) {
+            return 0;
+        } else if (paidSeconds < packageTimeLimitInSeconds) {
+            return divideRoundingUp(paidSeconds, secondsPerTimeTickInPackage) * drivingPricePerTimeTickInPackageInMinorUnits;
+        } else if (paidSeconds <= secondsBilledInPackage) {
+            return fullPackageTimePriceInMinorUnits;
+        } else {
+            int timeTicksAbovePackage = divideRoundingUp(paidSeconds - secondsBilledInPackage, secondsPerTimeTickInPackageExceeded);
+            return fullPackageTimePriceInMinorUnits + timeTicksAbovePackage * drivingPricePerTimeTickInPackageExceededInMinorUnits;
+        }
+    }
+
+    public long computeFinalPriceInMinorUnits(long totalPriceForCurrentVehicle) {
+        return Math.max(totalPriceForCurrentVehicle, minRentingPriceInMinorUnits);
+    }
+
+    private boolean isMaxRentingPriceInMinorUnitsUsed() {
+        return maxRentingPriceInMinorUnits > 0;
+    }
+
+    private static int divideRoundingUp(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
     public BigDecimal getPackagePrice() {
         return packagePrice;
     }
@@ -15,6 +15,15 @@ public class VehicleValidator {
         filters.add(filter);
     }
 
+    /**
+     * @return validator with the same filters, to which filters can be added independently from this one
+     */
+    public VehicleValidator copy() {
+        VehicleValidator copy = new VehicleValidator();
+        copy.filters.addAll(filters);
+        return copy;
+    }
+
     public boolean isValid(VehicleDescription vehicle) {
         return filters.stream().allMatch(f -> f.isValid(vehicle));
     }
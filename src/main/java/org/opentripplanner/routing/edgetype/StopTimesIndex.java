@@ -0,0 +1,98 @@
+package org.opentripplanner.routing.edgetype;
+
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trips of a timetable sorted by departure and by arrival time at each stop, so that the next departure (previous
+ * arrival) can be found with a binary search followed by a short scan, instead of checking every trip of the pattern.
+ * Trips with equal times are kept in their timetable order, which is the order in which a linear scan prefers them.
+ * <p>
+ * Arrival times are stored negated, so that both are scanned forward: the latest arrival comes first. The index
+ * refers to trips by their position in the timetable, so it has to be rebuilt whenever trip times are replaced.
+ */
+final class StopTimesIndex {
+
+    private final int nTrips;
+
+    /* For each stop, times and timetable positions of all trips, stops are stored one after another */
+    private final int[] departureTimes;
+    private final int[] departureTrips;
+    private final int[] negatedArrivalTimes;
+    private final int[] arrivalTrips;
+
+    StopTimesIndex(List<TripTimes> tripTimes, int nStops) {
+        this.nTrips = tripTimes.size();
+        this.departureTimes = new int[nStops * nTrips];
+        this.departureTrips = new int[nStops * nTrips];
+        this.negatedArrivalTimes = new int[nStops * nTrips];
+        this.arrivalTrips = new int[nStops * nTrips];
+        long[] keys = new long[nTrips];
+        for (int stop = 0; stop < nStops; stop++) {
+            for (int trip = 0; trip < nTrips; trip++) {
+                keys[trip] = sortKey(tripTimes.get(trip).getDepartureTime(stop), trip);
+            }
+            fill(keys, stop * nTrips, departureTimes, departureTrips);
+            for (int trip = 0; trip < nTrips; trip++) {
+                keys[trip] = sortKey(-tripTimes.get(trip).getArrivalTime(stop), trip);
+            }
+            fill(keys, stop * nTrips, negatedArrivalTimes, arrivalTrips);
+        }
+    }
+
+    /* Orders by time first and timetable position second, positions are never negative */
+    private static long sortKey(int time, int trip) {
+        return ((long) time << 32) | trip;
+    }
+
+    private static void fill(long[] keys, int offset, int[] times, int[] trips) {
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            times[offset + i] = (int) (keys[i] >> 32);
+            trips[offset + i] = (int) keys[i];
+        }
+    }
+
+    /**
+     * @return position of the earliest departure at or after given time (latest arrival at or before given time) at
+     * given stop, or {@link #end} of the stop if there is none
+     */
+    int first(int stopIndex, int time, boolean boarding) {
+        int[] times = boarding ? departureTimes : negatedArrivalTimes;
+        int key = boarding ? time : -time;
+        int low = stopIndex * nTrips;
+        int high = low + nTrips;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return position after the last departure (arrival) at given stop
+     */
+    int end(int stopIndex) {
+        return (stopIndex + 1) * nTrips;
+    }
+
+    /**
+     * @return departure (arrival) time at given position
+     */
+    int getTime(int position, boolean boarding) {
+        return boarding ? departureTimes[position] : -negatedArrivalTimes[position];
+    }
+
+    /**
+     * @return position in the timetable of the trip departing (arriving) at given position
+     */
+    int getTrip(int position, boolean boarding) {
+        return boarding ? departureTrips[position] : arrivalTrips[position];
+    }
+}
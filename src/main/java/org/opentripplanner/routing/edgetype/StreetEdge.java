@@ -7,8 +7,6 @@ import org.opentripplanner.common.TurnRestriction;
 import org.opentripplanner.common.TurnRestrictionType;
 import org.opentripplanner.common.geometry.*;
 import org.opentripplanner.common.model.P2;
-import org.opentripplanner.graph_builder.module.time.QueryData;
-import org.opentripplanner.graph_builder.module.time.TimeTable;
 import org.opentripplanner.routing.core.*;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.graph.Edge;
@@ -111,15 +109,10 @@ public class StreetEdge extends Edge implements Cloneable {
      */
     private byte outAngle;
 
-    public ArrayList<TimeTable> getTimes() {
-        return times;
-    }
-
-    public void setTimes(ArrayList<TimeTable> times) {
-        this.times = times;
-    }
-
-    private ArrayList<TimeTable> times;
+    /**
+     * Index of predicted car speeds profile in {@link org.opentripplanner.routing.graph.Graph#speedProfiles}
+     */
+    private int speedProfileIndex = TimeOfDaySpeedProfiles.NO_PROFILE;
 
     private final List<TurnRestriction> turnRestrictions = new ArrayList<>();
 
@@ -132,7 +125,6 @@ public class StreetEdge extends Edge implements Cloneable {
         this.length_mm = (int) (length * 1000); // CONVERT FROM FLOAT METERS TO FIXED MILLIMETERS
         this.bicycleSafetyFactor = 1.0f;
         this.name = name;
-        this.setTemporarySpeedLimit(-1);
         this.setPermission(permission);
         this.setMaxStreetTraverseSpeed(DEFAULT_CAR_SPEED);
         this.setWheelchairAccessible(true); // accessible by default
@@ -299,9 +291,9 @@ public class StreetEdge extends Edge implements Cloneable {
         boolean backWalkingBike = s0.isBackWalkingBike();
         TraverseMode backMode = s0.getBackMode();
         Edge backEdge = s0.getBackEdge();
-        if( this.getTemporarySpeedLimit()==0){
-            return  null;
-            // Road is closed or speed = 0
+        TrafficSpeedOverlay trafficSpeedOverlay = TrafficSpeedOverlay.pinnedBy(s0);
+        if (trafficSpeedOverlay.isClosed(this)) {
+            return null;
         }
         if (backEdge != null) {
             // No illegal U-turns.
@@ -330,7 +322,7 @@ public class StreetEdge extends Edge implements Cloneable {
         }
 
         // Automobiles have variable speeds depending on the edge type
-        double speed = calculateSpeed(options, traverseMode, s0.getCurrentVehicle(), s0.getTimeInMillis());
+        double speed = calculateSpeed(options, traverseMode, s0, trafficSpeedOverlay);
 
         double time = getDistanceInMeters() / speed;
         double weight;
@@ -431,7 +423,7 @@ public class StreetEdge extends Edge implements Cloneable {
             backPSE = (StreetEdge) backEdge;
             RoutingRequest backOptions = backWalkingBike ?
                     s0.getOptions().bikeWalkingOptions : s0.getOptions();
-            double backSpeed = backPSE.calculateSpeed(backOptions, backMode, s0.getCurrentVehicle(), s0.getTimeInMillis());
+            double backSpeed = backPSE.calculateSpeed(backOptions, backMode, s0, trafficSpeedOverlay);
             final double realTurnCost;  // Units are seconds.
 
             // Apply turn restrictions
@@ -546,40 +538,42 @@ public class StreetEdge extends Edge implements Cloneable {
     }
 
 
-    private double TemporarySpeedLimit;
-
-    public double getTemporarySpeedLimit() {
-        return TemporarySpeedLimit;
+    public int getSpeedProfileIndex() {
+        return speedProfileIndex;
     }
 
-    public void setTemporarySpeedLimit(int temporarySpeedLimit) {
-        TemporarySpeedLimit = temporarySpeedLimit;
+    public void setSpeedProfileIndex(int speedProfileIndex) {
+        this.speedProfileIndex = speedProfileIndex;
     }
 
-
-    public double getVooomSpeed(long timeMillis) {
-
-        if (this.getTimes() != null) {
-            int i = Collections.binarySearch(this.getTimes(), new QueryData(timeMillis));
-            if (i >= 0) {
-                TimeTable timetable = this.getTimes().get(i);
-                if (timetable != null)
-                    return timetable.getMetrpersecundSpeed();
-            }
+    /**
+     * @return predicted car speed at the time of given state, or {@link TimeOfDaySpeedProfiles#NO_SPEED}
+     */
+    private float getPredictedSpeed(State state) {
+        RoutingContext context = state.getContext();
+        if (speedProfileIndex == TimeOfDaySpeedProfiles.NO_PROFILE || context == null) {
+            return TimeOfDaySpeedProfiles.NO_SPEED;
         }
-        return this.getMaxStreetTraverseSpeed();
+        return context.speedProfiles.getSpeed(speedProfileIndex, context.speedProfilesWeekStart,
+                state.getTimeSeconds());
     }
 
-    public double calculateSpeed(RoutingRequest options, TraverseMode traverseMode, VehicleDescription currentVehicle, long timeMillis) {
+    public double calculateSpeed(RoutingRequest options, TraverseMode traverseMode, State state,
+                                 TrafficSpeedOverlay trafficSpeedOverlay) {
         double maxVehicleSpeed = options.getSpeed(traverseMode);
+        VehicleDescription currentVehicle = state.getCurrentVehicle();
         if(currentVehicle != null) {
             maxVehicleSpeed = currentVehicle.getMaxSpeedInMetersPerSecond(this);
         }
-        if (this.getTimes() != null && traverseMode == TraverseMode.CAR) {
-            maxVehicleSpeed = min(maxVehicleSpeed, this.getVooomSpeed(timeMillis));
-        }
-        if (TemporarySpeedLimit > 0 && traverseMode == TraverseMode.CAR) {
-            maxVehicleSpeed = min(maxVehicleSpeed, TemporarySpeedLimit);
+        if (traverseMode == TraverseMode.CAR) {
+            float predictedSpeed = getPredictedSpeed(state);
+            if (predictedSpeed != TimeOfDaySpeedProfiles.NO_SPEED) {
+                maxVehicleSpeed = min(maxVehicleSpeed, predictedSpeed);
+            }
+            float trafficSpeed = trafficSpeedOverlay.getSpeed(this);
+            if (trafficSpeed > 0) {
+                maxVehicleSpeed = min(maxVehicleSpeed, trafficSpeed);
+            }
         }
         return min(maxVehicleSpeed, getMaxStreetTraverseSpeed());
     }
@@ -890,6 +884,7 @@ public class StreetEdge extends Edge implements Cloneable {
         edge.setHasBogusName(hasBogusName());
         edge.setStairs(isStairs());
         edge.setWheelchairAccessible(isWheelchairAccessible());
+        edge.setSpeedProfileIndex(getSpeedProfileIndex());
     }
 
     /**
@@ -68,6 +68,11 @@ public class Timetable implements Serializable {
      * Helps determine whether a particular pattern is worth searching for departures at a given time. 
      */
     private transient int minTime, maxTime;
+
+    /**
+     * Trips sorted by departure and arrival times at each stop, null until the timetable is finished.
+     */
+    private transient StopTimesIndex stopTimesIndex;
     
     /** Construct an empty Timetable. */
     public Timetable(TripPattern pattern) {
@@ -162,66 +167,84 @@ public class Timetable implements Serializable {
         }
         TripTimes bestTrip = null;
         Stop currentStop = pattern.getStop(stopIndex);
-        // Linear search through the timetable looking for the best departure.
-        // We no longer use a binary search on Timetables because:
-        // 1. we allow combining trips from different service IDs on the same tripPattern.
-        // 2. We mix frequency-based and one-off TripTimes together on tripPatterns.
-        // 3. Stoptimes may change with realtime updates, and we cannot count on them being sorted.
-        //    The complexity of keeping sorted indexes up to date does not appear to be worth the
-        //    apparently minor speed improvement.
         int bestTime = boarding ? Integer.MAX_VALUE : Integer.MIN_VALUE;
-        // Hoping JVM JIT will distribute the loop over the if clauses as needed.
-        // We could invert this and skip some service days based on schedule overlap as in RRRR.
-        for (TripTimes tt : tripTimes) {
-            if (tt.isCanceled()) continue;
-            if ( ! serviceDay.serviceRunning(tt.serviceCode)) continue; // TODO merge into call on next line
-            if ( ! tt.tripAcceptable(s0, stopIndex)) continue;
-            int adjustedTime = adjustTimeForTransfer(s0, currentStop, tt.trip, boarding, serviceDay, time);
-            if (adjustedTime == -1) continue;
-            if (boarding) {
-                // For GTFS-Flex, if this is a flag-stop or deviated-route board/alight, we need to
-                // add to the scheduled timepoint the amount of time the vehicle travels along the
-                // hop before the board/alight, and subtract the amount of time the vehicle travels
-                // off-route before rejoining the route. Both these values are 0 for regular fixed-
-                // route board/alights.
-                int flexTimeAdjustment = 0;
-                if (flexOffsetScale != 0 || flexPreBoardDirectTime != 0) {
-                    int timeIntoHop = 0;
-                    if (stopIndex + 1 < tt.getNumStops() && flexOffsetScale != 0.0) {
-                        timeIntoHop = (int) Math.round(flexOffsetScale * tt.getRunningTime(stopIndex));
-                    }
-                    int vehicleTime = (flexPreBoardDirectTime == 0) ? 0 : tt.getDemandResponseMaxTime(flexPreBoardDirectTime);
-                    flexTimeAdjustment = timeIntoHop - vehicleTime;
-                }
-
-                int depTime = tt.getDepartureTime(stopIndex) + flexTimeAdjustment;
-                if (depTime < 0) continue; // negative values were previously used for canceled trips/passed stops/skipped stops, but
-                                           // now its not sure if this check should be still in place because there is a boolean field
-                                           // for canceled trips
-                if (depTime >= adjustedTime && depTime < bestTime) {
+        // Flex board/alight times are shifted by a different amount for each trip, so they are not sorted by the index.
+        boolean flexAdjusted = flexOffsetScale != 0
+                || (boarding ? flexPreBoardDirectTime != 0 : flexPostAlightDirectTime != 0);
+        if (stopTimesIndex != null && !flexAdjusted) {
+            // Binary search for the first trip departing after (arriving before) the search time, then scan forward.
+            // Transfer rules only ever move the search time further, so the first acceptable trip is the best one.
+            // Trips with the same time are sorted by their position, so ties are broken as in the linear search.
+            int end = stopTimesIndex.end(stopIndex);
+            for (int position = stopTimesIndex.first(stopIndex, time, boarding); position < end; position++) {
+                TripTimes tt = tripTimes.get(stopTimesIndex.getTrip(position, boarding));
+                if (tt.isCanceled()) continue;
+                if ( ! serviceDay.serviceRunning(tt.serviceCode)) continue;
+                if ( ! tt.tripAcceptable(s0, stopIndex)) continue;
+                int adjustedTime = adjustTimeForTransfer(s0, currentStop, tt.trip, boarding, serviceDay, time);
+                if (adjustedTime == -1) continue;
+                int stopTime = stopTimesIndex.getTime(position, boarding);
+                if (stopTime < 0) continue;
+                if (boarding ? stopTime >= adjustedTime : stopTime <= adjustedTime) {
                     bestTrip = tt;
-                    bestTime = depTime;
+                    bestTime = stopTime;
+                    break;
                 }
-            } else {
-                // For GTFS-Flex, subtract from the scheduled timepoint the amount of time left in
-                // the hop after the vehicle drops off the passenger (note flexOffsetScale < 0
-                // in this case), and add the amount of time the vehicle travels off-route before
-                // the passenger alights.
-                int flexTimeAdjustment = 0;
-                if (flexOffsetScale != 0 || flexPostAlightDirectTime != 0) {
-                    int timeIntoHop = 0;
-                    if (stopIndex - 1 >= 0 && flexOffsetScale != 0.0) {
-                        timeIntoHop = (int) Math.round(flexOffsetScale * tt.getRunningTime(stopIndex - 1));
+            }
+        } else {
+            // Linear search through the timetable looking for the best departure, used before the timetable is
+            // finished and for flex board/alights.
+            for (TripTimes tt : tripTimes) {
+                if (tt.isCanceled()) continue;
+                if ( ! serviceDay.serviceRunning(tt.serviceCode)) continue; // TODO merge into call on next line
+                if ( ! tt.tripAcceptable(s0, stopIndex)) continue;
+                int adjustedTime = adjustTimeForTransfer(s0, currentStop, tt.trip, boarding, serviceDay, time);
+                if (adjustedTime == -1) continue;
+                if (boarding) {
+                    // For GTFS-Flex, if this is a flag-stop or deviated-route board/alight, we need to
+                    // add to the scheduled timepoint the amount of time the vehicle travels along the
+                    // hop before the board/alight, and subtract the amount of time the vehicle travels
+                    // off-route before rejoining the route. Both these values are 0 for regular fixed-
+                    // route board/alights.
+                    int flexTimeAdjustment = 0;
+                    if (flexOffsetScale != 0 || flexPreBoardDirectTime != 0) {
+                        int timeIntoHop = 0;
+                        if (stopIndex + 1 < tt.getNumStops() && flexOffsetScale != 0.0) {
+                            timeIntoHop = (int) Math.round(flexOffsetScale * tt.getRunningTime(stopIndex));
+                        }
+                        int vehicleTime = (flexPreBoardDirectTime == 0) ? 0 : tt.getDemandResponseMaxTime(flexPreBoardDirectTime);
+                        flexTimeAdjustment = timeIntoHop - vehicleTime;
                     }
-                    int vehicleTime = (flexPostAlightDirectTime == 0) ? 0 : tt.getDemandResponseMaxTime(flexPostAlightDirectTime);
-                    flexTimeAdjustment = timeIntoHop + vehicleTime;
-                }
 
-                int arvTime = tt.getArrivalTime(stopIndex) + flexTimeAdjustment;
-                if (arvTime < 0) continue;
-                if (arvTime <= adjustedTime && arvTime > bestTime) {
-                    bestTrip = tt;
-                    bestTime = arvTime;
+                    int depTime = tt.getDepartureTime(stopIndex) + flexTimeAdjustment;
+                    if (depTime < 0) continue; // negative values were previously used for canceled trips/passed stops/skipped stops, but
+                                               // now its not sure if this check should be still in place because there is a boolean field
+                                               // for canceled trips
+                    if (depTime >= adjustedTime && depTime < bestTime) {
+                        bestTrip = tt;
+                        bestTime = depTime;
+                    }
+                } else {
+                    // For GTFS-Flex, subtract from the scheduled timepoint the amount of time left in
+                    // the hop after the vehicle drops off the passenger (note flexOffsetScale < 0
+                    // in this case), and add the amount of time the vehicle travels off-route before
+                    // the passenger alights.
+                    int flexTimeAdjustment = 0;
+                    if (flexOffsetScale != 0 || flexPostAlightDirectTime != 0) {
+                        int timeIntoHop = 0;
+                        if (stopIndex - 1 >= 0 && flexOffsetScale != 0.0) {
+                            timeIntoHop = (int) Math.round(flexOffsetScale * tt.getRunningTime(stopIndex - 1));
+                        }
+                        int vehicleTime = (flexPostAlightDirectTime == 0) ? 0 : tt.getDemandResponseMaxTime(flexPostAlightDirectTime);
+                        flexTimeAdjustment = timeIntoHop + vehicleTime;
+                    }
+
+                    int arvTime = tt.getArrivalTime(stopIndex) + flexTimeAdjustment;
+                    if (arvTime < 0) continue;
+                    if (arvTime <= adjustedTime && arvTime > bestTime) {
+                        bestTrip = tt;
+                        bestTime = arvTime;
+                    }
                 }
             }
         }
@@ -363,8 +386,9 @@ public class Timetable implements Serializable {
 
     /**
      * Finish off a Timetable once all TripTimes have been added to it. This involves caching
-     * lower bounds on the running times and dwell times at each stop, and may perform other
-     * actions to compact the data structure such as trimming and deduplicating arrays.
+     * lower bounds on the running times and dwell times at each stop, indexing trips by their
+     * times at each stop, and may perform other actions to compact the data structure such as
+     * trimming and deduplicating arrays.
      */
     public void finish() {
         int nStops = pattern.stopPattern.size;
@@ -402,6 +426,7 @@ public class Timetable implements Serializable {
             minTime = Math.min(minTime, freq.getMinDeparture());
             maxTime = Math.max(maxTime, freq.getMaxArrival());
         }
+        stopTimesIndex = new StopTimesIndex(tripTimes, nStops);
     }
 
     /** @return the index of TripTimes for this trip ID in this particular Timetable */
@@ -438,14 +463,18 @@ public class Timetable implements Serializable {
     }
 
     /**
-     * Set new trip times for trip given a trip index
+     * Set new trip times for trip given a trip index. Trips of a finished timetable are indexed again.
      * 
      * @param tripIndex trip index of trip
      * @param tt new trip times for trip
      * @return old trip times of trip
      */
     public TripTimes setTripTimes(int tripIndex, TripTimes tt) {
-        return tripTimes.set(tripIndex, tt);
+        TripTimes oldTripTimes = tripTimes.set(tripIndex, tt);
+        if (stopTimesIndex != null) {
+            stopTimesIndex = new StopTimesIndex(tripTimes, pattern.stopPattern.size);
+        }
+        return oldTripTimes;
     }
 
     /**
@@ -626,6 +655,8 @@ public class Timetable implements Serializable {
      */
     public void addTripTimes(TripTimes tt) {
         tripTimes.add(tt);
+        // Trip is not indexed until the timetable is finished again
+        stopTimesIndex = null;
     }
 
     /**
@@ -2,6 +2,7 @@ package org.opentripplanner.routing.edgetype;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.routing.trippattern.TripTimes;
@@ -120,6 +121,11 @@ public class TimetableSnapshot {
      */
     private Set<Timetable> dirtyTimetables = new HashSet<Timetable>();
 
+    /** Number of snapshots committed before this one, 0 for the buffer. Later snapshots have higher versions. */
+    private long version = 0;
+
+    private static final AtomicLong COMMITTED_SNAPSHOTS = new AtomicLong();
+
     /**
      * Returns an updated timetable for the specified pattern if one is available in this snapshot,
      * or the originally scheduled timetable if there are no updates in this snapshot.
@@ -247,6 +253,7 @@ public class TimetableSnapshot {
         this.dirtyTimetables.clear();
         this.dirty = false;
 
+        ret.version = COMMITTED_SNAPSHOTS.incrementAndGet();
         ret.readOnly = true; // mark the snapshot as henceforth immutable
         return ret;
     }
@@ -332,6 +339,10 @@ public class TimetableSnapshot {
         return modified;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public boolean isDirty() {
         if (readOnly) return false;
         return dirty;
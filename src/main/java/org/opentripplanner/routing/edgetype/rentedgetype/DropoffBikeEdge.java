@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.edgetype.rentedgetype;
 
 import org.opentripplanner.routing.bike_rental.BikeRentalStation;
+import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
 
@@ -18,7 +19,7 @@ public class DropoffBikeEdge extends DropoffVehicleEdge {
     }
 
     @Override
-    protected boolean canDropoffVehicleHere(VehicleDescription vehicle) {
+    protected boolean canDropoffVehicleHere(State state, VehicleDescription vehicle) {
         return station.isStationCompatible(vehicle) && station.spacesAvailable > 0;
     }
 }
@@ -32,7 +32,7 @@ public class DropoffVehicleEdge extends EdgeWithParkingZones {
 
     @Override
     public State traverse(State state) {
-        if (state.isCurrentlyRentingVehicle() && canDropoffVehicleHere(state.getCurrentVehicle())) {
+        if (state.isCurrentlyRentingVehicle() && canDropoffVehicleHere(state, state.getCurrentVehicle())) {
             return doneVehicleRenting(state);
         } else {
             return null;
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.edgetype.rentedgetype;
 
+import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
@@ -25,9 +26,10 @@ public abstract class EdgeWithParkingZones extends Edge {
     }
 
     /**
-     * Checks if city government and vehicle provider allows parking given vehicle at this location
+     * Checks if city government and vehicle provider allows parking given vehicle at this location, using parking zones
+     * pinned by the current search
      */
-    protected boolean canDropoffVehicleHere(VehicleDescription vehicle) {
-        return parkingZones.canDropoffVehicleHere(vehicle);
+    protected boolean canDropoffVehicleHere(State state, VehicleDescription vehicle) {
+        return state.getContext().parkingZonesOverlay.getParkingZones(this, parkingZones).canDropoffVehicleHere(vehicle);
     }
 }
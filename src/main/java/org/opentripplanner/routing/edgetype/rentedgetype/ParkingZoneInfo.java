@@ -4,7 +4,9 @@ import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
 
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This class enables disallowing dropping off vehicles outside of their parking zones (both made by provider and city
@@ -12,29 +14,46 @@ import java.util.List;
  * pair has parking zones feature enabled, then we will have it in `parkingZonesEnabled` field. If we can park a vehicle
  * of some type and some provider in a given location, then we will have this pair of <provider, vehicleType>
  * in `parkingZones` field;
+ * <p>
+ * Nearly all locations share one of a handful of zone combinations, so instances are immutable and interned by
+ * {@link org.opentripplanner.updater.vehicle_sharing.parking_zones.ParkingZonesCalculator}. Graph is serialized with
+ * Kryo references enabled, so the sharing is preserved in Graph.obj.
  */
 public class ParkingZoneInfo implements Serializable {
 
     /**
-     * Are we inside a parking zone for given provider and vehicleType
+     * Does this provider and vehicleType have parking zones feature enabled? The same list is shared by all instances
+     * created by one {@link org.opentripplanner.updater.vehicle_sharing.parking_zones.ParkingZonesCalculator}.
      */
-    private final List<SingleParkingZone> parkingZones;
+    private final List<SingleParkingZone> parkingZonesEnabled;
 
     /**
-     * Does this provider and vehicleType have parking zones feature enabled?
+     * Are we inside a parking zone for given provider and vehicleType? Bit `i` is set if we are inside
+     * `parkingZonesEnabled.get(i)`.
      */
-    private final List<SingleParkingZone> parkingZonesEnabled;
+    private final BitSet parkingZones;
 
     /**
-     * Does city government forbid parking given vehicle types here?
+     * Does city government forbid parking given vehicle types here? Bit `i` is set if vehicle type with ordinal `i`
+     * is forbidden.
      */
-    private final List<VehicleType> vehicleTypesForbiddenFromParkingHere;
+    private final int vehicleTypesForbiddenFromParkingHere;
 
     public ParkingZoneInfo(List<SingleParkingZone> parkingZones, List<SingleParkingZone> parkingZonesEnabled,
                            List<VehicleType> vehicleTypesForbiddenFromParkingHere) {
-        this.parkingZones = parkingZones;
         this.parkingZonesEnabled = parkingZonesEnabled;
-        this.vehicleTypesForbiddenFromParkingHere = vehicleTypesForbiddenFromParkingHere;
+        this.parkingZones = new BitSet(parkingZonesEnabled.size());
+        for (SingleParkingZone parkingZone : parkingZones) {
+            int index = parkingZonesEnabled.indexOf(parkingZone);
+            if (index >= 0) {
+                this.parkingZones.set(index);
+            }
+        }
+        int forbidden = 0;
+        for (VehicleType vehicleType : vehicleTypesForbiddenFromParkingHere) {
+            forbidden |= vehicleTypeBit(vehicleType);
+        }
+        this.vehicleTypesForbiddenFromParkingHere = forbidden;
     }
 
     /**
@@ -52,7 +71,7 @@ public class ParkingZoneInfo implements Serializable {
      * 2. We are outside of those areas
      */
     private boolean doesCityGovernmentAllowParkingHere(VehicleDescription vehicle) {
-        return !vehicleTypesForbiddenFromParkingHere.contains(vehicle.getVehicleType());
+        return (vehicleTypesForbiddenFromParkingHere & vehicleTypeBit(vehicle.getVehicleType())) == 0;
     }
 
     /**
@@ -62,18 +81,39 @@ public class ParkingZoneInfo implements Serializable {
      * 2. We are inside parking zone for that provider and vehicleType
      */
     private boolean doesProviderAllowParkingHere(VehicleDescription vehicle) {
-        return hasProviderAndVehicleTypeDisabledParkingZonesFeature(vehicle)
-                || areWeInsideParkingZoneForProviderAndVehicleType(vehicle);
+        int parkingZoneIndex = findParkingZoneEnabledForVehicle(vehicle);
+        if (parkingZoneIndex < 0) {
+            return !vehicle.requiresHubToDrop();
+        }
+        return parkingZones.get(parkingZoneIndex);
     }
 
-    private boolean hasProviderAndVehicleTypeDisabledParkingZonesFeature(VehicleDescription vehicle) {
-        if (vehicle.requiresHubToDrop())
-            return false;
-        return parkingZonesEnabled.stream().noneMatch(pz -> pz.appliesToThisVehicle(vehicle));
+    private int findParkingZoneEnabledForVehicle(VehicleDescription vehicle) {
+        for (int i = 0; i < parkingZonesEnabled.size(); i++) {
+            if (parkingZonesEnabled.get(i).appliesToThisVehicle(vehicle)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private boolean areWeInsideParkingZoneForProviderAndVehicleType(VehicleDescription vehicle) {
-        return parkingZones.stream().anyMatch(pz -> pz.appliesToThisVehicle(vehicle));
+    private static int vehicleTypeBit(VehicleType vehicleType) {
+        return 1 << vehicleType.ordinal();
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(parkingZonesEnabled, parkingZones, vehicleTypesForbiddenFromParkingHere);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof ParkingZoneInfo) {
+            ParkingZoneInfo otherInfo = (ParkingZoneInfo) other;
+            return vehicleTypesForbiddenFromParkingHere == otherInfo.vehicleTypesForbiddenFromParkingHere
+                    && parkingZones.equals(otherInfo.parkingZones)
+                    && parkingZonesEnabled.equals(otherInfo.parkingZonesEnabled);
+        }
+        return false;
+    }
 }
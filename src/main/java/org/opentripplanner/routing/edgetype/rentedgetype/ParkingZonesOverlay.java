@@ -0,0 +1,63 @@
+package org.opentripplanner.routing.edgetype.rentedgetype;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Immutable, versioned set of parking zones recomputed at runtime for edges with parking zones, published atomically by
+ * the parking zones updater. Edges keep parking zones computed when they were created, which are used unless this
+ * overlay holds newer ones.
+ * <p>
+ * Every {@link org.opentripplanner.routing.core.RoutingContext} pins the overlay which was current when the search
+ * started, so parking zones don't change while a search is running.
+ */
+public final class ParkingZonesOverlay {
+
+    public static final ParkingZonesOverlay EMPTY = new ParkingZonesOverlay(0, new TIntObjectHashMap<>(),
+            new TIntHashSet());
+
+    private final long version;
+
+    private final TIntObjectMap<ParkingZoneInfo> parkingZonesByEdgeId;
+
+    /* Ids of temporary edges in `parkingZonesByEdgeId`, which should be forgotten once their edges are disposed */
+    private final TIntSet temporaryEdgeIds;
+
+    /**
+     * Given maps are owned by this overlay from now on and must not be modified.
+     */
+    public ParkingZonesOverlay(long version, TIntObjectMap<ParkingZoneInfo> parkingZonesByEdgeId,
+                               TIntSet temporaryEdgeIds) {
+        this.version = version;
+        this.parkingZonesByEdgeId = parkingZonesByEdgeId;
+        this.temporaryEdgeIds = temporaryEdgeIds;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return parking zones recomputed for given edge, or `parkingZonesOfEdge` if they were not recomputed
+     */
+    public ParkingZoneInfo getParkingZones(EdgeWithParkingZones edge, ParkingZoneInfo parkingZonesOfEdge) {
+        if (parkingZonesByEdgeId.isEmpty()) {
+            return parkingZonesOfEdge;
+        }
+        ParkingZoneInfo parkingZones = parkingZonesByEdgeId.get(edge.getId());
+        return parkingZones == null ? parkingZonesOfEdge : parkingZones;
+    }
+
+    /**
+     * @return copy of recomputed parking zones, which may be modified when creating next version of this overlay
+     */
+    public TIntObjectMap<ParkingZoneInfo> copyParkingZonesByEdgeId() {
+        return new TIntObjectHashMap<>(parkingZonesByEdgeId);
+    }
+
+    public TIntSet copyTemporaryEdgeIds() {
+        return new TIntHashSet(temporaryEdgeIds);
+    }
+}
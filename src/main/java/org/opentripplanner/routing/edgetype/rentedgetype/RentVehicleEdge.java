@@ -4,9 +4,11 @@ import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.StateEditor;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.edgetype.TemporaryEdge;
-import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.CarPresencePredictor;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.VehiclePresenceProbabilities;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 /**
@@ -16,16 +18,37 @@ import java.util.Locale;
  */
 public class RentVehicleEdge extends EdgeWithParkingZones implements TemporaryEdge {
 
-    private final VehicleDescription vehicle;
+    /* Replaced in place by vehicle updater when vehicle attributes change, moved vehicles get new edges */
+    private volatile VehicleDescription vehicle;
+
+    /* Versions of RentableVehicleOverlay in which this vehicle is visible, from (inclusive) until (exclusive). The
+     first one is set before the edge is linked to graph, so that searches never see it too early */
+    private final long visibleFromVersion;
+
+    private volatile long visibleUntilVersion = Long.MAX_VALUE;
+
+    /* Precomputed by updaters when heatmaps or vehicle change, null if they haven't been computed yet */
+    private volatile VehiclePresenceProbabilities presenceProbabilities = null;
 
     public RentVehicleEdge(TemporaryRentVehicleVertex v, VehicleDescription vehicle) {
+        this(v, vehicle, 0);
+    }
+
+    public RentVehicleEdge(TemporaryRentVehicleVertex v, VehicleDescription vehicle, long visibleFromVersion) {
         super(v);
         this.vehicle = vehicle;
+        this.visibleFromVersion = visibleFromVersion;
     }
 
     public RentVehicleEdge(TemporaryRentVehicleVertex v, VehicleDescription vehicle, ParkingZoneInfo parkingZones) {
+        this(v, vehicle, parkingZones, 0);
+    }
+
+    public RentVehicleEdge(TemporaryRentVehicleVertex v, VehicleDescription vehicle, ParkingZoneInfo parkingZones,
+                           long visibleFromVersion) {
         super(v, parkingZones);
         this.vehicle = vehicle;
+        this.visibleFromVersion = visibleFromVersion;
     }
 
     @Override
@@ -41,6 +64,10 @@ public class RentVehicleEdge extends EdgeWithParkingZones implements TemporaryEd
     @Override
     public State traverse(State state) {
 
+        if (!state.getContext().rentableVehicleOverlay.isVisible(visibleFromVersion, visibleUntilVersion)) {
+            return null;
+        }
+
         if (!willVehicleBePresent(state)) {
             return null;
         }
@@ -59,15 +86,35 @@ public class RentVehicleEdge extends EdgeWithParkingZones implements TemporaryEd
     }
 
     private boolean willVehicleBePresent(State state) {
-        Graph graph = state.getContext().graph;
-
-        if (graph.carPresencePredictor != null && state.getContext().opt.vehiclePredictionThreshold > 0) {
-            double vehiclePresenceProbability = graph.carPresencePredictor.predict(vehicle, state.getTimeSeconds());
+        CarPresencePredictor carPresencePredictor = state.getContext().graph.carPresencePredictor;
+
+        if (carPresencePredictor != null && state.getContext().opt.vehiclePredictionThreshold > 0) {
+            VehicleDescription currentVehicle = vehicle;
+            VehiclePresenceProbabilities probabilities = presenceProbabilities;
+            double vehiclePresenceProbability =
+                    probabilities != null && probabilities.isComputedFor(carPresencePredictor, currentVehicle)
+                            ? probabilities.get(state.getTimeSeconds())
+                            : carPresencePredictor.predict(currentVehicle, state.getTimeSeconds());
             return vehiclePresenceProbability >= state.getContext().opt.vehiclePredictionThreshold;
         }
         return true;
     }
 
+    /**
+     * Precomputes presence probabilities of the vehicle, so that traversing this edge doesn't look them up in
+     * heatmaps. Should be called whenever heatmaps or the vehicle change.
+     */
+    public void updatePresenceProbabilities(@Nullable CarPresencePredictor carPresencePredictor) {
+        setPresenceProbabilities(carPresencePredictor == null ? null : carPresencePredictor.predictAllHorizons(vehicle));
+    }
+
+    /**
+     * Sets presence probabilities of the vehicle computed in advance, e.g. before this edge is linked to graph.
+     */
+    public void setPresenceProbabilities(@Nullable VehiclePresenceProbabilities presenceProbabilities) {
+        this.presenceProbabilities = presenceProbabilities;
+    }
+
     public State reversedTraverseSwitchVehicles(State state, VehicleDescription vehicle) {
         StateEditor next = state.edit(this);
         next.reversedBeginVehicleRenting();
@@ -82,7 +129,7 @@ public class RentVehicleEdge extends EdgeWithParkingZones implements TemporaryEd
     }
 
     protected State trySwitchVehicles(State state) {
-        if (!canDropoffVehicleHere(state.getCurrentVehicle())) {
+        if (!canDropoffVehicleHere(state, state.getCurrentVehicle())) {
             return null;
         }
         StateEditor stateEditor = state.edit(this);
@@ -100,4 +147,16 @@ public class RentVehicleEdge extends EdgeWithParkingZones implements TemporaryEd
     public VehicleDescription getVehicle() {
         return vehicle;
     }
+
+    public void setVehicle(VehicleDescription vehicle) {
+        this.vehicle = vehicle;
+    }
+
+    public long getVisibleFromVersion() {
+        return visibleFromVersion;
+    }
+
+    public void setVisibleUntilVersion(long visibleUntilVersion) {
+        this.visibleUntilVersion = visibleUntilVersion;
+    }
 }
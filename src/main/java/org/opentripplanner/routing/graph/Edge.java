@@ -8,7 +8,6 @@ import org.opentripplanner.model.Trip;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.util.IncrementingIdGenerator;
-import org.opentripplanner.routing.util.UniqueIdGenerator;
 
 import javax.xml.bind.annotation.XmlTransient;
 import java.io.IOException;
@@ -16,6 +15,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Locale;
 
@@ -30,7 +30,7 @@ public abstract class Edge implements Serializable {
     /**
      * Generates globally unique edge IDs.
      */
-    private static final UniqueIdGenerator<Edge> idGenerator = new IncrementingIdGenerator<Edge>();
+    private static final IncrementingIdGenerator<Edge> idGenerator = new IncrementingIdGenerator<Edge>();
 
     public long getClusterId() {
         return clusterId;
@@ -283,6 +283,14 @@ public abstract class Edge implements Serializable {
         }
     }
 
+    /**
+     * Makes sure that edges created from now on get identifiers different from identifiers of deserialized edges, so
+     * that temporary edges never share identifiers with edges of the loaded graph.
+     */
+    public static void reserveIdsOf(Collection<Edge> edges) {
+        edges.stream().mapToInt(Edge::getId).max().ifPresent(idGenerator::skipPast);
+    }
+
     public int getId(){
     	return this.id;
     }
@@ -16,6 +16,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.javakaffee.kryoserializers.UnmodifiableCollectionsSerializer;
 import gnu.trove.impl.hash.TPrimitiveHash;
 import gnu.trove.list.TDoubleList;
@@ -37,6 +38,7 @@ import org.opentripplanner.common.MavenVersion;
 import org.opentripplanner.common.geometry.GraphUtils;
 import org.opentripplanner.graph_builder.annotation.GraphBuilderAnnotation;
 import org.opentripplanner.graph_builder.annotation.NoFutureDates;
+import org.opentripplanner.graph_builder.linking.SnappedLocationCache;
 import org.opentripplanner.gtfs.GtfsLibrary;
 import org.opentripplanner.kryo.HashBiMapSerializer;
 import org.opentripplanner.model.Agency;
@@ -53,14 +55,20 @@ import org.opentripplanner.profile.StopClusterMode;
 import org.opentripplanner.routing.alertpatch.AlertPatch;
 import org.opentripplanner.routing.bike_rental.BikeRentalStation;
 import org.opentripplanner.routing.core.MortonVertexComparatorFactory;
+import org.opentripplanner.routing.algorithm.ch.ContractionHierarchy;
+import org.opentripplanner.routing.algorithm.strategies.EgressWeightsCache;
+import org.opentripplanner.routing.algorithm.strategies.LandmarkDistances;
+import org.opentripplanner.routing.core.TimeOfDaySpeedProfiles;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
 import org.opentripplanner.routing.core.TransferTable;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
-import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.core.vehicle_sharing.RentableVehicleOverlay;
 import org.opentripplanner.routing.edgetype.EdgeWithCleanup;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.TripPattern;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZonesOverlay;
 import org.opentripplanner.routing.edgetype.rentedgetype.RentBikeEdge;
 import org.opentripplanner.routing.flex.FlexIndex;
 import org.opentripplanner.routing.impl.DefaultStreetVertexIndexFactory;
@@ -69,7 +77,7 @@ import org.opentripplanner.routing.services.StreetVertexIndexService;
 import org.opentripplanner.routing.services.notes.StreetNotesService;
 import org.opentripplanner.routing.trippattern.Deduplicator;
 import org.opentripplanner.routing.vertextype.PatternArriveVertex;
-import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
 import org.opentripplanner.routing.vertextype.TransitStop;
 import org.opentripplanner.updater.GraphUpdaterConfigurator;
 import org.opentripplanner.updater.GraphUpdaterManager;
@@ -95,11 +103,13 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -109,7 +119,15 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 import java.util.prefs.Preferences;
 import java.util.stream.Stream;
@@ -128,6 +146,10 @@ public class Graph implements Serializable {
 
     private static final long serialVersionUID = MavenVersion.VERSION.getUID();
 
+    /* Number of edges serialized together, and number of decoded chunks waiting to be wired while loading */
+    private static final int EDGE_CHUNK_SIZE = 100_000;
+    private static final int DECODED_EDGE_CHUNKS = 4;
+
     private final MavenVersion mavenVersion = MavenVersion.VERSION;
 
     // TODO Remove this field, use Router.routerId ?
@@ -314,9 +336,51 @@ public class Graph implements Serializable {
     public ParkingZonesCalculator parkingZonesCalculator;
 
     /**
-     * Vehicles which we tried to link to graph. If vertex is present, then we succeeded in linking that vehicle
+     * Predicted car speeds of traffic prediction clusters, street edges hold index of their cluster profile
+     */
+    public TimeOfDaySpeedProfiles speedProfiles = TimeOfDaySpeedProfiles.EMPTY;
+
+    /**
+     * Street distances from landmarks to all vertices, used by LandmarkRWH. Null if they were not computed.
+     */
+    public LandmarkDistances landmarkDistances = null;
+
+    /**
+     * Contraction hierarchies of street edges by mode, used for street-only requests without renting or traffic
+     */
+    public Map<TraverseMode, ContractionHierarchy> contractionHierarchies = new HashMap<>();
+
+    /**
+     * Street searches around popular destinations, shared by InterleavedBidirectionalHeuristic of all requests
+     */
+    public final transient EgressWeightsCache egressWeightsCache = new EgressWeightsCache();
+
+    /**
+     * Street edges which origins and destinations of requests were linked to
+     */
+    public final transient SnappedLocationCache snappedLocationCache = new SnappedLocationCache();
+
+    /**
+     * Rentable vehicles currently linked to graph. Replaced as a whole on every vehicles update, searches pin the
+     * overlay which was current when they started.
      */
-    public final Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink = new HashMap<>();
+    private transient volatile RentableVehicleOverlay rentableVehicleOverlay = RentableVehicleOverlay.empty();
+
+    /* Overlays replaced by newer ones which may still be pinned by searches, from the oldest. Vertices removed in the
+     overlay following the oldest one are not disposed yet. Used only by graph writer thread. */
+    private final transient Deque<RentableVehicleOverlay> replacedRentableVehicleOverlays = new ArrayDeque<>();
+
+    /**
+     * Parking zones recomputed at runtime for edges with parking zones. Replaced as a whole on every parking zones
+     * update, searches pin the overlay which was current when they started.
+     */
+    private transient volatile ParkingZonesOverlay parkingZonesOverlay = ParkingZonesOverlay.EMPTY;
+
+    /**
+     * Current traffic speeds of street edges. Replaced as a whole on every traffic update, searches pin the overlay
+     * which was current when they started.
+     */
+    private transient volatile TrafficSpeedOverlay trafficSpeedOverlay = TrafficSpeedOverlay.EMPTY;
 
     /**
      * All bike stations currently linked to graph
@@ -579,6 +643,61 @@ public class Graph implements Serializable {
         return transitRoutes;
     }
 
+    public RentableVehicleOverlay getRentableVehicleOverlay() {
+        return rentableVehicleOverlay;
+    }
+
+    /**
+     * Pins current overlay for given routing context, so that vertices visible in it are not disposed until the overlay
+     * is unpinned.
+     */
+    public RentableVehicleOverlay pinRentableVehicleOverlay(Object routingContext) {
+        while (true) {
+            RentableVehicleOverlay overlay = rentableVehicleOverlay;
+            if (overlay.pin(routingContext)) {
+                return overlay;
+            }
+        }
+    }
+
+    /**
+     * Makes given overlay visible to all searches started from now on, and disposes vertices of removed vehicles which
+     * are not visible to any running search anymore. Should be called only from graph writer thread.
+     */
+    public void publishRentableVehicleOverlay(RentableVehicleOverlay rentableVehicleOverlay) {
+        replacedRentableVehicleOverlays.addLast(this.rentableVehicleOverlay);
+        this.rentableVehicleOverlay = rentableVehicleOverlay;
+        // Vertices removed in some version are visible only to searches pinning older overlays
+        while (!replacedRentableVehicleOverlays.isEmpty() && replacedRentableVehicleOverlays.peekFirst().retire()) {
+            replacedRentableVehicleOverlays.removeFirst();
+            RentableVehicleOverlay following = replacedRentableVehicleOverlays.isEmpty() ? rentableVehicleOverlay
+                    : replacedRentableVehicleOverlays.peekFirst();
+            TemporaryVertex.disposeAll(following.getRemovedVertices());
+        }
+    }
+
+    public ParkingZonesOverlay getParkingZonesOverlay() {
+        return parkingZonesOverlay;
+    }
+
+    /**
+     * Makes given overlay visible to all searches started from now on. Should be called only from graph writer thread.
+     */
+    public void publishParkingZonesOverlay(ParkingZonesOverlay parkingZonesOverlay) {
+        this.parkingZonesOverlay = parkingZonesOverlay;
+    }
+
+    public TrafficSpeedOverlay getTrafficSpeedOverlay() {
+        return trafficSpeedOverlay;
+    }
+
+    /**
+     * Makes given overlay visible to all searches started from now on. Should be called only from graph writer thread.
+     */
+    public void publishTrafficSpeedOverlay(TrafficSpeedOverlay trafficSpeedOverlay) {
+        this.trafficSpeedOverlay = trafficSpeedOverlay;
+    }
+
     public Map<Provider, LocalTime> getLastProviderVehiclesUpdateTimestamps() {
         return lastProviderVehiclesUpdateTimestamps;
     }
@@ -738,7 +857,7 @@ public class Graph implements Serializable {
      * If the graphBuilderAnnotations field of this graph is null, the annotation is not actually saved, but the message is still returned. This
      * allows annotation registration to be turned off, saving memory and disk space when the user is not interested in annotations.
      */
-    public String addBuilderAnnotation(GraphBuilderAnnotation gba) {
+    public synchronized String addBuilderAnnotation(GraphBuilderAnnotation gba) {
         String ret = gba.getMessage();
         if (this.graphBuilderAnnotations != null)
             this.graphBuilderAnnotations.add(gba);
@@ -776,22 +895,69 @@ public class Graph implements Serializable {
      * TODO: do we really need a factory for different street vertex indexes?
      */
     public void index (StreetVertexIndexFactory indexFactory) {
-        streetIndex = indexFactory.newIndex(this);
-        LOG.debug("street index built.");
-        LOG.debug("Rebuilding edge and vertex indices.");
-        rebuildVertexAndEdgeIndices();
-        Set<TripPattern> tableTripPatterns = Sets.newHashSet();
-        for (PatternArriveVertex pav : Iterables.filter(this.getVertices(), PatternArriveVertex.class)) {
-            tableTripPatterns.add(pav.getTripPattern());
+        join(indexInStages(indexFactory));
+    }
+
+    /**
+     * Same as {@link #index}, but independent indexes are built concurrently on the common fork-join pool, and the
+     * GraphQL schema is left building in background. This returns when all other stages are done, so only readiness
+     * of the GraphQL stage is reported in {@link #routerHealth}.
+     *
+     * @return future completed when the GraphQL schema is built as well
+     */
+    public CompletableFuture<Void> indexInStages(StreetVertexIndexFactory indexFactory) {
+        CompletableFuture<Void> streetIndexStage = CompletableFuture.runAsync(() -> {
+            streetIndex = indexFactory.newIndex(this);
+            LOG.debug("street index built.");
+        });
+        CompletableFuture<Void> vertexAndEdgeIndicesStage = CompletableFuture.runAsync(() -> {
+            LOG.debug("Rebuilding edge and vertex indices.");
+            rebuildVertexAndEdgeIndices();
+        });
+        CompletableFuture<Void> timetablesStage = CompletableFuture.runAsync(() -> {
+            Set<TripPattern> tableTripPatterns = Sets.newHashSet();
+            for (PatternArriveVertex pav : Iterables.filter(this.getVertices(), PatternArriveVertex.class)) {
+                tableTripPatterns.add(pav.getTripPattern());
+            }
+            // skip frequency-based patterns with no table (null)
+            tableTripPatterns.parallelStream().filter(Objects::nonNull).forEach(ttp -> ttp.scheduledTimetable.finish());
+        });
+        // TODO: Move this ^ stuff into the graph index
+        CompletableFuture<Void> transitIndexStage = CompletableFuture.runAsync(() -> {
+            this.index = new GraphIndex(this, false);
+        });
+        CompletableFuture<Void> flexIndexStage = !useFlexService ? transitIndexStage
+                : transitIndexStage.runAfterBoth(streetIndexStage, () -> {
+                    FlexIndex flexIndex = new FlexIndex();
+                    flexIndex.init(this);
+                    this.flexIndex = flexIndex;
+                });
+        join(CompletableFuture.allOf(streetIndexStage, vertexAndEdgeIndicesStage, timetablesStage, flexIndexStage));
+        return transitIndexStage.thenRunAsync(() -> {
+            index.initGraphQL(routerId);
+            routerHealth.setGraphQLIndex(true);
+            LOG.info("GraphQL schema of router {} built.", routerId);
+        });
+    }
+
+    /**
+     * Waits for given stages, rethrowing the original exception if any of them failed.
+     */
+    private static void join(CompletableFuture<Void> stages) {
+        try {
+            stages.join();
+        } catch (CompletionException e) {
+            rethrowIfUnchecked(e.getCause());
+            throw e;
         }
-        for (TripPattern ttp : tableTripPatterns) {
-            if (ttp != null) ttp.scheduledTimetable.finish(); // skip frequency-based patterns with no table (null)
+    }
+
+    private static void rethrowIfUnchecked(Throwable throwable) {
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
         }
-        // TODO: Move this ^ stuff into the graph index
-        this.index = new GraphIndex(this);
-        if (useFlexService ) {
-            this.flexIndex = new FlexIndex();
-            flexIndex.init(this);
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
         }
     }
     
@@ -807,26 +973,82 @@ public class Graph implements Serializable {
         // Vertex edge lists are transient to avoid excessive recursion depth during serialization.
         // vertex list is transient because it can be reconstructed from edges.
         LOG.debug("Loading edges...");
-        List<Edge> edges = (ArrayList<Edge>) kryo.readClassAndObject(input);
         graph.vertices = new ConcurrentHashMap<>(); // why is this concurrent?
-
-        for (Edge e : edges) {
-            Vertex fromVertex = e.getFromVertex();
-            Vertex toVertex = e.getToVertex();
-            graph.vertices.put(fromVertex.getLabel(), fromVertex);
-            graph.vertices.put(toVertex.getLabel(), toVertex);
-            // Compensating for the fact that we're not using the standard Java de/serialization methods.
-            fromVertex.initEdgeListsIfNeeded();
-            toVertex.initEdgeListsIfNeeded();
-            fromVertex.addOutgoing(e);
-            toVertex.addIncoming(e);
+        // Edges are decoded chunk by chunk in another thread, while this one wires decoded ones to their vertices
+        BlockingQueue<List<Edge>> decodedChunks = new ArrayBlockingQueue<>(DECODED_EDGE_CHUNKS);
+        ExecutorService decoder = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("graph-decoder-%d").build());
+        Future<Void> decoding = decoder.submit(() -> decodeEdgeChunks(kryo, input, decodedChunks));
+        try {
+            for (List<Edge> edges = decodedChunks.take(); !edges.isEmpty(); edges = decodedChunks.take()) {
+                for (Edge e : edges) {
+                    Vertex fromVertex = e.getFromVertex();
+                    Vertex toVertex = e.getToVertex();
+                    graph.vertices.put(fromVertex.getLabel(), fromVertex);
+                    graph.vertices.put(toVertex.getLabel(), toVertex);
+                    // Compensating for the fact that we're not using the standard Java de/serialization methods.
+                    fromVertex.initEdgeListsIfNeeded();
+                    toVertex.initEdgeListsIfNeeded();
+                    fromVertex.addOutgoing(e);
+                    toVertex.addIncoming(e);
+                }
+                Edge.reserveIdsOf(edges);
+            }
+            decoding.get();
+        } catch (ExecutionException e) {
+            rethrowIfUnchecked(e.getCause());
+            throw new RuntimeException("Decoding graph edges failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading graph", e);
+        } finally {
+            // Stops decoding if wiring failed, does nothing if all edges were decoded
+            decoding.cancel(true);
+            decoder.shutdown();
         }
+        Vertex.reserveIndicesOf(graph.vertices.values());
 
         LOG.info("Main graph read. |V|={} |E|={}", graph.countVertices(), graph.countEdges());
-        graph.index(new DefaultStreetVertexIndexFactory());
+        graph.reportFailureOf(graph.indexInStages(new DefaultStreetVertexIndexFactory()));
         return graph;
     }
 
+    /**
+     * Logs failure of the GraphQL stage of indexing, left running in background, and reports it in
+     * {@link #routerHealth}.
+     */
+    void reportFailureOf(CompletableFuture<Void> graphQLStage) {
+        graphQLStage.exceptionally(failure -> {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            LOG.error("Building GraphQL schema of router {} failed", routerId, cause);
+            routerHealth.setFailedIndexStage("graphQLIndex");
+            return null;
+        });
+    }
+
+    /**
+     * Reads chunks of edges written by {@link #save(OutputStream)} into given queue, followed by an empty chunk.
+     */
+    private static Void decodeEdgeChunks(Kryo kryo, Input input, BlockingQueue<List<Edge>> decodedChunks)
+            throws InterruptedException {
+        try {
+            // Edges of different chunks share vertices, so references are kept between chunks
+            kryo.setAutoReset(false);
+            int chunks = input.readInt();
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                decodedChunks.put((List<Edge>) kryo.readClassAndObject(input));
+            }
+        } catch (RuntimeException | Error e) {
+            // Let the wiring thread stop and find out about the failure
+            decodedChunks.put(Collections.emptyList());
+            throw e;
+        } finally {
+            kryo.reset();
+        }
+        decodedChunks.put(Collections.emptyList());
+        return null;
+    }
+
     /**
      * Compares the OTP version number stored in the graph with that of the currently running instance. Logs warnings explaining that mismatched
      * versions can cause problems.
@@ -1045,7 +1267,15 @@ public class Graph implements Serializable {
         this.rebuildVertexAndEdgeIndices();
         LOG.debug("Writing edges...");
         kryo.writeClassAndObject(output, this);
-        kryo.writeClassAndObject(output, edges);
+        // Edges are written in chunks, so that loading can wire decoded edges while next ones are being decoded.
+        // Edges of different chunks share vertices, so references are kept between chunks.
+        kryo.setAutoReset(false);
+        List<List<Edge>> chunks = Lists.partition(edges, EDGE_CHUNK_SIZE);
+        output.writeInt(chunks.size());
+        for (List<Edge> chunk : chunks) {
+            kryo.writeClassAndObject(output, new ArrayList<>(chunk));
+        }
+        kryo.reset();
         output.close();
         LOG.info("Graph written.");
         // Summarize serialized classes and associated serializers:
@@ -5,6 +5,7 @@ import com.google.common.collect.ArrayListMultimap;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -118,12 +119,20 @@ public class GraphIndex {
     /** Used for finding first/last trip of the day. This is the time at which service ends for the day. */
     public final int overnightBreak = 60 * 60 * 2; // FIXME not being set, this was done in transitIndex
 
-    public GraphQL graphQL;
+    /** Null until the GraphQL schema is built, see {@link #initGraphQL} */
+    public volatile GraphQL graphQL;
 
     /** Store distances from each stop to all nearby street intersections. Useful in speeding up analyst requests. */
     private transient StopTreeCache stopTreeCache = null;
 
     public GraphIndex (Graph graph) {
+        this(graph, true);
+    }
+
+    /**
+     * @param buildGraphQL whether to build the GraphQL schema now, otherwise {@link #initGraphQL} has to be called
+     */
+    public GraphIndex (Graph graph, boolean buildGraphQL) {
         LOG.info("Indexing graph...");
 
         for (String feedId : graph.getFeedIds()) {
@@ -183,11 +192,9 @@ public class GraphIndex {
         calendarService = graph.getCalendarService();
         serviceCodes = graph.serviceCodes;
         this.graph = graph;
-        graphQL = new GraphQL(
-                new IndexGraphQLSchema(this).indexSchema,
-                new ExecutorServiceExecutionStrategy(Executors.newCachedThreadPool(
-                        new ThreadFactoryBuilder().setNameFormat("GraphQLExecutor-" + graph.routerId + "-%d").build()
-                )));
+        if (buildGraphQL) {
+            initGraphQL(graph.routerId);
+        }
 
         LOG.info("Initializing areas....");
         if (graph.flexAreasById != null) {
@@ -655,7 +662,25 @@ public class GraphIndex {
     	}
     }
     
+    /**
+     * Builds the GraphQL schema, which takes a while and is not needed for routing, so it may be done in background.
+     */
+    public void initGraphQL(String routerId) {
+        graphQL = new GraphQL(
+                new IndexGraphQLSchema(this).indexSchema,
+                new ExecutorServiceExecutionStrategy(Executors.newCachedThreadPool(
+                        new ThreadFactoryBuilder().setNameFormat("GraphQLExecutor-" + routerId + "-%d").build()
+                )));
+    }
+
     public Response getGraphQLResponse(String query, Map<String, Object> variables, String operationName) {
+        GraphQL graphQL = this.graphQL;
+        if (graphQL == null) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(Collections.singletonMap("errors", Collections.singletonList(
+                            "GraphQL schema is still being built")))
+                    .build();
+        }
         ExecutionResult executionResult = graphQL.execute(query, operationName, null, variables);
         Response.ResponseBuilder res = Response.status(Response.Status.OK);
         HashMap<String, Object> content = new HashMap<>();
@@ -31,6 +31,10 @@ public abstract class Vertex implements Serializable, Cloneable {
 
     private static int maxIndex = 0;
 
+    /* Vertices added to a graph have indices below this bound. Temporary vertices aren't added to any graph, so indices
+     above it belong to temporary vertices, which keep taking new ones while the router is running. */
+    private static int maxGraphIndex = 0;
+
     private int index;
 
     /* short debugging name */
@@ -56,8 +60,10 @@ public abstract class Vertex implements Serializable, Cloneable {
         this.y = y;
         this.index = maxIndex  ++;
         // null graph means temporary vertex
-        if (g != null)
+        if (g != null) {
+            maxGraphIndex = Math.max(maxGraphIndex, index + 1);
             g.addVertex(this);
+        }
         this.name = new NonLocalizedString("(no name provided)");
     }
 
@@ -266,6 +272,24 @@ public abstract class Vertex implements Serializable, Cloneable {
         return maxIndex;
     }
 
+    /**
+     * @return bound of indices of vertices added to a graph, which doesn't grow when temporary vertices are created
+     */
+    public static int getMaxGraphIndex() {
+        return maxGraphIndex;
+    }
+
+    /**
+     * Makes sure that vertices created from now on get indices different from indices of deserialized vertices, so
+     * that arrays indexed by vertex index may hold both graph and temporary vertices.
+     */
+    public static void reserveIndicesOf(Collection<Vertex> vertices) {
+        vertices.stream().mapToInt(Vertex::getIndex).max().ifPresent(index -> {
+            maxIndex = Math.max(maxIndex, index + 1);
+            maxGraphIndex = Math.max(maxGraphIndex, index + 1);
+        });
+    }
+
 
     /* SERIALIZATION METHODS */
 
@@ -279,6 +303,7 @@ public abstract class Vertex implements Serializable, Cloneable {
         this.incoming = new Edge[0];
         this.outgoing = new Edge[0];
         index = maxIndex++;
+        maxGraphIndex = Math.max(maxGraphIndex, maxIndex);
     }
 
     /* UTILITY METHODS FOR SEARCHING, GRAPH BUILDING, AND GENERATING WALKSTEPS */
@@ -1,19 +1,25 @@
 package org.opentripplanner.routing.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.opentripplanner.api.resource.DebugOutput;
 import org.opentripplanner.common.model.GenericLocation;
 import org.opentripplanner.model.FeedScopedId;
 import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.algorithm.ch.ContractionHierarchyRouter;
 import org.opentripplanner.routing.algorithm.profile.OptimizationProfile;
 import org.opentripplanner.routing.algorithm.profile.OptimizationProfileFactory;
 import org.opentripplanner.routing.algorithm.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.strategies.SimpleEuclideanRWH;
+import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
 import org.opentripplanner.routing.core.vehicle_sharing.ProviderFilter;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleFilter;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleTypeFilter;
 import org.opentripplanner.routing.edgetype.LegSwitchingEdge;
 import org.opentripplanner.routing.edgetype.TransitBoardAlight;
 import org.opentripplanner.routing.error.PathNotFoundException;
@@ -23,13 +29,21 @@ import org.opentripplanner.routing.flex.FlagStopGraphModifier;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.routing.spt.ShortestPathTree;
 import org.opentripplanner.standalone.Router;
+import org.opentripplanner.util.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.singleton;
+
 /**
  * This class contains the logic for repeatedly building shortest path trees and accumulating paths through
  * the graph until the requested number of them have been found.
@@ -56,6 +70,9 @@ public class GraphPathFinder {
     private static final Logger LOG = LoggerFactory.getLogger(GraphPathFinder.class);
     private static final double DEFAULT_MAX_WALK = 2000;
     private static final double CLAMP_MAX_WALK = 15000;
+    private static final long SEARCH_TIMEOUT_GRACE_MILLIS = 500;
+    /* Searches run for one request, the ones restricted to providers seen last are dropped above this limit */
+    private static final int MAX_CONCURRENT_SEARCHES = 8;
 
     Router router;
 
@@ -135,6 +152,18 @@ public class GraphPathFinder {
                 deviatedRouteGraphModifier.createBackwardHops(options);
             }
         }
+        // Street-only requests may be answered from a contraction hierarchy, without running A*
+        ContractionHierarchyRouter contractionHierarchyRouter = ContractionHierarchyRouter.forRequest(options);
+        if (contractionHierarchyRouter != null) {
+            GraphPath path = contractionHierarchyRouter.findPath(options);
+            if (path != null) {
+                LOG.debug("Found path in contraction hierarchy");
+                return isWithinMaxHours(options, path) ? Lists.newArrayList(path) : Lists.newArrayList();
+            }
+        }
+        if (canSearchConcurrently(options)) {
+            return getPathsConcurrently(options, optimizationProfile);
+        }
         long searchBeginTime = System.currentTimeMillis();
         LOG.debug("BEGIN SEARCH");
         List<GraphPath> paths = Lists.newArrayList();
@@ -154,12 +183,16 @@ public class GraphPathFinder {
                 break;
             }
             // Don't dig through the SPT object, just ask the A star algorithm for the states that reached the target.
-            aStar.getShortestPathTree(options, timeout);
+            ShortestPathTree spt = aStar.getShortestPathTree(options, timeout);
 
             if (options.rctx.aborted) {
                 break; // Search timed out or was gracefully aborted for some other reason.
             }
             List<GraphPath> newPaths = aStar.getPathsToTarget();
+            // Paths don't refer to the tree, so its storage may be reused by the next search on this thread
+            if (spt != null) {
+                spt.release();
+            }
             if (newPaths.isEmpty()) {
                 break;
             }
@@ -196,24 +229,11 @@ public class GraphPathFinder {
                     }
                 }
 
-                Set<String> providersDisallowed = path.states.stream()
-                        .filter(State::isCurrentlyRentingVehicle)
-                        .map(State::getCurrentVehicle)
-                        .map(VehicleDescription::getProvider)
-                        .map(Provider::getProviderName)
-                        .collect(Collectors.toSet());
-                options.vehicleValidator.addFilter(ProviderFilter.providersDisallowedFilter(providersDisallowed));
+                options.vehicleValidator.addFilter(ProviderFilter.providersDisallowedFilter(getRentedProviders(path)));
             }
 
             paths.addAll(newPaths.stream()
-                    .filter(path -> {
-                        double duration = options.useRequestedDateTimeInMaxHours
-                            ? options.arriveBy
-                                ? options.dateTime - path.getStartTime()
-                                : path.getEndTime() - options.dateTime
-                            : path.getDuration();
-                        return duration < options.maxHours * 60 * 60;
-                    })
+                    .filter(path -> isWithinMaxHours(options, path))
                     .collect(Collectors.toList()));
 
             LOG.debug("we have {} paths", paths.size());
@@ -223,6 +243,191 @@ public class GraphPathFinder {
         return paths;
     }
 
+    private static Set<String> getRentedProviders(GraphPath path) {
+        return path.states.stream()
+                .filter(State::isCurrentlyRentingVehicle)
+                .map(State::getCurrentVehicle)
+                .map(VehicleDescription::getProvider)
+                .map(Provider::getProviderName)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Itineraries with rented vehicles may be searched concurrently, as they are made different by restricting
+     * providers rather than by banning trips found by previous searches.
+     */
+    private boolean canSearchConcurrently(RoutingRequest options) {
+        return router.itinerarySearchExecutor != null && options.rentingAllowed && options.getNumItineraries() > 1
+                && !options.compactLegsByReversedSearch && router.graphVisualizer == null;
+    }
+
+    /**
+     * Runs concurrent searches, each limited to one vehicle type or one provider, plus an unrestricted one. From all
+     * paths found, the best ones are picked so that none of them rents from a provider used by a better path, which
+     * is what sequential searches get by disallowing providers already used. All searches share the first timeout,
+     * counted from the moment they are submitted.
+     */
+    private List<GraphPath> getPathsConcurrently(RoutingRequest options, OptimizationProfile optimizationProfile) {
+        long searchBeginTime = System.currentTimeMillis();
+        LOG.debug("BEGIN CONCURRENT SEARCH");
+        long abortTime = DateUtils.absoluteTimeout(router.timeouts[0]);
+        List<Future<List<GraphPath>>> searches = new ArrayList<>();
+        for (VehicleFilter filter : getDiversifyingFilters(options)) {
+            RoutingRequest searchOptions = options.clone();
+            searchOptions.vehicleValidator = options.vehicleValidator.copy();
+            searchOptions.vehicleValidator.addFilter(filter);
+            OptimizationProfile searchProfile = optimizationProfile.forConcurrentSearch(searchOptions);
+            searchOptions.setOptimizationProfile(searchProfile);
+            searchOptions.dominanceFunction = searchProfile.getDominanceFunction();
+            searchOptions.rctx = new RoutingContext(searchOptions, options.rctx);
+            searchOptions.rctx.remainingWeightHeuristic = searchProfile.getHeuristic();
+            searches.add(router.itinerarySearchExecutor.submit(() -> searchOnce(searchOptions, abortTime)));
+        }
+        List<GraphPath> paths = pickDiversePaths(options, collectPaths(options.rctx, searches, abortTime));
+        LOG.debug("END CONCURRENT SEARCH ({} searches, {} msec)", searches.size(),
+                System.currentTimeMillis() - searchBeginTime);
+        return paths;
+    }
+
+    /**
+     * Waits for paths found by concurrent searches until given time, and a bit longer, as searches time out by
+     * themselves and return paths found so far. Searches still running after that are aborted.
+     * <p>
+     * Searches share temporary vertices of the request, which are disposed of when the request is cleaned up, so this
+     * returns only when all of them are finished.
+     *
+     * @param rctx      routing context of the request, marked as aborted if any of the searches timed out
+     * @param abortTime time in milliseconds since the epoch after which searches are aborted, Long.MAX_VALUE for no
+     *                  timeout
+     */
+    static List<GraphPath> collectPaths(RoutingContext rctx, List<Future<List<GraphPath>>> searches,
+                                        long abortTime) {
+        List<GraphPath> foundPaths = new ArrayList<>();
+        try {
+            for (Future<List<GraphPath>> search : searches) {
+                long waitMillis = abortTime == Long.MAX_VALUE ? Long.MAX_VALUE
+                        : Math.max(abortTime - System.currentTimeMillis(), 0) + SEARCH_TIMEOUT_GRACE_MILLIS;
+                try {
+                    List<GraphPath> paths = search.get(waitMillis, TimeUnit.MILLISECONDS);
+                    if (paths == null) {
+                        rctx.aborted = true;
+                    } else {
+                        foundPaths.addAll(paths);
+                    }
+                } catch (TimeoutException e) {
+                    rctx.abortSearches();
+                    rctx.aborted = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rctx.aborted = true;
+                    break;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            awaitAll(rctx, searches);
+        }
+        return foundPaths;
+    }
+
+    private static void awaitAll(RoutingContext rctx, List<Future<List<GraphPath>>> searches) {
+        if (searches.stream().anyMatch(search -> !search.isDone())) {
+            rctx.abortSearches();
+        }
+        for (Future<List<GraphPath>> search : searches) {
+            try {
+                Uninterruptibles.getUninterruptibly(search);
+            } catch (ExecutionException e) {
+                // Failures of searches which were waited for are rethrown, the others don't matter any more
+                LOG.debug("Aborted search failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @param foundPaths paths found by all searches, in any order
+     * @return best paths, skipping ones which rent from a provider used by a better path
+     */
+    static List<GraphPath> pickDiversePaths(RoutingRequest options, List<GraphPath> foundPaths) {
+        foundPaths.sort(options.getPathComparator(options.arriveBy));
+        List<GraphPath> paths = new ArrayList<>();
+        Set<String> usedProviders = new HashSet<>();
+        boolean foundPathWithoutRenting = false;
+        for (GraphPath path : foundPaths) {
+            Set<String> providers = getRentedProviders(path);
+            if (providers.isEmpty() ? foundPathWithoutRenting : !Collections.disjoint(providers, usedProviders)) {
+                continue;
+            }
+            foundPathWithoutRenting |= providers.isEmpty();
+            usedProviders.addAll(providers);
+            if (isWithinMaxHours(options, path)) {
+                paths.add(path);
+            }
+            if (paths.size() >= options.getNumItineraries()) {
+                break;
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return filters restricting concurrent searches: the first one allows everything, the others allow a single
+     * vehicle type or a single provider of vehicles visible in this search, up to {@link #MAX_CONCURRENT_SEARCHES}
+     * filters in total
+     */
+    private static List<VehicleFilter> getDiversifyingFilters(RoutingRequest options) {
+        Set<VehicleType> vehicleTypes = new TreeSet<>();
+        Set<String> providers = new TreeSet<>();
+        options.rctx.rentableVehicleOverlay.getVehiclesTriedToLink().forEach((vehicle, vertex) -> {
+            if (vertex.isPresent() && options.vehicleValidator.isValid(vehicle)) {
+                vehicleTypes.add(vehicle.getVehicleType());
+                providers.add(vehicle.getProvider().getProviderName());
+            }
+        });
+        List<VehicleFilter> filters = new ArrayList<>();
+        filters.add(vehicle -> true);
+        if (vehicleTypes.size() > 1) {
+            vehicleTypes.forEach(type -> filters.add(new VehicleTypeFilter(EnumSet.of(type))));
+        }
+        if (providers.size() > 1) {
+            providers.forEach(provider -> filters.add(ProviderFilter.providersAllowedFilter(singleton(provider))));
+        }
+        return filters.size() > MAX_CONCURRENT_SEARCHES ? filters.subList(0, MAX_CONCURRENT_SEARCHES) : filters;
+    }
+
+    /**
+     * @param abortTime time in milliseconds since the epoch after which the search is aborted
+     * @return paths found by a single search, or null if it timed out or was aborted
+     */
+    private static List<GraphPath> searchOnce(RoutingRequest options, long abortTime) {
+        if (options.rctx.areSearchesAborted()) {
+            return null;
+        }
+        AStar aStar = new AStar();
+        ShortestPathTree spt = aStar.getShortestPathTreeUntil(options, abortTime);
+        if (options.rctx.aborted) {
+            return null;
+        }
+        List<GraphPath> paths = aStar.getPathsToTarget();
+        if (spt != null) {
+            spt.release();
+        }
+        return paths;
+    }
+
+    private static boolean isWithinMaxHours(RoutingRequest options, GraphPath path) {
+        double duration = options.useRequestedDateTimeInMaxHours
+            ? options.arriveBy
+                ? options.dateTime - path.getStartTime()
+                : path.getEndTime() - options.dateTime
+            : path.getDuration();
+        return duration < options.maxHours * 60 * 60;
+    }
+
     /**
      * Do a full reversed search to compact the legs of the path.
      *
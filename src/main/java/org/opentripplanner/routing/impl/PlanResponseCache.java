@@ -0,0 +1,223 @@
+package org.opentripplanner.routing.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import lombok.EqualsAndHashCode;
+import org.opentripplanner.api.model.Itinerary;
+import org.opentripplanner.api.model.Leg;
+import org.opentripplanner.api.model.TripPlan;
+import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.edgetype.TimetableSnapshot;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.CarPresencePredictor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Caches trip plans of the router, so that identical requests (retries, polling clients) don't pay for searching
+ * again. Requests are identical when they have the same query parameters, endpoints rounded to about a meter and
+ * departure or arrival time in the same minute.
+ * <p>
+ * Plans are cached after conversion from graph paths, as paths refer to temporary vertices and edges of the request
+ * which created them and which are removed from graph when it is finished. Plans depend on rentable vehicles,
+ * parking zones, traffic, real-time timetables and vehicle presence predictions, so all entries are dropped when
+ * a newer version of any of them is published. Entries are evicted least recently used first, when estimated size
+ * of all cached plans exceeds the limit.
+ */
+public class PlanResponseCache {
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final long TIME_BUCKET_SECONDS = 60;
+
+    /* 1e-5 degree is about a meter */
+    private static final double COORDINATE_PRECISION = 1e5;
+
+    /* Parameters which are compared after parsing, as their raw values may differ for identical requests */
+    private static final Set<String> NORMALIZED_PARAMETERS = ImmutableSet.of("fromPlace", "toPlace", "date", "time");
+
+    /* Rough estimates of memory used by parts of a plan */
+    private static final int PLAN_BYTES = 1024;
+    private static final int LEG_BYTES = 2048;
+    private static final int PLACE_OR_STEP_BYTES = 512;
+
+    private final Cache<Key, TripPlan> cache;
+
+    private Versions versions = new Versions(0, 0, 0, 0, 0);
+
+    public PlanResponseCache(int maxMegabytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxMegabytes * BYTES_PER_MEGABYTE)
+                .weigher((Key key, TripPlan plan) -> estimateBytes(plan))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param queryParameters parameters of the request, from which `request` was built
+     * @return key of the plan for given request, to be created before the search starts
+     */
+    public Key keyFor(Map<String, List<String>> queryParameters, RoutingRequest request, Graph graph) {
+        return new Key(queryParameters, request, Versions.of(graph));
+    }
+
+    /**
+     * @return copy of cached plan for given key, or null if it has to be computed
+     */
+    @Nullable
+    public TripPlan get(Key key) {
+        TripPlan plan = isCurrent(key.versions) ? cache.getIfPresent(key) : null;
+        return plan == null ? null : new TripPlan(plan);
+    }
+
+    /**
+     * Caches a copy of a plan, unless it has no itineraries or graph was updated since its key was created. Searches
+     * pin versions of overlays when they start, so if graph wasn't updated in the meantime, the plan was computed for
+     * versions stored in the key. Plans of searches which timed out should not be cached either, as they may lack
+     * itineraries found by searches which finish in time.
+     */
+    public void put(Key key, TripPlan plan, Graph graph) {
+        if (!plan.itinerary.isEmpty() && key.versions.equals(Versions.of(graph)) && isCurrent(key.versions)) {
+            cache.put(key, new TripPlan(plan));
+        }
+    }
+
+    /**
+     * Drops all entries if given versions are newer than the ones seen so far.
+     *
+     * @return false if given versions are outdated, so plans computed with them should not be cached
+     */
+    private synchronized boolean isCurrent(Versions keyVersions) {
+        if (keyVersions.isOlderThan(versions)) {
+            return false;
+        }
+        if (!keyVersions.equals(versions)) {
+            versions = keyVersions;
+            cache.invalidateAll();
+        }
+        return true;
+    }
+
+    /**
+     * Hit rate, hit and miss counts since the router was started
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static int estimateBytes(TripPlan plan) {
+        int bytes = PLAN_BYTES;
+        for (Itinerary itinerary : plan.itinerary) {
+            bytes += PLAN_BYTES;
+            for (Leg leg : itinerary.legs) {
+                bytes += LEG_BYTES;
+                if (leg.legGeometry != null && leg.legGeometry.getPoints() != null) {
+                    bytes += 2 * leg.legGeometry.getPoints().length();
+                }
+                bytes += PLACE_OR_STEP_BYTES * (size(leg.walkSteps) + size(leg.stop) + size(leg.intermediateTransitStops));
+            }
+        }
+        return bytes;
+    }
+
+    private static int size(@Nullable List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Versions of everything besides the request which plans depend on. Each of them only grows.
+     */
+    @EqualsAndHashCode
+    private static class Versions {
+
+        private final long rentableVehicleOverlayVersion;
+        private final long parkingZonesOverlayVersion;
+        private final long trafficSpeedOverlayVersion;
+        private final long timetableSnapshotVersion;
+        private final long vehiclePresenceTimestamp;
+
+        private Versions(long rentableVehicleOverlayVersion, long parkingZonesOverlayVersion,
+                         long trafficSpeedOverlayVersion, long timetableSnapshotVersion,
+                         long vehiclePresenceTimestamp) {
+            this.rentableVehicleOverlayVersion = rentableVehicleOverlayVersion;
+            this.parkingZonesOverlayVersion = parkingZonesOverlayVersion;
+            this.trafficSpeedOverlayVersion = trafficSpeedOverlayVersion;
+            this.timetableSnapshotVersion = timetableSnapshotVersion;
+            this.vehiclePresenceTimestamp = vehiclePresenceTimestamp;
+        }
+
+        private static Versions of(Graph graph) {
+            TimetableSnapshot timetableSnapshot = graph.timetableSnapshotSource == null ? null
+                    : graph.timetableSnapshotSource.getTimetableSnapshot();
+            CarPresencePredictor carPresencePredictor = graph.carPresencePredictor;
+            return new Versions(
+                    graph.getRentableVehicleOverlay().getVersion(),
+                    graph.getParkingZonesOverlay().getVersion(),
+                    graph.getTrafficSpeedOverlay().getVersion(),
+                    timetableSnapshot == null ? 0 : timetableSnapshot.getVersion(),
+                    carPresencePredictor == null ? 0 : carPresencePredictor.getHeatmapTimestamp());
+        }
+
+        private boolean isOlderThan(Versions other) {
+            return rentableVehicleOverlayVersion < other.rentableVehicleOverlayVersion
+                    || parkingZonesOverlayVersion < other.parkingZonesOverlayVersion
+                    || trafficSpeedOverlayVersion < other.trafficSpeedOverlayVersion
+                    || timetableSnapshotVersion < other.timetableSnapshotVersion
+                    || vehiclePresenceTimestamp < other.vehiclePresenceTimestamp;
+        }
+    }
+
+    /**
+     * Fingerprint of a request: its raw query parameters, except for endpoints and time which are normalized.
+     * Everything else in the request comes from router defaults, which don't change while the router is running.
+     */
+    @EqualsAndHashCode
+    public static class Key {
+
+        private final SortedMap<String, List<String>> parameters = new TreeMap<>();
+        private final List<Object> endpoints = new ArrayList<>();
+        private final long timeBucket;
+        private final Versions versions;
+
+        private Key(Map<String, List<String>> queryParameters, RoutingRequest request, Versions versions) {
+            queryParameters.forEach((name, values) -> {
+                if (!NORMALIZED_PARAMETERS.contains(name)) {
+                    parameters.put(name, new ArrayList<>(values));
+                }
+            });
+            addEndpoint(request.from);
+            addEndpoint(request.to);
+            this.timeBucket = request.dateTime / TIME_BUCKET_SECONDS;
+            this.versions = versions;
+        }
+
+        private void addEndpoint(@Nullable GenericLocation location) {
+            if (location == null) {
+                endpoints.add(null);
+                return;
+            }
+            endpoints.add(location.name);
+            endpoints.add(location.edgeId);
+            endpoints.add(location.heading);
+            if (location.lat != null && location.lng != null) {
+                endpoints.add(Math.round(location.lat * COORDINATE_PRECISION));
+                endpoints.add(Math.round(location.lng * COORDINATE_PRECISION));
+            } else {
+                endpoints.add(location.place);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.opentripplanner.routing.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of observed values over fixed buckets, written in Prometheus text format. Safe to observe from many
+ * threads at once.
+ */
+public class Histogram {
+
+    private final double[] upperBounds;
+
+    /* Not cumulative, the last bucket counts values greater than all upper bounds */
+    private final LongAdder[] buckets;
+
+    private final DoubleAdder sum = new DoubleAdder();
+
+    private final LongAdder count = new LongAdder();
+
+    public Histogram(double[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int bucket = 0;
+        while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(value);
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Writes `_bucket`, `_sum` and `_count` samples of this histogram
+     *
+     * @param labels labels of all samples, formatted like `router="default",modes="WALK"`
+     */
+    void writeSamples(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = i < upperBounds.length ? Double.toString(upperBounds[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(getSum()).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+}
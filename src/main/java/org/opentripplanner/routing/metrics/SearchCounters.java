@@ -0,0 +1,76 @@
+package org.opentripplanner.routing.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of a single routing request, summed over all A* searches done for it. Searches of the same request may run
+ * concurrently (see GraphPathFinder), so counters are thread safe. Aggregated by {@link SearchMetrics} when the
+ * request is finished.
+ */
+public class SearchCounters {
+
+    private final LongAdder statesCreated = new LongAdder();
+
+    private final LongAdder statesVisited = new LongAdder();
+
+    private final LongAdder statesDominated = new LongAdder();
+
+    private final AtomicLong peakQueueSize = new AtomicLong();
+
+    private final LongAdder heuristicInitializationNanos = new LongAdder();
+
+    private final LongAdder linkingNanos = new LongAdder();
+
+    private volatile boolean timedOut = false;
+
+    /**
+     * Adds counters of one finished A* search
+     */
+    public void addSearch(long created, long visited, long dominated, long peakQueue) {
+        statesCreated.add(created);
+        statesVisited.add(visited);
+        statesDominated.add(dominated);
+        peakQueueSize.accumulateAndGet(peakQueue, Math::max);
+    }
+
+    public void addHeuristicInitializationTime(long nanos) {
+        heuristicInitializationNanos.add(nanos);
+    }
+
+    public void addLinkingTime(long nanos) {
+        linkingNanos.add(nanos);
+    }
+
+    public void markTimedOut() {
+        timedOut = true;
+    }
+
+    public long getStatesCreated() {
+        return statesCreated.sum();
+    }
+
+    public long getStatesVisited() {
+        return statesVisited.sum();
+    }
+
+    public long getStatesDominated() {
+        return statesDominated.sum();
+    }
+
+    public long getPeakQueueSize() {
+        return peakQueueSize.get();
+    }
+
+    public long getHeuristicInitializationNanos() {
+        return heuristicInitializationNanos.sum();
+    }
+
+    public long getLinkingNanos() {
+        return linkingNanos.sum();
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -0,0 +1,184 @@
+package org.opentripplanner.routing.metrics;
+
+import com.google.common.cache.CacheStats;
+import lombok.EqualsAndHashCode;
+import org.opentripplanner.routing.algorithm.profile.OptimizationProfile;
+import org.opentripplanner.routing.algorithm.profile.OriginalOptimizationProfile;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.PlanResponseCache;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Costs of routing requests handled by one router, aggregated into histograms per mode set and optimization profile.
+ * Published in Prometheus text format by {@link org.opentripplanner.api.resource.SearchMetricsResource}, together with
+ * statistics of caches shared by requests to the router's graph.
+ */
+public class SearchMetrics {
+
+    private static final double[] STATE_BUCKETS = {100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    private static final double[] SECONDS_BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10};
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final List<HistogramFamily> HISTOGRAM_FAMILIES = Arrays.asList(
+            new HistogramFamily("otp_search_states_created", "States created by traversing edges",
+                    histograms -> histograms.statesCreated),
+            new HistogramFamily("otp_search_states_visited", "States taken from the priority queue and expanded",
+                    histograms -> histograms.statesVisited),
+            new HistogramFamily("otp_search_states_dominated", "States dropped as dominated by other states",
+                    histograms -> histograms.statesDominated),
+            new HistogramFamily("otp_search_peak_queue_size", "Largest size of the priority queue",
+                    histograms -> histograms.peakQueueSize),
+            new HistogramFamily("otp_search_heuristic_initialization_seconds",
+                    "Time spent on initializing the remaining weight heuristic",
+                    histograms -> histograms.heuristicInitializationSeconds),
+            new HistogramFamily("otp_search_linking_seconds", "Time spent on linking origin and destination to graph",
+                    histograms -> histograms.linkingSeconds),
+            new HistogramFamily("otp_search_itinerary_conversion_seconds",
+                    "Time spent on converting paths into itineraries",
+                    histograms -> histograms.itineraryConversionSeconds)
+    );
+
+    private final String routerId;
+
+    private final Map<Labels, SearchHistograms> histograms = new ConcurrentHashMap<>();
+
+    public SearchMetrics(String routerId) {
+        this.routerId = routerId == null ? "" : routerId;
+    }
+
+    /**
+     * Records cost of a finished request. Requests which failed before their routing context was created are skipped.
+     *
+     * @param itineraryConversionNanos time spent on converting found paths into itineraries
+     */
+    public void record(RoutingRequest request, long itineraryConversionNanos) {
+        RoutingContext rctx = request.rctx;
+        if (rctx == null) {
+            return;
+        }
+        SearchCounters counters = rctx.searchCounters;
+        Labels labels = new Labels(request.modes.getAsStr(), profileName(request.getOptimizationProfile()));
+        SearchHistograms requestHistograms = histograms.computeIfAbsent(labels, l -> new SearchHistograms());
+        requestHistograms.statesCreated.observe(counters.getStatesCreated());
+        requestHistograms.statesVisited.observe(counters.getStatesVisited());
+        requestHistograms.statesDominated.observe(counters.getStatesDominated());
+        requestHistograms.peakQueueSize.observe(counters.getPeakQueueSize());
+        requestHistograms.heuristicInitializationSeconds.observe(
+                counters.getHeuristicInitializationNanos() / NANOS_PER_SECOND);
+        requestHistograms.linkingSeconds.observe(counters.getLinkingNanos() / NANOS_PER_SECOND);
+        requestHistograms.itineraryConversionSeconds.observe(itineraryConversionNanos / NANOS_PER_SECOND);
+        if (counters.isTimedOut() || rctx.aborted) {
+            requestHistograms.timedOut.increment();
+        }
+    }
+
+    /**
+     * @param planResponseCache cache of the router's plans, null if plans are not cached
+     * @return all metrics of the router in Prometheus text exposition format
+     */
+    public String toPrometheusText(Graph graph, @Nullable PlanResponseCache planResponseCache) {
+        StringBuilder out = new StringBuilder();
+        for (HistogramFamily family : HISTOGRAM_FAMILIES) {
+            writeHeader(out, family.name, family.help, "histogram");
+            histograms.forEach((labels, requestHistograms) ->
+                    family.histogram.apply(requestHistograms).writeSamples(out, family.name, formatLabels(labels)));
+        }
+        writeHeader(out, "otp_search_timeouts_total", "Requests whose search timed out", "counter");
+        histograms.forEach((labels, requestHistograms) -> out.append("otp_search_timeouts_total{")
+                .append(formatLabels(labels)).append("} ").append(requestHistograms.timedOut.sum()).append('\n'));
+
+        Map<String, CacheStats> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("egress_weights", graph.egressWeightsCache.getStats());
+        cacheStats.put("snapped_locations", graph.snappedLocationCache.getStats());
+        if (planResponseCache != null) {
+            cacheStats.put("plan_responses", planResponseCache.getStats());
+        }
+        Map<String, Long> cacheSizes = new LinkedHashMap<>();
+        cacheSizes.put("egress_weights", graph.egressWeightsCache.size());
+        cacheSizes.put("snapped_locations", graph.snappedLocationCache.size());
+        if (planResponseCache != null) {
+            cacheSizes.put("plan_responses", planResponseCache.size());
+        }
+        writeHeader(out, "otp_cache_hits_total", "Lookups which found a cached entry", "counter");
+        cacheStats.forEach((cache, stats) -> writeCacheSample(out, "otp_cache_hits_total", cache, stats.hitCount()));
+        writeHeader(out, "otp_cache_misses_total", "Lookups which didn't find a cached entry", "counter");
+        cacheStats.forEach((cache, stats) -> writeCacheSample(out, "otp_cache_misses_total", cache, stats.missCount()));
+        writeHeader(out, "otp_cache_size", "Number of cached entries", "gauge");
+        cacheSizes.forEach((cache, size) -> writeCacheSample(out, "otp_cache_size", cache, size));
+        return out.toString();
+    }
+
+    private void writeCacheSample(StringBuilder out, String name, String cache, long value) {
+        out.append(name).append("{router=\"").append(escape(routerId)).append("\",cache=\"").append(cache)
+                .append("\"} ").append(value).append('\n');
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private String formatLabels(Labels labels) {
+        return "router=\"" + escape(routerId) + "\",modes=\"" + escape(labels.modes) + "\",profile=\""
+                + escape(labels.profile) + "\"";
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String profileName(OptimizationProfile profile) {
+        // GraphPathFinder uses the original profile when request doesn't specify one
+        return (profile == null ? OriginalOptimizationProfile.class : profile.getClass()).getSimpleName();
+    }
+
+    @EqualsAndHashCode
+    private static class Labels {
+
+        private final String modes;
+        private final String profile;
+
+        private Labels(String modes, String profile) {
+            this.modes = modes == null ? "" : modes;
+            this.profile = profile;
+        }
+    }
+
+    private static class SearchHistograms {
+
+        private final Histogram statesCreated = new Histogram(STATE_BUCKETS);
+        private final Histogram statesVisited = new Histogram(STATE_BUCKETS);
+        private final Histogram statesDominated = new Histogram(STATE_BUCKETS);
+        private final Histogram peakQueueSize = new Histogram(STATE_BUCKETS);
+        private final Histogram heuristicInitializationSeconds = new Histogram(SECONDS_BUCKETS);
+        private final Histogram linkingSeconds = new Histogram(SECONDS_BUCKETS);
+        private final Histogram itineraryConversionSeconds = new Histogram(SECONDS_BUCKETS);
+        private final LongAdder timedOut = new LongAdder();
+    }
+
+    private static class HistogramFamily {
+
+        private final String name;
+        private final String help;
+        private final Function<SearchHistograms, Histogram> histogram;
+
+        private HistogramFamily(String name, String help, Function<SearchHistograms, Histogram> histogram) {
+            this.name = name;
+            this.help = help;
+            this.histogram = histogram;
+        }
+    }
+}
@@ -2,9 +2,8 @@ package org.opentripplanner.routing.spt;
 
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
-import org.opentripplanner.routing.edgetype.SimpleTransfer;
+import org.opentripplanner.routing.core.StatePlane;
 import org.opentripplanner.routing.edgetype.StreetEdge;
-import org.opentripplanner.routing.edgetype.TimedTransferEdge;
 
 import java.io.Serializable;
 import java.util.Objects;
@@ -26,6 +25,8 @@ import java.util.Objects;
 public abstract class DominanceFunction implements Serializable {
     private static final long serialVersionUID = 1;
 
+    private boolean vertexIndexedShortestPathTree = false;
+
     /**
      * Return true if the first state "defeats" the second state or at least ties with it in terms of suitability.
      * In the case that they are tied, we still want to return true so that an existing state will kick out a new one.
@@ -41,6 +42,12 @@ public abstract class DominanceFunction implements Serializable {
      */
     public boolean betterOrEqualAndComparable(State a, State b) {
 
+        // Mode, vehicle type, rental and parking status and transfers are encoded in plane keys, see StatePlane
+        int planeA = a.getPlaneKey();
+        int planeB = b.getPlaneKey();
+        if (!StatePlane.areComparable(planeA, planeB))
+            return false;
+
         // States before boarding transit and after riding transit are incomparable.
         // This allows returning transit options even when walking to the destination is the optimal strategy.
         if (a.getOptions().forceTransitTrips && a.isEverBoarded() != b.isEverBoarded()) {
@@ -51,58 +58,22 @@ public abstract class DominanceFunction implements Serializable {
             }
         }
 
-        if (a.getNonTransitMode() != b.getNonTransitMode())
-            return false;
-
-        // The result of a SimpleTransfer must not block alighting normally from transit. States that are results of
-        // SimpleTransfers are incomparable with states that are not the result of SimpleTransfers.
-        if ((a.backEdge instanceof SimpleTransfer) != (b.backEdge instanceof SimpleTransfer)) {
-            return false;
-        }
-
-        // A TimedTransferEdge might be invalidated later, when we have boarded the next trip and have all the information
-        // we need to check the specificity. We do not want states that might be invalidated to dominate other valid
-        // states.
-        if ((a.backEdge instanceof TimedTransferEdge) || (b.backEdge instanceof TimedTransferEdge)) {
-            return false;
-        }
-
-        // Does one state represent riding a rented bike and the other represent walking before/after rental?
-        if (a.isBikeRenting() != b.isBikeRenting()) {
-            return false;
-        }
-
-        // In case of bike renting, different networks (ie incompatible bikes) are not comparable
+        // In case of bike renting, different networks (ie incompatible bikes) are not comparable. Keys hold only
+        // hashes of networks, so equal keys still need to be checked.
         if (a.isBikeRenting()) {
             if (!Objects.equals(a.getBikeRentalNetworks(), b.getBikeRentalNetworks()))
                 return false;
         }
 
-        // Does one state represent driving a car and the other represent walking after the car was parked?
-        if (a.isCarParked() != b.isCarParked()) {
-            return false;
-        }
-
-        // Does one state represent riding a bike and the other represent walking after the bike was parked?
-        if (a.isBikeParked() != b.isBikeParked()) {
-            return false;
-        }
-
-        if (a.getCurrentVehicle() != null && b.getCurrentVehicle() != null) {
-            if (a.getCurrentVehicle().getVehicleType() != b.getCurrentVehicle().getVehicleType())
-                return false;
-
-            if (a.getOptions().routingStateDiffOptions.differRangeGroups) {
-                int rangeGroupA = a.getOptions().routingStateDiffOptions.getRangeGroup(a);
-                int rangeGroupB = b.getOptions().routingStateDiffOptions.getRangeGroup(b);
+        if (StatePlane.bothRentVehicles(planeA, planeB)) {
+            int rangeGroupA = StatePlane.getRangeGroup(planeA);
+            int rangeGroupB = StatePlane.getRangeGroup(planeB);
 
 //            A has worse range but better weight and time. Therefore, those states are incomparable.
-                if (rangeGroupA < rangeGroupB && betterOrEqual(a, b))
-                    return false;
-                if (rangeGroupB < rangeGroupA && betterOrEqual(b, a))
-                    return false;
-            }
-
+            if (rangeGroupA < rangeGroupB && betterOrEqual(a, b))
+                return false;
+            if (rangeGroupB < rangeGroupA && betterOrEqual(b, a))
+                return false;
         }
 
         // Are the two states arriving at a vertex from two different directions where turn restrictions apply?
@@ -121,9 +92,21 @@ public abstract class DominanceFunction implements Serializable {
      * MultiShortestPathTree is the general case -- it will work with both single- and multi-state functions.
      */
     public ShortestPathTree getNewShortestPathTree(RoutingRequest routingRequest) {
+        if (vertexIndexedShortestPathTree) {
+            return new VertexIndexedShortestPathTree(routingRequest, this);
+        }
         return new ShortestPathTree(routingRequest, this);
     }
 
+    /**
+     * Makes shortest path trees of this function keep states in arrays indexed by vertex index, which is faster for
+     * searches visiting large parts of the street graph. See {@link VertexIndexedShortestPathTree}.
+     */
+    public DominanceFunction useVertexIndexedShortestPathTree() {
+        this.vertexIndexedShortestPathTree = true;
+        return this;
+    }
+
     public static class MinimumWeight extends DominanceFunction {
         /**
          * Return true if the first state has lower weight than the second state.
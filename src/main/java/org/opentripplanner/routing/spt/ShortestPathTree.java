@@ -4,6 +4,7 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.StatePlane;
 import org.opentripplanner.routing.graph.Vertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +19,7 @@ import java.util.*;
  * We no longer have different implementations of ShortestPathTree because the label-setting (multi-state) approach
  * used in public transit routing, turn restrictions, bike rental, etc. is a generalization of the basic Dijkstra 
  * (single-state) approach. It is much more straightforward to use the more general SPT implementation in all cases.
+ * {@link VertexIndexedShortestPathTree} only stores the same states differently, for large street searches.
  *
  * Note that turn restrictions make all searches multi-state; however turn restrictions do not apply when walking.
  * The turn restriction handling is done in the base dominance function implementation, and applies to all subclasses.
@@ -76,8 +78,9 @@ public class ShortestPathTree {
         Multiset<Integer> histogram = HashMultiset.create();
         int statesCount = 0;
         int maxSize = 0;
-        for (Map.Entry<Vertex, List<State>> kv : stateSets.entrySet()) {
-            List<State> states = kv.getValue();
+        Set<Vertex> vertices = getVertices();
+        for (Vertex vertex : vertices) {
+            List<State> states = getStates(vertex);
             int size = states.size();
             histogram.add(size);
             statesCount += size;
@@ -85,9 +88,9 @@ public class ShortestPathTree {
                 maxSize = size;
             }
         }
-        LOG.info("SPT: vertices: " + stateSets.size() + " states: total: "
+        LOG.info("SPT: vertices: " + vertices.size() + " states: total: "
                 + statesCount + " per vertex max: " + maxSize + " avg: "
-                + (statesCount * 1.0 / stateSets.size()));
+                + (statesCount * 1.0 / vertices.size()));
         List<Integer> nStates = new ArrayList<Integer>(histogram.elementSet());
         Collections.sort(nStates);
         for (Integer nState : nStates) {
@@ -124,8 +127,12 @@ public class ShortestPathTree {
         // if the vertex has any states that dominate the new state, don't add the state
         // if the new state dominates any old states, remove them
         Iterator<State> it = states.iterator();
+        int newPlane = newState.getPlaneKey();
         while (it.hasNext()) {
             State oldState = it.next();
+            // states on other planes never dominate each other, see StatePlane
+            if (!StatePlane.areComparable(oldState.getPlaneKey(), newPlane))
+                continue;
             // order is important, because in the case of a tie
             // we want to reject the new state
             if (dominanceFunction.betterOrEqualAndComparable(oldState, newState))
@@ -146,7 +153,7 @@ public class ShortestPathTree {
      * @return a 'best' state at that vertex
      */
     public State getState(Vertex dest) {
-        Collection<State> states = stateSets.get(dest);
+        Collection<State> states = getStates(dest);
         if (states == null)
             return null;
         State ret = null;
@@ -177,6 +184,13 @@ public class ShortestPathTree {
         return stateSets.keySet().size();
     }
 
+    /**
+     * Allows storage of this tree to be reused by trees created later on the same thread. Paths and states already
+     * taken from this tree stay valid, but the tree itself must not be used after this call.
+     */
+    public void release() {
+    }
+
     /**
      * The visit method should be called upon extracting a State from a priority queue. It
      * checks whether the State is still worth visiting (i.e. whether it has been dominated since it
@@ -221,7 +235,7 @@ public class ShortestPathTree {
     }
 
     public String toString() {
-        return "ShortestPathTree(" + this.stateSets.size() + " vertices)";
+        return "ShortestPathTree(" + getVertexCount() + " vertices)";
     }
 
 }
\ No newline at end of file
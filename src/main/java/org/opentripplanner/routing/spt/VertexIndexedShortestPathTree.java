@@ -0,0 +1,151 @@
+package org.opentripplanner.routing.spt;
+
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.StatePlane;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shortest path tree with the same dominance semantics as {@link ShortestPathTree}, which keeps states in an array
+ * indexed by vertex index instead of a map. A single state per vertex is stored inline and a list is allocated only
+ * for co-dominant states. Storage is reused by trees created later on the same thread once this tree is released.
+ * <p>
+ * It pays off in street searches visiting hundreds of thousands of vertices, where hashing and allocating a list for
+ * every visited vertex dominates search time. Enabled by {@link DominanceFunction#useVertexIndexedShortestPathTree()}.
+ */
+public class VertexIndexedShortestPathTree extends ShortestPathTree {
+
+    private VertexStateStorage storage;
+
+    public VertexIndexedShortestPathTree(RoutingRequest options, DominanceFunction dominanceFunction) {
+        super(options, dominanceFunction);
+        this.storage = VertexStateStorage.acquire();
+    }
+
+    @Override
+    public boolean add(State newState) {
+        int index = newState.getVertex().getIndex();
+        Object slot = storage.get(index);
+
+        // if the vertex has no states, add one and return
+        if (slot == null) {
+            storage.set(index, newState);
+            return true;
+        }
+
+        if (slot instanceof State) {
+            State oldState = (State) slot;
+            // order is important, because in the case of a tie we want to reject the new state
+            if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+                return false;
+            }
+            if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+                storage.set(index, newState);
+            } else {
+                List<State> states = new ArrayList<>(2);
+                states.add(oldState);
+                states.add(newState);
+                storage.set(index, states);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<State> states = (List<State>) slot;
+        Iterator<State> it = states.iterator();
+        int newPlane = newState.getPlaneKey();
+        while (it.hasNext()) {
+            State oldState = it.next();
+            // states on other planes never dominate each other, see StatePlane
+            if (!StatePlane.areComparable(oldState.getPlaneKey(), newPlane))
+                continue;
+            if (dominanceFunction.betterOrEqualAndComparable(oldState, newState))
+                return false;
+            if (dominanceFunction.betterOrEqualAndComparable(newState, oldState))
+                it.remove();
+        }
+
+        // any states remaining are co-dominant with the new state
+        states.add(newState);
+        return true;
+    }
+
+    @Override
+    public boolean visit(State state) {
+        Object slot = storage.get(state.getVertex().getIndex());
+        if (slot == state) {
+            return true;
+        }
+        if (slot instanceof List) {
+            for (Object s : (List<?>) slot) {
+                if (s == state) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<State> getStates(Vertex dest) {
+        Object slot = storage.get(dest.getIndex());
+        if (slot == null) {
+            return null;
+        }
+        if (slot instanceof State) {
+            return Collections.singletonList((State) slot);
+        }
+        return (List<State>) slot;
+    }
+
+    @Override
+    public Set<Vertex> getVertices() {
+        Set<Vertex> vertices = new HashSet<>();
+        for (int i = 0; i < storage.getUsedSlotsCount(); i++) {
+            vertices.add(getAnyState(storage.getUsedSlot(i)).getVertex());
+        }
+        return vertices;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<State> getAllStates() {
+        ArrayList<State> allStates = new ArrayList<>(storage.getUsedSlotsCount());
+        for (int i = 0; i < storage.getUsedSlotsCount(); i++) {
+            Object slot = storage.getUsedSlot(i);
+            if (slot instanceof State) {
+                allStates.add((State) slot);
+            } else {
+                allStates.addAll((List<State>) slot);
+            }
+        }
+        return allStates;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return storage.getUsedSlotsCount();
+    }
+
+    @Override
+    public void release() {
+        if (storage != null) {
+            storage.release();
+            storage = null;
+        }
+    }
+
+    private static State getAnyState(Object slot) {
+        // Lists of co-dominant states are never empty
+        return slot instanceof State ? (State) slot : (State) ((List<?>) slot).get(0);
+    }
+}
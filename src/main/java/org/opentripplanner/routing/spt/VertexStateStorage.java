@@ -0,0 +1,112 @@
+package org.opentripplanner.routing.spt;
+
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * States of a {@link VertexIndexedShortestPathTree}, kept in an array indexed by {@link Vertex#getIndex()}. Every slot
+ * is either empty, a single {@link State} (the common case, which needs no allocation) or an {@link ArrayList} of
+ * co-dominant states.
+ * <p>
+ * The array covers only vertices added to graph. Temporary vertices keep taking new indices while the router is
+ * running, so their states are kept in a map instead, which keeps the size of the storage bounded by the size of graph.
+ * <p>
+ * Indices of used slots are remembered, so that clearing storage for reuse takes time proportional to the number of
+ * visited vertices instead of the size of the graph.
+ */
+class VertexStateStorage {
+
+    private static final ThreadLocal<VertexStateStorage> RECYCLED = new ThreadLocal<>();
+
+    /* Above this size the map of temporary vertices is replaced instead of cleared, so that it doesn't stay large */
+    private static final int MAX_RECYCLED_TEMPORARY_SLOTS = 1024;
+
+    private final Object[] slots;
+
+    private Map<Integer, Object> temporarySlots = new HashMap<>();
+
+    private int[] usedSlots = new int[1024];
+
+    private int usedSlotsCount = 0;
+
+    private VertexStateStorage(int capacity) {
+        this.slots = new Object[capacity];
+    }
+
+    /**
+     * @return storage released on this thread, or a new one if there is none or it is too small for current graph
+     */
+    static VertexStateStorage acquire() {
+        VertexStateStorage storage = RECYCLED.get();
+        int graphVertexCount = Vertex.getMaxGraphIndex();
+        if (storage != null) {
+            RECYCLED.remove();
+            if (storage.slots.length >= graphVertexCount) {
+                return storage;
+            }
+        }
+        // Leave some space for vertices added to graph later
+        return new VertexStateStorage(graphVertexCount + graphVertexCount / 8 + 16);
+    }
+
+    /**
+     * Clears this storage and keeps it for the next tree created on this thread
+     */
+    void release() {
+        for (int i = 0; i < usedSlotsCount; i++) {
+            if (usedSlots[i] < slots.length) {
+                slots[usedSlots[i]] = null;
+            }
+        }
+        usedSlotsCount = 0;
+        if (temporarySlots.size() > MAX_RECYCLED_TEMPORARY_SLOTS) {
+            temporarySlots = new HashMap<>();
+        } else {
+            temporarySlots.clear();
+        }
+        RECYCLED.set(this);
+    }
+
+    Object get(int index) {
+        return index < slots.length ? slots[index] : temporarySlots.get(index);
+    }
+
+    void set(int index, Object slot) {
+        Object previous;
+        if (index < slots.length) {
+            previous = slots[index];
+            slots[index] = slot;
+        } else {
+            previous = temporarySlots.put(index, slot);
+        }
+        if (previous == null) {
+            if (usedSlotsCount == usedSlots.length) {
+                usedSlots = Arrays.copyOf(usedSlots, usedSlots.length * 2);
+            }
+            usedSlots[usedSlotsCount++] = index;
+        }
+    }
+
+    int getUsedSlotsCount() {
+        return usedSlotsCount;
+    }
+
+    /**
+     * @param i from 0 to {@link #getUsedSlotsCount()}, exclusive
+     */
+    Object getUsedSlot(int i) {
+        return get(usedSlots[i]);
+    }
+
+    /**
+     * @return number of vertices added to graph, which states may be kept without using the map of temporary vertices
+     */
+    int getCapacity() {
+        return slots.length;
+    }
+}
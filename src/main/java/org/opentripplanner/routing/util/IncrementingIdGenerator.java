@@ -33,4 +33,12 @@ public class IncrementingIdGenerator<T> implements UniqueIdGenerator<T> {
     public int getId(T elem) {
         return next++;
     }
+
+    /**
+     * Makes sure that identifiers generated from now on are greater than the given one, e.g. when elements with
+     * identifiers were deserialized.
+     */
+    public void skipPast(int id) {
+        next = Math.max(next, id + 1);
+    }
 }
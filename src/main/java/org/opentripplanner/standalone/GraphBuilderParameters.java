@@ -4,10 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.opentripplanner.graph_builder.module.osm.WayPropertySetSource;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
 import org.opentripplanner.profile.StopClusterMode;
+import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.graph.GraphIndex;
 import org.opentripplanner.routing.impl.DefaultFareServiceFactory;
 import org.opentripplanner.routing.services.FareServiceFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -178,11 +180,29 @@ public class GraphBuilderParameters {
      */
     public final double maxTransferDistance;
 
+    /**
+     * Number of landmarks used by the landmark heuristic in street searches. Every landmark takes 4 bytes per vertex
+     * in the graph. Zero disables landmarks.
+     */
+    public final int landmarks;
+
+    /**
+     * Street modes (CAR, WALK, BICYCLE) for which contraction hierarchies are built. Street-only requests in these
+     * modes are answered without running A*, unless they rent vehicles or traffic data is available.
+     */
+    public final List<TraverseMode> contractionHierarchies;
+
     /**
      * This will add extra edges when linking a stop to a platform, to prevent detours along the platform edge.
      */
     public final Boolean extraEdgesStopPlatformLink;
 
+    /**
+     * Maximum number of graph builder modules running at the same time. Modules which don't depend on each other and
+     * don't modify the same parts of the graph are run in parallel. One runs all modules in sequence.
+     */
+    public final int buildParallelism;
+
     /**
      * Set all parameters from the given Jackson JSON tree, applying defaults.
      * Supplying MissingNode.getInstance() will cause all the defaults to be applied.
@@ -218,7 +238,13 @@ public class GraphBuilderParameters {
         banDiscouragedWalking = config.path("banDiscouragedWalking").asBoolean(false);
         banDiscouragedBiking = config.path("banDiscouragedBiking").asBoolean(false);
         maxTransferDistance = config.path("maxTransferDistance").asDouble(2000);
+        landmarks = config.path("landmarks").asInt(16);
+        contractionHierarchies = new ArrayList<>();
+        for (JsonNode mode : config.path("contractionHierarchies")) {
+            contractionHierarchies.add(TraverseMode.valueOf(mode.asText()));
+        }
         extraEdgesStopPlatformLink = config.path("extraEdgesStopPlatformLink").asBoolean(false);
+        buildParallelism = config.path("buildParallelism").asInt(Runtime.getRuntime().availableProcessors());
     }
 
 
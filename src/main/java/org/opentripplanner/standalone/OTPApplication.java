@@ -90,6 +90,7 @@ public class OTPApplication extends Application {
                 GraphInspectorTileResource.class,
                 ScriptResource.class,
                 UpdaterStatusResource.class,
+                SearchMetricsResource.class,
                 ScenarioResource.class,
                 RepeatedRaptorTestResource.class,
                 /* Features and Filters: extend Jersey, manipulate requests and responses. */
@@ -7,6 +7,7 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.FileAppender;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.opentripplanner.analyst.request.*;
 import org.opentripplanner.analyst.scenario.ScenarioStore;
 import org.opentripplanner.inspector.TileRendererManager;
@@ -14,6 +15,8 @@ import org.opentripplanner.reflect.ReflectiveInitializer;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.PlanResponseCache;
+import org.opentripplanner.routing.metrics.SearchMetrics;
 import org.opentripplanner.updater.GraphUpdaterConfigurator;
 import org.opentripplanner.util.ElevationUtils;
 import org.opentripplanner.util.WorldEnvelope;
@@ -21,6 +24,8 @@ import org.opentripplanner.visualizer.GraphVisualizer;
 import org.slf4j.LoggerFactory;
 
 import java.util.EnumMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Represents the configuration of a single router (a single graph for a specific geographic area)
@@ -36,12 +41,24 @@ public class Router {
     public Graph graph;
     public double[] timeouts = {5, 4, 2};
 
+    /**
+     * Runs diversified searches of itineraries concurrently, see GraphPathFinder. Null if itineraries are searched
+     * one after another.
+     */
+    public ExecutorService itinerarySearchExecutor = null;
+
+    /** Plans of recent requests, returned again for identical requests. Null if plans are not cached. */
+    public PlanResponseCache planResponseCache = null;
+
     /**
      *  Separate logger for incoming requests. This should be handled with a Logback logger rather than something
      *  simple like a PrintStream because requests come in multi-threaded.
      */
     public Logger requestLogger = null;
 
+    /** Costs of handled routing requests, published by SearchMetricsResource. */
+    public final SearchMetrics searchMetrics;
+
     /* TODO The fields for "components" are slowly disappearing... maybe at some point a router will be nothing but configuration values tied to a Graph. */
 
     // Inspector/debug services
@@ -65,6 +82,7 @@ public class Router {
     public Router(String id, Graph graph) {
         this.id = id;
         this.graph = graph;
+        this.searchMetrics = new SearchMetrics(id);
     }
 
 
@@ -126,6 +144,21 @@ public class Router {
         }
         LOG.info("Timeouts for router '{}': {}", this.id, this.timeouts);
 
+        /* Threads searching for itineraries concurrently, shared by all requests. */
+        int itinerarySearchThreads = config.path("itinerarySearchThreads").asInt(0);
+        if (itinerarySearchThreads > 0) {
+            this.itinerarySearchExecutor = Executors.newFixedThreadPool(itinerarySearchThreads,
+                    new ThreadFactoryBuilder().setNameFormat("itinerary-search-%d").setDaemon(true).build());
+            LOG.info("Searching for itineraries concurrently in {} threads", itinerarySearchThreads);
+        }
+
+        /* Plans returned again for identical requests, bounded by their estimated size. */
+        int planResponseCacheMegabytes = config.path("planResponseCacheMegabytes").asInt(0);
+        if (planResponseCacheMegabytes > 0) {
+            this.planResponseCache = new PlanResponseCache(planResponseCacheMegabytes);
+            LOG.info("Caching plans of identical requests in up to {} MB", planResponseCacheMegabytes);
+        }
+
         JsonNode requestLogFile = config.get("requestLogFile");
         if (requestLogFile != null) {
             this.requestLogger = createLogger(requestLogFile.asText());
@@ -178,6 +211,9 @@ public class Router {
     /** Shut down this router when evicted or (auto-)reloaded. Stop any real-time updater threads. */
     public void shutdown() {
         GraphUpdaterConfigurator.shutdownGraph(this.graph);
+        if (itinerarySearchExecutor != null) {
+            itinerarySearchExecutor.shutdownNow();
+        }
     }
 
     /**
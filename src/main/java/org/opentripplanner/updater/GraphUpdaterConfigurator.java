@@ -11,6 +11,7 @@ import org.opentripplanner.updater.stoptime.PollingStoptimeUpdater;
 import org.opentripplanner.updater.stoptime.WebsocketGtfsRealtimeUpdater;
 import org.opentripplanner.updater.street_notes.WinkkiPollingGraphUpdater;
 import org.opentripplanner.updater.traficstreetupdater.TrafifcUpdater;
+import org.opentripplanner.updater.vehicle_sharing.parking_zones.ParkingZonesUpdater;
 import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.VehiclePresencePredictionUpdater;
 import org.opentripplanner.updater.vehicle_sharing.vehicles_positions.BikesUpdater;
 import org.opentripplanner.updater.vehicle_sharing.vehicles_positions.SharedVehiclesUpdater;
@@ -97,6 +98,7 @@ public abstract class GraphUpdaterConfigurator {
         }
 
         addUpdater(graph, updaterManager, new SharedVehiclesUpdater(), null);
+        addUpdater(graph, updaterManager, new ParkingZonesUpdater(), null);
         addUpdater(graph, updaterManager, new BikesUpdater(), null);
         addUpdater(graph, updaterManager, new TrafifcUpdater(), null);
         addUpdater(graph, updaterManager, new VehiclePresencePredictionUpdater(), null);
@@ -0,0 +1,53 @@
+package org.opentripplanner.updater.traficstreetupdater;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import org.opentripplanner.graph_builder.module.time.EdgeLine;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ids of street edges between given OSM nodes. Built once, so that traffic updates touch only edges present in the
+ * traffic feed. There may be many edges between the same pair of OSM nodes, as split edges keep OSM nodes of the
+ * original edge.
+ */
+class StreetEdgesByOsmNodes {
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private final Map<EdgeLine, int[]> edgeIdsByOsmNodes;
+
+    private final int maxEdgeId;
+
+    private StreetEdgesByOsmNodes(Map<EdgeLine, int[]> edgeIdsByOsmNodes, int maxEdgeId) {
+        this.edgeIdsByOsmNodes = edgeIdsByOsmNodes;
+        this.maxEdgeId = maxEdgeId;
+    }
+
+    static StreetEdgesByOsmNodes build(Graph graph) {
+        Map<EdgeLine, TIntList> edgeIds = new HashMap<>();
+        int maxEdgeId = -1;
+        for (StreetEdge edge : graph.getStreetEdges()) {
+            if (edge.getStartOsmNodeId() == -1 || edge.getEndOsmNodeId() == -1) {
+                continue;
+            }
+            edgeIds.computeIfAbsent(new EdgeLine(edge.getStartOsmNodeId(), edge.getEndOsmNodeId()),
+                    osmNodes -> new TIntArrayList(1)).add(edge.getId());
+            maxEdgeId = Math.max(maxEdgeId, edge.getId());
+        }
+        Map<EdgeLine, int[]> edgeIdsByOsmNodes = new HashMap<>(edgeIds.size());
+        edgeIds.forEach((osmNodes, ids) -> edgeIdsByOsmNodes.put(osmNodes, ids.toArray()));
+        return new StreetEdgesByOsmNodes(edgeIdsByOsmNodes, maxEdgeId);
+    }
+
+    int[] getEdgeIds(long startOsmNodeId, long endOsmNodeId) {
+        return edgeIdsByOsmNodes.getOrDefault(new EdgeLine(startOsmNodeId, endOsmNodeId), NO_EDGES);
+    }
+
+    int getMaxEdgeId() {
+        return maxEdgeId;
+    }
+}
@@ -1,28 +1,36 @@
 package org.opentripplanner.updater.traficstreetupdater;
 
-import org.opentripplanner.graph_builder.module.time.EdgeLine;
-import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.updater.GraphWriterRunnable;
 
-import java.util.HashMap;
+import java.util.List;
 
+/**
+ * Publishes new {@link TrafficSpeedOverlay} with speeds of edges present in the traffic feed. Other edges keep speeds
+ * from the previous overlay.
+ */
 class TrafficStreetrrRunable implements GraphWriterRunnable {
-    private final HashMap<EdgeLine, Integer> map;
 
-    public TrafficStreetrrRunable(HashMap<EdgeLine, Integer> map) {
-        this.map = map;
+    private final StreetEdgesByOsmNodes streetEdgesByOsmNodes;
+
+    private final List<EdgeDataWithSpeed> updates;
+
+    public TrafficStreetrrRunable(StreetEdgesByOsmNodes streetEdgesByOsmNodes, List<EdgeDataWithSpeed> updates) {
+        this.streetEdgesByOsmNodes = streetEdgesByOsmNodes;
+        this.updates = updates;
     }
 
     @Override
     public void run(Graph graph) {
-        for (StreetEdge e : graph.getStreetEdges()) {
-            e.setTemporarySpeedLimit(-1);
-            EdgeLine el = new EdgeLine(e.getStartOsmNodeId(), e.getEndOsmNodeId());
-            if (map.get(el) != null) {
-                e.setTemporarySpeedLimit(map.get(el));
+        TrafficSpeedOverlay previousOverlay = graph.getTrafficSpeedOverlay();
+        float[] speeds = previousOverlay.copySpeeds(streetEdgesByOsmNodes.getMaxEdgeId() + 1);
+        for (EdgeDataWithSpeed update : updates) {
+            for (int edgeId : streetEdgesByOsmNodes.getEdgeIds(update.getStartnodeid(), update.getEndnodeid())) {
+                speeds[edgeId] = update.getSpeed();
             }
         }
+        graph.publishTrafficSpeedOverlay(new TrafficSpeedOverlay(previousOverlay.getVersion() + 1, speeds));
         graph.routerHealth.setTraffic(true);
     }
 }
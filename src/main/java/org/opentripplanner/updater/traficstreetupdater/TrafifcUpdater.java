@@ -2,7 +2,6 @@ package org.opentripplanner.updater.traficstreetupdater;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import org.opentripplanner.graph_builder.linking.TemporaryStreetSplitter;
-import org.opentripplanner.graph_builder.module.time.EdgeLine;
 import org.opentripplanner.hasura_client.EdgeDataWithSpeedGetter;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.updater.GraphUpdaterManager;
@@ -11,29 +10,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-import java.util.HashMap;
 import java.util.List;
 
 
 public class TrafifcUpdater extends PollingGraphUpdater {
     private  Graph graph;
     GraphUpdaterManager graphUpdaterManager;
-    private HashMap <EdgeLine,Integer> map = new HashMap<>();
     private static final Logger LOG = LoggerFactory.getLogger(TrafifcUpdater.class);
     private  String url;
     private  String pass;
     private final EdgeDataWithSpeedGetter edgeDataWithSpeedGetter= new EdgeDataWithSpeedGetter();
     private TemporaryStreetSplitter temporaryStreetSplitter;
+    private StreetEdgesByOsmNodes streetEdgesByOsmNodes;
       @Override
     protected void runPolling() {
         LOG.info("Polling trafic udates  from API");
-        List updates = edgeDataWithSpeedGetter.postFromHasuraWithPassword(graph,url,pass);
+        List<EdgeDataWithSpeed> updates = edgeDataWithSpeedGetter.postFromHasuraWithPassword(graph,url,pass);
         LOG.info("Got {} edeges with traffiv street", updates.size());
-        for (Object e: updates)
-        {
-             map.put( new EdgeLine(((EdgeDataWithSpeed)e).getStartnodeid(),((EdgeDataWithSpeed)e).getEndnodeid()),((EdgeDataWithSpeed)e).getSpeed());
-        }
-          graphUpdaterManager.execute(new  TrafficStreetrrRunable(map));
+          graphUpdaterManager.execute(new  TrafficStreetrrRunable(streetEdgesByOsmNodes, updates));
     }
 
     @Override
@@ -59,6 +53,7 @@ public class TrafifcUpdater extends PollingGraphUpdater {
     @Override
     public void setup(Graph graph) throws Exception {
         this.graph = graph;
+        this.streetEdgesByOsmNodes = StreetEdgesByOsmNodes.build(graph);
 
     }
     @Override
@@ -1,7 +1,13 @@
 package org.opentripplanner.updater.vehicle_sharing.parking_zones;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
 import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
 import org.opentripplanner.routing.edgetype.rentedgetype.SingleParkingZone;
@@ -9,8 +15,11 @@ import org.opentripplanner.routing.graph.Vertex;
 
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.util.stream.Collectors.toList;
 
@@ -23,6 +32,8 @@ public class ParkingZonesCalculator implements Serializable {
     @VisibleForTesting
     final List<SingleParkingZone> parkingZonesEnabled;
 
+    private transient volatile ZonesIndex zonesIndex;
+
     public ParkingZonesCalculator(List<GeometryParkingZone> geometryParkingZones,
                                   List<GeometriesDisallowedForVehicleType> geometriesDisallowedForVehicleTypes) {
         this.geometryParkingZones = geometryParkingZones;
@@ -37,36 +48,68 @@ public class ParkingZonesCalculator implements Serializable {
                 .collect(toList());
     }
 
+    public List<GeometryParkingZone> getGeometryParkingZones() {
+        return geometryParkingZones;
+    }
+
+    public List<GeometriesDisallowedForVehicleType> getGeometriesDisallowedForVehicleTypes() {
+        return geometriesDisallowedForVehicleTypes;
+    }
+
     public ParkingZoneInfo getParkingZonesForLocation(Vertex vertex) {
         return getParkingZonesForLocation(vertex, null);
     }
 
     public ParkingZoneInfo getParkingZonesForLocation(Vertex vertex,
                                                       @Nullable VehicleType vehicleTypeExcludedFromCityParkingZones) {
-        Point point = vertex.toPoint();
-        List<SingleParkingZone> parkingZones = geometryParkingZones.stream()
-                .map(gpz -> findMatchingParkingZone(point, gpz))
-                .filter(Objects::nonNull)
-                .collect(toList());
-        List<VehicleType> vehicleTypesForbiddenFromParkingHere = getCityGovParkingZonesForLocation(point,
+        return getParkingZonesForPoint(vertex.toPoint(), vehicleTypeExcludedFromCityParkingZones);
+    }
+
+    /**
+     * Same as `getParkingZonesForLocation`, for a location which doesn't have a vertex (yet)
+     */
+    public ParkingZoneInfo getParkingZonesForCoordinate(Coordinate coordinate) {
+        return getParkingZonesForPoint(GeometryUtils.getGeometryFactory().createPoint(coordinate), null);
+    }
+
+    private ParkingZoneInfo getParkingZonesForPoint(Point point,
+                                                    @Nullable VehicleType vehicleTypeExcludedFromCityParkingZones) {
+        ZonesIndex zonesIndex = getZonesIndex();
+        List<SingleParkingZone> parkingZones = getParkingZonesForLocation(point, zonesIndex);
+        List<VehicleType> vehicleTypesForbiddenFromParkingHere = getCityGovParkingZonesForLocation(point, zonesIndex,
                 vehicleTypeExcludedFromCityParkingZones);
-        return new ParkingZoneInfo(parkingZones, parkingZonesEnabled, vehicleTypesForbiddenFromParkingHere);
+        return zonesIndex.intern(new ParkingZoneInfo(parkingZones, parkingZonesEnabled,
+                vehicleTypesForbiddenFromParkingHere));
     }
 
-    private List<VehicleType> getCityGovParkingZonesForLocation(Point point, @Nullable VehicleType excluded) {
-        return geometriesDisallowedForVehicleTypes.stream()
-                .filter(geom -> geom.isPointInDisallowedParkingZone(point))
-                .map(GeometriesDisallowedForVehicleType::getVehicleType)
-                .filter(vehicleType -> vehicleType != excluded)
+    private List<SingleParkingZone> getParkingZonesForLocation(Point point, ZonesIndex zonesIndex) {
+        BitSet inGeometryAllowed = new BitSet();
+        BitSet inGeometryDisallowed = new BitSet();
+        for (IndexedGeometry candidate : zonesIndex.queryParkingZones(point)) {
+            if (candidate.contains(point)) {
+                (candidate.allowed ? inGeometryAllowed : inGeometryDisallowed).set(candidate.ownerIndex);
+            }
+        }
+        inGeometryAllowed.andNot(inGeometryDisallowed);
+        // Iterating over bits keeps the order of `geometryParkingZones`
+        return inGeometryAllowed.stream()
+                .mapToObj(i -> zonesIndex.matchingParkingZones[i])
+                .filter(Objects::nonNull)
                 .collect(toList());
     }
 
-    private SingleParkingZone findMatchingParkingZone(Point point, GeometryParkingZone geometryParkingZone) {
-        if (geometryParkingZone.isPointInParkingZone(point)) {
-            return getMatchingParkingZoneFromList(geometryParkingZone);
-        } else {
-            return null;
+    private List<VehicleType> getCityGovParkingZonesForLocation(Point point, ZonesIndex zonesIndex,
+                                                                @Nullable VehicleType excluded) {
+        BitSet inGeometryDisallowed = new BitSet();
+        for (IndexedGeometry candidate : zonesIndex.queryCityGovZones(point)) {
+            if (!inGeometryDisallowed.get(candidate.ownerIndex) && candidate.contains(point)) {
+                inGeometryDisallowed.set(candidate.ownerIndex);
+            }
         }
+        return inGeometryDisallowed.stream()
+                .mapToObj(i -> geometriesDisallowedForVehicleTypes.get(i).getVehicleType())
+                .filter(vehicleType -> vehicleType != excluded)
+                .collect(toList());
     }
 
     private SingleParkingZone getMatchingParkingZoneFromList(GeometryParkingZone geometryParkingZone) {
@@ -75,4 +118,99 @@ public class ParkingZonesCalculator implements Serializable {
                 .findFirst()
                 .orElse(null);
     }
+
+    /**
+     * Spatial index isn't serialized with graph, so it is built when it is needed for the first time.
+     */
+    private ZonesIndex getZonesIndex() {
+        ZonesIndex index = zonesIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = zonesIndex;
+                if (index == null) {
+                    index = new ZonesIndex();
+                    zonesIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * STRtrees of prepared geometries of all parking zones and city government forbidden zones, so that for every
+     * location we test only zones whose envelopes contain it, with point-in-polygon tests sped up by preparing.
+     * Built STRtrees and prepared geometries may be queried from many threads at once. Also keeps interned
+     * {@link ParkingZoneInfo} instances returned by this calculator.
+     */
+    private class ZonesIndex {
+
+        private final STRtree parkingZonesTree = new STRtree();
+
+        private final STRtree cityGovZonesTree = new STRtree();
+
+        private final SingleParkingZone[] matchingParkingZones = new SingleParkingZone[geometryParkingZones.size()];
+
+        private final ConcurrentMap<ParkingZoneInfo, ParkingZoneInfo> internedParkingZoneInfos = new ConcurrentHashMap<>();
+
+        private ZonesIndex() {
+            for (int i = 0; i < geometryParkingZones.size(); i++) {
+                GeometryParkingZone geometryParkingZone = geometryParkingZones.get(i);
+                matchingParkingZones[i] = getMatchingParkingZoneFromList(geometryParkingZone);
+                insert(parkingZonesTree, geometryParkingZone.getGeometriesAllowed(), i, true);
+                insert(parkingZonesTree, geometryParkingZone.getGeometriesDisallowed(), i, false);
+            }
+            for (int i = 0; i < geometriesDisallowedForVehicleTypes.size(); i++) {
+                insert(cityGovZonesTree, geometriesDisallowedForVehicleTypes.get(i).getGeometriesDisallowed(), i, false);
+            }
+            parkingZonesTree.build();
+            cityGovZonesTree.build();
+        }
+
+        private void insert(STRtree tree, @Nullable List<Geometry> geometries, int ownerIndex, boolean allowed) {
+            if (geometries == null) {
+                return;
+            }
+            for (Geometry geometry : geometries) {
+                tree.insert(geometry.getEnvelopeInternal(), new IndexedGeometry(geometry, ownerIndex, allowed));
+            }
+        }
+
+        /**
+         * Returns canonical instance equal to given one, so that all locations with the same zones share it
+         */
+        private ParkingZoneInfo intern(ParkingZoneInfo parkingZoneInfo) {
+            ParkingZoneInfo interned = internedParkingZoneInfos.putIfAbsent(parkingZoneInfo, parkingZoneInfo);
+            return interned == null ? parkingZoneInfo : interned;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<IndexedGeometry> queryParkingZones(Point point) {
+            return parkingZonesTree.query(point.getEnvelopeInternal());
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<IndexedGeometry> queryCityGovZones(Point point) {
+            return cityGovZonesTree.query(point.getEnvelopeInternal());
+        }
+    }
+
+    private static class IndexedGeometry {
+
+        private final PreparedGeometry geometry;
+
+        /* Index of parking zone or city government forbidden zone this geometry belongs to */
+        private final int ownerIndex;
+
+        private final boolean allowed;
+
+        private IndexedGeometry(Geometry geometry, int ownerIndex, boolean allowed) {
+            this.geometry = PreparedGeometryFactory.prepare(geometry);
+            this.ownerIndex = ownerIndex;
+            this.allowed = allowed;
+        }
+
+        private boolean contains(Point point) {
+            return geometry.contains(point);
+        }
+    }
 }
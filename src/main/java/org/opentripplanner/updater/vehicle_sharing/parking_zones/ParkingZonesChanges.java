@@ -0,0 +1,120 @@
+package org.opentripplanner.updater.vehicle_sharing.parking_zones;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Regions in which parking zones differ between two parking zones calculators. Only locations inside envelopes of
+ * added or removed geometries may get different parking zones. If the set of providers and vehicle types with parking
+ * zones feature enabled changes, then parking zones may change everywhere.
+ */
+class ParkingZonesChanges {
+
+    private final boolean everythingChanged;
+
+    private final List<Envelope> changedEnvelopes;
+
+    private ParkingZonesChanges(boolean everythingChanged, List<Envelope> changedEnvelopes) {
+        this.everythingChanged = everythingChanged;
+        this.changedEnvelopes = changedEnvelopes;
+    }
+
+    static ParkingZonesChanges between(ParkingZonesCalculator previous, ParkingZonesCalculator next) {
+        if (!new HashSet<>(previous.parkingZonesEnabled).equals(new HashSet<>(next.parkingZonesEnabled))) {
+            return new ParkingZonesChanges(true, new ArrayList<>());
+        }
+        Set<ZoneGeometry> previousGeometries = collectGeometries(previous);
+        Set<ZoneGeometry> nextGeometries = collectGeometries(next);
+        List<Envelope> changedEnvelopes = new ArrayList<>();
+        addEnvelopesOfMissingGeometries(previousGeometries, nextGeometries, changedEnvelopes);
+        addEnvelopesOfMissingGeometries(nextGeometries, previousGeometries, changedEnvelopes);
+        return new ParkingZonesChanges(false, changedEnvelopes);
+    }
+
+    boolean isEverythingChanged() {
+        return everythingChanged;
+    }
+
+    boolean isNothingChanged() {
+        return !everythingChanged && changedEnvelopes.isEmpty();
+    }
+
+    List<Envelope> getChangedEnvelopes() {
+        return changedEnvelopes;
+    }
+
+    boolean isChanged(double longitude, double latitude) {
+        return everythingChanged || changedEnvelopes.stream().anyMatch(envelope -> envelope.contains(longitude, latitude));
+    }
+
+    private static void addEnvelopesOfMissingGeometries(Set<ZoneGeometry> geometries, Set<ZoneGeometry> otherGeometries,
+                                                        List<Envelope> changedEnvelopes) {
+        geometries.stream()
+                .filter(geometry -> !otherGeometries.contains(geometry))
+                .map(geometry -> geometry.geometry.getEnvelopeInternal())
+                .forEach(changedEnvelopes::add);
+    }
+
+    private static Set<ZoneGeometry> collectGeometries(ParkingZonesCalculator calculator) {
+        Set<ZoneGeometry> geometries = new HashSet<>();
+        for (GeometryParkingZone zone : calculator.getGeometryParkingZones()) {
+            addGeometries(geometries, zone.getProviderId(), zone.getVehicleType(), true, zone.getGeometriesAllowed());
+            addGeometries(geometries, zone.getProviderId(), zone.getVehicleType(), false, zone.getGeometriesDisallowed());
+        }
+        for (GeometriesDisallowedForVehicleType zone : calculator.getGeometriesDisallowedForVehicleTypes()) {
+            // City government zones don't belong to any provider
+            addGeometries(geometries, -1, zone.getVehicleType(), false, zone.getGeometriesDisallowed());
+        }
+        return geometries;
+    }
+
+    private static void addGeometries(Set<ZoneGeometry> geometries, int providerId, VehicleType vehicleType,
+                                      boolean allowed, @Nullable List<Geometry> zoneGeometries) {
+        if (zoneGeometries != null) {
+            zoneGeometries.forEach(geometry -> geometries.add(new ZoneGeometry(providerId, vehicleType, allowed, geometry)));
+        }
+    }
+
+    private static class ZoneGeometry {
+
+        private final int providerId;
+
+        private final VehicleType vehicleType;
+
+        private final boolean allowed;
+
+        private final Geometry geometry;
+
+        private ZoneGeometry(int providerId, VehicleType vehicleType, boolean allowed, Geometry geometry) {
+            this.providerId = providerId;
+            this.vehicleType = vehicleType;
+            this.allowed = allowed;
+            this.geometry = geometry;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(providerId, vehicleType, allowed, geometry.getEnvelopeInternal());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof ZoneGeometry) {
+                ZoneGeometry otherGeometry = (ZoneGeometry) other;
+                return providerId == otherGeometry.providerId
+                        && vehicleType == otherGeometry.vehicleType
+                        && allowed == otherGeometry.allowed
+                        && geometry.equalsExact(otherGeometry.geometry);
+            }
+            return false;
+        }
+    }
+}
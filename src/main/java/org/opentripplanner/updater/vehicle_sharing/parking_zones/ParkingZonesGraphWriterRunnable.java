@@ -0,0 +1,141 @@
+package org.opentripplanner.updater.vehicle_sharing.parking_zones;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.edgetype.rentedgetype.EdgeWithParkingZones;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZonesOverlay;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.CityGovVehicleDropoffStationVertex;
+import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+import org.opentripplanner.updater.GraphWriterRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Replaces parking zones calculator of graph with one made of fetched parking zones and recomputes parking zones only
+ * for edges in regions where zones changed. Recomputed parking zones are published as a new
+ * {@link ParkingZonesOverlay}, so searches which already started keep using the previous ones.
+ */
+class ParkingZonesGraphWriterRunnable implements GraphWriterRunnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParkingZonesGraphWriterRunnable.class);
+
+    private final List<GeometryParkingZone> geometryParkingZones;
+
+    /* If null, then city government forbidden zones were not fetched and we keep the current ones */
+    @Nullable
+    private final List<GeometriesDisallowedForVehicleType> geometriesDisallowedForVehicleTypes;
+
+    ParkingZonesGraphWriterRunnable(List<GeometryParkingZone> geometryParkingZones,
+                                    @Nullable List<GeometriesDisallowedForVehicleType> geometriesDisallowedForVehicleTypes) {
+        this.geometryParkingZones = geometryParkingZones;
+        this.geometriesDisallowedForVehicleTypes = geometriesDisallowedForVehicleTypes;
+    }
+
+    @Override
+    public void run(Graph graph) {
+        ParkingZonesCalculator previousCalculator = Optional.ofNullable(graph.parkingZonesCalculator)
+                .orElseGet(() -> new ParkingZonesCalculator(emptyList(), emptyList()));
+        ParkingZonesCalculator nextCalculator = new ParkingZonesCalculator(geometryParkingZones,
+                Optional.ofNullable(geometriesDisallowedForVehicleTypes)
+                        .orElseGet(previousCalculator::getGeometriesDisallowedForVehicleTypes));
+        ParkingZonesChanges changes = ParkingZonesChanges.between(previousCalculator, nextCalculator);
+        if (changes.isNothingChanged()) {
+            LOG.info("Parking zones didn't change");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        List<Vertex> changedVertices = findChangedVertices(graph, changes);
+        // Calculator is read only, so vertices are evaluated in parallel
+        List<ParkingZoneInfo> parkingZones = changedVertices.parallelStream()
+                .map(vertex -> nextCalculator.getParkingZonesForLocation(vertex, getVehicleTypeAllowedByCityGov(vertex)))
+                .collect(toList());
+        ParkingZonesOverlay previousOverlay = graph.getParkingZonesOverlay();
+        TIntObjectMap<ParkingZoneInfo> parkingZonesByEdgeId = previousOverlay.copyParkingZonesByEdgeId();
+        TIntSet temporaryEdgeIds = previousOverlay.copyTemporaryEdgeIds();
+        forgetDisposedTemporaryEdges(graph, parkingZonesByEdgeId, temporaryEdgeIds);
+        int recomputedEdges = 0;
+        for (int i = 0; i < changedVertices.size(); i++) {
+            for (Edge edge : changedVertices.get(i).getOutgoing()) {
+                if (edge instanceof EdgeWithParkingZones) {
+                    parkingZonesByEdgeId.put(edge.getId(), parkingZones.get(i));
+                    if (edge instanceof TemporaryEdge) {
+                        temporaryEdgeIds.add(edge.getId());
+                    }
+                    recomputedEdges++;
+                }
+            }
+        }
+        graph.parkingZonesCalculator = nextCalculator;
+        graph.publishParkingZonesOverlay(new ParkingZonesOverlay(previousOverlay.getVersion() + 1,
+                parkingZonesByEdgeId, temporaryEdgeIds));
+        LOG.info("Recomputed parking zones for {} edges in {} ms", recomputedEdges,
+                System.currentTimeMillis() - startTime);
+    }
+
+    private List<Vertex> findChangedVertices(Graph graph, ParkingZonesChanges changes) {
+        Set<Vertex> changedVertices = new LinkedHashSet<>();
+        if (changes.isEverythingChanged()) {
+            changedVertices.addAll(graph.getVertices());
+        } else {
+            for (Envelope envelope : changes.getChangedEnvelopes()) {
+                changedVertices.addAll(graph.streetIndex.getVerticesForEnvelope(envelope));
+            }
+        }
+        // Vertices of rentable vehicles are temporary, so they are not in the street index
+        getLinkedVehicleVertices(graph).stream()
+                .filter(vertex -> changes.isChanged(vertex.getLon(), vertex.getLat()))
+                .forEach(changedVertices::add);
+        return changedVertices.stream()
+                .filter(vertex -> vertex.getOutgoing().stream().anyMatch(EdgeWithParkingZones.class::isInstance))
+                .collect(toList());
+    }
+
+    /**
+     * Removes parking zones of temporary edges, which are not linked to graph anymore
+     */
+    private void forgetDisposedTemporaryEdges(Graph graph, TIntObjectMap<ParkingZoneInfo> parkingZonesByEdgeId,
+                                              TIntSet temporaryEdgeIds) {
+        TIntSet linkedTemporaryEdgeIds = new TIntHashSet();
+        getLinkedVehicleVertices(graph).forEach(vertex -> vertex.getOutgoing()
+                .forEach(edge -> linkedTemporaryEdgeIds.add(edge.getId())));
+        temporaryEdgeIds.forEach(edgeId -> {
+            if (!linkedTemporaryEdgeIds.contains(edgeId)) {
+                parkingZonesByEdgeId.remove(edgeId);
+            }
+            return true;
+        });
+        temporaryEdgeIds.retainAll(linkedTemporaryEdgeIds);
+    }
+
+    private List<TemporaryRentVehicleVertex> getLinkedVehicleVertices(Graph graph) {
+        return graph.getRentableVehicleOverlay().getVehiclesTriedToLink().values().stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toList());
+    }
+
+    @Nullable
+    private VehicleType getVehicleTypeAllowedByCityGov(Vertex vertex) {
+        if (vertex instanceof CityGovVehicleDropoffStationVertex) {
+            return ((CityGovVehicleDropoffStationVertex) vertex).getVehicleType();
+        }
+        return null;
+    }
+}
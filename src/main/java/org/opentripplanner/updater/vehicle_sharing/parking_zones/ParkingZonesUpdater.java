@@ -0,0 +1,85 @@
+package org.opentripplanner.updater.vehicle_sharing.parking_zones;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.opentripplanner.hasura_client.CityGovForbiddenZonesGetter;
+import org.opentripplanner.hasura_client.ParkingZonesGetter;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.updater.GraphUpdaterManager;
+import org.opentripplanner.updater.PollingGraphUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Polls parking zones and city government forbidden zones, so that changes made by providers are visible without
+ * rebuilding graph. City government zones are polled only if `--cityGovHasuraApi` and `--cityGovHasuraApiPassword`
+ * program parameters are given, otherwise the ones from graph build are kept.
+ */
+public class ParkingZonesUpdater extends PollingGraphUpdater {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParkingZonesUpdater.class);
+
+    private final ParkingZonesGetter parkingZonesGetter = new ParkingZonesGetter();
+
+    private final CityGovForbiddenZonesGetter cityGovForbiddenZonesGetter = new CityGovForbiddenZonesGetter();
+
+    private GraphUpdaterManager graphUpdaterManager;
+
+    private Graph graph;
+
+    private String url;
+
+    private String cityGovUrl;
+
+    private String cityGovPassword;
+
+    @Override
+    protected void runPolling() {
+        LOG.info("Polling parking zones from API");
+        List<GeometryParkingZone> geometryParkingZones = parkingZonesGetter.postFromHasura(graph, url);
+        if (geometryParkingZones.isEmpty() && graph.parkingZonesCalculator != null
+                && !graph.parkingZonesCalculator.getGeometryParkingZones().isEmpty()) {
+            LOG.warn("Got no parking zones from API, keeping the current ones");
+            return;
+        }
+        List<GeometriesDisallowedForVehicleType> cityGovForbiddenZones = null;
+        if (cityGovUrl != null && cityGovPassword != null) {
+            cityGovForbiddenZones = cityGovForbiddenZonesGetter.postFromHasuraWithPassword(graph, cityGovUrl,
+                    cityGovPassword);
+        }
+        graphUpdaterManager.execute(new ParkingZonesGraphWriterRunnable(geometryParkingZones, cityGovForbiddenZones));
+    }
+
+    @Override
+    protected void configurePolling(Graph graph, JsonNode config) throws IllegalStateException {
+        this.pollingPeriodSeconds = 15 * 60;
+        this.url = System.getProperty("sharedVehiclesApi");
+        if (this.url == null) {
+            throw new IllegalStateException("Please provide program parameter `--sharedVehiclesApi <URL>`");
+        }
+        this.cityGovUrl = System.getProperty("cityGovHasuraApi");
+        this.cityGovPassword = System.getProperty("cityGovHasuraApiPassword");
+    }
+
+    @Override
+    public void configure(Graph graph, JsonNode config) throws Exception {
+        configurePolling(graph, config);
+        type = "Parking zones";
+    }
+
+    @Override
+    public void setGraphUpdaterManager(GraphUpdaterManager updaterManager) {
+        this.graphUpdaterManager = updaterManager;
+    }
+
+    @Override
+    public void setup(Graph graph) throws Exception {
+        this.graph = graph;
+    }
+
+    @Override
+    public void teardown() {
+
+    }
+}
@@ -1,12 +1,9 @@
 package org.opentripplanner.updater.vehicle_sharing.vehicle_presence;
 
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.index.strtree.STRtree;
 import org.opentripplanner.prediction_client.VehiclePresence;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
 
-import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -19,38 +16,30 @@ public class CarPresencePredictor {
     private static final Duration SEVEN_AND_HALF = Duration.of(7, MINUTES).plus(Duration.of(30, SECONDS));
     private static final Duration FIFTEEN = Duration.of(15, MINUTES);
     private static final Duration THIRTY = Duration.of(30, MINUTES);
-    private final STRtree index15;
-    private final STRtree index30;
-    private final STRtree index45;
-    private final double width;
-    private final double length;
-    private final Instant indexThreshold15;
-    private final Instant indexThreshold30;
-    private final Instant indexThreshold45;
+
+    /* Number of prediction horizons: 15, 30 and 45 minutes */
+    static final int HORIZONS = 3;
+
+    private final PresenceGrid[] grids;
+    private final long heatmapTimestamp;
+    private final long indexThreshold15;
+    private final long indexThreshold30;
+    private final long indexThreshold45;
 
     public CarPresencePredictor(VehiclePresence vehiclePresenceHeatmaps) {
-        index15 = new STRtree();
-        for (VehiclePresence.Prediction prediction : vehiclePresenceHeatmaps.getPredictions_15()) {
-            index15.insert(prediction.getEnvelope(), prediction);
-        }
-        index30 = new STRtree();
-        for (VehiclePresence.Prediction prediction : vehiclePresenceHeatmaps.getPredictions_30()) {
-            index30.insert(prediction.getEnvelope(), prediction);
-        }
-        index45 = new STRtree();
-        for (VehiclePresence.Prediction prediction : vehiclePresenceHeatmaps.getPredictions_45()) {
-            index45.insert(prediction.getEnvelope(), prediction);
-        }
-        index15.build();
-        index30.build();
-        index45.build();
-        this.length = vehiclePresenceHeatmaps.getCellLength();
-        this.width = vehiclePresenceHeatmaps.getCellWidth();
-
-        Instant heatmapCreationTime = Instant.ofEpochSecond(vehiclePresenceHeatmaps.getTimestamp());
-        this.indexThreshold15 = heatmapCreationTime.plus(SEVEN_AND_HALF);
-        this.indexThreshold30 = heatmapCreationTime.plus(SEVEN_AND_HALF).plus(FIFTEEN);
-        this.indexThreshold45 = heatmapCreationTime.plus(SEVEN_AND_HALF).plus(THIRTY);
+        double width = vehiclePresenceHeatmaps.getCellWidth();
+        double length = vehiclePresenceHeatmaps.getCellLength();
+        this.grids = new PresenceGrid[]{
+                new PresenceGrid(vehiclePresenceHeatmaps.getPredictions_15(), width, length),
+                new PresenceGrid(vehiclePresenceHeatmaps.getPredictions_30(), width, length),
+                new PresenceGrid(vehiclePresenceHeatmaps.getPredictions_45(), width, length)
+        };
+
+        this.heatmapTimestamp = vehiclePresenceHeatmaps.getTimestamp();
+        Instant heatmapCreationTime = Instant.ofEpochSecond(heatmapTimestamp);
+        this.indexThreshold15 = heatmapCreationTime.plus(SEVEN_AND_HALF).getEpochSecond();
+        this.indexThreshold30 = heatmapCreationTime.plus(SEVEN_AND_HALF).plus(FIFTEEN).getEpochSecond();
+        this.indexThreshold45 = heatmapCreationTime.plus(SEVEN_AND_HALF).plus(THIRTY).getEpochSecond();
     }
 
     /**
@@ -64,38 +53,107 @@ public class CarPresencePredictor {
      */
     public double predict(VehicleDescription vehicleDescription, long time) {
         if (VehicleType.CAR.equals(vehicleDescription.getVehicleType())) {
-            STRtree tree = chooseIndex(time);
-            if (tree == null) {
+            int horizon = chooseHorizon(time);
+            if (horizon < 0) {
                 return 1;
             } else {
-                return findGridCellValue(vehicleDescription.getLongitude(), vehicleDescription.getLatitude(), tree);
+                return grids[horizon].getValue(vehicleDescription.getLongitude(), vehicleDescription.getLatitude());
             }
         } else {
             return 1;
         }
     }
 
-    private double findGridCellValue(double longitude, double latitude, STRtree tree) {
-        List<VehiclePresence.Prediction> predictions = tree.query(new Envelope(longitude - width, longitude + width, latitude - length, latitude + length));
-        for (VehiclePresence.Prediction prediction : predictions) {
-            if (prediction.getEnvelope().contains(longitude, latitude)) {
-                return prediction.getValue();
-            }
+    /**
+     * Calculates predictions for given vehicle at all horizons at once, so that they don't have to be looked up in
+     * heatmaps on every traversal of its rent edge.
+     */
+    public VehiclePresenceProbabilities predictAllHorizons(VehicleDescription vehicleDescription) {
+        double[] probabilities = new double[HORIZONS];
+        for (int horizon = 0; horizon < HORIZONS; horizon++) {
+            probabilities[horizon] = VehicleType.CAR.equals(vehicleDescription.getVehicleType())
+                    ? grids[horizon].getValue(vehicleDescription.getLongitude(), vehicleDescription.getLatitude())
+                    : 1;
         }
-        return 0;
+        return new VehiclePresenceProbabilities(this, vehicleDescription, probabilities);
     }
 
-    @Nullable
-    private STRtree chooseIndex(long time) {
-        Instant pointInTime = Instant.ofEpochSecond(time);
-        if (indexThreshold15.isAfter(pointInTime)) {
-            return null;
-        } else if (indexThreshold30.isAfter(pointInTime)) {
-            return index15;
-        } else if (indexThreshold45.isAfter(pointInTime)) {
-            return index30;
+    /**
+     * @return creation time of heatmaps in seconds since epoch, newer heatmaps have later timestamps
+     */
+    public long getHeatmapTimestamp() {
+        return heatmapTimestamp;
+    }
+
+    /**
+     * @return index of the heatmap used for given time, or -1 if it is too close to the heatmap creation time and
+     * vehicles are assumed to stay in place
+     */
+    int chooseHorizon(long time) {
+        if (time < indexThreshold15) {
+            return -1;
+        } else if (time < indexThreshold30) {
+            return 0;
+        } else if (time < indexThreshold45) {
+            return 1;
         } else {
-            return index45;
+            return 2;
+        }
+    }
+
+    /**
+     * Heatmap stored as a dense grid of cells covering bounding box of all predictions. Cells without prediction have
+     * value 0.
+     */
+    private static class PresenceGrid {
+
+        private final double minLongitude;
+        private final double minLatitude;
+        private final double cellWidth;
+        private final double cellLength;
+        private final int columns;
+        private final int rows;
+        private final double[] values;
+
+        private PresenceGrid(List<VehiclePresence.Prediction> predictions, double cellWidth, double cellLength) {
+            this.cellWidth = cellWidth;
+            this.cellLength = cellLength;
+            if (predictions.isEmpty()) {
+                this.minLongitude = 0;
+                this.minLatitude = 0;
+                this.columns = 0;
+                this.rows = 0;
+                this.values = new double[0];
+                return;
+            }
+            double minLon = Double.MAX_VALUE, minLat = Double.MAX_VALUE;
+            double maxLon = -Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            for (VehiclePresence.Prediction prediction : predictions) {
+                minLon = Math.min(minLon, prediction.getLon());
+                minLat = Math.min(minLat, prediction.getLat());
+                maxLon = Math.max(maxLon, prediction.getLon());
+                maxLat = Math.max(maxLat, prediction.getLat());
+            }
+            this.minLongitude = minLon;
+            this.minLatitude = minLat;
+            // Cells are aligned, so their corners lie on whole multiples of cell size from the first one
+            this.columns = (int) Math.round((maxLon - minLon) / cellWidth) + 1;
+            this.rows = (int) Math.round((maxLat - minLat) / cellLength) + 1;
+            this.values = new double[columns * rows];
+            for (VehiclePresence.Prediction prediction : predictions) {
+                int column = (int) Math.round((prediction.getLon() - minLon) / cellWidth);
+                int row = (int) Math.round((prediction.getLat() - minLat) / cellLength);
+                values[row * columns + column] = prediction.getValue();
+            }
+        }
+
+        private double getValue(double longitude, double latitude) {
+            double x = (longitude - minLongitude) / cellWidth;
+            double y = (latitude - minLatitude) / cellLength;
+            if (x < 0 || y < 0 || x >= columns || y >= rows) {
+                return 0;
+            }
+            return values[(int) y * columns + (int) x];
         }
     }
 }
@@ -2,12 +2,15 @@ package org.opentripplanner.updater.vehicle_sharing.vehicle_presence;
 
 import org.opentripplanner.prediction_client.VehiclePresence;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.edgetype.rentedgetype.RentVehicleEdge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.updater.GraphWriterRunnable;
 import org.opentripplanner.updater.vehicle_sharing.vehicles_positions.BikeStationsGraphWriterRunnable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+
 public class VehiclePresenceGraphWriterRunnable implements GraphWriterRunnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(BikeStationsGraphWriterRunnable.class);
@@ -18,11 +21,23 @@ public class VehiclePresenceGraphWriterRunnable implements GraphWriterRunnable {
     public void run(Graph graph) {
         if(vehiclePresenceHeatmapsFromApi.getVehicleType().equalsIgnoreCase(VehicleType.CAR.name())) {
             LOG.info("Updating vehicle presence prediction heatmaps from API");
-            graph.carPresencePredictor = new CarPresencePredictor(vehiclePresenceHeatmapsFromApi);
+            CarPresencePredictor carPresencePredictor = new CarPresencePredictor(vehiclePresenceHeatmapsFromApi);
+            graph.carPresencePredictor = carPresencePredictor;
+            updatePresenceProbabilities(graph, carPresencePredictor);
             graph.routerHealth.setVehiclePresence(true);
         }
     }
 
+    private void updatePresenceProbabilities(Graph graph, CarPresencePredictor carPresencePredictor) {
+        graph.getRentableVehicleOverlay().getVehiclesTriedToLink().values().stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .flatMap(vertex -> vertex.getOutgoing().stream())
+                .filter(RentVehicleEdge.class::isInstance)
+                .map(RentVehicleEdge.class::cast)
+                .forEach(edge -> edge.updatePresenceProbabilities(carPresencePredictor));
+    }
+
     public VehiclePresenceGraphWriterRunnable(VehiclePresence vehiclePresenceHeatmap) {
         this.vehiclePresenceHeatmapsFromApi = vehiclePresenceHeatmap;
     }
@@ -0,0 +1,35 @@
+package org.opentripplanner.updater.vehicle_sharing.vehicle_presence;
+
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+
+/**
+ * Probabilities of presence of one vehicle at all prediction horizons, precomputed by {@link CarPresencePredictor}
+ * when heatmaps or vehicles change. They are valid only for the predictor and vehicle description they were computed
+ * for, as both are replaced by updaters.
+ */
+public class VehiclePresenceProbabilities {
+
+    private final CarPresencePredictor predictor;
+
+    private final VehicleDescription vehicle;
+
+    private final double[] probabilities;
+
+    VehiclePresenceProbabilities(CarPresencePredictor predictor, VehicleDescription vehicle, double[] probabilities) {
+        this.predictor = predictor;
+        this.vehicle = vehicle;
+        this.probabilities = probabilities;
+    }
+
+    public boolean isComputedFor(CarPresencePredictor predictor, VehicleDescription vehicle) {
+        return this.predictor == predictor && this.vehicle == vehicle;
+    }
+
+    /**
+     * Same as {@link CarPresencePredictor#predict} for the vehicle these probabilities were computed for
+     */
+    public double get(long time) {
+        int horizon = predictor.chooseHorizon(time);
+        return horizon < 0 ? 1 : probabilities[horizon];
+    }
+}
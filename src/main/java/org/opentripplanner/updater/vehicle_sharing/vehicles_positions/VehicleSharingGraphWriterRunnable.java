@@ -2,17 +2,23 @@ package org.opentripplanner.updater.vehicle_sharing.vehicles_positions;
 
 import org.opentripplanner.graph_builder.linking.TemporaryStreetSplitter;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.core.vehicle_sharing.RentableVehicleOverlay;
+import org.opentripplanner.routing.core.vehicle_sharing.RentableVehiclesUpdateStatistics;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.edgetype.rentedgetype.RentVehicleEdge;
+import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
-import org.opentripplanner.routing.vertextype.TemporaryVertex;
 import org.opentripplanner.updater.GraphWriterRunnable;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.CarPresencePredictor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
@@ -43,25 +49,41 @@ class VehicleSharingGraphWriterRunnable implements GraphWriterRunnable {
         for (Provider responsiveProvider : responsiveProvidersFetchedFromApi) {
             graph.getLastProviderVehiclesUpdateTimestamps().put(responsiveProvider, updateTimestamp);
         }
-        removeDisappearedRentableVehicles(graph);
-        addAppearedRentableVehicles(graph);
+        // Vertices of removed vehicles are disposed by graph once no search can see them
+        RentableVehicleOverlay currentOverlay = graph.getRentableVehicleOverlay();
+        long nextVersion = currentOverlay.getVersion() + 1;
+        RentableVehiclesUpdateStatistics statistics = new RentableVehiclesUpdateStatistics();
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink =
+                new HashMap<>(currentOverlay.getVehiclesTriedToLink());
+        List<Vertex> removedVertices = removeDisappearedRentableVehicles(graph, vehiclesTriedToLink, nextVersion, statistics);
+        updateFetchedRentableVehicles(vehiclesTriedToLink, removedVertices, nextVersion, statistics,
+                graph.carPresencePredictor);
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(nextVersion, vehiclesTriedToLink, removedVertices,
+                statistics));
+        LOG.info("Updated rentable vehicles: {}", statistics);
         graph.getLastProviderVehiclesUpdateTimestamps().entrySet().removeIf(entry -> graph.isUnresponsiveGracePeriodExceeded(entry.getKey(), updateTimestamp));
         graph.routerHealth.setVehiclePosition(true);
     }
 
-    private void removeDisappearedRentableVehicles(Graph graph) {
-        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> disappearedVehicles = getDisappearedVehicles(graph);
+    private List<Vertex> removeDisappearedRentableVehicles(Graph graph, Map<VehicleDescription,
+            Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink, long nextVersion,
+                                                           RentableVehiclesUpdateStatistics statistics) {
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> disappearedVehicles =
+                getDisappearedVehicles(graph, vehiclesTriedToLink);
         List<Vertex> properlyLinkedVertices = getProperlyLinkedVertices(disappearedVehicles.values());
-        TemporaryVertex.disposeAll(properlyLinkedVertices);
-        disappearedVehicles.forEach(graph.vehiclesTriedToLink::remove);
-        LOG.info("Removed {} rentable vehicles from graph", disappearedVehicles.size());
+        properlyLinkedVertices.forEach(vertex -> setVisibleUntilVersion(vertex, nextVersion));
+        disappearedVehicles.keySet().forEach(vehiclesTriedToLink::remove);
+        statistics.vehiclesRemoved(disappearedVehicles.size());
         LOG.debug("Removed {} properly linked rentable vehicles from graph", properlyLinkedVertices.size());
+        return new ArrayList<>(properlyLinkedVertices);
     }
 
-    private Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> getDisappearedVehicles(Graph graph) {
-        return graph.vehiclesTriedToLink.entrySet().stream()
+    private Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> getDisappearedVehicles(
+            Graph graph, Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink) {
+        Set<VehicleDescription> vehiclesFetched = new HashSet<>(vehiclesFetchedFromApi);
+        return vehiclesTriedToLink.entrySet().stream()
                 .filter(entry ->
-                        !vehiclesFetchedFromApi.contains(entry.getKey()) &&
+                        !vehiclesFetched.contains(entry.getKey()) &&
                         (responsiveProvidersFetchedFromApi.contains(entry.getKey().getProvider()) ||
                         graph.isUnresponsiveGracePeriodExceeded(entry.getKey().getProvider(), updateTimestamp))
 
@@ -76,17 +98,101 @@ class VehicleSharingGraphWriterRunnable implements GraphWriterRunnable {
                 .collect(toList());
     }
 
-    private void addAppearedRentableVehicles(Graph graph) {
-        getAppearedVehicles(graph)
-                .forEach(v -> graph.vehiclesTriedToLink.put(v, temporaryStreetSplitter.linkRentableVehicleToGraph(v)));
-        long properlyLinked = graph.vehiclesTriedToLink.values().stream().filter(Optional::isPresent).count();
+    /**
+     * Compares fetched vehicles with the ones already in graph. Appeared vehicles are linked to graph, and moved
+     * vehicles are removed and linked again at their new positions. Vehicles which didn't move keep their vertices
+     * and get their description replaced in place if their attributes changed.
+     */
+    private void updateFetchedRentableVehicles(Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink,
+                                               List<Vertex> removedVertices, long nextVersion,
+                                               RentableVehiclesUpdateStatistics statistics,
+                                               @Nullable CarPresencePredictor carPresencePredictor) {
+        // Map keys are equal to fetched vehicles with the same id, but we need previous descriptions to compare them
+        Map<VehicleDescription, VehicleDescription> previousVehicles = vehiclesTriedToLink.keySet().stream()
+                .collect(toMap(Function.identity(), Function.identity()));
+        List<VehicleDescription> vehiclesToLink = new ArrayList<>();
+        for (VehicleDescription vehicle : vehiclesFetchedFromApi) {
+            VehicleDescription previousVehicle = previousVehicles.get(vehicle);
+            if (previousVehicle == null) {
+                statistics.vehicleAdded();
+                vehiclesToLink.add(vehicle);
+                continue;
+            }
+            Optional<TemporaryRentVehicleVertex> vertex = vehiclesTriedToLink.get(previousVehicle);
+            if (previousVehicle.hasSamePositionAs(vehicle)) {
+                if (previousVehicle.hasSameAttributesAs(vehicle)) {
+                    statistics.vehicleUnchanged();
+                } else {
+                    statistics.vehicleAttributesChanged();
+                    replaceVehicleInPlace(previousVehicle, vehicle, vertex, vehiclesTriedToLink, carPresencePredictor);
+                }
+            } else {
+                // Searches pinning older overlays keep seeing the vehicle at its previous position
+                statistics.vehicleRelinked();
+                vehiclesTriedToLink.remove(previousVehicle);
+                vertex.ifPresent(oldVertex -> {
+                    setVisibleUntilVersion(oldVertex, nextVersion);
+                    removedVertices.add(oldVertex);
+                });
+                vehiclesToLink.add(vehicle);
+            }
+        }
+        linkRentableVehicles(vehiclesToLink, vehiclesTriedToLink, nextVersion, statistics);
+        long properlyLinked = vehiclesTriedToLink.values().stream().filter(Optional::isPresent).count();
         LOG.info("Currently there are {} properly linked rentable vehicles in graph", properlyLinked);
-        LOG.info("There are {} rentable vehicles which we failed to link to graph", graph.vehiclesTriedToLink.size() - properlyLinked);
+        LOG.info("There are {} rentable vehicles which we failed to link to graph", vehiclesTriedToLink.size() - properlyLinked);
     }
 
-    private List<VehicleDescription> getAppearedVehicles(Graph graph) {
-        return vehiclesFetchedFromApi.stream()
-                .filter(v -> !graph.vehiclesTriedToLink.containsKey(v))
-                .collect(toList());
+    private void linkRentableVehicles(List<VehicleDescription> vehiclesToLink,
+                                      Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink,
+                                      long nextVersion, RentableVehiclesUpdateStatistics statistics) {
+        if (vehiclesToLink.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> linkedVehicles =
+                temporaryStreetSplitter.linkRentableVehiclesToGraph(vehiclesToLink, nextVersion);
+        statistics.increaseLinkTime(System.currentTimeMillis() - startTime);
+        // Presence probabilities and visibility of linked vehicles are set before they are linked to graph
+        linkedVehicles.values().stream().filter(vertex -> !vertex.isPresent())
+                .forEach(vertex -> statistics.vehicleFailedToLink());
+        vehiclesTriedToLink.putAll(linkedVehicles);
+    }
+
+    private void replaceVehicleInPlace(VehicleDescription previousVehicle, VehicleDescription vehicle,
+                                       Optional<TemporaryRentVehicleVertex> vertex,
+                                       Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink,
+                                       @Nullable CarPresencePredictor carPresencePredictor) {
+        vertex.ifPresent(rentVehicleVertex -> {
+            setVehicle(rentVehicleVertex, vehicle);
+            updatePresenceProbabilities(rentVehicleVertex, carPresencePredictor);
+        });
+        // `put` would keep the previous key, as both descriptions are equal
+        vehiclesTriedToLink.remove(previousVehicle);
+        vehiclesTriedToLink.put(vehicle, vertex);
+    }
+
+    private void setVehicle(Vertex vertex, VehicleDescription vehicle) {
+        for (Edge edge : vertex.getOutgoing()) {
+            if (edge instanceof RentVehicleEdge) {
+                ((RentVehicleEdge) edge).setVehicle(vehicle);
+            }
+        }
+    }
+
+    private void updatePresenceProbabilities(Vertex vertex, @Nullable CarPresencePredictor carPresencePredictor) {
+        for (Edge edge : vertex.getOutgoing()) {
+            if (edge instanceof RentVehicleEdge) {
+                ((RentVehicleEdge) edge).updatePresenceProbabilities(carPresencePredictor);
+            }
+        }
+    }
+
+    private void setVisibleUntilVersion(Vertex vertex, long version) {
+        for (Edge edge : vertex.getOutgoing()) {
+            if (edge instanceof RentVehicleEdge) {
+                ((RentVehicleEdge) edge).setVisibleUntilVersion(version);
+            }
+        }
     }
 }
@@ -0,0 +1,207 @@
+package org.opentripplanner.graph_builder;
+
+import org.junit.Test;
+import org.opentripplanner.graph_builder.services.GraphBuilderModule;
+import org.opentripplanner.graph_builder.services.GraphPart;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GraphBuilderSchedulerTest {
+
+    @Test
+    public void shouldRunUndeclaredModulesAlone() {
+        // given
+        GraphBuilderModule streets = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.STREET_NETWORK));
+        GraphBuilderModule undeclared = new UndeclaredModule();
+        GraphBuilderModule config = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.CONFIG));
+
+        // when
+        GraphBuilderScheduler scheduler = new GraphBuilderScheduler(Arrays.asList(streets, undeclared, config), 4);
+
+        // then
+        assertEquals(Arrays.asList(emptySet(), singleton(0), singleton(1)), scheduler.getDependencies());
+    }
+
+    @Test
+    public void shouldOrderModulesUsingSameParts() {
+        // given
+        GraphBuilderModule streets = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.STREET_NETWORK));
+        GraphBuilderModule elevation = new TestModule(EnumSet.of(GraphPart.STREET_NETWORK), EnumSet.of(GraphPart.ELEVATION));
+        GraphBuilderModule traffic = new TestModule(EnumSet.of(GraphPart.STREET_NETWORK), EnumSet.of(GraphPart.SPEED_PROFILES));
+        GraphBuilderModule transit = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.TRANSIT));
+
+        // when
+        GraphBuilderScheduler scheduler = new GraphBuilderScheduler(
+                Arrays.asList(streets, elevation, traffic, transit), 4);
+
+        // then
+        assertEquals(Arrays.asList(emptySet(), singleton(0), singleton(0), emptySet()), scheduler.getDependencies());
+    }
+
+    @Test
+    public void shouldWaitForPrerequisites() {
+        // given
+        TestModule transit = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.TRANSIT));
+        transit.provided = Collections.singletonList("transit");
+        TestModule matcher = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.EXTRA));
+        matcher.prerequisites = Collections.singletonList("transit");
+
+        // when
+        GraphBuilderScheduler scheduler = new GraphBuilderScheduler(Arrays.asList(transit, matcher), 4);
+
+        // then
+        assertTrue(GraphBuilderScheduler.dependsOn(matcher, transit));
+        assertEquals(singleton(0), scheduler.getDependencies().get(1));
+    }
+
+    @Test
+    public void shouldRunIndependentModulesConcurrently() {
+        // given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        TestModule elevation = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.ELEVATION));
+        elevation.startedTogether = bothStarted;
+        TestModule transit = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.TRANSIT));
+        transit.startedTogether = bothStarted;
+
+        // when
+        GraphBuilderReport report = new GraphBuilderScheduler(Arrays.asList(elevation, transit), 2)
+                .run(new Graph(), new HashMap<>());
+
+        // then
+        assertTrue(elevation.ran);
+        assertTrue(transit.ran);
+        assertTrue(elevation.sawOtherModule);
+        assertTrue(transit.sawOtherModule);
+        assertEquals(2, report.getParallelism());
+        assertEquals(2, report.getModules().size());
+        assertEquals("TestModule", report.getModules().get(0).getModule());
+        assertTrue(report.getModules().get(0).getPeakHeapBytes() > 0);
+    }
+
+    @Test
+    public void shouldNotStartDependentModulesOfFailedModule() {
+        // given
+        TestModule failing = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.STREET_NETWORK));
+        failing.failure = new IllegalStateException("failed");
+        TestModule dependent = new TestModule(EnumSet.of(GraphPart.STREET_NETWORK), EnumSet.of(GraphPart.ELEVATION));
+        TestModule independent = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.TRANSIT));
+
+        // when
+        try {
+            new GraphBuilderScheduler(Arrays.asList(failing, dependent, independent), 2)
+                    .run(new Graph(), new HashMap<>());
+            fail();
+        } catch (IllegalStateException e) {
+            // then
+            assertEquals("failed", e.getMessage());
+        }
+        assertFalse(dependent.ran);
+        assertTrue(independent.ran);
+    }
+
+    @Test
+    public void shouldRunModulesInOrderWithoutParallelism() {
+        // given
+        List<GraphBuilderModule> ran = Collections.synchronizedList(new ArrayList<>());
+        TestModule elevation = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.ELEVATION));
+        elevation.ranModules = ran;
+        TestModule transit = new TestModule(EnumSet.noneOf(GraphPart.class), EnumSet.of(GraphPart.TRANSIT));
+        transit.ranModules = ran;
+
+        // when
+        GraphBuilderReport report = new GraphBuilderScheduler(Arrays.asList(elevation, transit), 1)
+                .run(new Graph(), new HashMap<>());
+
+        // then
+        assertEquals(Arrays.asList(elevation, transit), ran);
+        assertEquals(1, report.getParallelism());
+    }
+
+    private static class TestModule implements GraphBuilderModule {
+
+        private final Set<GraphPart> read;
+        private final Set<GraphPart> modified;
+        private List<String> provided = Collections.emptyList();
+        private List<String> prerequisites = Collections.emptyList();
+        private CountDownLatch startedTogether;
+        private List<GraphBuilderModule> ranModules;
+        private RuntimeException failure;
+        private volatile boolean ran = false;
+        private volatile boolean sawOtherModule = false;
+
+        private TestModule(Set<GraphPart> read, Set<GraphPart> modified) {
+            this.read = read;
+            this.modified = modified;
+        }
+
+        @Override
+        public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
+            ran = true;
+            if (ranModules != null) {
+                ranModules.add(this);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (startedTogether != null) {
+                startedTogether.countDown();
+                try {
+                    sawOtherModule = startedTogether.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void checkInputs() {
+        }
+
+        @Override
+        public List<String> provides() {
+            return provided;
+        }
+
+        @Override
+        public List<String> getPrerequisites() {
+            return prerequisites;
+        }
+
+        @Override
+        public Set<GraphPart> reads() {
+            return read;
+        }
+
+        @Override
+        public Set<GraphPart> modifies() {
+            return modified;
+        }
+    }
+
+    private static class UndeclaredModule implements GraphBuilderModule {
+
+        @Override
+        public void buildGraph(Graph graph, HashMap<Class<?>, Object> extra) {
+        }
+
+        @Override
+        public void checkInputs() {
+        }
+    }
+}
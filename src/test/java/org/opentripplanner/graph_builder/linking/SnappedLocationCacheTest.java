@@ -0,0 +1,85 @@
+package org.opentripplanner.graph_builder.linking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.location.StreetLocation;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class SnappedLocationCacheTest {
+
+    private SnappedLocationCache snappedLocationCache;
+
+    private StreetEdge edge;
+
+    private Supplier<List<StreetEdge>> findEdges;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        snappedLocationCache = new SnappedLocationCache();
+
+        StreetVertex from = new StreetLocation("id1", new Coordinate(0, 1), "name");
+        StreetVertex to = new StreetLocation("id2", new Coordinate(1, 1), "name");
+        edge = new StreetEdge(from, to, GeometryUtils.makeLineString(0, 1, 1, 1),
+                "S. Crystal Dr", 100, StreetTraversalPermission.ALL, false);
+
+        findEdges = mock(Supplier.class);
+        when(findEdges.get()).thenReturn(singletonList(edge));
+    }
+
+    private static TemporaryStreetLocation location(double x, double y) {
+        return new TemporaryStreetLocation("id", new Coordinate(x, y), null, false);
+    }
+
+    @Test
+    public void shouldReuseEdgesForCloseLocations() {
+        // when
+        List<StreetEdge> first = snappedLocationCache.getEdgesToLink(location(0.5, 0.9), TraverseMode.WALK, findEdges);
+        List<StreetEdge> second = snappedLocationCache.getEdgesToLink(location(0.500001, 0.9), TraverseMode.WALK, findEdges);
+
+        // then
+        assertEquals(singletonList(edge), first);
+        assertEquals(singletonList(edge), second);
+        verify(findEdges, times(1)).get();
+        assertEquals(1, snappedLocationCache.getStats().hitCount());
+        assertEquals(1, snappedLocationCache.getStats().missCount());
+    }
+
+    @Test
+    public void shouldFindEdgesSeparatelyForOtherModesAndFartherLocations() {
+        // when
+        snappedLocationCache.getEdgesToLink(location(0.5, 0.9), TraverseMode.WALK, findEdges);
+        snappedLocationCache.getEdgesToLink(location(0.5, 0.9), TraverseMode.CAR, findEdges);
+        snappedLocationCache.getEdgesToLink(location(0.5001, 0.9), TraverseMode.WALK, findEdges);
+
+        // then
+        verify(findEdges, times(3)).get();
+        assertEquals(3, snappedLocationCache.size());
+    }
+
+    @Test
+    public void shouldFindEdgesAgainWhenCachedEdgeWasRemovedFromGraph() {
+        // given
+        snappedLocationCache.getEdgesToLink(location(0.5, 0.9), TraverseMode.WALK, findEdges);
+
+        // when
+        edge.getToVertex().removeIncoming(edge);
+        snappedLocationCache.getEdgesToLink(location(0.5, 0.9), TraverseMode.WALK, findEdges);
+
+        // then
+        verify(findEdges, times(2)).get();
+    }
+}
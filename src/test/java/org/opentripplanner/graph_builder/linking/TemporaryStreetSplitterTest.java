@@ -2,6 +2,7 @@ package org.opentripplanner.graph_builder.linking;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.locationtech.jts.geom.CoordinateXY;
 import org.opentripplanner.common.model.GenericLocation;
 import org.opentripplanner.routing.core.RoutingRequest;
@@ -11,6 +12,8 @@ import org.opentripplanner.routing.core.vehicle_sharing.CarDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.FuelType;
 import org.opentripplanner.routing.core.vehicle_sharing.Gearbox;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
 import org.opentripplanner.routing.edgetype.rentedgetype.RentVehicleEdge;
 import org.opentripplanner.routing.edgetype.rentedgetype.TemporaryDropoffVehicleEdge;
@@ -21,12 +24,17 @@ import org.opentripplanner.routing.location.StreetLocation;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
 import org.opentripplanner.updater.vehicle_sharing.parking_zones.ParkingZonesCalculator;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.CarPresencePredictor;
+import org.opentripplanner.updater.vehicle_sharing.vehicle_presence.VehiclePresenceProbabilities;
 import org.opentripplanner.util.I18NString;
 import org.opentripplanner.util.NonLocalizedString;
 
+import java.util.Map;
 import java.util.Optional;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -277,6 +285,66 @@ public class TemporaryStreetSplitterTest {
         verifyZeroInteractions(toTransitStopLinker, edgesToLinkFinder);
     }
 
+    @Test
+    public void shouldLinkManyVehiclesAtOnce() {
+        // given
+        CarDescription car2 = new CarDescription("2", 1, 1, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(2, "PANEK"));
+        StreetEdge streetEdge = mock(StreetEdge.class);
+        when(toStreetEdgeLinker.findStreetEdgesToLinkBothWays(CAR)).thenReturn(singletonList(streetEdge));
+        when(toStreetEdgeLinker.findStreetEdgesToLinkBothWays(car2)).thenReturn(emptyList());
+        when(toStreetEdgeLinker.linkTemporarilyBothWaysToEdges(any(), eq(singletonList(streetEdge)))).thenReturn(true);
+        int nextVertexIndex = Vertex.getMaxIndex();
+
+        // when
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink =
+                temporaryStreetSplitter.linkRentableVehiclesToGraph(asList(CAR, car2), 7);
+
+        // then
+        assertEquals(2, vehiclesTriedToLink.size());
+        assertFalse(vehiclesTriedToLink.get(car2).isPresent());
+        assertTrue(vehiclesTriedToLink.get(CAR).isPresent());
+        TemporaryRentVehicleVertex vertex = vehiclesTriedToLink.get(CAR).get();
+        assertEquals(CAR.getLatitude(), vertex.getLat(), 0.1);
+        assertEquals(CAR.getLongitude(), vertex.getLon(), 0.1);
+        assertEquals(1, vertex.getOutgoing().size());
+        RentVehicleEdge rentVehicleEdge = (RentVehicleEdge) vertex.getOutgoing().stream().findFirst().get();
+        assertEquals(CAR, rentVehicleEdge.getVehicle());
+        assertEquals(7, rentVehicleEdge.getVisibleFromVersion());
+        assertEquals(nextVertexIndex + 1, Vertex.getMaxIndex());
+        verify(toStreetEdgeLinker, times(1)).findStreetEdgesToLinkBothWays(CAR);
+        verify(toStreetEdgeLinker, times(1)).linkTemporarilyBothWaysToEdges(vertex, singletonList(streetEdge));
+        verify(toStreetEdgeLinker, times(1)).findStreetEdgesToLinkBothWays(car2);
+        verifyNoMoreInteractions(toStreetEdgeLinker);
+        verifyZeroInteractions(toTransitStopLinker, edgesToLinkFinder);
+    }
+
+    @Test
+    public void shouldCompleteRentVehicleEdgeBeforeLinkingItToGraph() {
+        // given
+        StreetEdge streetEdge = mock(StreetEdge.class);
+        graph.carPresencePredictor = mock(CarPresencePredictor.class);
+        VehiclePresenceProbabilities probabilities = mock(VehiclePresenceProbabilities.class);
+        when(graph.carPresencePredictor.predictAllHorizons(CAR)).thenReturn(probabilities);
+        when(toStreetEdgeLinker.findStreetEdgesToLinkBothWays(CAR)).thenReturn(singletonList(streetEdge));
+        when(toStreetEdgeLinker.linkTemporarilyBothWaysToEdges(any(), eq(singletonList(streetEdge))))
+                .thenAnswer(invocation -> {
+                    TemporaryRentVehicleVertex vertex = invocation.getArgumentAt(0, TemporaryRentVehicleVertex.class);
+                    RentVehicleEdge edge = (RentVehicleEdge) vertex.getOutgoing().iterator().next();
+                    return edge.getVisibleFromVersion() == 3;
+                });
+
+        // when
+        Map<VehicleDescription, Optional<TemporaryRentVehicleVertex>> vehiclesTriedToLink =
+                temporaryStreetSplitter.linkRentableVehiclesToGraph(singletonList(CAR), 3);
+
+        // then
+        assertTrue(vehiclesTriedToLink.get(CAR).isPresent());
+        InOrder inOrder = inOrder(graph.carPresencePredictor, toStreetEdgeLinker);
+        inOrder.verify(graph.carPresencePredictor).predictAllHorizons(CAR);
+        inOrder.verify(toStreetEdgeLinker).linkTemporarilyBothWaysToEdges(vehiclesTriedToLink.get(CAR).get(),
+                singletonList(streetEdge));
+    }
+
     @Test
     public void shouldReturnProperNameForVertex() {
         // given
@@ -18,9 +18,12 @@ import org.opentripplanner.routing.location.StreetLocation;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
+import java.util.List;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -330,4 +333,22 @@ public class ToStreetEdgeLinkerTest {
         verifyNoMoreInteractions(edgesToLinkFinder);
         verifyZeroInteractions(toEdgeLinker, linkingGeoTools, edgesMaker);
     }
+
+    @Test
+    public void shouldFindEdgesToLinkBothWaysAtPositionOfVehicle() {
+        // given
+        when(edgesToLinkFinder.findEdgesToLinkVehicleAt(any(), any())).thenReturn(singletonList(carOnlyEdge));
+        when(edgesToLinkFinder.findEdgesToLinkAt(any(), any())).thenReturn(singletonList(edge));
+
+        // when
+        List<StreetEdge> streetEdges = toStreetEdgeLinker.findStreetEdgesToLinkBothWays(CAR);
+
+        // then
+        assertEquals(asList(carOnlyEdge, edge), streetEdges);
+        Coordinate coordinate = new Coordinate(CAR.getLongitude(), CAR.getLatitude());
+        verify(edgesToLinkFinder, times(1)).findEdgesToLinkVehicleAt(coordinate, CAR);
+        verify(edgesToLinkFinder, times(1)).findEdgesToLinkAt(coordinate, TraverseMode.WALK);
+        verifyNoMoreInteractions(edgesToLinkFinder);
+        verifyZeroInteractions(toEdgeLinker, linkingGeoTools, edgesMaker);
+    }
 }
@@ -0,0 +1,95 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import org.junit.Test;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OSMNodeStoreTest {
+
+    @Test
+    public void shouldKeepReferencesBeforeNodesAreLoaded() {
+        // given
+        OSMNodeStore store = new OSMNodeStore();
+
+        // when
+        store.reference(1, OSMNodeStore.WAY);
+        store.reference(2, OSMNodeStore.AREA);
+
+        // then
+        assertTrue(store.isReferenced(1));
+        assertTrue(store.isReferencedBy(1, OSMNodeStore.WAY));
+        assertFalse(store.isReferencedBy(2, OSMNodeStore.WAY));
+        assertTrue(store.isReferencedBy(2, OSMNodeStore.AREA));
+        assertFalse(store.isReferenced(3));
+        assertFalse(store.contains(1));
+        assertNull(store.get(1));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void shouldCreateUntaggedNodesFromCoordinates() {
+        // given
+        OSMNodeStore store = new OSMNodeStore();
+        store.reference(1, OSMNodeStore.WAY);
+
+        // when
+        store.add(1, 50.0615, 19.9383);
+
+        // then
+        OSMNode node = store.get(1);
+        assertEquals(1, node.getId());
+        assertEquals(50.0615, node.lat, 0);
+        assertEquals(19.9383, node.lon, 0);
+        assertNull(node.getTags());
+        assertEquals(node, store.get(1));
+        assertTrue(store.isReferencedBy(1, OSMNodeStore.WAY));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void shouldKeepTaggedNodes() {
+        // given
+        OSMNodeStore store = new OSMNodeStore();
+        OSMNode node = new OSMNode();
+        node.setId(-100000);
+        node.lat = 50.0;
+        node.lon = 19.0;
+        node.addTag("highway", "traffic_signals");
+
+        // when
+        store.add(node);
+
+        // then
+        assertSame(node, store.get(-100000));
+        assertTrue(store.contains(-100000));
+        assertFalse(store.isReferenced(-100000));
+    }
+
+    @Test
+    public void shouldGrowBeyondExpectedSize() {
+        // given
+        OSMNodeStore store = new OSMNodeStore(16);
+
+        // when
+        for (long id = 0; id < 100_000; id += 2) {
+            store.reference(id, OSMNodeStore.WAY);
+            store.add(id, id / 1e6, -id / 1e6);
+        }
+
+        // then
+        assertEquals(50_000, store.size());
+        for (long id = 0; id < 100_000; id++) {
+            if (id % 2 == 0) {
+                assertEquals(id / 1e6, store.get(id).lat, 0);
+                assertEquals(-id / 1e6, store.get(id).lon, 0);
+            } else {
+                assertFalse(store.contains(id));
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.algorithm;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotNull;
 
@@ -12,6 +13,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opentripplanner.routing.algorithm.strategies.MultiTargetTerminationStrategy;
 import org.opentripplanner.routing.algorithm.strategies.SearchTerminationStrategy;
+import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.graph.Graph;
@@ -236,6 +238,22 @@ public class AStarTest {
      * Private Methods
      ****/
 
+    @Test
+    public void testAbortedBySharedContext() {
+        RoutingRequest options = new RoutingRequest();
+        options.setRoutingContext(graph, graph.getVertex("56th_24th"), graph.getVertex("leary_20th"));
+        RoutingRequest concurrentOptions = options.clone();
+        concurrentOptions.rctx = new RoutingContext(concurrentOptions, options.rctx);
+
+        options.rctx.abortSearches();
+        AStar aStar = new AStar();
+        aStar.getShortestPathTreeUntil(concurrentOptions, Long.MAX_VALUE);
+
+        assertTrue(concurrentOptions.rctx.aborted);
+        assertTrue(aStar.getPathsToTarget().isEmpty());
+        assertFalse(concurrentOptions.rctx.debugOutput.timedOut);
+    }
+
     private SimpleConcreteVertex vertex(String label, double lat, double lon) {
         SimpleConcreteVertex v = new SimpleConcreteVertex(graph, label, lat, lon);
         return v;
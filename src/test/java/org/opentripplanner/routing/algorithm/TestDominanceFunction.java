@@ -6,8 +6,10 @@ import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.StateEditor;
 import org.opentripplanner.routing.core.routing_parametrizations.RoutingStateDiffOptions;
+import org.opentripplanner.routing.core.vehicle_sharing.CarDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.KickScooterDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
 import org.opentripplanner.routing.edgetype.SimpleTransfer;
 import org.opentripplanner.routing.edgetype.TimedTransferEdge;
 import org.opentripplanner.routing.graph.Vertex;
@@ -62,6 +64,46 @@ public class TestDominanceFunction extends TestCase {
         Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(stateF, stateE));
     }
 
+    private State rentingState(VehicleDescription vehicle, double weight, RoutingRequest request) {
+        State state = new State(mock(TransitStopArrive.class), null, 0, request);
+        state.weight = weight;
+        StateEditor editor = state.edit(null);
+        editor.beginVehicleRenting(vehicle);
+        return editor.makeState();
+    }
+
+    public void testStatesOnDifferentPlanes() {
+        DominanceFunction minimumWeightDominanceFunction = new DominanceFunction.MinimumWeight();
+        RoutingRequest request = new RoutingRequest();
+        Provider provider = new Provider();
+
+        // Renting different vehicle types should not dominate
+
+        State car = rentingState(new CarDescription("id1", 0, 0, null, null, provider), 1, request);
+        State kickScooter = rentingState(new KickScooterDescription("id2", 0, 0, null, null, provider, 20000D), 2, request);
+
+        Assert.assertNotEquals(car.getPlaneKey(), kickScooter.getPlaneKey());
+        Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(car, kickScooter));
+        Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(kickScooter, car));
+
+        // Renting the same vehicle type should dominate
+
+        State otherCar = rentingState(new CarDescription("id3", 0, 0, null, null, provider), 2, request);
+
+        Assert.assertEquals(car.getPlaneKey(), otherCar.getPlaneKey());
+        Assert.assertTrue(minimumWeightDominanceFunction.betterOrEqualAndComparable(car, otherCar));
+        Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(otherCar, car));
+
+        // Parked car should not dominate
+
+        StateEditor editor = new State(mock(TransitStopArrive.class), null, 0, request).edit(null);
+        editor.setCarParked(true);
+        State carParked = editor.makeState();
+
+        Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(carParked, otherCar));
+        Assert.assertFalse(minimumWeightDominanceFunction.betterOrEqualAndComparable(otherCar, carParked));
+    }
+
     private void correctDifferByRange(Double rangeA, Double rangeB, int timeA, int timeB, int weightA, int weightB, boolean stateABetterOrEqualToB) {
         DominanceFunction minimumWeightDominanceFunction = new DominanceFunction.MinimumWeight();
         RoutingStateDiffOptions routingStateDiffOptions = new RoutingStateDiffOptions();
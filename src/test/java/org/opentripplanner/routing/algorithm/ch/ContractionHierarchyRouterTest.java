@@ -0,0 +1,154 @@
+package org.opentripplanner.routing.algorithm.ch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.algorithm.profile.PriceBasedOptimizationProfile;
+import org.opentripplanner.routing.core.OptimizeType;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ContractionHierarchyRouterTest {
+
+    private static final int SIZE = 4;
+
+    private Graph graph;
+    private StreetVertex[][] vertices;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        vertices = new StreetVertex[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                vertices[i][j] = new IntersectionVertex(graph, "v" + i + "_" + j, 21 + i * 0.001, 52 + j * 0.001);
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double length = 100 + (i * 7 + j * 13) % 50;
+                if (i + 1 < SIZE) {
+                    edge(vertices[i][j], vertices[i + 1][j], length);
+                    edge(vertices[i + 1][j], vertices[i][j], length);
+                }
+                if (j + 1 < SIZE) {
+                    edge(vertices[i][j], vertices[i][j + 1], length + 20);
+                    edge(vertices[i][j + 1], vertices[i][j], length + 20);
+                }
+            }
+        }
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(TraverseMode.WALK, new RoutingRequest().walkSpeed)
+                .build(graph.getStreetEdges());
+        graph.contractionHierarchies.put(TraverseMode.WALK, hierarchy);
+    }
+
+    private static void edge(StreetVertex from, StreetVertex to, double length) {
+        Coordinate[] coordinates = new Coordinate[]{from.getCoordinate(), to.getCoordinate()};
+        LineString geometry = GeometryUtils.getGeometryFactory().createLineString(coordinates);
+        new StreetEdge(from, to, geometry, from.getLabel() + "_" + to.getLabel(), length,
+                StreetTraversalPermission.ALL, false);
+    }
+
+    private RoutingRequest request(StreetVertex from, StreetVertex to) {
+        RoutingRequest options = new RoutingRequest(new TraverseModeSet(TraverseMode.WALK));
+        options.setRoutingContext(graph, from, to);
+        return options;
+    }
+
+    @Test
+    public void shouldFindSamePathsAsAStar() {
+        // Paths along a street have no turns, so they are the best ones in both metrics
+        for (StreetVertex[] street : vertices) {
+            for (StreetVertex from : street) {
+                for (StreetVertex to : street) {
+                    if (from == to) {
+                        continue;
+                    }
+                    // given
+                    RoutingRequest chOptions = request(from, to);
+                    RoutingRequest aStarOptions = request(from, to);
+
+                    // when
+                    ContractionHierarchyRouter router = ContractionHierarchyRouter.forRequest(chOptions);
+                    GraphPath chPath = router.findPath(chOptions);
+                    GraphPath aStarPath = new AStar().getShortestPathTree(aStarOptions)
+                            .getPath(aStarOptions.rctx.target, false);
+
+                    // then
+                    assertNotNull(chPath);
+                    assertNotNull(aStarPath);
+                    assertEquals(aStarPath.edges, chPath.edges);
+                    assertEquals(aStarPath.getWeight(), chPath.getWeight(), 0);
+                    assertEquals(aStarPath.getDuration(), chPath.getDuration());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseHierarchyForDefaultCosts() {
+        // when
+        ContractionHierarchyRouter router = ContractionHierarchyRouter.forRequest(request(vertices[0][0], vertices[3][3]));
+
+        // then
+        assertNotNull(router);
+    }
+
+    @Test
+    public void shouldNotUseHierarchyForOtherSpeed() {
+        // given
+        RoutingRequest options = request(vertices[0][0], vertices[3][3]);
+        options.walkSpeed = 2;
+
+        // when
+        ContractionHierarchyRouter router = ContractionHierarchyRouter.forRequest(options);
+
+        // then
+        assertNull(router);
+    }
+
+    @Test
+    public void shouldNotUseHierarchyForOtherReluctances() {
+        // given
+        RoutingRequest walkReluctance = request(vertices[0][0], vertices[3][3]);
+        walkReluctance.routingReluctances.setWalkReluctance(5);
+        RoutingRequest turnReluctance = request(vertices[0][0], vertices[3][3]);
+        turnReluctance.turnReluctance = 2;
+
+        // then
+        assertNull(ContractionHierarchyRouter.forRequest(walkReluctance));
+        assertNull(ContractionHierarchyRouter.forRequest(turnReluctance));
+    }
+
+    @Test
+    public void shouldNotUseHierarchyForOtherOptimization() {
+        // given
+        RoutingRequest optimize = request(vertices[0][0], vertices[3][3]);
+        optimize.setOptimize(OptimizeType.TRIANGLE);
+        RoutingRequest triangle = request(vertices[0][0], vertices[3][3]);
+        triangle.setTriangleSafetyFactor(0.5);
+        RoutingRequest profile = request(vertices[0][0], vertices[3][3]);
+        profile.setOptimizationProfile(new PriceBasedOptimizationProfile(Collections.emptyMap()));
+
+        // then
+        assertNull(ContractionHierarchyRouter.forRequest(optimize));
+        assertNull(ContractionHierarchyRouter.forRequest(triangle));
+        assertNull(ContractionHierarchyRouter.forRequest(profile));
+    }
+}
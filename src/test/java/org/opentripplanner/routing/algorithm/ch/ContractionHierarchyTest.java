@@ -0,0 +1,156 @@
+package org.opentripplanner.routing.algorithm.ch;
+
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ContractionHierarchyTest {
+
+    private static final int SIZE = 5;
+
+    private Graph graph;
+    private StreetVertex[][] vertices;
+    private StreetVertex island;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        vertices = new StreetVertex[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                vertices[i][j] = new IntersectionVertex(graph, "v" + i + "_" + j, 21 + i * 0.001, 52 + j * 0.001);
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double length = 100 + (i * 7 + j * 13) % 50;
+                if (i + 1 < SIZE) {
+                    edge(vertices[i][j], vertices[i + 1][j], length, StreetTraversalPermission.ALL);
+                    // every third street is one way
+                    if ((i + j) % 3 != 0) {
+                        edge(vertices[i + 1][j], vertices[i][j], length, StreetTraversalPermission.ALL);
+                    }
+                }
+                if (j + 1 < SIZE) {
+                    edge(vertices[i][j], vertices[i][j + 1], length + 20, StreetTraversalPermission.ALL);
+                    edge(vertices[i][j + 1], vertices[i][j], length + 20, StreetTraversalPermission.ALL);
+                }
+            }
+        }
+        // reachable only on foot
+        island = new IntersectionVertex(graph, "island", 21.01, 52.01);
+        edge(vertices[0][0], island, 100, StreetTraversalPermission.PEDESTRIAN);
+        edge(island, vertices[0][0], 100, StreetTraversalPermission.PEDESTRIAN);
+    }
+
+    private static void edge(StreetVertex from, StreetVertex to, double length, StreetTraversalPermission permission) {
+        Coordinate[] coordinates = new Coordinate[]{from.getCoordinate(), to.getCoordinate()};
+        LineString geometry = GeometryUtils.getGeometryFactory().createLineString(coordinates);
+        new StreetEdge(from, to, geometry, from.getLabel() + "_" + to.getLabel(), length, permission, false);
+    }
+
+    private static TIntFloatMap weights(Vertex vertex) {
+        TIntFloatMap weights = new TIntFloatHashMap();
+        weights.put(vertex.getIndex(), 0);
+        return weights;
+    }
+
+    private static float dijkstra(ContractionHierarchy hierarchy, Vertex source, Vertex target) {
+        Map<Vertex, Float> weights = new HashMap<>();
+        PriorityQueue<Map.Entry<Vertex, Float>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        weights.put(source, 0f);
+        queue.add(new HashMap.SimpleEntry<>(source, 0f));
+        while (!queue.isEmpty()) {
+            Map.Entry<Vertex, Float> entry = queue.poll();
+            Vertex vertex = entry.getKey();
+            if (vertex == target) {
+                return entry.getValue();
+            }
+            if (entry.getValue() > weights.get(vertex)) {
+                continue;
+            }
+            for (Edge edge : vertex.getOutgoing()) {
+                StreetEdge streetEdge = (StreetEdge) edge;
+                if (!hierarchy.canTraverse(streetEdge)) {
+                    continue;
+                }
+                float weight = entry.getValue() + hierarchy.getWeight(streetEdge);
+                if (weight < weights.getOrDefault(edge.getToVertex(), Float.POSITIVE_INFINITY)) {
+                    weights.put(edge.getToVertex(), weight);
+                    queue.add(new HashMap.SimpleEntry<>(edge.getToVertex(), weight));
+                }
+            }
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    @Test
+    public void shouldFindShortestPathsBetweenAllVertices() {
+        // given
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(TraverseMode.CAR, 10)
+                .build(graph.getStreetEdges());
+
+        for (StreetVertex[] row : vertices) {
+            for (StreetVertex source : row) {
+                for (StreetVertex[] targetRow : vertices) {
+                    for (StreetVertex target : targetRow) {
+                        // when
+                        ContractionHierarchy.Path path = hierarchy.findPath(weights(source), weights(target));
+
+                        // then
+                        assertNotNull(path);
+                        assertEquals(dijkstra(hierarchy, source, target), path.getWeight(), 0.01);
+                        Vertex vertex = source;
+                        float weight = 0;
+                        for (StreetEdge edge : path.getEdges()) {
+                            assertSame(vertex, edge.getFromVertex());
+                            vertex = edge.getToVertex();
+                            weight += hierarchy.getWeight(edge);
+                        }
+                        assertSame(target, vertex);
+                        assertEquals(path.getWeight(), weight, 0.01);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldSkipEdgesNotTraversableInMode() {
+        // given
+        ContractionHierarchy carHierarchy = new ContractionHierarchyBuilder(TraverseMode.CAR, 10)
+                .build(graph.getStreetEdges());
+        ContractionHierarchy walkHierarchy = new ContractionHierarchyBuilder(TraverseMode.WALK, 1.33)
+                .build(graph.getStreetEdges());
+
+        // when
+        ContractionHierarchy.Path carPath = carHierarchy.findPath(weights(vertices[2][2]), weights(island));
+        ContractionHierarchy.Path walkPath = walkHierarchy.findPath(weights(vertices[2][2]), weights(island));
+
+        // then
+        assertNull(carPath);
+        assertNotNull(walkPath);
+        assertSame(island, walkPath.getEdges().get(walkPath.getEdges().size() - 1).getToVertex());
+    }
+}
@@ -0,0 +1,85 @@
+package org.opentripplanner.routing.algorithm.strategies;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class EgressWeightsCacheTest {
+
+    private Graph graph;
+    private Vertex v1, v2, v3;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        v1 = new SimpleConcreteVertex(graph, "v1", 0, 0);
+        v2 = new SimpleConcreteVertex(graph, "v2", 0, 0.001);
+        v3 = new SimpleConcreteVertex(graph, "v3", 0, 0.002);
+        edges(v1, v2);
+        edges(v2, v3);
+    }
+
+    private static void edges(Vertex a, Vertex b) {
+        new SimpleConcreteEdge(a, b);
+        new SimpleConcreteEdge(b, a);
+    }
+
+    private InterleavedBidirectionalHeuristic initializedHeuristic(Vertex from, Vertex to, String modes) {
+        RoutingRequest options = new RoutingRequest();
+        options.setModes(new TraverseModeSet(modes));
+        options.setRoutingContext(graph, from, to);
+        InterleavedBidirectionalHeuristic heuristic = new InterleavedBidirectionalHeuristic();
+        heuristic.initialize(options, Long.MAX_VALUE);
+        return heuristic;
+    }
+
+    @Test
+    public void shouldReuseSearchAroundTheSameTarget() {
+        // when
+        InterleavedBidirectionalHeuristic first = initializedHeuristic(v1, v3, "TRANSIT,WALK");
+        InterleavedBidirectionalHeuristic second = initializedHeuristic(v2, v3, "TRANSIT,WALK");
+        InterleavedBidirectionalHeuristic otherTarget = initializedHeuristic(v2, v1, "TRANSIT,WALK");
+
+        // then
+        assertSame(first.postTransitVertices, second.postTransitVertices);
+        assertNotSame(first.postTransitVertices, otherTarget.postTransitVertices);
+        assertEquals(1, graph.egressWeightsCache.getStats().hitCount());
+        assertEquals(2, graph.egressWeightsCache.getStats().missCount());
+    }
+
+    @Test
+    public void shouldNotCacheSearchesWithCar() {
+        // when
+        initializedHeuristic(v1, v3, "TRANSIT,WALK,CAR");
+        initializedHeuristic(v2, v3, "TRANSIT,WALK,CAR");
+
+        // then
+        assertEquals(0, graph.egressWeightsCache.getStats().requestCount());
+        assertEquals(0, graph.egressWeightsCache.size());
+    }
+
+    @Test
+    public void shouldDropSearchesWhenTrafficChanges() {
+        // given
+        InterleavedBidirectionalHeuristic first = initializedHeuristic(v1, v3, "TRANSIT,WALK");
+
+        // when
+        graph.publishTrafficSpeedOverlay(new TrafficSpeedOverlay(1, new float[0]));
+        InterleavedBidirectionalHeuristic second = initializedHeuristic(v1, v3, "TRANSIT,WALK");
+
+        // then
+        assertNotSame(first.postTransitVertices, second.postTransitVertices);
+        assertEquals(0, graph.egressWeightsCache.getStats().hitCount());
+        assertEquals(1, graph.egressWeightsCache.size());
+    }
+}
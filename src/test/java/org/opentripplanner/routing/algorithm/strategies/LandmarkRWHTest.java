@@ -0,0 +1,93 @@
+package org.opentripplanner.routing.algorithm.strategies;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.graph_builder.module.LandmarkModule;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LandmarkRWHTest {
+
+    private Graph graph;
+    private Vertex v1, v2, v3, v4;
+    private RoutingRequest options;
+
+    @Before
+    public void setUp() {
+        // v1 and v2 are close to each other, but connected only by a long detour through v3 and v4
+        graph = new Graph();
+        v1 = new SimpleConcreteVertex(graph, "v1", 0, 0);
+        v2 = new SimpleConcreteVertex(graph, "v2", 0, 0.001);
+        v3 = new SimpleConcreteVertex(graph, "v3", 0.01, 0);
+        v4 = new SimpleConcreteVertex(graph, "v4", 0.01, 0.001);
+        edges(v1, v3);
+        edges(v3, v4);
+        edges(v4, v2);
+
+        options = new RoutingRequest();
+        options.setModes(new TraverseModeSet(TraverseMode.WALK));
+        options.setRoutingContext(graph, v1, v2);
+    }
+
+    private static void edges(Vertex a, Vertex b) {
+        new SimpleConcreteEdge(a, b);
+        new SimpleConcreteEdge(b, a);
+    }
+
+    private static double networkDistance(Vertex... path) {
+        double distance = 0;
+        for (int i = 1; i < path.length; i++) {
+            distance += SphericalDistanceLibrary.distance(path[i - 1].getCoordinate(), path[i].getCoordinate());
+        }
+        return distance;
+    }
+
+    @Test
+    public void shouldEstimateDetourAroundObstacle() {
+        // given
+        new LandmarkModule(2).buildGraph(graph, new HashMap<>());
+        LandmarkRWH heuristic = new LandmarkRWH();
+        SimpleEuclideanRWH euclideanHeuristic = new SimpleEuclideanRWH();
+
+        // when
+        heuristic.initialize(options, Long.MAX_VALUE);
+        euclideanHeuristic.initialize(options, Long.MAX_VALUE);
+        double estimate = heuristic.estimateRemainingWeight(new State(v1, options));
+        double euclideanEstimate = euclideanHeuristic.estimateRemainingWeight(new State(v1, options));
+
+        // then
+        assertNotNull(graph.landmarkDistances);
+        double realWeight = heuristic.getBestMultiplier() * networkDistance(v1, v3, v4, v2);
+        assertTrue(estimate > 10 * euclideanEstimate);
+        assertTrue(estimate <= realWeight);
+        assertEquals(realWeight, estimate, realWeight * 0.01);
+    }
+
+    @Test
+    public void shouldFallBackToEuclideanHeuristicWithoutLandmarks() {
+        // given
+        LandmarkRWH heuristic = new LandmarkRWH();
+        SimpleEuclideanRWH euclideanHeuristic = new SimpleEuclideanRWH();
+
+        // when
+        heuristic.initialize(options, Long.MAX_VALUE);
+        euclideanHeuristic.initialize(options, Long.MAX_VALUE);
+
+        // then
+        assertEquals(euclideanHeuristic.estimateRemainingWeight(new State(v3, options)),
+                heuristic.estimateRemainingWeight(new State(v3, options)), 0.0001);
+    }
+}
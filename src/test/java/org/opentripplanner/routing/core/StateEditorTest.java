@@ -80,6 +80,11 @@ public class StateEditorTest {
             public RemainingWeightHeuristic getReversedSearchHeuristic() {
                 return null;
             }
+
+            @Override
+            public OptimizationProfile forConcurrentSearch(RoutingRequest request) {
+                return this;
+            }
         });
     }
 
@@ -261,6 +266,37 @@ public class StateEditorTest {
         assertNull(stateEditor.makeState());
     }
 
+    @Test
+    public void shouldNotModifyPricesOfParentState() {
+        // given
+        CarDescription car = new CarDescription("1", 0, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(13, "Innogy"), 1000.0, availablePricingPackages.get(0));
+        car.getVehiclePricingPackages().add(availablePricingPackages.get(1));
+        StateEditor rentingEditor = state.edit(rentVehicleEdge);
+        rentingEditor.beginVehicleRenting(car);
+        State parent = rentingEditor.makeState();
+
+        // when
+        StateEditor stateEditor = parent.edit(dropoffVehicleEdge);
+        stateEditor.incrementTimeInSeconds(485);
+        State child = stateEditor.makeState();
+
+        // then
+        assertEquals(0, parent.getTimePriceForCurrentVehicle(0));
+        assertEquals(129, child.getTimePriceForCurrentVehicle(0));
+    }
+
+    @Test
+    public void shouldNotAllocatePricesWhenNotRenting() {
+        // when
+        StateEditor stateEditor = state.edit(rentVehicleEdge);
+        stateEditor.incrementTimeInSeconds(60);
+        State next = stateEditor.makeState();
+
+        // then
+        assertNull(next.pricesPerPackage);
+        assertEquals(0, next.getTotalPriceForCurrentVehicle(0));
+    }
+
     @Test
     public void shouldAllowRentingVehicles() {
         // given
@@ -0,0 +1,65 @@
+package org.opentripplanner.routing.core;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeOfDaySpeedProfilesTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+
+    private static long epochSeconds(int day, int hour, int minute) {
+        // 2020-06-01 is a Monday
+        return ZonedDateTime.of(2020, 6, day, hour, minute, 0, 0, WARSAW).toEpochSecond();
+    }
+
+    @Test
+    public void shouldFindLocalMondayMidnight() {
+        // when
+        long weekStart = TimeOfDaySpeedProfiles.localWeekStart(epochSeconds(3, 17, 42));
+
+        // then
+        assertEquals(epochSeconds(1, 0, 0), weekStart);
+    }
+
+    @Test
+    public void shouldReturnSpeedOfQuarterHoursWithinPeriod() {
+        // given
+        TimeOfDaySpeedProfiles.Builder builder = TimeOfDaySpeedProfiles.builder();
+        int profileIndex = builder.addProfile();
+        builder.setSpeed(profileIndex, 3, 8 * 3600, 9 * 3600, 5);
+        TimeOfDaySpeedProfiles profiles = builder.build();
+        long weekStart = TimeOfDaySpeedProfiles.localWeekStart(epochSeconds(3, 8, 30));
+
+        // then
+        assertEquals(5, profiles.getSpeed(profileIndex, weekStart, epochSeconds(3, 8, 0)), 0);
+        assertEquals(5, profiles.getSpeed(profileIndex, weekStart, epochSeconds(3, 8, 59)), 0);
+        assertEquals(TimeOfDaySpeedProfiles.NO_SPEED, profiles.getSpeed(profileIndex, weekStart, epochSeconds(3, 9, 0)), 0);
+        assertEquals(TimeOfDaySpeedProfiles.NO_SPEED, profiles.getSpeed(profileIndex, weekStart, epochSeconds(2, 8, 30)), 0);
+    }
+
+    @Test
+    public void shouldWrapAroundToNextWeek() {
+        // given
+        TimeOfDaySpeedProfiles.Builder builder = TimeOfDaySpeedProfiles.builder();
+        int profileIndex = builder.addProfile();
+        builder.setSpeed(profileIndex, 1, 0, 3600, 7);
+        TimeOfDaySpeedProfiles profiles = builder.build();
+        long weekStart = TimeOfDaySpeedProfiles.localWeekStart(epochSeconds(7, 23, 50));
+
+        // then
+        assertEquals(7, profiles.getSpeed(profileIndex, weekStart, epochSeconds(8, 0, 10)), 0);
+    }
+
+    @Test
+    public void shouldReturnNoSpeedForUnknownProfile() {
+        // given
+        TimeOfDaySpeedProfiles profiles = TimeOfDaySpeedProfiles.builder().build();
+
+        // then
+        assertEquals(TimeOfDaySpeedProfiles.NO_SPEED, profiles.getSpeed(TimeOfDaySpeedProfiles.NO_PROFILE, 0, 0), 0);
+    }
+}
@@ -179,4 +179,39 @@ public class VehiclePricingPackageTest {
         VehiclePricingPackage pricingPackage = new VehiclePricingPackage(BigDecimal.valueOf(9.99), 480, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(1.29), BigDecimal.ZERO, BigDecimal.ZERO, 60, 60, BigDecimal.valueOf(199), false);
         assertTrue(pricingPackage.computeTotalPrice(1200, 40).compareTo(BigDecimal.valueOf(25.47)) == 0);
     }
+
+    @Test
+    public void shouldComputeSameTimePriceInMinorUnits() {
+        VehiclePricingPackage pricingPackage = new VehiclePricingPackage(BigDecimal.ZERO, 80, 20, BigDecimal.ZERO, BigDecimal.valueOf(2.0), BigDecimal.valueOf(0.65), BigDecimal.ZERO, BigDecimal.valueOf(1.5), BigDecimal.ZERO, BigDecimal.valueOf(3.0), 60, 3600, BigDecimal.ZERO, false);
+        assertEquals(65, pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 0, 0, 25));
+        assertEquals(65, pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 65, 0, 80));
+        assertEquals(130, pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 65, 0, 82));
+        assertEquals(280, pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 130, 0, 141));
+        assertEquals(280, pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 280, 0, 3500));
+    }
+
+    @Test
+    public void shouldLimitPricesInMinorUnitsByMaxRentingPrice() {
+        VehiclePricingPackage pricingPackage = new VehiclePricingPackage(BigDecimal.ZERO, 0, 20, BigDecimal.ZERO, BigDecimal.valueOf(2.0), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(1.5), BigDecimal.ZERO, BigDecimal.valueOf(3.0), 60, 60, BigDecimal.valueOf(3), false);
+        assertEquals(200, pricingPackage.computeTimeAssociatedPriceInMinorUnits(50, 200, 50, 50));
+        assertEquals(200, pricingPackage.computeTimeAssociatedPriceInMinorUnits(50, 100, 50, 200));
+        assertEquals(0, pricingPackage.computeDistanceAssociatedPriceInMinorUnits(100, 200, 0, 2200));
+    }
+
+    @Test
+    public void shouldReturnProperStartAndFinalPriceInMinorUnits() {
+        VehiclePricingPackage pricingPackage = new VehiclePricingPackage(BigDecimal.valueOf(9.99), 480, 0, BigDecimal.valueOf(13), BigDecimal.valueOf(0.5), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(1.29), BigDecimal.ZERO, BigDecimal.ZERO, 60, 60, BigDecimal.valueOf(199), false);
+        assertEquals(1049, pricingPackage.computeStartPriceInMinorUnits());
+        assertEquals(1300, pricingPackage.computeFinalPriceInMinorUnits(1049));
+        assertEquals(1301, pricingPackage.computeFinalPriceInMinorUnits(1301));
+    }
+
+    @Test
+    public void shouldComputeTimePriceInMinorUnitsAroundPackageBreakpoints() {
+        VehiclePricingPackage pricingPackage = new VehiclePricingPackage(BigDecimal.valueOf(9.99), 90, 10, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(0.5), BigDecimal.ZERO, BigDecimal.valueOf(1.29), BigDecimal.ZERO, BigDecimal.ZERO, 60, 60, BigDecimal.ZERO, false);
+        for (int seconds = 0; seconds < 400; seconds++) {
+            BigDecimal expected = pricingPackage.computeTimeAssociatedPrice(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, seconds);
+            assertEquals(MinorCurrencyUnits.fromBigDecimal(expected), pricingPackage.computeTimeAssociatedPriceInMinorUnits(0, 0, 0, seconds));
+        }
+    }
 }
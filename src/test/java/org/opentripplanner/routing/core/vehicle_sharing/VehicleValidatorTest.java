@@ -53,4 +53,19 @@ public class VehicleValidatorTest {
         // then
         assertEquals(validator.getVehicleTypesAllowed(), of(VehicleType.MOTORBIKE));
     }
+
+    @Test
+    public void testCopyDoesNotShareFiltersAddedLater() {
+        // given
+        VehicleValidator validator = new VehicleValidator();
+        validator.addFilter(new VehicleTypeFilter(of(VehicleType.CAR, VehicleType.MOTORBIKE)));
+
+        // when
+        VehicleValidator copy = validator.copy();
+        copy.addFilter(new VehicleTypeFilter(of(VehicleType.MOTORBIKE)));
+
+        // then
+        assertEquals(of(VehicleType.CAR, VehicleType.MOTORBIKE), validator.getVehicleTypesAllowed());
+        assertEquals(of(VehicleType.MOTORBIKE), copy.getVehicleTypesAllowed());
+    }
 }
@@ -0,0 +1,95 @@
+package org.opentripplanner.routing.edgetype;
+
+import org.junit.Test;
+import org.opentripplanner.model.FeedScopedId;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.Trip;
+import org.opentripplanner.routing.trippattern.Deduplicator;
+import org.opentripplanner.routing.trippattern.TripTimes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class StopTimesIndexTest {
+
+    private static TripTimes trip(String id, int... departures) {
+        Trip trip = new Trip();
+        trip.setId(new FeedScopedId("agency", id));
+        List<StopTime> stopTimes = new ArrayList<>();
+        for (int i = 0; i < departures.length; i++) {
+            Stop stop = new Stop();
+            stop.setId(new FeedScopedId("agency", "S" + i));
+            StopTime stopTime = new StopTime();
+            stopTime.setStop(stop);
+            stopTime.setArrivalTime(departures[i] - 30);
+            stopTime.setDepartureTime(departures[i]);
+            stopTime.setStopSequence(i);
+            stopTimes.add(stopTime);
+        }
+        return new TripTimes(trip, stopTimes, new Deduplicator());
+    }
+
+    @Test
+    public void shouldFindNextDepartureAtEachStop() {
+        // given
+        List<TripTimes> tripTimes = Arrays.asList(
+                trip("late", 3600, 4200),
+                trip("early", 600, 1200),
+                trip("middle", 1800, 2400));
+        StopTimesIndex index = new StopTimesIndex(tripTimes, 2);
+
+        // when
+        int position = index.first(1, 1300, true);
+
+        // then
+        assertEquals(2400, index.getTime(position, true));
+        assertEquals(2, index.getTrip(position, true));
+        assertEquals(4200, index.getTime(position + 1, true));
+        assertEquals(0, index.getTrip(position + 1, true));
+        assertEquals(index.end(1), index.first(1, 5000, true));
+    }
+
+    @Test
+    public void shouldFindPreviousArrivalAtEachStop() {
+        // given
+        List<TripTimes> tripTimes = Arrays.asList(
+                trip("late", 3600, 4200),
+                trip("early", 600, 1200),
+                trip("middle", 1800, 2400));
+        StopTimesIndex index = new StopTimesIndex(tripTimes, 2);
+
+        // when
+        int position = index.first(0, 3000, false);
+
+        // then
+        assertEquals(1770, index.getTime(position, false));
+        assertEquals(2, index.getTrip(position, false));
+        assertEquals(570, index.getTime(position + 1, false));
+        assertEquals(1, index.getTrip(position + 1, false));
+        assertEquals(index.end(0), index.first(0, 0, false));
+    }
+
+    @Test
+    public void shouldKeepTimetableOrderOfTripsWithEqualTimes() {
+        // given
+        List<TripTimes> tripTimes = Arrays.asList(
+                trip("first", 600, 1200),
+                trip("second", 600, 1200),
+                trip("third", 600, 1200));
+        StopTimesIndex index = new StopTimesIndex(tripTimes, 2);
+
+        // when
+        int departure = index.first(0, 600, true);
+        int arrival = index.first(1, 1170, false);
+
+        // then
+        assertEquals(0, index.getTrip(departure, true));
+        assertEquals(1, index.getTrip(departure + 1, true));
+        assertEquals(0, index.getTrip(arrival, false));
+        assertEquals(1, index.getTrip(arrival + 1, false));
+    }
+}
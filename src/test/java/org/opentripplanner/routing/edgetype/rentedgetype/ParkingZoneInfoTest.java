@@ -1,13 +1,24 @@
 package org.opentripplanner.routing.edgetype.rentedgetype;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import org.junit.Test;
 import org.opentripplanner.routing.core.vehicle_sharing.KickScooterDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
 import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.graph.Graph;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ParkingZoneInfoTest {
@@ -61,4 +72,26 @@ public class ParkingZoneInfoTest {
         // then
         assertFalse(parkingZoneInfo.canDropoffVehicleHere(KICKSCOOTER));
     }
+
+    @Test
+    public void shouldPreserveSharedInstancesInGraphSerialization() {
+        // given
+        ParkingZoneInfo parkingZoneInfo = new ParkingZoneInfo(singletonList(HOPCITY_KICKSCOOTER),
+                asList(PANEK_CAR, HOPCITY_KICKSCOOTER), singletonList(VehicleType.CAR));
+        List<ParkingZoneInfo> parkingZoneInfos = new ArrayList<>(asList(parkingZoneInfo, parkingZoneInfo));
+        Kryo kryo = Graph.makeKryo();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        Output output = new Output(outputStream);
+        kryo.writeClassAndObject(output, parkingZoneInfos);
+        output.close();
+        @SuppressWarnings("unchecked")
+        List<ParkingZoneInfo> deserialized = (List<ParkingZoneInfo>) kryo.readClassAndObject(new Input(outputStream.toByteArray()));
+
+        // then
+        assertSame(deserialized.get(0), deserialized.get(1));
+        assertEquals(parkingZoneInfo, deserialized.get(0));
+        assertTrue(deserialized.get(0).canDropoffVehicleHere(KICKSCOOTER));
+    }
 }
@@ -29,6 +29,7 @@ public class RentAndDropoffBikeEdgeTest {
     private State state, rentingState;
     private BikeDescription bike1;
 
+    private ParkingZoneInfo parkingZones;
     private RentBikeEdge rentEdge11;
     private DropoffBikeEdge dropEdge11;
     private DropoffBikeEdge dropEdge21;
@@ -49,7 +50,7 @@ public class RentAndDropoffBikeEdgeTest {
         request.rentingAllowed = true;
         state = new State(v1, request);
 
-        ParkingZoneInfo parkingZones = mock(ParkingZoneInfo.class);
+        parkingZones = mock(ParkingZoneInfo.class);
         rentEdge11 = new RentBikeEdge(v1, station11, parkingZones);
 
         dropEdge11 = new DropoffBikeEdge(v1, station11);
@@ -129,7 +130,7 @@ public class RentAndDropoffBikeEdgeTest {
         RentVehicleEdge rentCarEdge = new RentVehicleEdge(v1, CAR_1);
         when(request.vehicleValidator.isValid(CAR_1)).thenReturn(true);
         when(request.vehicleValidator.isValid(bike1)).thenReturn(true);
-        when(rentEdge11.canDropoffVehicleHere(CAR_1)).thenReturn(true);
+        when(parkingZones.canDropoffVehicleHere(CAR_1)).thenReturn(true);
 
         State carState = rentCarEdge.traverse(state);
 
@@ -2,11 +2,15 @@ package org.opentripplanner.routing.graph;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.opentripplanner.util.ArrayUtils.contains;
 
 import org.junit.Test;
 import org.opentripplanner.routing.alertpatch.AlertPatch;
+import org.opentripplanner.routing.impl.DefaultStreetVertexIndexFactory;
+
+import java.util.concurrent.CompletableFuture;
 
 public class GraphTest {
     @Test
@@ -111,4 +115,40 @@ public class GraphTest {
         assertFalse(contains (alertPatches[9], alertPatch2));
         assertFalse(contains (alertPatches[9], alertPatch3));
     }
+
+    @Test
+    public void shouldReportStagesOfIndexing() {
+        // given
+        Graph graph = new Graph();
+        Vertex vertex0 = new SimpleConcreteVertex(graph, "Vertex 0", 0, 0);
+        Vertex vertex1 = new SimpleConcreteVertex(graph, "Vertex 1", 0, 0.01);
+        new SimpleConcreteEdge(vertex0, vertex1);
+
+        // when
+        CompletableFuture<Void> graphQLStage = graph.indexInStages(new DefaultStreetVertexIndexFactory());
+
+        // then
+        assertNotNull(graph.streetIndex);
+        assertNotNull(graph.index);
+        assertEquals(vertex1, graph.getVertexById(vertex1.getIndex()));
+
+        graphQLStage.join();
+        assertTrue(graph.routerHealth.isGraphQLIndex());
+        assertNotNull(graph.index.graphQL);
+    }
+
+    @Test
+    public void shouldReportFailedStageOfIndexing() {
+        // given
+        Graph graph = new Graph();
+        CompletableFuture<Void> graphQLStage = new CompletableFuture<>();
+        graph.reportFailureOf(graphQLStage);
+
+        // when
+        graphQLStage.completeExceptionally(new IllegalStateException("failed"));
+
+        // then
+        assertEquals("graphQLIndex", graph.routerHealth.getFailedIndexStage());
+        assertFalse(graph.routerHealth.isGraphQLIndex());
+    }
 }
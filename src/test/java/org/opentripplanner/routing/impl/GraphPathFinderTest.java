@@ -0,0 +1,155 @@
+package org.opentripplanner.routing.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.vehicle_sharing.CarDescription;
+import org.opentripplanner.routing.core.vehicle_sharing.FuelType;
+import org.opentripplanner.routing.core.vehicle_sharing.Gearbox;
+import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphPathFinderTest {
+
+    private static final CarDescription PANEK_CAR = new CarDescription("1", 0, 0, FuelType.ELECTRIC,
+            Gearbox.AUTOMATIC, new Provider(2, "PANEK"));
+
+    private static final CarDescription TRAFICAR_CAR = new CarDescription("2", 0, 0, FuelType.ELECTRIC,
+            Gearbox.AUTOMATIC, new Provider(3, "TRAFICAR"));
+
+    private RoutingRequest options;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        Graph graph = new Graph();
+        options = new RoutingRequest();
+        options.setRoutingContext(graph, new SimpleConcreteVertex(graph, "v1", 0, 0),
+                new SimpleConcreteVertex(graph, "v2", 0, 0.001));
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static GraphPath mockGraphPath(long endTime, CarDescription rentedVehicle) {
+        GraphPath path = mock(GraphPath.class);
+        when(path.getEndTime()).thenReturn(endTime);
+        State state = mock(State.class);
+        when(state.isCurrentlyRentingVehicle()).thenReturn(rentedVehicle != null);
+        when(state.getCurrentVehicle()).thenReturn(rentedVehicle);
+        path.states = new LinkedList<>(singletonList(state));
+        return path;
+    }
+
+    @Test
+    public void shouldPickBestPathsRentingFromDifferentProviders() {
+        // given
+        GraphPath panek = mockGraphPath(10, PANEK_CAR);
+        GraphPath slowerPanek = mockGraphPath(12, PANEK_CAR);
+        GraphPath walking = mockGraphPath(15, null);
+        GraphPath slowerWalking = mockGraphPath(16, null);
+        GraphPath traficar = mockGraphPath(20, TRAFICAR_CAR);
+        options.setNumItineraries(3);
+
+        // when
+        List<GraphPath> paths = GraphPathFinder.pickDiversePaths(options,
+                new ArrayList<>(Arrays.asList(traficar, slowerWalking, slowerPanek, walking, panek)));
+
+        // then
+        assertEquals(Arrays.asList(panek, walking, traficar), paths);
+    }
+
+    @Test
+    public void shouldCollectPathsOfAllSearches() {
+        // given
+        GraphPath first = mockGraphPath(10, PANEK_CAR);
+        GraphPath second = mockGraphPath(20, TRAFICAR_CAR);
+        List<Future<List<GraphPath>>> searches = Arrays.asList(
+                CompletableFuture.completedFuture(singletonList(first)),
+                CompletableFuture.completedFuture(singletonList(second)));
+
+        // when
+        List<GraphPath> paths = GraphPathFinder.collectPaths(options.rctx, searches,
+                System.currentTimeMillis() + 1000);
+
+        // then
+        assertEquals(Arrays.asList(first, second), paths);
+        assertFalse(options.rctx.aborted);
+        assertFalse(options.rctx.areSearchesAborted());
+    }
+
+    @Test
+    public void shouldAbortAndWaitForSearchesRunningAfterTimeout() {
+        // given
+        RoutingRequest searchOptions = options.clone();
+        searchOptions.rctx = new RoutingContext(searchOptions, options.rctx);
+        GraphPath found = mockGraphPath(10, PANEK_CAR);
+        Future<List<GraphPath>> fast = executor.submit(() -> singletonList(found));
+        Future<List<GraphPath>> slow = executor.submit(() -> {
+            // Same as A*, which stops only when searches are aborted
+            while (!searchOptions.rctx.areSearchesAborted()) {
+                Thread.sleep(1);
+            }
+            return null;
+        });
+
+        // when
+        List<GraphPath> paths = GraphPathFinder.collectPaths(options.rctx, Arrays.asList(fast, slow),
+                System.currentTimeMillis() + 100);
+
+        // then
+        assertEquals(singletonList(found), paths);
+        assertTrue(options.rctx.aborted);
+        assertTrue(options.rctx.areSearchesAborted());
+        assertTrue(slow.isDone());
+    }
+
+    @Test
+    public void shouldWaitForOtherSearchesWhenSearchFails() {
+        // given
+        CompletableFuture<List<GraphPath>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("failed"));
+        Future<List<GraphPath>> slow = executor.submit(() -> {
+            while (!options.rctx.areSearchesAborted()) {
+                Thread.sleep(1);
+            }
+            return null;
+        });
+
+        // when
+        try {
+            GraphPathFinder.collectPaths(options.rctx, Arrays.asList(failed, slow), System.currentTimeMillis() + 10_000);
+            fail();
+        } catch (IllegalStateException e) {
+            // then
+            assertEquals("failed", e.getMessage());
+        }
+        assertTrue(slow.isDone());
+    }
+}
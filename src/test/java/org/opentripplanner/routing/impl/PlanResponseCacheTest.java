@@ -0,0 +1,138 @@
+package org.opentripplanner.routing.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.api.model.Itinerary;
+import org.opentripplanner.api.model.TripPlan;
+import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class PlanResponseCacheTest {
+
+    private Graph graph;
+
+    private PlanResponseCache planResponseCache;
+
+    private TripPlan plan;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        planResponseCache = new PlanResponseCache(1);
+        plan = new TripPlan();
+        plan.addItinerary(new Itinerary());
+    }
+
+    private static RoutingRequest request(double fromLat, long dateTime) {
+        RoutingRequest request = new RoutingRequest();
+        request.from = new GenericLocation(fromLat, 19.0);
+        request.to = new GenericLocation(52.2, 21.0);
+        request.dateTime = dateTime;
+        return request;
+    }
+
+    private static Map<String, List<String>> parameters(String mode) {
+        Map<String, List<String>> parameters = new HashMap<>();
+        parameters.put("mode", Collections.singletonList(mode));
+        parameters.put("fromPlace", Collections.singletonList("50.0,19.0"));
+        return parameters;
+    }
+
+    @Test
+    public void shouldReturnPlanForIdenticalRequest() {
+        // given
+        planResponseCache.put(planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph),
+                plan, graph);
+
+        // when
+        TripPlan cached = planResponseCache.get(
+                planResponseCache.keyFor(parameters("WALK"), request(50.000001, 1_000_000_050), graph));
+
+        // then
+        assertNotSame(plan, cached);
+        assertEquals(plan.itinerary, cached.itinerary);
+    }
+
+    @Test
+    public void shouldNotExposeCachedPlanToModifications() {
+        // given
+        PlanResponseCache.Key key = planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph);
+        planResponseCache.put(key, plan, graph);
+        Itinerary cachedItinerary = plan.itinerary.get(0);
+
+        // when
+        plan.addItinerary(new Itinerary());
+        planResponseCache.get(key).itinerary.clear();
+
+        // then
+        assertEquals(Collections.singletonList(cachedItinerary), planResponseCache.get(key).itinerary);
+    }
+
+    @Test
+    public void shouldNotCachePlanWithoutItineraries() {
+        // given
+        PlanResponseCache.Key key = planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph);
+
+        // when
+        planResponseCache.put(key, new TripPlan(), graph);
+
+        // then
+        assertNull(planResponseCache.get(key));
+        assertEquals(0, planResponseCache.size());
+    }
+
+    @Test
+    public void shouldNotReturnPlanForDifferentRequest() {
+        // given
+        planResponseCache.put(planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph),
+                plan, graph);
+
+        // then
+        assertNull(planResponseCache.get(
+                planResponseCache.keyFor(parameters("CAR"), request(50.0, 1_000_000_020), graph)));
+        assertNull(planResponseCache.get(
+                planResponseCache.keyFor(parameters("WALK"), request(50.001, 1_000_000_020), graph)));
+        assertNull(planResponseCache.get(
+                planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_080), graph)));
+    }
+
+    @Test
+    public void shouldDropPlansWhenGraphIsUpdated() {
+        // given
+        PlanResponseCache.Key key = planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph);
+        planResponseCache.put(key, plan, graph);
+
+        // when
+        graph.publishTrafficSpeedOverlay(new TrafficSpeedOverlay(1, new float[0]));
+
+        // then
+        assertNull(planResponseCache.get(
+                planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph)));
+        assertNull(planResponseCache.get(key));
+        assertEquals(0, planResponseCache.size());
+    }
+
+    @Test
+    public void shouldNotCachePlanComputedBeforeGraphUpdate() {
+        // given
+        PlanResponseCache.Key key = planResponseCache.keyFor(parameters("WALK"), request(50.0, 1_000_000_020), graph);
+
+        // when
+        graph.publishTrafficSpeedOverlay(new TrafficSpeedOverlay(1, new float[0]));
+        planResponseCache.put(key, plan, graph);
+
+        // then
+        assertEquals(0, planResponseCache.size());
+    }
+}
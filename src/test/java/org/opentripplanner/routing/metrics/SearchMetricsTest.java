@@ -0,0 +1,86 @@
+package org.opentripplanner.routing.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchMetricsTest {
+
+    private Graph graph;
+    private Vertex v1, v2, v3;
+
+    private SearchMetrics searchMetrics;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        v1 = new SimpleConcreteVertex(graph, "v1", 0, 0);
+        v2 = new SimpleConcreteVertex(graph, "v2", 0, 0.001);
+        v3 = new SimpleConcreteVertex(graph, "v3", 0, 0.002);
+        new SimpleConcreteEdge(v1, v2);
+        new SimpleConcreteEdge(v2, v3);
+        new SimpleConcreteEdge(v1, v3);
+
+        searchMetrics = new SearchMetrics("default");
+    }
+
+    private RoutingRequest search(Vertex from, Vertex to) {
+        RoutingRequest options = new RoutingRequest();
+        options.setModes(new TraverseModeSet("WALK"));
+        options.setRoutingContext(graph, from, to);
+        new AStar().getShortestPathTree(options);
+        return options;
+    }
+
+    @Test
+    public void shouldCountStatesOfSearch() {
+        // when
+        RoutingRequest options = search(v1, v3);
+
+        // then
+        SearchCounters counters = options.rctx.searchCounters;
+        assertTrue(counters.getStatesCreated() >= 2);
+        assertTrue(counters.getStatesVisited() >= 2);
+        assertTrue(counters.getStatesCreated() >= counters.getStatesVisited() - 1);
+        assertTrue(counters.getPeakQueueSize() >= 1);
+        assertFalse(counters.isTimedOut());
+    }
+
+    @Test
+    public void shouldPublishHistogramsPerModeSet() {
+        // given
+        searchMetrics.record(search(v1, v3), 1_000_000);
+        searchMetrics.record(search(v2, v3), 1_000_000);
+
+        // when
+        String text = searchMetrics.toPrometheusText(graph, null);
+
+        // then
+        assertTrue(text.contains("# TYPE otp_search_states_created histogram\n"));
+        assertTrue(text.contains(
+                "otp_search_itinerary_conversion_seconds_bucket{router=\"default\",modes=\"WALK\",profile=\"OriginalOptimizationProfile\",le=\"0.001\"} 2\n"));
+        assertTrue(text.contains(
+                "otp_search_states_visited_count{router=\"default\",modes=\"WALK\",profile=\"OriginalOptimizationProfile\"} 2\n"));
+        assertTrue(text.contains(
+                "otp_search_timeouts_total{router=\"default\",modes=\"WALK\",profile=\"OriginalOptimizationProfile\"} 0\n"));
+        assertTrue(text.contains("otp_cache_size{router=\"default\",cache=\"snapped_locations\"} 0\n"));
+    }
+
+    @Test
+    public void shouldSkipRequestsWithoutRoutingContext() {
+        // when
+        searchMetrics.record(new RoutingRequest(), 0);
+
+        // then
+        assertFalse(searchMetrics.toPrometheusText(graph, null).contains("modes="));
+    }
+}
@@ -0,0 +1,147 @@
+package org.opentripplanner.routing.spt;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.graph.SimpleConcreteVertex;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class VertexIndexedShortestPathTreeTest {
+
+    private Graph graph;
+
+    private Vertex v1, v2, v3, v4;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        v1 = new SimpleConcreteVertex(graph, "v1", 47.669457, -122.387577);
+        v2 = new SimpleConcreteVertex(graph, "v2", 47.669462, -122.384739);
+        v3 = new SimpleConcreteVertex(graph, "v3", 47.668690, -122.387577);
+        v4 = new SimpleConcreteVertex(graph, "v4", 47.668686, -122.384749);
+        edges(v1, v2);
+        edges(v1, v3);
+        edges(v2, v4);
+        edges(v3, v4);
+    }
+
+    private static void edges(Vertex a, Vertex b) {
+        new SimpleConcreteEdge(a, b);
+        new SimpleConcreteEdge(b, a);
+    }
+
+    private RoutingRequest createRequest(DominanceFunction dominanceFunction) {
+        RoutingRequest options = new RoutingRequest();
+        options.walkSpeed = 1.0;
+        options.dominanceFunction = dominanceFunction;
+        options.setRoutingContext(graph, v1, v4);
+        return options;
+    }
+
+    @Test
+    public void shouldFindSameStatesAsShortestPathTree() {
+        // given
+        RoutingRequest options = createRequest(new DominanceFunction.MinimumWeight());
+        RoutingRequest indexedOptions = createRequest(new DominanceFunction.MinimumWeight().useVertexIndexedShortestPathTree());
+
+        // when
+        ShortestPathTree tree = new AStar().getShortestPathTree(options);
+        ShortestPathTree indexedTree = new AStar().getShortestPathTree(indexedOptions);
+
+        // then
+        assertTrue(indexedTree instanceof VertexIndexedShortestPathTree);
+        assertEquals(tree.getVertices(), indexedTree.getVertices());
+        assertEquals(tree.getAllStates().size(), indexedTree.getAllStates().size());
+        for (Vertex vertex : tree.getVertices()) {
+            assertEquals(tree.getState(vertex).getWeight(), indexedTree.getState(vertex).getWeight(), 0.001);
+        }
+        assertEquals(tree.getPath(v4, false).states.size(), indexedTree.getPath(v4, false).states.size());
+    }
+
+    @Test
+    public void shouldKeepOnlyNonDominatedStates() {
+        // given
+        RoutingRequest options = createRequest(new DominanceFunction.MinimumWeight());
+        ShortestPathTree tree = new VertexIndexedShortestPathTree(options, options.dominanceFunction);
+        Edge edgeToV1 = v1.getIncoming().iterator().next();
+        State worse = edgeToV1.traverse(new State(edgeToV1.getFromVertex(), options));
+        State better = new State(v1, options);
+        State state = new State(v1, options);
+
+        // when
+        boolean worseAdded = tree.add(worse);
+        boolean betterAdded = tree.add(better);
+        boolean equalAdded = tree.add(state);
+
+        // then
+        assertTrue(worseAdded);
+        assertTrue(betterAdded);
+        assertFalse(equalAdded);
+        assertFalse(tree.visit(worse));
+        assertTrue(tree.visit(better));
+        assertEquals(Collections.singletonList(better), tree.getStates(v1));
+        assertNull(tree.getStates(v2));
+        assertEquals(1, tree.getVertexCount());
+    }
+
+    @Test
+    public void shouldReuseReleasedStorageOnTheSameThread() {
+        // given
+        RoutingRequest options = createRequest(new DominanceFunction.MinimumWeight());
+        ShortestPathTree tree = new VertexIndexedShortestPathTree(options, options.dominanceFunction);
+        tree.add(new State(v1, options));
+
+        // when
+        tree.release();
+        ShortestPathTree nextTree = new VertexIndexedShortestPathTree(options, options.dominanceFunction);
+
+        // then
+        assertEquals(0, nextTree.getVertexCount());
+        assertNull(nextTree.getStates(v1));
+    }
+
+    @Test
+    public void shouldKeepStorageBoundedWhileTemporaryVerticesAreCreated() {
+        // given
+        RoutingRequest options = createRequest(new DominanceFunction.MinimumWeight());
+        VertexStateStorage storage = VertexStateStorage.acquire();
+        storage.release();
+        int capacity = storage.getCapacity();
+
+        // when
+        for (int search = 0; search < 10_000; search++) {
+            TemporaryStreetLocation temporaryVertex = new TemporaryStreetLocation("temporary",
+                    new Coordinate(-122.386, 47.669), new NonLocalizedString("temporary"), false);
+            new TemporaryFreeEdge(temporaryVertex, v1);
+            ShortestPathTree tree = new VertexIndexedShortestPathTree(options, options.dominanceFunction);
+            tree.add(new State(v1, options));
+            tree.add(new State(temporaryVertex, options));
+            assertEquals(2, tree.getVertexCount());
+            assertEquals(1, tree.getStates(temporaryVertex).size());
+            tree.release();
+            TemporaryVertex.dispose(temporaryVertex);
+        }
+
+        // then
+        VertexStateStorage reused = VertexStateStorage.acquire();
+        assertSame(storage, reused);
+        assertEquals(capacity, reused.getCapacity());
+        assertEquals(0, reused.getUsedSlotsCount());
+        assertEquals(2, v1.getIncoming().size());
+        reused.release();
+    }
+}
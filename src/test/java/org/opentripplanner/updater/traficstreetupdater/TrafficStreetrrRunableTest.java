@@ -0,0 +1,99 @@
+package org.opentripplanner.updater.traficstreetupdater;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.core.TrafficSpeedOverlay;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.OsmVertex;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class TrafficStreetrrRunableTest {
+
+    private Graph graph;
+
+    private StreetEdge edge1;
+
+    private StreetEdge edge2;
+
+    private StreetEdgesByOsmNodes streetEdgesByOsmNodes;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        OsmVertex v1 = new OsmVertex(graph, "v1", 0, 0, 1);
+        OsmVertex v2 = new OsmVertex(graph, "v2", 0, 0.01, 2);
+        OsmVertex v3 = new OsmVertex(graph, "v3", 0.01, 0.01, 3);
+        edge1 = edge(v1, v2);
+        edge2 = edge(v2, v3);
+        streetEdgesByOsmNodes = StreetEdgesByOsmNodes.build(graph);
+    }
+
+    private static StreetEdge edge(OsmVertex from, OsmVertex to) {
+        LineString geometry = GeometryUtils.getGeometryFactory()
+                .createLineString(new Coordinate[]{from.getCoordinate(), to.getCoordinate()});
+        return new StreetEdge(from, to, geometry, "street", 1000, StreetTraversalPermission.ALL, false);
+    }
+
+    private static EdgeDataWithSpeed update(long startNodeId, long endNodeId, int speed) {
+        EdgeDataWithSpeed update = new EdgeDataWithSpeed();
+        update.setStartnodeid(startNodeId);
+        update.setEndnodeid(endNodeId);
+        update.setSpeed(speed);
+        return update;
+    }
+
+    @Test
+    public void shouldSetSpeedsOnlyForEdgesInTrafficFeed() {
+        // given
+        TrafficStreetrrRunable runnable = new TrafficStreetrrRunable(streetEdgesByOsmNodes,
+                singletonList(update(1, 2, 5)));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        TrafficSpeedOverlay overlay = graph.getTrafficSpeedOverlay();
+        assertEquals(1, overlay.getVersion());
+        assertEquals(5, overlay.getSpeed(edge1), 0);
+        assertEquals(TrafficSpeedOverlay.NO_SPEED, overlay.getSpeed(edge2), 0);
+        assertTrue(graph.routerHealth.isTraffic());
+    }
+
+    @Test
+    public void shouldKeepSpeedsFromPreviousUpdateAndNotChangePinnedOverlay() {
+        // given
+        new TrafficStreetrrRunable(streetEdgesByOsmNodes, singletonList(update(1, 2, 0))).run(graph);
+        TrafficSpeedOverlay pinnedOverlay = graph.getTrafficSpeedOverlay();
+
+        // when
+        new TrafficStreetrrRunable(streetEdgesByOsmNodes, singletonList(update(2, 3, 7))).run(graph);
+
+        // then
+        TrafficSpeedOverlay overlay = graph.getTrafficSpeedOverlay();
+        assertTrue(overlay.isClosed(edge1));
+        assertEquals(7, overlay.getSpeed(edge2), 0);
+        assertEquals(TrafficSpeedOverlay.NO_SPEED, pinnedOverlay.getSpeed(edge2), 0);
+    }
+
+    @Test
+    public void shouldIgnoreUpdatesOfUnknownEdges() {
+        // given
+        TrafficStreetrrRunable runnable = new TrafficStreetrrRunable(streetEdgesByOsmNodes,
+                singletonList(update(3, 1, 5)));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        assertEquals(TrafficSpeedOverlay.NO_SPEED, graph.getTrafficSpeedOverlay().getSpeed(edge1), 0);
+        assertEquals(TrafficSpeedOverlay.NO_SPEED, graph.getTrafficSpeedOverlay().getSpeed(edge2), 0);
+    }
+}
@@ -3,7 +3,9 @@ package org.opentripplanner.updater.vehicle_sharing.parking_zones;
 import org.junit.Before;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.routing.core.vehicle_sharing.*;
 import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
 import org.opentripplanner.routing.edgetype.rentedgetype.SingleParkingZone;
@@ -16,18 +18,15 @@ import static com.google.common.collect.ImmutableList.of;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
-import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 public class ParkingZonesCalculatorTest {
 
     private static final CarDescription CAR_1 = new CarDescription("1", 0, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(1, "PANEK"));
 
+    private static final Geometry GEOMETRY_CONTAINING_VERTEX = createSquare(1, 2, 2, 3);
+    private static final Geometry GEOMETRY_NOT_CONTAINING_VERTEX = createSquare(5, 5, 6, 6);
+
     private Vertex vertex;
-    private Geometry geometryAllowed;
-    private Geometry geometryDisallowed;
-    private ParkingZonesCalculator calculator;
 
     private final GeometryParkingZone geometryParkingZone1 = new GeometryParkingZone(1, VehicleType.CAR, null, null);
     private final GeometryParkingZone geometryParkingZone2 = new GeometryParkingZone(1, VehicleType.MOTORBIKE, null, null);
@@ -36,10 +35,15 @@ public class ParkingZonesCalculatorTest {
     @Before
     public void setUp() {
         vertex = new StreetLocation("id", new Coordinate(1.1, 2.2), "name");
-        geometryAllowed = mock(Geometry.class);
-        geometryDisallowed = mock(Geometry.class);
+    }
+
+    private static Geometry createSquare(double minX, double minY, double maxX, double maxY) {
+        return GeometryUtils.getGeometryFactory().toGeometry(new Envelope(minX, maxX, minY, maxY));
+    }
+
+    private ParkingZonesCalculator createCalculator(Geometry geometryAllowed, Geometry geometryDisallowed) {
         GeometryParkingZone geometryParkingZone = new GeometryParkingZone(1, VehicleType.CAR, singletonList(geometryAllowed), singletonList(geometryDisallowed));
-        calculator = new ParkingZonesCalculator(singletonList(geometryParkingZone), emptyList());
+        return new ParkingZonesCalculator(singletonList(geometryParkingZone), emptyList());
     }
 
     @Test
@@ -71,8 +75,7 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldNotAllowToParkInsideGeometryDisallowed() {
         // given
-        when(geometryAllowed.contains(any())).thenReturn(true);
-        when(geometryDisallowed.contains(any())).thenReturn(true);
+        ParkingZonesCalculator calculator = createCalculator(GEOMETRY_CONTAINING_VERTEX, GEOMETRY_CONTAINING_VERTEX);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
@@ -84,8 +87,7 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldAllowToParkInsideGeometryAllowed() {
         // given
-        when(geometryAllowed.contains(any())).thenReturn(true);
-        when(geometryDisallowed.contains(any())).thenReturn(false);
+        ParkingZonesCalculator calculator = createCalculator(GEOMETRY_CONTAINING_VERTEX, GEOMETRY_NOT_CONTAINING_VERTEX);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
@@ -97,7 +99,7 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldNotAllowToParkOutsideGeometryAllowed() {
         // given
-        when(geometryAllowed.contains(any())).thenReturn(false);
+        ParkingZonesCalculator calculator = createCalculator(GEOMETRY_NOT_CONTAINING_VERTEX, GEOMETRY_NOT_CONTAINING_VERTEX);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
@@ -109,9 +111,8 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldAllowToParkOutsideOfCityGovForbiddenParkingZone() {
         // given
-        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(geometryDisallowed));
+        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(GEOMETRY_NOT_CONTAINING_VERTEX));
         ParkingZonesCalculator calculator = new ParkingZonesCalculator(emptyList(), singletonList(geom));
-        when(geometryDisallowed.contains(any())).thenReturn(false);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
@@ -123,9 +124,8 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldNotAllowToParkInsideCityGovForbiddenParkingZone() {
         // given
-        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(geometryDisallowed));
+        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(GEOMETRY_CONTAINING_VERTEX));
         ParkingZonesCalculator calculator = new ParkingZonesCalculator(emptyList(), singletonList(geom));
-        when(geometryDisallowed.contains(any())).thenReturn(true);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
@@ -137,9 +137,8 @@ public class ParkingZonesCalculatorTest {
     @Test
     public void shouldCreateProperParkingZoneForCityGovStationInsideForbiddenZone() {
         // given
-        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(geometryDisallowed));
+        GeometriesDisallowedForVehicleType geom = new GeometriesDisallowedForVehicleType(VehicleType.CAR, singletonList(GEOMETRY_CONTAINING_VERTEX));
         ParkingZonesCalculator calculator = new ParkingZonesCalculator(emptyList(), singletonList(geom));
-        when(geometryDisallowed.contains(any())).thenReturn(true);
 
         // when
         ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex, VehicleType.CAR);
@@ -147,4 +146,43 @@ public class ParkingZonesCalculatorTest {
         // then
         assertTrue(parkingZones.canDropoffVehicleHere(CAR_1));
     }
+
+    @Test
+    public void shouldFindParkingZonesOnlyForGeometriesContainingVertex() {
+        // given
+        GeometryParkingZone carZone = new GeometryParkingZone(1, VehicleType.CAR,
+                singletonList(GEOMETRY_CONTAINING_VERTEX), emptyList());
+        GeometryParkingZone motorbikeZone = new GeometryParkingZone(1, VehicleType.MOTORBIKE,
+                of(GEOMETRY_NOT_CONTAINING_VERTEX, GEOMETRY_CONTAINING_VERTEX), emptyList());
+        GeometryParkingZone kickscooterZone = new GeometryParkingZone(2, VehicleType.KICKSCOOTER,
+                singletonList(GEOMETRY_NOT_CONTAINING_VERTEX), emptyList());
+        ParkingZonesCalculator calculator = new ParkingZonesCalculator(of(carZone, motorbikeZone, kickscooterZone), emptyList());
+
+        // when
+        ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
+
+        // then
+        assertTrue(parkingZones.canDropoffVehicleHere(CAR_1));
+        assertTrue(parkingZones.canDropoffVehicleHere(new MotorbikeDescription("2", 0, 0, FuelType.ELECTRIC,
+                Gearbox.AUTOMATIC, new Provider(1, "PANEK"))));
+        assertFalse(parkingZones.canDropoffVehicleHere(new KickScooterDescription("3", 0, 0, FuelType.ELECTRIC,
+                Gearbox.AUTOMATIC, new Provider(2, "PANEK"))));
+    }
+
+    @Test
+    public void shouldShareParkingZoneInfoBetweenLocationsInTheSameZones() {
+        // given
+        ParkingZonesCalculator calculator = createCalculator(GEOMETRY_CONTAINING_VERTEX, GEOMETRY_NOT_CONTAINING_VERTEX);
+        Vertex otherVertex = new StreetLocation("id2", new Coordinate(1.5, 2.5), "name2");
+        Vertex vertexOutsideZones = new StreetLocation("id3", new Coordinate(10, 10), "name3");
+
+        // when
+        ParkingZoneInfo parkingZones = calculator.getParkingZonesForLocation(vertex);
+        ParkingZoneInfo otherParkingZones = calculator.getParkingZonesForLocation(otherVertex);
+        ParkingZoneInfo parkingZonesOutside = calculator.getParkingZonesForLocation(vertexOutsideZones);
+
+        // then
+        assertSame(parkingZones, otherParkingZones);
+        assertNotEquals(parkingZones, parkingZonesOutside);
+    }
 }
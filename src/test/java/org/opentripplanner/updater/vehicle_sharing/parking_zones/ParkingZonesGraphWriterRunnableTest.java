@@ -0,0 +1,89 @@
+package org.opentripplanner.updater.vehicle_sharing.parking_zones;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.core.vehicle_sharing.CarDescription;
+import org.opentripplanner.routing.core.vehicle_sharing.FuelType;
+import org.opentripplanner.routing.core.vehicle_sharing.Gearbox;
+import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleType;
+import org.opentripplanner.routing.edgetype.rentedgetype.DropoffVehicleEdge;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZoneInfo;
+import org.opentripplanner.routing.edgetype.rentedgetype.ParkingZonesOverlay;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.StreetVertexIndexServiceImpl;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class ParkingZonesGraphWriterRunnableTest {
+
+    private static final CarDescription CAR_1 = new CarDescription("1", 0, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(1, "PANEK"));
+
+    private static final Geometry GEOMETRY_CONTAINING_VERTEX = createSquare(1, 2, 2, 3);
+    private static final Geometry GEOMETRY_NOT_CONTAINING_VERTEX = createSquare(5, 5, 6, 6);
+
+    private Graph graph;
+
+    private DropoffVehicleEdge edge;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        IntersectionVertex vertex = new IntersectionVertex(graph, "vertex", 1.5, 2.5);
+        IntersectionVertex otherVertex = new IntersectionVertex(graph, "other vertex", 5.5, 5.5);
+        ParkingZonesCalculator calculator = new ParkingZonesCalculator(createParkingZones(GEOMETRY_CONTAINING_VERTEX), emptyList());
+        edge = new DropoffVehicleEdge(vertex, calculator.getParkingZonesForLocation(vertex));
+        new DropoffVehicleEdge(otherVertex, calculator.getParkingZonesForLocation(otherVertex));
+        graph.parkingZonesCalculator = calculator;
+        graph.streetIndex = new StreetVertexIndexServiceImpl(graph);
+    }
+
+    private static Geometry createSquare(double minX, double minY, double maxX, double maxY) {
+        return GeometryUtils.getGeometryFactory().toGeometry(new Envelope(minX, maxX, minY, maxY));
+    }
+
+    private static List<GeometryParkingZone> createParkingZones(Geometry geometryAllowed) {
+        return singletonList(new GeometryParkingZone(1, VehicleType.CAR, singletonList(geometryAllowed), emptyList()));
+    }
+
+    @Test
+    public void shouldRecomputeParkingZonesOfEdgesInChangedRegions() {
+        // given
+        List<GeometryParkingZone> geometryParkingZones = createParkingZones(GEOMETRY_NOT_CONTAINING_VERTEX);
+        ParkingZonesGraphWriterRunnable runnable = new ParkingZonesGraphWriterRunnable(geometryParkingZones, null);
+
+        // when
+        runnable.run(graph);
+
+        // then
+        ParkingZonesOverlay overlay = graph.getParkingZonesOverlay();
+        assertEquals(1, overlay.getVersion());
+        ParkingZoneInfo parkingZones = overlay.getParkingZones(edge, null);
+        assertNotNull(parkingZones);
+        assertFalse(parkingZones.canDropoffVehicleHere(CAR_1));
+        assertSame(geometryParkingZones, graph.parkingZonesCalculator.getGeometryParkingZones());
+    }
+
+    @Test
+    public void shouldKeepParkingZonesOverlayWhenNothingChanged() {
+        // given
+        ParkingZonesCalculator calculator = graph.parkingZonesCalculator;
+        ParkingZonesGraphWriterRunnable runnable = new ParkingZonesGraphWriterRunnable(
+                createParkingZones(GEOMETRY_CONTAINING_VERTEX), null);
+
+        // when
+        runnable.run(graph);
+
+        // then
+        assertSame(ParkingZonesOverlay.EMPTY, graph.getParkingZonesOverlay());
+        assertSame(calculator, graph.parkingZonesCalculator);
+    }
+}
@@ -12,6 +12,8 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CarPresencePredictorTest {
 
@@ -93,5 +95,31 @@ public class CarPresencePredictorTest {
 
     }
 
+    @Test
+    public void testPrecomputedProbabilitiesMatchPredictions() {
+        // given
+        long[] times = {10, MINUTE * 8, MINUTE * 25, MINUTE * 40, MINUTE * 500};
 
-}
\ No newline at end of file
+        VehiclePresence vehiclePresence = prepareHeatMap();
+        vehiclePresence.setPredictions_15(List.of(createPrediction(1, 1, 0.9), createPrediction(1.001, 1, 0.8)));
+        vehiclePresence.setPredictions_30(List.of(createPrediction(1, 1, 0.7)));
+        vehiclePresence.setPredictions_45(Collections.emptyList());
+        CarPresencePredictor carPresencePredictor = new CarPresencePredictor(vehiclePresence);
+
+        CarDescription carDescription = new CarDescription("id", 1.0015, 1.0005, FuelType.HYBRID, Gearbox.AUTOMATIC, 0, "innogy", 100000.0);
+        CarDescription otherCarDescription = new CarDescription("id", 1.0005, 1.0005, FuelType.HYBRID, Gearbox.AUTOMATIC, 0, "innogy", 100000.0);
+
+        // when
+        VehiclePresenceProbabilities probabilities = carPresencePredictor.predictAllHorizons(carDescription);
+
+        // then
+        assertTrue(probabilities.isComputedFor(carPresencePredictor, carDescription));
+        assertFalse(probabilities.isComputedFor(carPresencePredictor, otherCarDescription));
+        assertFalse(probabilities.isComputedFor(new CarPresencePredictor(vehiclePresence), carDescription));
+        for (long time : times) {
+            assertEquals(carPresencePredictor.predict(carDescription, time), probabilities.get(time), 0);
+        }
+        assertEquals(0.8, probabilities.get(MINUTE * 8), 0.0001);
+        assertEquals(0, probabilities.get(MINUTE * 25), 0.0001);
+    }
+}
@@ -8,7 +8,13 @@ import org.opentripplanner.routing.core.vehicle_sharing.CarDescription;
 import org.opentripplanner.routing.core.vehicle_sharing.FuelType;
 import org.opentripplanner.routing.core.vehicle_sharing.Gearbox;
 import org.opentripplanner.routing.core.vehicle_sharing.Provider;
+import org.opentripplanner.routing.core.vehicle_sharing.RentableVehicleOverlay;
+import org.opentripplanner.routing.core.vehicle_sharing.VehicleDescription;
+import org.opentripplanner.routing.core.vehicle_sharing.VehiclePricingPackage;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.edgetype.rentedgetype.RentVehicleEdge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.TemporaryRentVehicleVertex;
 
 import java.time.LocalTime;
@@ -24,6 +30,8 @@ public class VehicleSharingGraphWriterRunnableTest {
 
     private static final CarDescription CAR_1 = new CarDescription("1", 0, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(2, "PANEK"));
     private static final CarDescription CAR_2 = new CarDescription("2", 1, 1, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(2, "PANEK"));
+    private static final CarDescription CAR_1_MOVED = new CarDescription("1", 0.001, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(2, "PANEK"));
+    private static final CarDescription CAR_1_CHARGED = new CarDescription("1", 0, 0, FuelType.ELECTRIC, Gearbox.AUTOMATIC, new Provider(2, "PANEK"), 1000., new VehiclePricingPackage());
 
     private Graph graph;
 
@@ -46,7 +54,8 @@ public class VehicleSharingGraphWriterRunnableTest {
     @Test
     public void shouldAddAppearedRentableVehicles() {
         // given
-        when(temporaryStreetSplitter.linkRentableVehicleToGraph(CAR_1)).thenReturn(Optional.of(vertex));
+        when(temporaryStreetSplitter.linkRentableVehiclesToGraph(singletonList(CAR_1), 1))
+                .thenReturn(singletonMap(CAR_1, Optional.of(vertex)));
         VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
                 singletonList(CAR_1), singleton(new Provider(2, "PANEK")));
 
@@ -54,9 +63,9 @@ public class VehicleSharingGraphWriterRunnableTest {
         runnable.run(graph);
 
         // then
-        assertEquals(1, graph.vehiclesTriedToLink.size());
-        assertTrue(graph.vehiclesTriedToLink.containsKey(CAR_1));
-        verify(temporaryStreetSplitter, times(1)).linkRentableVehicleToGraph(CAR_1);
+        assertEquals(1, graph.getRentableVehicleOverlay().getVehiclesTriedToLink().size());
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().containsKey(CAR_1));
+        verify(temporaryStreetSplitter, times(1)).linkRentableVehiclesToGraph(singletonList(CAR_1), 1);
         verifyNoMoreInteractions(temporaryStreetSplitter);
         assertEquals(1, graph.getLastProviderVehiclesUpdateTimestamps().size());
         assertTrue(graph.getLastProviderVehiclesUpdateTimestamps().containsKey(new Provider(2, "PANEK")));
@@ -65,7 +74,7 @@ public class VehicleSharingGraphWriterRunnableTest {
     @Test
     public void shouldRemoveDisappearedRentableVehicles() {
         // given
-        graph.vehiclesTriedToLink.put(CAR_1, Optional.of(vertex));
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
         graph.getLastProviderVehiclesUpdateTimestamps().put(CAR_1.getProvider(),
                 LocalTime.now().minus(Graph.REMOVE_UNRESPONSIVE_PROVIDER_LIMIT_SECONDS+1, ChronoUnit.SECONDS));
         VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
@@ -75,7 +84,7 @@ public class VehicleSharingGraphWriterRunnableTest {
         runnable.run(graph);
 
         // then
-        assertTrue(graph.vehiclesTriedToLink.isEmpty());
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().isEmpty());
         verifyZeroInteractions(temporaryStreetSplitter);
         assertTrue(graph.getLastProviderVehiclesUpdateTimestamps().isEmpty());
     }
@@ -83,7 +92,7 @@ public class VehicleSharingGraphWriterRunnableTest {
     @Test
     public void shouldNotRemoveDisappearedRentableVehiclesDueToGracePeriod() {
         // given
-        graph.vehiclesTriedToLink.put(CAR_1, Optional.of(vertex));
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
         graph.getLastProviderVehiclesUpdateTimestamps().put(CAR_1.getProvider(),
                 LocalTime.now().minus(Graph.REMOVE_UNRESPONSIVE_PROVIDER_LIMIT_SECONDS, ChronoUnit.SECONDS));
         VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
@@ -93,8 +102,8 @@ public class VehicleSharingGraphWriterRunnableTest {
         runnable.run(graph);
 
         // then
-        assertEquals(1, graph.vehiclesTriedToLink.size());
-        assertTrue(graph.vehiclesTriedToLink.containsKey(CAR_1));
+        assertEquals(1, graph.getRentableVehicleOverlay().getVehiclesTriedToLink().size());
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().containsKey(CAR_1));
         verifyZeroInteractions(temporaryStreetSplitter);
         assertEquals(1, graph.getLastProviderVehiclesUpdateTimestamps().size());
         assertTrue(graph.getLastProviderVehiclesUpdateTimestamps().containsKey(new Provider(2, "PANEK")));
@@ -102,8 +111,9 @@ public class VehicleSharingGraphWriterRunnableTest {
 
     @Test
     public void shouldRemoveDisappearedRentableVehiclesAsProviderIsResponsive() {
-        graph.vehiclesTriedToLink.put(CAR_1, Optional.of(vertex));
-        when(temporaryStreetSplitter.linkRentableVehicleToGraph(CAR_2)).thenReturn(Optional.of(vertex2));
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
+        when(temporaryStreetSplitter.linkRentableVehiclesToGraph(singletonList(CAR_2), 2))
+                .thenReturn(singletonMap(CAR_2, Optional.of(vertex2)));
         //Grace period for provider is not exceeded
         graph.getLastProviderVehiclesUpdateTimestamps().put(CAR_1.getProvider(),
                 LocalTime.now().minus(Graph.REMOVE_UNRESPONSIVE_PROVIDER_LIMIT_SECONDS, ChronoUnit.SECONDS));
@@ -115,10 +125,10 @@ public class VehicleSharingGraphWriterRunnableTest {
         runnable.run(graph);
 
         // then
-        assertEquals(1, graph.vehiclesTriedToLink.size());
-        assertFalse(graph.vehiclesTriedToLink.containsKey(CAR_1));
-        assertTrue(graph.vehiclesTriedToLink.containsKey(CAR_2));
-        verify(temporaryStreetSplitter, times(1)).linkRentableVehicleToGraph(CAR_2);
+        assertEquals(1, graph.getRentableVehicleOverlay().getVehiclesTriedToLink().size());
+        assertFalse(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().containsKey(CAR_1));
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().containsKey(CAR_2));
+        verify(temporaryStreetSplitter, times(1)).linkRentableVehiclesToGraph(singletonList(CAR_2), 2);
         verifyNoMoreInteractions(temporaryStreetSplitter);
         assertEquals(1, graph.getLastProviderVehiclesUpdateTimestamps().size());
         assertTrue(graph.getLastProviderVehiclesUpdateTimestamps().containsKey(new Provider(2, "PANEK")));
@@ -127,7 +137,7 @@ public class VehicleSharingGraphWriterRunnableTest {
     @Test
     public void shouldPreserveExistingRentableVehicles() {
         // given
-        graph.vehiclesTriedToLink.put(CAR_1, Optional.of(vertex));
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
         VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
                 singletonList(CAR_1), singleton(new Provider(2, "PANEK")));
 
@@ -135,10 +145,132 @@ public class VehicleSharingGraphWriterRunnableTest {
         runnable.run(graph);
 
         // then
-        assertEquals(1, graph.vehiclesTriedToLink.size());
-        assertTrue(graph.vehiclesTriedToLink.containsKey(CAR_1));
+        assertEquals(1, graph.getRentableVehicleOverlay().getVehiclesTriedToLink().size());
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().containsKey(CAR_1));
         verifyZeroInteractions(temporaryStreetSplitter);
         assertEquals(1, graph.getLastProviderVehiclesUpdateTimestamps().size());
         assertTrue(graph.getLastProviderVehiclesUpdateTimestamps().containsKey(new Provider(2, "PANEK")));
     }
+
+    @Test
+    public void shouldPublishNewOverlayVersion() {
+        // given
+        RentVehicleEdge rentVehicleEdge = new RentVehicleEdge(vertex, CAR_1);
+        when(temporaryStreetSplitter.linkRentableVehiclesToGraph(singletonList(CAR_1), 1))
+                .thenReturn(singletonMap(CAR_1, Optional.of(vertex)));
+        RentableVehicleOverlay previousOverlay = graph.getRentableVehicleOverlay();
+        VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                singletonList(CAR_1), singleton(new Provider(2, "PANEK")));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        RentableVehicleOverlay overlay = graph.getRentableVehicleOverlay();
+        assertEquals(previousOverlay.getVersion() + 1, overlay.getVersion());
+        assertTrue(previousOverlay.getVehiclesTriedToLink().isEmpty());
+        assertTrue(overlay.getVehiclesTriedToLink().containsKey(CAR_1));
+        assertEquals(1, vertex.getOutgoing().size());
+        assertTrue(vertex.getOutgoing().contains(rentVehicleEdge));
+    }
+
+    @Test
+    public void shouldDisposeRemovedVehiclesWhenNoSearchSeesThem() {
+        // given
+        IntersectionVertex street = new IntersectionVertex(graph, "street", 1, 2);
+        TemporaryFreeEdge linkingEdge = new TemporaryFreeEdge(vertex, street);
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
+        VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                emptyList(), singleton(new Provider(2, "PANEK")));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        assertTrue(graph.getRentableVehicleOverlay().getVehiclesTriedToLink().isEmpty());
+        assertEquals(singletonList(vertex), graph.getRentableVehicleOverlay().getRemovedVertices());
+        assertFalse(street.getIncoming().contains(linkingEdge));
+    }
+
+    @Test
+    public void shouldKeepRemovedVehiclesWhileSearchPinsOlderOverlay() {
+        // given
+        IntersectionVertex street = new IntersectionVertex(graph, "street", 1, 2);
+        TemporaryFreeEdge linkingEdge = new TemporaryFreeEdge(vertex, street);
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
+        Object routingContext = new Object();
+        RentableVehicleOverlay pinnedOverlay = graph.pinRentableVehicleOverlay(routingContext);
+        VehicleSharingGraphWriterRunnable removingRunnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                emptyList(), singleton(new Provider(2, "PANEK")));
+        VehicleSharingGraphWriterRunnable nextRunnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                emptyList(), singleton(new Provider(2, "PANEK")));
+
+        // when
+        removingRunnable.run(graph);
+        nextRunnable.run(graph);
+
+        // then
+        assertEquals(1, pinnedOverlay.getVersion());
+        assertEquals(3, graph.getRentableVehicleOverlay().getVersion());
+        assertTrue(street.getIncoming().contains(linkingEdge));
+
+        // when
+        pinnedOverlay.unpin(routingContext);
+        new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter, emptyList(), singleton(new Provider(2, "PANEK")))
+                .run(graph);
+
+        // then
+        assertFalse(street.getIncoming().contains(linkingEdge));
+        assertFalse(pinnedOverlay.pin(routingContext));
+    }
+
+    @Test
+    public void shouldUpdateAttributesOfVehicleInPlace() {
+        // given
+        RentVehicleEdge rentVehicleEdge = new RentVehicleEdge(vertex, CAR_1);
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
+        VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                singletonList(CAR_1_CHARGED), singleton(new Provider(2, "PANEK")));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        RentableVehicleOverlay overlay = graph.getRentableVehicleOverlay();
+        assertSame(CAR_1_CHARGED, rentVehicleEdge.getVehicle());
+        assertSame(CAR_1_CHARGED, getOnlyVehicle(overlay));
+        assertEquals(Optional.of(vertex), overlay.getVehiclesTriedToLink().get(CAR_1_CHARGED));
+        assertTrue(overlay.getRemovedVertices().isEmpty());
+        assertEquals(1, overlay.getUpdateStatistics().getAttributesChangedCount());
+        verifyZeroInteractions(temporaryStreetSplitter);
+    }
+
+    @Test
+    public void shouldRelinkMovedVehicleInNextVersion() {
+        // given
+        RentVehicleEdge rentVehicleEdge = new RentVehicleEdge(vertex, CAR_1);
+        graph.publishRentableVehicleOverlay(new RentableVehicleOverlay(1, singletonMap(CAR_1, Optional.of(vertex)), emptyList()));
+        when(temporaryStreetSplitter.linkRentableVehiclesToGraph(singletonList(CAR_1_MOVED), 2))
+                .thenReturn(singletonMap(CAR_1_MOVED, Optional.of(vertex2)));
+        VehicleSharingGraphWriterRunnable runnable = new VehicleSharingGraphWriterRunnable(temporaryStreetSplitter,
+                singletonList(CAR_1_MOVED), singleton(new Provider(2, "PANEK")));
+
+        // when
+        runnable.run(graph);
+
+        // then
+        RentableVehicleOverlay overlay = graph.getRentableVehicleOverlay();
+        assertSame(CAR_1, rentVehicleEdge.getVehicle());
+        assertSame(CAR_1_MOVED, getOnlyVehicle(overlay));
+        assertEquals(Optional.of(vertex2), overlay.getVehiclesTriedToLink().get(CAR_1_MOVED));
+        assertEquals(singletonList(vertex), overlay.getRemovedVertices());
+        assertEquals(1, overlay.getUpdateStatistics().getRelinkedCount());
+        verify(temporaryStreetSplitter, times(1)).linkRentableVehiclesToGraph(singletonList(CAR_1_MOVED), 2);
+        verifyNoMoreInteractions(temporaryStreetSplitter);
+    }
+
+    private VehicleDescription getOnlyVehicle(RentableVehicleOverlay overlay) {
+        assertEquals(1, overlay.getVehiclesTriedToLink().size());
+        return overlay.getVehiclesTriedToLink().keySet().iterator().next();
+    }
 }